@@ -17,6 +17,8 @@ public class CaptureProcessConfig extends Configuration {
     private int failedCaptureRetryDelayInSeconds;
     private int queueSchedulerThreadDelayInSeconds;
     private int queueSchedulerNumberOfThreads;
+    private int captureConcurrency = 1;
+    private int captureConcurrencyPerGateway = 0;
 
     public int getChargesConsideredOverdueForCaptureAfter() {
         return chargesConsideredOverdueForCaptureAfter;
@@ -39,4 +41,12 @@ public class CaptureProcessConfig extends Configuration {
     public int getQueueSchedulerNumberOfThreads() {
         return queueSchedulerNumberOfThreads;
     }
+
+    public int getCaptureConcurrency() {
+        return captureConcurrency;
+    }
+
+    public int getCaptureConcurrencyPerGateway() {
+        return captureConcurrencyPerGateway;
+    }
 }
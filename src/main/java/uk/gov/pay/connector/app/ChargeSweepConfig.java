@@ -2,11 +2,19 @@ package uk.gov.pay.connector.app;
 
 import io.dropwizard.Configuration;
 
+import javax.validation.constraints.Min;
+
 public class ChargeSweepConfig extends Configuration {
 
     private int defaultChargeExpiryThreshold;
     private int awaitingCaptureExpiryThreshold;
 
+    @Min(0)
+    private int expiryPageSize = 0;
+
+    @Min(1)
+    private int gatewayExpiryConcurrency = 1;
+
     public int getDefaultChargeExpiryThreshold() {
         return defaultChargeExpiryThreshold;
     }
@@ -14,4 +22,18 @@ public class ChargeSweepConfig extends Configuration {
     public int getAwaitingCaptureExpiryThreshold() {
         return awaitingCaptureExpiryThreshold;
     }
+
+    /**
+     * Number of charges to load and expire at a time. When zero, all charges due to expire are loaded at once.
+     */
+    public int getExpiryPageSize() {
+        return expiryPageSize;
+    }
+
+    /**
+     * Maximum number of concurrent expiries that involve calls to any one payment gateway
+     */
+    public int getGatewayExpiryConcurrency() {
+        return gatewayExpiryConcurrency;
+    }
 }
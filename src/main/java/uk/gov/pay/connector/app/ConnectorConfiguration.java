@@ -8,8 +8,12 @@ import uk.gov.pay.connector.app.config.Authorisation3dsConfig;
 import uk.gov.pay.connector.app.config.EmittedEventSweepConfig;
 import uk.gov.pay.connector.app.config.EventEmitterConfig;
 import uk.gov.pay.connector.app.config.ExpungeConfig;
+import uk.gov.pay.connector.app.config.GatewayAccountCacheConfig;
+import uk.gov.pay.connector.app.config.GatewayConcurrencyLimitConfig;
+import uk.gov.pay.connector.app.config.LedgerClientConfig;
 import uk.gov.pay.connector.app.config.PayoutReconcileProcessConfig;
 import uk.gov.pay.connector.app.config.RestClientConfig;
+import uk.gov.pay.connector.app.config.ReverseDnsLookupConfig;
 import uk.gov.pay.connector.gateway.PaymentGatewayName;
 
 import javax.validation.Valid;
@@ -25,6 +29,10 @@ public class ConnectorConfiguration extends Configuration {
     @NotNull
     private ExecutorServiceConfig executorServiceConfig = new ExecutorServiceConfig();
 
+    @Valid
+    @NotNull
+    private GatewayConcurrencyLimitConfig gatewayConcurrencyLimitConfig = new GatewayConcurrencyLimitConfig();
+
     @Valid
     @NotNull
     private CaptureProcessConfig captureProcessConfig;
@@ -129,10 +137,34 @@ public class ConnectorConfiguration extends Configuration {
     @JsonProperty("ledgerBaseURL")
     private String ledgerBaseUrl;
 
+    @Valid
+    @NotNull
+    private LedgerClientConfig ledgerClientConfig = new LedgerClientConfig();
+
     public String getLedgerBaseUrl() {
         return ledgerBaseUrl;
     }
 
+    public LedgerClientConfig getLedgerClientConfig() {
+        return ledgerClientConfig;
+    }
+
+    @Valid
+    @NotNull
+    private ReverseDnsLookupConfig reverseDnsLookupConfig = new ReverseDnsLookupConfig();
+
+    public ReverseDnsLookupConfig getReverseDnsLookupConfig() {
+        return reverseDnsLookupConfig;
+    }
+
+    @Valid
+    @NotNull
+    private GatewayAccountCacheConfig gatewayAccountCacheConfig = new GatewayAccountCacheConfig();
+
+    public GatewayAccountCacheConfig getGatewayAccountCacheConfig() {
+        return gatewayAccountCacheConfig;
+    }
+
     @JsonProperty("database")
     public DataSourceFactory getDataSourceFactory() {
         return dataSourceFactory;
@@ -189,6 +221,10 @@ public class ConnectorConfiguration extends Configuration {
         return executorServiceConfig;
     }
 
+    public GatewayConcurrencyLimitConfig getGatewayConcurrencyLimitConfig() {
+        return gatewayConcurrencyLimitConfig;
+    }
+
     public NotifyConfiguration getNotifyConfiguration() {
         return notifyConfig;
     }
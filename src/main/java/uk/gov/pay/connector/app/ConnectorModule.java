@@ -7,6 +7,7 @@ import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.AmazonSQSClientBuilder;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 import com.google.inject.name.Named;
@@ -14,9 +15,12 @@ import com.google.inject.persist.jpa.JpaPersistModule;
 import io.dropwizard.db.DataSourceFactory;
 import io.dropwizard.setup.Environment;
 import org.apache.commons.validator.routines.InetAddressValidator;
+import uk.gov.pay.connector.app.config.GatewayAccountCacheConfig;
+import uk.gov.pay.connector.app.config.ReverseDnsLookupConfig;
 import uk.gov.pay.connector.charge.service.Worldpay3dsFlexJwtService;
 import uk.gov.pay.connector.charge.util.JwtGenerator;
 import uk.gov.pay.connector.common.validator.RequestValidator;
+import uk.gov.pay.connector.gateway.AsyncGatewayClient;
 import uk.gov.pay.connector.gateway.GatewayClient;
 import uk.gov.pay.connector.gateway.GatewayClientFactory;
 import uk.gov.pay.connector.gateway.PaymentProviders;
@@ -25,9 +29,13 @@ import uk.gov.pay.connector.gateway.epdq.SignatureGenerator;
 import uk.gov.pay.connector.gatewayaccount.resource.GatewayAccountRequestValidator;
 import uk.gov.pay.connector.gatewayaccount.service.GatewayAccountServicesFactory;
 import uk.gov.pay.connector.paymentprocessor.service.CardExecutorService;
+import uk.gov.pay.connector.queue.statetransition.DatabaseStateTransitionQueue;
 import uk.gov.pay.connector.queue.statetransition.StateTransitionQueue;
 import uk.gov.pay.connector.usernotification.govuknotify.NotifyClientFactory;
+import uk.gov.pay.connector.util.CachingReverseDnsLookup;
+import uk.gov.pay.connector.util.CidrTrie;
 import uk.gov.pay.connector.util.CidrUtils;
+import uk.gov.pay.connector.util.ConnectorSessionCustomiser;
 import uk.gov.pay.connector.util.HashUtil;
 import uk.gov.pay.connector.util.IpAddressMatcher;
 import uk.gov.pay.connector.util.JsonObjectMapper;
@@ -42,6 +50,8 @@ import java.time.Clock;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static uk.gov.pay.connector.gateway.GatewayOperation.AUTHORISE;
@@ -52,6 +62,8 @@ import static uk.gov.pay.connector.gateway.GatewayOperation.REFUND;
 import static uk.gov.pay.connector.gateway.PaymentGatewayName.WORLDPAY;
 
 public class ConnectorModule extends AbstractModule {
+    private static final int REVERSE_DNS_LOOKUP_THREADS = 4;
+
     final ConnectorConfiguration configuration;
     final Environment environment;
 
@@ -67,6 +79,7 @@ public class ConnectorModule extends AbstractModule {
         bind(CardExecutorService.class).in(Singleton.class);
         bind(ApplePayDecrypter.class).in(Singleton.class);
         bind(PaymentProviders.class).in(Singleton.class);
+        bind(GatewayClientFactory.class).in(Singleton.class);
         bind(HashUtil.class);
         bind(RequestValidator.class);
         bind(GatewayAccountRequestValidator.class).in(Singleton.class);
@@ -92,6 +105,19 @@ public class ConnectorModule extends AbstractModule {
         properties.put("eclipselink.cache.shared.default", jpaConfiguration.getCacheSharedDefault());
         properties.put("eclipselink.ddl-generation.output-mode", jpaConfiguration.getDdlGenerationOutputMode());
 
+        if (jpaConfiguration.getJdbcBatchSize() > 0) {
+            properties.put("eclipselink.jdbc.batch-writing", "JDBC");
+            properties.put("eclipselink.jdbc.batch-writing.size", String.valueOf(jpaConfiguration.getJdbcBatchSize()));
+        }
+
+        GatewayAccountCacheConfig gatewayAccountCacheConfig = configuration.getGatewayAccountCacheConfig();
+        if (gatewayAccountCacheConfig.isEnabled()) {
+            properties.put(ConnectorSessionCustomiser.SHARED_CACHE_SIZE_PROPERTY,
+                    String.valueOf(gatewayAccountCacheConfig.getMaximumSize()));
+            properties.put(ConnectorSessionCustomiser.SHARED_CACHE_TTL_MILLIS_PROPERTY,
+                    String.valueOf(TimeUnit.SECONDS.toMillis(gatewayAccountCacheConfig.getTtlInSeconds())));
+        }
+
         if (configuration.isXrayEnabled()) {
             properties.put("eclipselink.session.customizer", "uk.gov.pay.connector.util.ConnectorSessionCustomiserWithXrayProfiling");
         } else {
@@ -122,7 +148,16 @@ public class ConnectorModule extends AbstractModule {
     }
 
     protected ReverseDnsLookup getReverseDnsLookup() {
-        return new ReverseDnsLookup();
+        ReverseDnsLookupConfig config = configuration.getReverseDnsLookupConfig();
+        ReverseDnsLookup reverseDnsLookup = new ReverseDnsLookup(config.getTimeoutInMillis());
+        if (config.getCacheTtlInSeconds() == 0) {
+            return reverseDnsLookup;
+        }
+        ExecutorService executorService = environment.lifecycle().executorService("reverse-dns-lookup-%d")
+                .minThreads(REVERSE_DNS_LOOKUP_THREADS)
+                .maxThreads(REVERSE_DNS_LOOKUP_THREADS)
+                .build();
+        return new CachingReverseDnsLookup(reverseDnsLookup, config, executorService, environment.metrics(), Clock.systemUTC());
     }
 
     @Provides
@@ -164,6 +199,13 @@ public class ConnectorModule extends AbstractModule {
         return gatewayClientFactory.createGatewayClient(WORLDPAY, AUTHORISE, environment.metrics());
     }
 
+    @Provides
+    @Singleton
+    @Named("WorldpayAuthoriseAsyncGatewayClient")
+    public AsyncGatewayClient worldpayAuthoriseAsyncGatewayClient(GatewayClientFactory gatewayClientFactory) {
+        return gatewayClientFactory.createAsyncGatewayClient(WORLDPAY, AUTHORISE, environment.metrics());
+    }
+
     @Provides
     @Singleton
     @Named("WorldpayCancelGatewayClient")
@@ -180,9 +222,9 @@ public class ConnectorModule extends AbstractModule {
 
     @Provides
     @Singleton
-    @Named("AllowedEpdqIpAddresses")
-    public Set<String> allowedEpdqIpAddresses(ConnectorConfiguration config) {
-        return CidrUtils.getIpAddresses(config.getEpdqConfig().getAllowedCidrs());
+    @Named("AllowedEpdqCidrs")
+    public CidrTrie allowedEpdqCidrs(ConnectorConfiguration config) {
+        return CidrTrie.of(config.getEpdqConfig().getAllowedCidrs());
     }
 
     @Provides
@@ -201,9 +243,9 @@ public class ConnectorModule extends AbstractModule {
 
     @Provides
     @Singleton
-    @Named("AllowedStripeIpAddresses")
-    public Set<String> allowedStripeIpAddresses(StripeGatewayConfig config) {
-        return CidrUtils.getIpAddresses(config.getAllowedCidrs());
+    @Named("AllowedStripeCidrs")
+    public CidrTrie allowedStripeCidrs(StripeGatewayConfig config) {
+        return CidrTrie.of(config.getAllowedCidrs());
     }
 
     @Provides
@@ -253,7 +295,10 @@ public class ConnectorModule extends AbstractModule {
 
     @Provides
     @Singleton
-    public StateTransitionQueue stateTransitionQueue() {
+    public StateTransitionQueue stateTransitionQueue(Provider<DatabaseStateTransitionQueue> databaseStateTransitionQueue) {
+        if (configuration.getEventQueueConfig().isDurableStateTransitionQueueEnabled()) {
+            return databaseStateTransitionQueue.get();
+        }
         return getStateTransitionQueue();
     }
 
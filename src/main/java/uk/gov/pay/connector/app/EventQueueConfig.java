@@ -5,6 +5,11 @@ import io.dropwizard.Configuration;
 public class EventQueueConfig extends Configuration {
     private Boolean eventQueueEnabled;
     private int paymentStateTransitionPollerNumberOfThreads;
+    // 1 deliberately keeps emitting events one at a time unless batching is configured
+    private int publishingBatchSize = 1;
+    private int publishingLingerTimeInMillis = 50;
+    private boolean durableStateTransitionQueueEnabled = false;
+    private int stateTransitionEmitterNumberOfLanes = 0;
 
     public Boolean getEventQueueEnabled() {
         return eventQueueEnabled;
@@ -13,4 +18,20 @@ public class EventQueueConfig extends Configuration {
     public int getPaymentStateTransitionPollerNumberOfThreads() {
         return paymentStateTransitionPollerNumberOfThreads;
     }
+
+    public int getPublishingBatchSize() {
+        return publishingBatchSize;
+    }
+
+    public int getPublishingLingerTimeInMillis() {
+        return publishingLingerTimeInMillis;
+    }
+
+    public boolean isDurableStateTransitionQueueEnabled() {
+        return durableStateTransitionQueueEnabled;
+    }
+
+    public int getStateTransitionEmitterNumberOfLanes() {
+        return stateTransitionEmitterNumberOfLanes;
+    }
 }
@@ -4,8 +4,23 @@ import io.dropwizard.Configuration;
 
 public class ExecutorServiceConfig extends Configuration {
 
+    public enum ExecutionMode {
+        /**
+         * A fixed pool of threadsPerCpu threads per processor; excess tasks wait in an unbounded queue
+         */
+        FIXED,
+        /**
+         * Starts with threadsPerCpu threads per processor and grows to maxThreadsPerCpu threads per processor
+         * before queueing, so that tasks blocked on slow gateway calls do not delay new authorisations
+         */
+        ELASTIC
+    }
+
     private int threadsPerCpu;
     private int timeoutInSeconds;
+    private ExecutionMode executionMode = ExecutionMode.FIXED;
+    private int maxThreadsPerCpu;
+    private int idleThreadTimeoutInSeconds = 60;
 
     public int getThreadsPerCpu() {
         return threadsPerCpu;
@@ -14,4 +29,24 @@ public class ExecutorServiceConfig extends Configuration {
     public int getTimeoutInSeconds() {
         return timeoutInSeconds;
     }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public int getMaxThreadsPerCpu() {
+        return maxThreadsPerCpu;
+    }
+
+    public int getIdleThreadTimeoutInSeconds() {
+        return idleThreadTimeoutInSeconds;
+    }
+
+    public int getMaximumNumberOfThreads(int availableProcessors) {
+        int numberOfThreads = threadsPerCpu * availableProcessors;
+        if (executionMode == ExecutionMode.ELASTIC) {
+            return Math.max(numberOfThreads, maxThreadsPerCpu * availableProcessors);
+        }
+        return numberOfThreads;
+    }
 }
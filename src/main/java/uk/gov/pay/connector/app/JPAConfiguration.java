@@ -2,6 +2,8 @@ package uk.gov.pay.connector.app;
 
 import io.dropwizard.Configuration;
 
+import javax.validation.constraints.Min;
+
 public class JPAConfiguration extends Configuration {
 
     private String jpaLoggingLevel;
@@ -10,6 +12,9 @@ public class JPAConfiguration extends Configuration {
     private String queryResultsCache;
     private String cacheSharedDefault;
 
+    @Min(0)
+    private int jdbcBatchSize = 0;
+
     public String getJpaLoggingLevel() {
         return jpaLoggingLevel;
     }
@@ -29,4 +34,12 @@ public class JPAConfiguration extends Configuration {
     public String getCacheSharedDefault() {
         return cacheSharedDefault;
     }
+
+    /**
+     * The number of inserts, updates and deletes to send to the database in one JDBC batch when a
+     * transaction is committed, or 0 to send them one at a time
+     */
+    public int getJdbcBatchSize() {
+        return jdbcBatchSize;
+    }
 }
@@ -12,6 +12,10 @@ public class WorldpayConfig extends GatewayConfig {
     private boolean secureNotificationEnabled;
     
     private String notificationDomain;
+
+    private boolean streamingResponseParserEnabled;
+
+    private boolean asyncAuthorisationEnabled;
     
     @Valid
     @NotNull
@@ -29,6 +33,14 @@ public class WorldpayConfig extends GatewayConfig {
         return secureNotificationEnabled;
     }
 
+    public boolean isStreamingResponseParserEnabled() {
+        return streamingResponseParserEnabled;
+    }
+
+    public boolean isAsyncAuthorisationEnabled() {
+        return asyncAuthorisationEnabled;
+    }
+
     @JsonProperty("applePay")
     public ApplePayConfig getApplePayConfig() {
         return applePayConfig;
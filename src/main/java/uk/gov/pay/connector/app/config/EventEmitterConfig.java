@@ -5,8 +5,18 @@ import io.dropwizard.Configuration;
 public class EventEmitterConfig extends Configuration {
     
     private long defaultDoNotRetryEmittingEventUntilDurationInSeconds;
+    private int idRangePageSize = 100;
+    private int idRangeNumberOfThreads = 1;
 
     public long getDefaultDoNotRetryEmittingEventUntilDurationInSeconds() {
         return defaultDoNotRetryEmittingEventUntilDurationInSeconds;
     }
+
+    public int getIdRangePageSize() {
+        return idRangePageSize;
+    }
+
+    public int getIdRangeNumberOfThreads() {
+        return idRangeNumberOfThreads;
+    }
 }
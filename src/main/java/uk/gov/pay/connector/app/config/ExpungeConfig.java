@@ -35,6 +35,9 @@ public class ExpungeConfig extends Configuration {
     @Min(0)
     private int excludeChargesOrRefundsParityCheckedWithInDays;
 
+    @Min(1)
+    private int chargeExpungeBatchSize = 1;
+
     private boolean expungeChargesEnabled;
 
     private boolean expungeRefundsEnabled;
@@ -63,6 +66,10 @@ public class ExpungeConfig extends Configuration {
         return minimumAgeForHistoricRefundExceptions;
     }
 
+    public int getChargeExpungeBatchSize() {
+        return chargeExpungeBatchSize;
+    }
+
     public boolean isExpungeChargesEnabled() {
         return expungeChargesEnabled;
     }
@@ -0,0 +1,39 @@
+package uk.gov.pay.connector.app.config;
+
+import io.dropwizard.Configuration;
+
+import javax.validation.constraints.Min;
+
+public class GatewayAccountCacheConfig extends Configuration {
+
+    private boolean enabled = false;
+
+    @Min(1)
+    private int maximumSize = 1000;
+
+    @Min(1)
+    private int ttlInSeconds = 60;
+
+    /**
+     * Whether gateway accounts, their card types, email notifications and credentials are held in the
+     * EclipseLink shared cache rather than read from the database by every request
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The maximum number of entities of each type held in the cache
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * How long a cached entity is used before it is read from the database again. This bounds how long
+     * another connector instance can serve an account after it has been updated.
+     */
+    public int getTtlInSeconds() {
+        return ttlInSeconds;
+    }
+}
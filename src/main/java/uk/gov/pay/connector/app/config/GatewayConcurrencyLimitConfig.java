@@ -0,0 +1,67 @@
+package uk.gov.pay.connector.app.config;
+
+import io.dropwizard.Configuration;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+
+public class GatewayConcurrencyLimitConfig extends Configuration {
+
+    private boolean enabled = false;
+
+    @Min(1)
+    private int initialLimit = 50;
+
+    @Min(1)
+    private int minimumLimit = 5;
+
+    @Min(1)
+    private int maximumLimit = 500;
+
+    @DecimalMin("0.01")
+    @DecimalMax("1.0")
+    private double maximumShareOfExecutor = 0.5;
+
+    @Min(1)
+    private long latencyThresholdInMillis = 10000;
+
+    @DecimalMin("1.1")
+    private double baselineLatencyMultiplier = 2.0;
+
+    @DecimalMin("0.1")
+    @DecimalMax("0.99")
+    private double backoffRatio = 0.9;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinimumLimit() {
+        return minimumLimit;
+    }
+
+    public int getMaximumLimit() {
+        return maximumLimit;
+    }
+
+    public double getMaximumShareOfExecutor() {
+        return maximumShareOfExecutor;
+    }
+
+    public long getLatencyThresholdInMillis() {
+        return latencyThresholdInMillis;
+    }
+
+    public double getBaselineLatencyMultiplier() {
+        return baselineLatencyMultiplier;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+}
@@ -0,0 +1,15 @@
+package uk.gov.pay.connector.app.config;
+
+import io.dropwizard.Configuration;
+
+import javax.validation.constraints.Min;
+
+public class LedgerClientConfig extends Configuration {
+
+    @Min(1)
+    private int maxConcurrentRequests = 1;
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+}
@@ -0,0 +1,45 @@
+package uk.gov.pay.connector.app.config;
+
+import io.dropwizard.Configuration;
+
+import javax.validation.constraints.Min;
+
+public class ReverseDnsLookupConfig extends Configuration {
+
+    @Min(0)
+    private int timeoutInMillis = 0;
+
+    @Min(0)
+    private int cacheTtlInSeconds = 0;
+
+    @Min(0)
+    private int negativeCacheTtlInSeconds = 0;
+
+    @Min(1)
+    private int cacheMaximumSize = 10000;
+
+    /**
+     * How long to wait for a reverse DNS lookup. When zero, the JNDI DNS provider defaults are used.
+     */
+    public int getTimeoutInMillis() {
+        return timeoutInMillis;
+    }
+
+    /**
+     * How long a resolved host name is cached for. When zero, lookups are not cached or coalesced.
+     */
+    public int getCacheTtlInSeconds() {
+        return cacheTtlInSeconds;
+    }
+
+    /**
+     * How long a failed lookup is cached for
+     */
+    public int getNegativeCacheTtlInSeconds() {
+        return negativeCacheTtlInSeconds;
+    }
+
+    public int getCacheMaximumSize() {
+        return cacheMaximumSize;
+    }
+}
@@ -2,15 +2,20 @@ package uk.gov.pay.connector.cardtype.dao;
 
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
 import uk.gov.pay.connector.common.dao.JpaDao;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static uk.gov.pay.connector.util.ConnectorSessionCustomiser.SHARED_CACHE_TTL_MILLIS_PROPERTY;
+
 @Transactional
 public class CardTypeDao extends JpaDao<CardTypeEntity> {
 
@@ -26,8 +31,8 @@ public class CardTypeDao extends JpaDao<CardTypeEntity> {
     public List<CardTypeEntity> findAll() {
         String query = "SELECT ct FROM CardTypeEntity ct";
 
-        return super.entityManager.get()
-                .createQuery(query, CardTypeEntity.class)
+        return withCachedResults(super.entityManager.get()
+                .createQuery(query, CardTypeEntity.class))
                 .getResultList();
     }
 
@@ -35,8 +40,8 @@ public class CardTypeDao extends JpaDao<CardTypeEntity> {
         String query = "SELECT ct FROM CardTypeEntity ct " +
                 "WHERE ct.brand = :brand ";
 
-        return entityManager.get()
-                .createQuery(query, CardTypeEntity.class)
+        return withCachedResults(entityManager.get()
+                .createQuery(query, CardTypeEntity.class))
                 .setParameter("brand", brand)
                 .getResultList();
     }
@@ -45,8 +50,21 @@ public class CardTypeDao extends JpaDao<CardTypeEntity> {
         String query = "SELECT ct FROM CardTypeEntity ct " +
                 "WHERE ct.requires3ds = false ";
 
-        return entityManager.get()
-                .createQuery(query, CardTypeEntity.class)
+        return withCachedResults(entityManager.get()
+                .createQuery(query, CardTypeEntity.class))
                 .getResultList();
     }
+
+    /**
+     * Card types only change through migrations, so when the shared cache is enabled the results of
+     * these queries are cached for as long as the card types themselves
+     */
+    private TypedQuery<CardTypeEntity> withCachedResults(TypedQuery<CardTypeEntity> query) {
+        Object cacheTtlMillis = entityManager.get().getEntityManagerFactory().getProperties().get(SHARED_CACHE_TTL_MILLIS_PROPERTY);
+        if (cacheTtlMillis != null) {
+            query.setHint(QueryHints.QUERY_RESULTS_CACHE, HintValues.TRUE);
+            query.setHint(QueryHints.QUERY_RESULTS_CACHE_EXPIRY, cacheTtlMillis);
+        }
+        return query;
+    }
 }
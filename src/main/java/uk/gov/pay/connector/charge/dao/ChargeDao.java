@@ -2,11 +2,15 @@ package uk.gov.pay.connector.charge.dao;
 
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
+import org.eclipse.persistence.config.BatchFetchType;
+import org.eclipse.persistence.config.QueryHints;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.charge.model.domain.ParityCheckStatus;
 import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.common.model.domain.UTCDateTimeConverter;
 import uk.gov.pay.connector.events.model.ResourceType;
+import uk.gov.service.payments.commons.jpa.InstantToUtcTimestampWithoutTimeZoneConverter;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
@@ -20,8 +24,11 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_REQUIRED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURE_APPROVED;
@@ -32,6 +39,7 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
 
     private static final String STATUS = "status";
     private static final String CREATED_DATE = "createdDate";
+    private static final String ID = "id";
     private static final String FIND_CAPTURE_CHARGES_WHERE_CLAUSE =
             "WHERE (c.status=:captureApprovedStatus OR c.status=:captureApprovedRetryStatus)" +
                     "AND NOT EXISTS (" +
@@ -96,6 +104,21 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
                 .findFirst();
     }
 
+    /**
+     * Charges with any of the given external ids, read with one IN query rather than one query per charge.
+     * Charges that have been expunged are not returned.
+     */
+    public List<ChargeEntity> findByExternalIds(Collection<String> externalIds) {
+        if (externalIds.isEmpty()) {
+            return List.of();
+        }
+
+        return entityManager.get()
+                .createQuery("SELECT c FROM ChargeEntity c WHERE c.externalId IN :externalIds", ChargeEntity.class)
+                .setParameter("externalIds", externalIds)
+                .getResultList();
+    }
+
     public Optional<ChargeEntity> findByExternalIdAndGatewayAccount(String chargeExternalId, Long accountId) {
 
         String query = "SELECT c FROM ChargeEntity c " +
@@ -135,6 +158,26 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
         return query.getResultList();
     }
 
+    /**
+     * Keyset paged variant of {@link #findBeforeDateWithStatusIn(Instant, List)}, returning up to limit
+     * charges with an id greater than afterId in ascending id order
+     */
+    public List<ChargeEntity> findBeforeDateWithStatusIn(Instant date, List<ChargeStatus> statuses, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.get().getCriteriaBuilder();
+        CriteriaQuery<ChargeEntity> cq = cb.createQuery(ChargeEntity.class);
+        Root<ChargeEntity> charge = cq.from(ChargeEntity.class);
+
+        List<Predicate> predicates = buildParamPredicates(cb, charge, date, statuses);
+        predicates.add(cb.greaterThan(charge.get(ID), afterId));
+        cq.select(charge)
+                .where(predicates.toArray(new Predicate[]{}))
+                .orderBy(cb.asc(charge.get(ID)));
+
+        return entityManager.get().createQuery(cq)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     private List<Predicate> buildParamPredicates(CriteriaBuilder cb, Root<ChargeEntity> charge,
                                                  Instant toDate, List<ChargeStatus> internalStates) {
         List<Predicate> predicates = new ArrayList<>();
@@ -199,6 +242,44 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
                 .getResultList();
     }
 
+    /**
+     * Keyset page of charges in an id range. Fees are joined in the same query and charge events are
+     * loaded for the whole page with one additional IN query, rather than one query per charge for each.
+     */
+    public List<ChargeEntity> findByIdRange(Long afterId, Long maxId, int limit) {
+        return entityManager.get()
+                .createQuery("SELECT c FROM ChargeEntity c WHERE c.id > :afterId AND c.id <= :maxId ORDER BY c.id", ChargeEntity.class)
+                .setParameter("afterId", afterId)
+                .setParameter("maxId", maxId)
+                .setHint(QueryHints.LEFT_FETCH, "c.fee")
+                .setHint(QueryHints.BATCH, "c.events")
+                .setHint(QueryHints.BATCH_TYPE, BatchFetchType.IN)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public Optional<ChargeEntity> findByIdWithEventsAndFee(Long chargeId) {
+        return findByIdsWithEventsAndFee(List.of(chargeId)).stream().findFirst();
+    }
+
+    /**
+     * Charges with the given ids, in id order. Fees are joined in the same query and charge events are
+     * loaded for all of the charges with one additional IN query, rather than one query per charge for each.
+     */
+    public List<ChargeEntity> findByIdsWithEventsAndFee(Collection<Long> chargeIds) {
+        if (chargeIds.isEmpty()) {
+            return List.of();
+        }
+
+        return entityManager.get()
+                .createQuery("SELECT c FROM ChargeEntity c WHERE c.id IN :chargeIds ORDER BY c.id", ChargeEntity.class)
+                .setParameter("chargeIds", chargeIds)
+                .setHint(QueryHints.LEFT_FETCH, "c.fee")
+                .setHint(QueryHints.BATCH, "c.events")
+                .setHint(QueryHints.BATCH_TYPE, BatchFetchType.IN)
+                .getResultList();
+    }
+
     public Long findMaxId() {
         String query = "SELECT c.id FROM ChargeEntity c ORDER BY c.id DESC";
 
@@ -238,6 +319,75 @@ public class ChargeDao extends JpaDao<ChargeEntity> {
                 .getResultList().stream().findFirst();
     }
 
+    /**
+     * Claims a page of charges to expunge, oldest first, locking them until the end of the current
+     * transaction. Charges already locked by another expunge run are skipped rather than waited for.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ChargeEntity> findChargesToExpunge(int minimumAgeOfChargeInDays,
+                                                   int excludeChargesParityCheckedWithInDays,
+                                                   int limit) {
+        ZonedDateTime parityCheckedBeforeDate = ZonedDateTime.now()
+                .minus(Duration.ofDays(excludeChargesParityCheckedWithInDays))
+                .withZoneSameInstant(ZoneId.of("UTC"));
+
+        Instant createdBeforeDate = Instant.now().minus(Duration.ofDays(minimumAgeOfChargeInDays));
+
+        return entityManager.get()
+                .createNativeQuery("SELECT * FROM charges " +
+                        "WHERE (parity_check_date is null or parity_check_date < ?1) " +
+                        "AND created_date < ?2 " +
+                        "ORDER BY created_date asc " +
+                        "LIMIT ?3 " +
+                        "FOR UPDATE SKIP LOCKED", ChargeEntity.class)
+                .setParameter(1, new UTCDateTimeConverter().convertToDatabaseColumn(parityCheckedBeforeDate))
+                .setParameter(2, new InstantToUtcTimestampWithoutTimeZoneConverter().convertToDatabaseColumn(createdBeforeDate))
+                .setParameter(3, limit)
+                .getResultList();
+    }
+
+    /**
+     * Deletes charges and their dependent rows with one statement per table
+     */
+    public void expungeCharges(List<ChargeEntity> charges) {
+        if (charges.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = charges.stream().map(ChargeEntity::getId).collect(Collectors.toList());
+        List<String> externalIds = charges.stream().map(ChargeEntity::getExternalId).collect(Collectors.toList());
+        String idPlaceholders = placeholders(ids.size(), 1);
+
+        deleteWhereIn("delete from charge_events where charge_id in (" + idPlaceholders + ")", ids, 1);
+        deleteWhereIn("delete from tokens where charge_id in (" + idPlaceholders + ")", ids, 1);
+
+        Query deleteEmittedEvents = entityManager.get()
+                .createNativeQuery("delete from emitted_events where resource_type = ?1 " +
+                        "AND resource_external_id in (" + placeholders(externalIds.size(), 2) + ")")
+                .setParameter(1, ResourceType.PAYMENT.getLowercase());
+        setParameters(deleteEmittedEvents, externalIds, 2).executeUpdate();
+
+        deleteWhereIn("delete from fees where charge_id in (" + idPlaceholders + ")", ids, 1);
+        deleteWhereIn("delete from charges where id in (" + idPlaceholders + ")", ids, 1);
+    }
+
+    private void deleteWhereIn(String sql, List<?> values, int firstPosition) {
+        setParameters(entityManager.get().createNativeQuery(sql), values, firstPosition).executeUpdate();
+    }
+
+    private static String placeholders(int count, int firstPosition) {
+        return IntStream.range(firstPosition, firstPosition + count)
+                .mapToObj(position -> "?" + position)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static Query setParameters(Query query, List<?> values, int firstPosition) {
+        for (int i = 0; i < values.size(); i++) {
+            query.setParameter(firstPosition + i, values.get(i));
+        }
+        return query;
+    }
+
     public void expungeCharge(Long id, String externalId) {
 
         entityManager.get()
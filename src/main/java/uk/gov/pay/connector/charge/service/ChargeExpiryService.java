@@ -1,8 +1,13 @@
 package uk.gov.pay.connector.charge.service;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.persist.Transactional;
+import com.google.inject.persist.UnitOfWork;
+import io.dropwizard.setup.Environment;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +25,7 @@ import uk.gov.pay.connector.common.exception.InvalidForceStateTransitionExceptio
 import uk.gov.pay.connector.common.exception.InvalidStateTransitionException;
 import uk.gov.pay.connector.common.exception.OperationAlreadyInProgressRuntimeException;
 import uk.gov.pay.connector.gateway.GatewayException;
+import uk.gov.pay.connector.gateway.PaymentGatewayName;
 import uk.gov.pay.connector.gateway.PaymentProviders;
 import uk.gov.pay.connector.gateway.model.request.CancelGatewayRequest;
 import uk.gov.pay.connector.gateway.model.response.BaseCancelResponse;
@@ -34,12 +40,19 @@ import javax.ws.rs.WebApplicationException;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
@@ -68,8 +81,13 @@ public class ChargeExpiryService {
     private final TokenDao tokenDao;
     private final PaymentProviders providers;
     private final QueryService queryService;
+    private final UnitOfWork unitOfWork;
 
     private final ChargeSweepConfig chargeSweepConfig;
+    private final ExecutorService gatewayExpiryExecutor;
+
+    private final Timer sweepTimer;
+    private final Map<expiryMethod, Meter> expiryMethodMeters = new EnumMap<>(expiryMethod.class);
 
     @Inject
     public ChargeExpiryService(ChargeDao chargeDao,
@@ -77,13 +95,30 @@ public class ChargeExpiryService {
                                TokenDao tokenDao,
                                PaymentProviders providers,
                                QueryService queryService,
-                               ConnectorConfiguration config) {
+                               ConnectorConfiguration config,
+                               UnitOfWork unitOfWork,
+                               Environment environment) {
         this.chargeDao = chargeDao;
         this.chargeService = chargeService;
         this.tokenDao = tokenDao;
         this.providers = providers;
         this.chargeSweepConfig = config.getChargeSweepConfig();
         this.queryService = queryService;
+        this.unitOfWork = unitOfWork;
+
+        int gatewayExpiryThreads = chargeSweepConfig.getGatewayExpiryConcurrency() * PaymentGatewayName.values().length;
+        this.gatewayExpiryExecutor = chargeSweepConfig.getExpiryPageSize() > 0 ?
+                environment.lifecycle().executorService("charge-expiry-%d")
+                        .minThreads(gatewayExpiryThreads)
+                        .maxThreads(gatewayExpiryThreads)
+                        .build() :
+                null;
+
+        MetricRegistry metricRegistry = environment.metrics();
+        this.sweepTimer = metricRegistry.timer("charge-expiry.sweep.response_time");
+        for (expiryMethod method : expiryMethod.values()) {
+            expiryMethodMeters.put(method, metricRegistry.meter("charge-expiry." + method.name().toLowerCase()));
+        }
     }
 
     private enum expiryMethod {
@@ -92,18 +127,25 @@ public class ChargeExpiryService {
         CHECK_STATUS_WITH_GATEWAY_BEFORE_EXPIRING
     }
 
+    private enum ExpiryOutcome {
+        EXPIRED,
+        EXPIRE_FAILED,
+        OTHER
+    }
+
     Map<String, Integer> expire(List<ChargeEntity> charges) {
         Map<expiryMethod, List<ChargeEntity>> chargesGroupedByExpiryMethod = charges
                 .stream()
                 .collect(Collectors.groupingBy(this::getExpiryMethod));
+        chargesGroupedByExpiryMethod.forEach((method, chargesForMethod) -> expiryMethodMeters.get(method).mark(chargesForMethod.size()));
 
-        int expiredWithoutGatewaySuccess = expireChargesWithoutGateway(getNullSafeList(chargesGroupedByExpiryMethod.get(expiryMethod.EXPIRE_WITHOUT_GATEWAY)));
+        Pair<Integer, Integer> expireWithoutGatewayResult = expireChargesWithoutGateway(getNullSafeList(chargesGroupedByExpiryMethod.get(expiryMethod.EXPIRE_WITHOUT_GATEWAY)));
         Pair<Integer, Integer> expireWithCancellationResult = expireChargesWithGateway(getNullSafeList(chargesGroupedByExpiryMethod.get(expiryMethod.EXPIRE_WITH_GATEWAY)));
         Pair<Integer, Integer> expireOrForceTransitionResult = expireChargesOrPotentiallyForceTransitionState(getNullSafeList(chargesGroupedByExpiryMethod.get(expiryMethod.CHECK_STATUS_WITH_GATEWAY_BEFORE_EXPIRING)));
 
         return ImmutableMap.of(
-                EXPIRY_SUCCESS, expiredWithoutGatewaySuccess + expireWithCancellationResult.getLeft() + expireOrForceTransitionResult.getLeft(),
-                EXPIRY_FAILED, expireWithCancellationResult.getRight() + expireOrForceTransitionResult.getRight()
+                EXPIRY_SUCCESS, expireWithoutGatewayResult.getLeft() + expireWithCancellationResult.getLeft() + expireOrForceTransitionResult.getLeft(),
+                EXPIRY_FAILED, expireWithoutGatewayResult.getRight() + expireWithCancellationResult.getRight() + expireOrForceTransitionResult.getRight()
         );
     }
 
@@ -129,6 +171,15 @@ public class ChargeExpiryService {
     }
 
     public Map<String, Integer> sweepAndExpireChargesAndTokens() {
+        try (Timer.Context ignored = sweepTimer.time()) {
+            if (chargeSweepConfig.getExpiryPageSize() > 0) {
+                return sweepAndExpireChargesAndTokensInPages(chargeSweepConfig.getExpiryPageSize());
+            }
+            return sweepAndExpireAllChargesAndTokens();
+        }
+    }
+
+    private Map<String, Integer> sweepAndExpireAllChargesAndTokens() {
         List<ChargeEntity> chargesToExpire = new ImmutableList.Builder<ChargeEntity>()
                 .addAll(getChargesToExpireWithRegularExpiryThreshold())
                 .addAll(getChargesToExpireWithDelayedExpiryThreshold())
@@ -141,6 +192,39 @@ public class ChargeExpiryService {
         return expire(chargesToExpire);
     }
 
+    /**
+     * Expires charges a page at a time so that only one page of charges is held in memory. Gateway
+     * cancels and status queries for a page run concurrently, bounded per payment gateway.
+     */
+    private Map<String, Integer> sweepAndExpireChargesAndTokensInPages(int pageSize) {
+        deleteTokensOlderThanSpecifiedDate();
+
+        Map<String, Integer> results = new HashMap<>(Map.of(EXPIRY_SUCCESS, 0, EXPIRY_FAILED, 0));
+        int numberOfCharges = expireInPages(getExpiryDateForRegularCharges(), getRegularThresholdStatuses(), pageSize, results)
+                + expireInPages(getExpiryDateForAwaitingCaptureRequest(), getDelayedThresholdStatuses(), pageSize, results);
+
+        logger.info("Charges found for expiry - number_of_charges={}, page_size={}", numberOfCharges, pageSize);
+
+        return ImmutableMap.copyOf(results);
+    }
+
+    private int expireInPages(Instant expiryDate, List<ChargeStatus> statuses, int pageSize, Map<String, Integer> results) {
+        int numberOfCharges = 0;
+        long afterId = Long.MIN_VALUE;
+        List<ChargeEntity> page;
+        do {
+            page = chargeDao.findBeforeDateWithStatusIn(expiryDate, statuses, afterId, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+            numberOfCharges += page.size();
+            expire(page).forEach((key, count) -> results.merge(key, count, Integer::sum));
+            chargeDao.clear();
+        } while (page.size() == pageSize);
+        return numberOfCharges;
+    }
+
     private int deleteTokensOlderThanSpecifiedDate() {
         ZonedDateTime cutOffDate = ZonedDateTime.now(ZoneId.of("UTC")).minusDays(TOKEN_EXPIRY_DAYS);
         return tokenDao.deleteTokensOlderThanSpecifiedDate(cutOffDate);
@@ -148,103 +232,167 @@ public class ChargeExpiryService {
 
 
     private List<ChargeEntity> getChargesToExpireWithDelayedExpiryThreshold() {
-        return chargeDao.findBeforeDateWithStatusIn(getExpiryDateForAwaitingCaptureRequest(),
-                ExpirableChargeStatus.getValuesAsStream()
-                        .filter(ExpirableChargeStatus::isDelayedThresholdType)
-                        .map(ExpirableChargeStatus::getChargeStatus)
-                        .collect(Collectors.toList()));
+        return chargeDao.findBeforeDateWithStatusIn(getExpiryDateForAwaitingCaptureRequest(), getDelayedThresholdStatuses());
     }
 
     private List<ChargeEntity> getChargesToExpireWithRegularExpiryThreshold() {
-        return chargeDao.findBeforeDateWithStatusIn(getExpiryDateForRegularCharges(),
-                ExpirableChargeStatus.getValuesAsStream()
-                        .filter(ExpirableChargeStatus::isRegularThresholdType)
-                        .map(ExpirableChargeStatus::getChargeStatus)
-                        .collect(Collectors.toList()));
+        return chargeDao.findBeforeDateWithStatusIn(getExpiryDateForRegularCharges(), getRegularThresholdStatuses());
+    }
+
+    private static List<ChargeStatus> getDelayedThresholdStatuses() {
+        return ExpirableChargeStatus.getValuesAsStream()
+                .filter(ExpirableChargeStatus::isDelayedThresholdType)
+                .map(ExpirableChargeStatus::getChargeStatus)
+                .collect(Collectors.toList());
+    }
+
+    private static List<ChargeStatus> getRegularThresholdStatuses() {
+        return ExpirableChargeStatus.getValuesAsStream()
+                .filter(ExpirableChargeStatus::isRegularThresholdType)
+                .map(ExpirableChargeStatus::getChargeStatus)
+                .collect(Collectors.toList());
     }
 
-    private int expireChargesWithoutGateway(List<ChargeEntity> nonAuthSuccessCharges) {
+    private Pair<Integer, Integer> expireChargesWithoutGateway(List<ChargeEntity> nonAuthSuccessCharges) {
+        if (gatewayExpiryExecutor != null) {
+            return expireChargesWithoutGatewayInOneTransaction(nonAuthSuccessCharges);
+        }
+
         List<ChargeEntity> processedEntities = nonAuthSuccessCharges
                 .stream().map(chargeEntity -> chargeService.transitionChargeState(chargeEntity.getExternalId(), EXPIRED))
                 .collect(Collectors.toList());
 
-        return processedEntities.size();
+        return Pair.of(processedEntities.size(), 0);
+    }
+
+    /**
+     * Both exceptions caught here are thrown before the charge is changed, so a charge that cannot be expired
+     * (for example because it has moved on since the page was read) is counted as failed without rolling back
+     * the rest of the page
+     */
+    @Transactional
+    @SuppressWarnings("WeakerAccess")
+    public Pair<Integer, Integer> expireChargesWithoutGatewayInOneTransaction(List<ChargeEntity> nonAuthSuccessCharges) {
+        int expired = 0;
+        int failed = 0;
+        for (ChargeEntity chargeEntity : nonAuthSuccessCharges) {
+            try {
+                chargeService.transitionChargeState(chargeEntity.getExternalId(), EXPIRED);
+                expired++;
+            } catch (InvalidStateTransitionException | ChargeNotFoundRuntimeException e) {
+                logger.error("Error expiring charge - charge_external_id={}, error={}",
+                        chargeEntity.getExternalId(), e.getMessage());
+                failed++;
+            }
+        }
+        return Pair.of(expired, failed);
     }
 
     private Pair<Integer, Integer> expireChargesWithGateway(List<ChargeEntity> gatewayAuthorizedCharges) {
+        return countOutcomes(expireEach(gatewayAuthorizedCharges, this::expireWithGateway));
+    }
 
-        AtomicInteger expireCancelled = new AtomicInteger();
-        AtomicInteger expireCancelFailed = new AtomicInteger();
+    private Pair<Integer, Integer> expireChargesOrPotentiallyForceTransitionState(List<ChargeEntity> charges) {
+        return countOutcomes(expireEach(charges, this::expireOrPotentiallyForceTransitionState));
+    }
 
-        gatewayAuthorizedCharges.forEach(chargeEntity -> {
+    private ExpiryOutcome expireWithGateway(ChargeEntity chargeEntity) {
+        return getOutcome(expireChargeWithGatewayCleanup(chargeEntity));
+    }
 
-            ChargeEntity expiredCharge = expireChargeWithGatewayCleanup(chargeEntity);
+    private ExpiryOutcome expireOrPotentiallyForceTransitionState(ChargeEntity chargeEntity) {
+        Optional<ChargeStatus> gatewayStatus = queryService.getMappedGatewayStatus(chargeEntity);
+        if (gatewayStatus.isEmpty()) {
+            logger.info(format("Gateway status does not map to any charge " +
+                            "status in %s, expiring without cancelling on the gateway.",
+                    ChargeStatus.class.getCanonicalName()),
+                    kv(PAYMENT_EXTERNAL_ID, chargeEntity.getExternalId()));
+            chargeService.transitionChargeState(chargeEntity.getExternalId(), EXPIRED);
+            return ExpiryOutcome.EXPIRED;
+        }
 
-            if (EXPIRED.getValue().equals(expiredCharge.getStatus())) {
-                expireCancelled.getAndIncrement();
-            } else if (EXPIRE_CANCEL_FAILED.getValue().equals(expiredCharge.getStatus())) {
-                expireCancelFailed.getAndIncrement();
-            }
-        });
+        ChargeStatus status = gatewayStatus.get();
+        if (!status.toExternal().isFinished()) {
+            return getOutcome(expireChargeWithGatewayCleanup(chargeEntity));
+        }
 
-        return Pair.of(
-                expireCancelled.intValue(),
-                expireCancelFailed.intValue()
-        );
+        logger.info(format("Expiring charge skipped as charge is in a terminal state on the gateway " +
+                        "provider. Attempting to update charge state to [%s]", status.getValue()),
+                kv(PAYMENT_EXTERNAL_ID, chargeEntity.getExternalId()),
+                kv(GATEWAY_ACCOUNT_ID, chargeEntity.getGatewayAccount().getId()),
+                kv(PROVIDER, chargeEntity.getGatewayAccount().getGatewayName()));
+
+        // first try to transition to the terminal state gracefully if allowed, otherwise force the
+        // transition
+        try {
+            chargeService.transitionChargeState(chargeEntity.getExternalId(), status);
+            return ExpiryOutcome.EXPIRED;
+        } catch (InvalidStateTransitionException e) {
+            return forceTransitionChargeState(chargeEntity, status) ? ExpiryOutcome.EXPIRED : ExpiryOutcome.EXPIRE_FAILED;
+        }
     }
 
-    private Pair<Integer, Integer> expireChargesOrPotentiallyForceTransitionState(List<ChargeEntity> charges) {
-        AtomicInteger expireCancelled = new AtomicInteger();
-        AtomicInteger expireCancelFailed = new AtomicInteger();
-
-        charges.forEach(chargeEntity -> {
-            Optional<ChargeStatus> gatewayStatus = queryService.getMappedGatewayStatus(chargeEntity);
-            gatewayStatus.ifPresentOrElse(status ->
-                    {
-                        if (status.toExternal().isFinished()) {
-                            logger.info(format("Expiring charge skipped as charge is in a terminal state on the gateway " +
-                                            "provider. Attempting to update charge state to [%s]", status.getValue()),
-                                    kv(PAYMENT_EXTERNAL_ID, chargeEntity.getExternalId()),
-                                    kv(GATEWAY_ACCOUNT_ID, chargeEntity.getGatewayAccount().getId()),
-                                    kv(PROVIDER, chargeEntity.getGatewayAccount().getGatewayName()));
-
-                            // first try to transition to the terminal state gracefully if allowed, otherwise force the
-                            // transition
-                            try {
-                                chargeService.transitionChargeState(chargeEntity.getExternalId(), status);
-                                expireCancelled.getAndIncrement();
-                            } catch (InvalidStateTransitionException e) {
-                                if (forceTransitionChargeState(chargeEntity, status)) {
-                                    expireCancelled.getAndIncrement();
-                                } else {
-                                    expireCancelFailed.getAndIncrement();
-                                }
-                            }
-                        } else {
-                            ChargeEntity expiredCharge = expireChargeWithGatewayCleanup(chargeEntity);
-
-                            if (EXPIRED.getValue().equals(expiredCharge.getStatus())) {
-                                expireCancelled.getAndIncrement();
-                            } else if (EXPIRE_CANCEL_FAILED.getValue().equals(expiredCharge.getStatus())) {
-                                expireCancelFailed.getAndIncrement();
-                            }
-                        }
-                    },
-                    () -> {
-                        logger.info(format("Gateway status does not map to any charge " +
-                                        "status in %s, expiring without cancelling on the gateway.",
-                                ChargeStatus.class.getCanonicalName()),
-                                kv(PAYMENT_EXTERNAL_ID, chargeEntity.getExternalId()));
-                        chargeService.transitionChargeState(chargeEntity.getExternalId(), EXPIRED);
-                        expireCancelled.getAndIncrement();
-                    });
-        });
+    private static ExpiryOutcome getOutcome(ChargeEntity expiredCharge) {
+        if (EXPIRED.getValue().equals(expiredCharge.getStatus())) {
+            return ExpiryOutcome.EXPIRED;
+        } else if (EXPIRE_CANCEL_FAILED.getValue().equals(expiredCharge.getStatus())) {
+            return ExpiryOutcome.EXPIRE_FAILED;
+        }
+        return ExpiryOutcome.OTHER;
+    }
 
+    private static Pair<Integer, Integer> countOutcomes(List<ExpiryOutcome> outcomes) {
         return Pair.of(
-                expireCancelled.intValue(),
-                expireCancelFailed.intValue()
+                (int) outcomes.stream().filter(ExpiryOutcome.EXPIRED::equals).count(),
+                (int) outcomes.stream().filter(ExpiryOutcome.EXPIRE_FAILED::equals).count()
         );
     }
+
+    private List<ExpiryOutcome> expireEach(List<ChargeEntity> charges, Function<ChargeEntity, ExpiryOutcome> expiry) {
+        if (gatewayExpiryExecutor == null) {
+            return charges.stream().map(expiry).collect(Collectors.toList());
+        }
+
+        List<CompletableFuture<List<ExpiryOutcome>>> workers = new ArrayList<>();
+        charges.stream()
+                .collect(Collectors.groupingBy(ChargeEntity::getPaymentGatewayName))
+                .values()
+                .forEach(gatewayCharges -> {
+                    // workers reload each charge in their own unit of work rather than sharing this thread's entities
+                    Queue<String> pending = gatewayCharges.stream()
+                            .map(ChargeEntity::getExternalId)
+                            .collect(Collectors.toCollection(ConcurrentLinkedQueue::new));
+                    int numberOfWorkers = Math.min(chargeSweepConfig.getGatewayExpiryConcurrency(), gatewayCharges.size());
+                    for (int i = 0; i < numberOfWorkers; i++) {
+                        workers.add(CompletableFuture.supplyAsync(() -> expirePending(pending, expiry), gatewayExpiryExecutor));
+                    }
+                });
+
+        return workers.stream()
+                .map(CompletableFuture::join)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    private List<ExpiryOutcome> expirePending(Queue<String> pending, Function<ChargeEntity, ExpiryOutcome> expiry) {
+        List<ExpiryOutcome> outcomes = new ArrayList<>();
+        String chargeExternalId;
+        while ((chargeExternalId = pending.poll()) != null) {
+            unitOfWork.begin();
+            try {
+                ChargeEntity chargeEntity = chargeDao.findByExternalId(chargeExternalId)
+                        .orElseThrow(() -> new ChargeNotFoundRuntimeException(chargeExternalId));
+                outcomes.add(expiry.apply(chargeEntity));
+            } catch (RuntimeException e) {
+                logger.error("Error expiring charge - charge_external_id={}, error={}",
+                        chargeExternalId, e.getMessage());
+                outcomes.add(ExpiryOutcome.EXPIRE_FAILED);
+            } finally {
+                unitOfWork.end();
+            }
+        }
+        return outcomes;
+    }
     
     private boolean forceTransitionChargeState(ChargeEntity chargeEntity, ChargeStatus status) {
         try {
@@ -52,6 +52,7 @@ import uk.gov.pay.connector.common.service.PatchRequestBuilder;
 import uk.gov.pay.connector.events.EventService;
 import uk.gov.pay.connector.events.model.charge.PaymentDetailsEntered;
 import uk.gov.pay.connector.events.model.charge.UserEmailCollected;
+import uk.gov.pay.connector.gateway.PaymentGatewayName;
 import uk.gov.pay.connector.gateway.PaymentProviders;
 import uk.gov.pay.connector.gateway.model.AuthCardDetails;
 import uk.gov.pay.connector.gateway.model.PayersCardType;
@@ -74,6 +75,7 @@ import javax.ws.rs.core.UriInfo;
 import java.net.URI;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -629,6 +631,16 @@ public class ChargeService {
         return chargeDao.countChargesForImmediateCapture(notAttemptedWithin);
     }
 
+    /**
+     * Payment provider names of the charges with the given external ids, read with one query. Charges that are
+     * not in connector are left out.
+     */
+    public Map<String, PaymentGatewayName> findPaymentGatewayNamesByExternalId(Collection<String> chargeExternalIds) {
+        return chargeDao.findByExternalIds(chargeExternalIds)
+                .stream()
+                .collect(Collectors.toMap(ChargeEntity::getExternalId, ChargeEntity::getPaymentGatewayName));
+    }
+
     public ChargeEntity findChargeByExternalId(String chargeId) {
         return chargeDao.findByExternalId(chargeId)
                 .orElseThrow(() -> new ChargeNotFoundRuntimeException(chargeId));
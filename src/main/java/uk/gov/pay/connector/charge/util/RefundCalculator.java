@@ -3,6 +3,7 @@ package uk.gov.pay.connector.charge.util;
 import uk.gov.pay.connector.charge.model.domain.Charge;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.refund.model.domain.Refund;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 
 import java.util.List;
 
@@ -22,6 +23,10 @@ public class RefundCalculator {
         return CorporateCardSurchargeCalculator.getTotalAmountFor(charge) - getRefundedAmount(refundList);
     }
 
+    public static long getTotalAmountAvailableToBeRefunded(Charge charge, RefundSummary refundSummary) {
+        return CorporateCardSurchargeCalculator.getTotalAmountFor(charge) - refundSummary.getAmountSubmittedOrRefunded();
+    }
+
     public static long getTotalAmountAvailableToBeRefunded(ChargeEntity chargeEntity, List<Refund> refundList) {
         return CorporateCardSurchargeCalculator.getTotalAmountFor(chargeEntity) - getRefundedAmount(refundList);
     }
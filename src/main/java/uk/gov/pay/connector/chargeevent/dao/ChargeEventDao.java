@@ -9,8 +9,10 @@ import uk.gov.pay.connector.common.dao.JpaDao;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static uk.gov.pay.connector.chargeevent.model.domain.ChargeEventEntity.ChargeEventEntityBuilder.aChargeEventEntity;
 
@@ -32,25 +34,48 @@ public class ChargeEventDao extends JpaDao<ChargeEventEntity> {
                 .withStatus(ChargeStatus.fromString(chargeEntity.getStatus()))
                 .withGatewayEventDate(gatewayEventDate)
                 .build();
+        // the id comes from a preallocated block and the updated date is set on persist, so there is no need to
+        // flush and refresh to read them back; the insert is written with the rest of the transaction
         this.persist(chargeEventEntity);
-        this.flush();
-        this.forceRefresh(chargeEventEntity);
         return chargeEventEntity;
     }
 
-    public List<ChargeEventEntity> findChargeEvents(ZonedDateTime startDate, ZonedDateTime endDate, int page, int size) {
+    /**
+     * Finds the next page of charge events updated between the start and end dates (inclusive), in order of
+     * updated date and id. Pages are read by seeking past the last event of the previous page, rather than
+     * by offset, so each one costs the same however far into the date range it is.
+     *
+     * @param after the last event of the previous page, or null for the first page
+     */
+    public List<ChargeEventEntity> findChargeEvents(ZonedDateTime startDate, ZonedDateTime endDate, ChargeEventEntity after, int size) {
         String query = "SELECT ce FROM ChargeEventEntity ce " +
-                "WHERE ce.updated >= :startDate and ce.updated <= :endDate" +
-                " order by ce.updated asc";
+                "WHERE ce.updated >= :fromDate and ce.updated <= :endDate" +
+                (after == null ? "" : " and (ce.updated > :fromDate or ce.id > :afterId)") +
+                " order by ce.updated asc, ce.id asc";
 
-        int firstResult = (page - 1) * size;
-
-        return entityManager.get()
+        TypedQuery<ChargeEventEntity> typedQuery = entityManager.get()
                 .createQuery(query, ChargeEventEntity.class)
-                .setParameter("startDate", startDate)
+                .setParameter("fromDate", after == null ? startDate : after.getUpdated())
                 .setParameter("endDate", endDate)
-                .setFirstResult(firstResult)
-                .setMaxResults(size)
-                .getResultList();
+                .setMaxResults(size);
+
+        if (after != null) {
+            typedQuery.setParameter("afterId", after.getId());
+        }
+
+        return typedQuery.getResultList();
+    }
+
+    /**
+     * Streams the charge events updated between the start and end dates (inclusive), in order of updated
+     * date and id, reading them a page at a time as the stream is consumed.
+     */
+    public Stream<ChargeEventEntity> streamChargeEvents(ZonedDateTime startDate, ZonedDateTime endDate, int pageSize) {
+        return Stream.iterate(
+                findChargeEvents(startDate, endDate, null, pageSize),
+                page -> !page.isEmpty(),
+                page -> page.size() < pageSize ? List.of() :
+                        findChargeEvents(startDate, endDate, page.get(page.size() - 1), pageSize))
+                .flatMap(List::stream);
     }
 }
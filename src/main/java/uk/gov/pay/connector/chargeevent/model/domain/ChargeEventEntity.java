@@ -14,17 +14,25 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 
 @Entity
 @Table(name = "charge_events")
 @SequenceGenerator(name = "charge_events_id_seq",
-        sequenceName = "charge_events_id_seq", allocationSize = 1)
+        sequenceName = "charge_events_id_seq", allocationSize = ChargeEventEntity.ID_ALLOCATION_SIZE)
 public class ChargeEventEntity extends AbstractVersionedEntity {
 
+    /**
+     * Ids are taken from charge_events_id_seq in blocks of this size, which must match the increment of the sequence
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "charge_events_id_seq")
     @JsonIgnore
@@ -42,7 +50,7 @@ public class ChargeEventEntity extends AbstractVersionedEntity {
     @Convert(converter = UTCDateTimeConverter.class)
     private ZonedDateTime gatewayEventDate;
 
-    @Column(insertable = false, updatable = false)
+    @Column(updatable = false)
     @Convert(converter = LocalDateTimeConverter.class)
     private ZonedDateTime updated;
 
@@ -56,6 +64,14 @@ public class ChargeEventEntity extends AbstractVersionedEntity {
         this.updated = updated;
     }
 
+    @PrePersist
+    void setUpdatedIfNotSet() {
+        if (updated == null) {
+            // truncated to the precision of the column, so that this is the same as the value read back
+            updated = ZonedDateTime.now(ZoneId.of("UTC")).truncatedTo(ChronoUnit.MICROS);
+        }
+    }
+
     public Long getId() {
         return id;
     }
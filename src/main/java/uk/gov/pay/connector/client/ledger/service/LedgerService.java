@@ -14,7 +14,13 @@ import javax.ws.rs.client.Client;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 
 import static java.lang.String.format;
 import static net.logstash.logback.argument.StructuredArguments.kv;
@@ -28,20 +34,58 @@ public class LedgerService {
 
     private final Client client;
     private final String ledgerUrl;
+    private final int maxConcurrentRequests;
 
     @Inject
     public LedgerService(Client client, ConnectorConfiguration configuration) {
         this.client = client;
         this.ledgerUrl = configuration.getLedgerBaseUrl();
+        this.maxConcurrentRequests = configuration.getLedgerClientConfig().getMaxConcurrentRequests();
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
     }
 
     public Optional<LedgerTransaction> getTransaction(String id) {
-        var uri = UriBuilder
-                .fromPath(ledgerUrl)
-                .path(format("/v1/transaction/%s", id))
-                .queryParam("override_account_id_restriction", "true");
+        return getTransactionFromLedger(transactionUri(id));
+    }
 
-        return getTransactionFromLedger(uri);
+    /**
+     * Looks up several transactions at once, issuing the requests asynchronously with no more than
+     * the configured maximum number of requests in flight at any time.
+     *
+     * @return the transactions found keyed by id, with an empty value for any id Ledger does not know about
+     */
+    public Map<String, Optional<LedgerTransaction>> getTransactions(Collection<String> ids) {
+        Semaphore inFlightRequests = new Semaphore(maxConcurrentRequests);
+        Map<String, CompletableFuture<Optional<LedgerTransaction>>> lookups = new LinkedHashMap<>();
+
+        for (String id : ids) {
+            if (lookups.containsKey(id)) {
+                continue;
+            }
+            inFlightRequests.acquireUninterruptibly();
+            CompletableFuture<Optional<LedgerTransaction>> lookup;
+            try {
+                lookup = client
+                        .target(transactionUri(id))
+                        .request()
+                        .accept(MediaType.APPLICATION_JSON)
+                        .rx()
+                        .get()
+                        .toCompletableFuture()
+                        .thenApply(this::readTransaction);
+            } catch (RuntimeException e) {
+                inFlightRequests.release();
+                throw e;
+            }
+            lookups.put(id, lookup.whenComplete((transaction, throwable) -> inFlightRequests.release()));
+        }
+
+        Map<String, Optional<LedgerTransaction>> transactions = new LinkedHashMap<>();
+        lookups.forEach((id, lookup) -> transactions.put(id, join(id, lookup)));
+        return transactions;
     }
 
     public Optional<LedgerTransaction> getTransactionForProviderAndGatewayTransactionId(String paymentGatewayName,
@@ -88,16 +132,35 @@ public class LedgerService {
         }
     }
 
+    private UriBuilder transactionUri(String id) {
+        return UriBuilder
+                .fromPath(ledgerUrl)
+                .path(format("/v1/transaction/%s", id))
+                .queryParam("override_account_id_restriction", "true");
+    }
+
     private Optional<LedgerTransaction> getTransactionFromLedger(UriBuilder uri) {
-        Response response = getResponse(uri);
+        return readTransaction(getResponse(uri));
+    }
 
+    private Optional<LedgerTransaction> readTransaction(Response response) {
         if (response.getStatus() == SC_OK) {
             return Optional.of(response.readEntity(LedgerTransaction.class));
         }
 
+        response.close();
         return Optional.empty();
     }
 
+    private Optional<LedgerTransaction> join(String id, CompletableFuture<Optional<LedgerTransaction>> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            logger.error("Error getting transaction from ledger [transaction_id={}]", id);
+            throw new LedgerException(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        }
+    }
+
     private Response getResponse(UriBuilder uri) {
         return client
                 .target(uri)
@@ -23,6 +23,13 @@ public abstract class JpaDao<T> {
         entityManager.get().flush();
     }
 
+    /**
+     * Detaches all managed entities, so that entities loaded by earlier queries can be garbage collected
+     */
+    public void clear() {
+        entityManager.get().clear();
+    }
+
     public void remove(final T object) {
         entityManager.get().remove(object);
     }
@@ -87,25 +87,34 @@ import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.USER_CANCEL_
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.USER_CANCEL_SUBMITTED;
 
 public class PaymentGatewayStateTransitions {
-    private static PaymentGatewayStateTransitions instance;
 
-    private static Map<ChargeStatus, ModelledTypedEvent> eventsForForceUpdatingStatus = Map.of(
+    private static final Map<ChargeStatus, ModelledTypedEvent> eventsForForceUpdatingStatus = Map.of(
             CAPTURED, new ModelledTypedEvent<>(StatusCorrectedToCapturedToMatchGatewayStatus.class),
             AUTHORISATION_REJECTED, new ModelledTypedEvent<>(StatusCorrectedToAuthorisationRejectedToMatchGatewayStatus.class),
             AUTHORISATION_ERROR, new ModelledTypedEvent<>(StatusCorrectedToAuthorisationErrorToMatchGatewayStatus.class)
     );
 
+    // built when the class is loaded, so every thread sees the fully built instance
+    private static final PaymentGatewayStateTransitions instance = new PaymentGatewayStateTransitions();
+
     public static PaymentGatewayStateTransitions getInstance() {
-        if (instance == null) {
-            instance = new PaymentGatewayStateTransitions();
-        }
         return instance;
     }
 
-    private ImmutableValueGraph<ChargeStatus, ModelledEvent> graph;
+    private final ImmutableValueGraph<ChargeStatus, ModelledEvent> graph;
+
+    /**
+     * The graph's edges compiled into tables indexed by the ordinals of the from and to statuses, so that
+     * the checks made on every charge state change are array lookups rather than graph queries. A null
+     * entry means there is no transition between the statuses.
+     */
+    private final ModelledEvent[][] modelledEvents;
+    private final Optional<Class<? extends Event>>[][] eventClasses;
 
     private PaymentGatewayStateTransitions() {
         graph = buildGraph();
+        modelledEvents = compileModelledEvents(graph);
+        eventClasses = compileEventClasses(modelledEvents);
     }
 
     private static ImmutableValueGraph<ChargeStatus, ModelledEvent> buildGraph() {
@@ -222,6 +231,28 @@ public class PaymentGatewayStateTransitions {
         return ImmutableValueGraph.copyOf(graph);
     }
 
+    private static ModelledEvent[][] compileModelledEvents(ImmutableValueGraph<ChargeStatus, ModelledEvent> graph) {
+        int statusCount = ChargeStatus.values().length;
+        ModelledEvent[][] modelledEvents = new ModelledEvent[statusCount][statusCount];
+        graph.edges().forEach(edge -> modelledEvents[edge.nodeU().ordinal()][edge.nodeV().ordinal()] =
+                graph.edgeValue(edge.nodeU(), edge.nodeV()).orElseThrow());
+        return modelledEvents;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<Class<? extends Event>>[][] compileEventClasses(ModelledEvent[][] modelledEvents) {
+        Optional<Class<? extends Event>>[][] eventClasses = new Optional[modelledEvents.length][modelledEvents.length];
+        for (int from = 0; from < modelledEvents.length; from++) {
+            for (int to = 0; to < modelledEvents.length; to++) {
+                ModelledEvent modelledEvent = modelledEvents[from][to];
+                eventClasses[from][to] = modelledEvent instanceof ModelledTypedEvent
+                        ? Optional.of(((ModelledTypedEvent<?>) modelledEvent).getClazz())
+                        : Optional.empty();
+            }
+        }
+        return eventClasses;
+    }
+
     public Set<ChargeStatus> allStatuses() {
         return graph.nodes();
     }
@@ -237,7 +268,16 @@ public class PaymentGatewayStateTransitions {
                 .collect(Collectors.toSet());
     }
 
+    @SuppressWarnings("unchecked")
     public <T extends Event> Optional<Class<T>> getEventForTransition(ChargeStatus fromStatus, ChargeStatus toStatus) {
+        return (Optional) eventClasses[fromStatus.ordinal()][toStatus.ordinal()];
+    }
+
+    /**
+     * Looks the event up by querying the graph rather than the compiled tables. Kept as the reference
+     * that the tables are checked against.
+     */
+    <T extends Event> Optional<Class<T>> getEventForTransitionFromGraph(ChargeStatus fromStatus, ChargeStatus toStatus) {
         return graph.edgeValue(fromStatus, toStatus)
                 .map(modelledEvent -> {
                     try {
@@ -293,6 +333,15 @@ public class PaymentGatewayStateTransitions {
     }
 
     private boolean isValidTransitionImpl(ChargeStatus state, ChargeStatus targetState, Event event) {
+        ModelledEvent modelledEvent = modelledEvents[state.ordinal()][targetState.ordinal()];
+        return modelledEvent != null && ((event instanceof UnspecifiedEvent) || modelledEvent.permits(event));
+    }
+
+    /**
+     * Checks the transition by querying the graph rather than the compiled tables. Kept as the reference
+     * that the tables are checked against.
+     */
+    boolean isValidTransitionInGraph(ChargeStatus state, ChargeStatus targetState, Event event) {
         return graph.edgeValue(state, targetState)
                 .map(modelledEvent ->
                         (event instanceof UnspecifiedEvent) || modelledEvent.permits(event)
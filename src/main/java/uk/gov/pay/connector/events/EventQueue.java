@@ -1,15 +1,22 @@
 package uk.gov.pay.connector.events;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.queue.QueueException;
 import uk.gov.pay.connector.queue.sqs.SqsQueueService;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class EventQueue {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventQueue.class);
+
     private final SqsQueueService sqsQueueService;
     private final String eventQueueUrl;
     private final Boolean eventQueueEnabled;
@@ -33,4 +40,30 @@ public class EventQueue {
             }
         }
     }
+
+    /**
+     * @return the events that could not be emitted, including any that could not be serialised
+     */
+    public List<Event> emitEvents(List<Event> events) {
+        if (!eventQueueEnabled) {
+            return Collections.emptyList();
+        }
+
+        List<Event> failedEvents = new ArrayList<>();
+        List<Event> serialisedEvents = new ArrayList<>();
+        List<String> messageBodies = new ArrayList<>();
+        for (Event event : events) {
+            try {
+                messageBodies.add(event.toJsonString());
+                serialisedEvents.add(event);
+            } catch (JsonProcessingException e) {
+                LOGGER.error("Error serialising event to json: {} [externalId={}]", e.getMessage(), event.getResourceExternalId());
+                failedEvents.add(event);
+            }
+        }
+
+        sqsQueueService.sendMessages(eventQueueUrl, messageBodies)
+                .forEach(failedIndex -> failedEvents.add(serialisedEvents.get(failedIndex)));
+        return failedEvents;
+    }
 }
@@ -9,6 +9,11 @@ import uk.gov.pay.connector.queue.QueueException;
 
 import javax.inject.Inject;
 import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class EventService {
     private static final Logger logger = LoggerFactory.getLogger(EventService.class);
@@ -81,6 +86,25 @@ public class EventService {
         emittedEventDao.markEventAsEmitted(event);
     }
 
+    /**
+     * Emits the events in as few queue requests as possible and marks the emitted ones with a single update
+     *
+     * @return the events that could not be emitted
+     */
+    public List<Event> emitAndMarkEventsAsEmitted(List<Event> events) {
+        List<Event> failedEvents = eventQueue.emitEvents(events);
+        Set<Event> failedEventSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        failedEventSet.addAll(failedEvents);
+        List<Event> emittedEvents = events.stream()
+                .filter(event -> !failedEventSet.contains(event))
+                .collect(Collectors.toList());
+
+        if (!emittedEvents.isEmpty()) {
+            emittedEventDao.markEventsAsEmitted(emittedEvents);
+        }
+        return failedEvents;
+    }
+
     public void recordOfferedEvent(ResourceType resourceType, String externalId, String eventType, ZonedDateTime eventDate) {
         this.recordOfferedEvent(resourceType, externalId, eventType, eventDate, null);
     }
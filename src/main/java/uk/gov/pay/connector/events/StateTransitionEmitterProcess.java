@@ -1,15 +1,27 @@
 package uk.gov.pay.connector.events;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.dropwizard.setup.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.events.exception.EventCreationException;
+import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.events.model.EventFactory;
 import uk.gov.pay.connector.queue.QueueException;
 import uk.gov.pay.connector.queue.statetransition.StateTransition;
 import uk.gov.pay.connector.queue.statetransition.StateTransitionQueue;
 
 import javax.inject.Inject;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 public class StateTransitionEmitterProcess {
@@ -19,17 +31,33 @@ public class StateTransitionEmitterProcess {
     private final StateTransitionQueue stateTransitionQueue;
     private final EventFactory eventFactory;
     private EventService eventService;
+    private final int publishingBatchSize;
+    private final long publishingLingerTimeInNanos;
+
+    private final Timer publishTimer;
+    private final Histogram publishBatchSizeHistogram;
+    private final Counter publishFailedCounter;
 
     @Inject
     public StateTransitionEmitterProcess(
             StateTransitionQueue stateTransitionQueue,
             EventFactory eventFactory,
             StateTransitionQueueMetricEmitter stateTransitionQueueMetricEmitter,
-            EventService eventService
+            EventService eventService,
+            ConnectorConfiguration connectorConfiguration,
+            Environment environment
     ) {
         this.stateTransitionQueue = stateTransitionQueue;
         this.eventFactory = eventFactory;
         this.eventService = eventService;
+        this.publishingBatchSize = connectorConfiguration.getEventQueueConfig().getPublishingBatchSize();
+        this.publishingLingerTimeInNanos = TimeUnit.MILLISECONDS.toNanos(
+                connectorConfiguration.getEventQueueConfig().getPublishingLingerTimeInMillis());
+
+        MetricRegistry metricRegistry = environment.metrics();
+        this.publishTimer = metricRegistry.timer("state-transition.publish.response_time");
+        this.publishBatchSizeHistogram = metricRegistry.histogram("state-transition.publish.batch_size");
+        this.publishFailedCounter = metricRegistry.counter("state-transition.publish.failed");
 
         stateTransitionQueueMetricEmitter.register();
     }
@@ -39,12 +67,77 @@ public class StateTransitionEmitterProcess {
     }
 
     public boolean isReadyForShutdown() {
-        return stateTransitionQueue.isEmpty();
+        return stateTransitionQueue.isDurable() || stateTransitionQueue.isEmpty();
     }
 
     public void handleStateTransitionMessages() throws InterruptedException {
-        Optional.ofNullable(stateTransitionQueue.poll(STATE_TRANSITION_PROCESS_DELAY_IN_MILLISECONDS, TimeUnit.MILLISECONDS))
-                .ifPresent(this::emitEvents);
+        StateTransition stateTransition = pollStateTransition();
+        if (stateTransition == null) {
+            return;
+        }
+
+        if (publishingBatchSize <= 1) {
+            emitStateTransitions(List.of(stateTransition));
+            return;
+        }
+
+        List<StateTransition> stateTransitions = new ArrayList<>(publishingBatchSize);
+        stateTransitions.add(stateTransition);
+        long lingerDeadline = System.nanoTime() + publishingLingerTimeInNanos;
+        while (stateTransitions.size() < publishingBatchSize) {
+            long remainingLingerTime = lingerDeadline - System.nanoTime();
+            if (remainingLingerTime <= 0) {
+                break;
+            }
+            StateTransition next = stateTransitionQueue.poll(remainingLingerTime, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            stateTransitions.add(next);
+        }
+
+        emitStateTransitions(stateTransitions);
+    }
+
+    public StateTransition pollStateTransition() throws InterruptedException {
+        return stateTransitionQueue.poll(STATE_TRANSITION_PROCESS_DELAY_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands a polled state transition back to the queue without emitting it, to be polled again
+     * once its delay has elapsed
+     */
+    public void releaseStateTransition(StateTransition stateTransition) {
+        stateTransitionQueue.release(stateTransition);
+    }
+
+    /**
+     * Keeps polled state transitions that are waiting to be emitted from being polled again
+     */
+    public void extendClaims(Collection<StateTransition> stateTransitions) {
+        stateTransitionQueue.extendClaims(stateTransitions);
+    }
+
+    public int getPublishingBatchSize() {
+        return publishingBatchSize;
+    }
+
+    /**
+     * Emits the events for the given state transitions in order, then acknowledges the transitions
+     * on the queue. Failed transitions are re-offered for retry.
+     */
+    public void emitStateTransitions(List<StateTransition> stateTransitions) {
+        try {
+            if (publishingBatchSize <= 1) {
+                stateTransitions.forEach(this::emitEvents);
+            } else {
+                emitEventsInBatch(stateTransitions);
+            }
+        } catch (RuntimeException e) {
+            stateTransitions.forEach(stateTransitionQueue::release);
+            throw e;
+        }
+        stateTransitions.forEach(stateTransitionQueue::acknowledge);
     }
 
     private void emitEvents(StateTransition stateTransition) {
@@ -53,34 +146,91 @@ public class StateTransitionEmitterProcess {
                 eventFactory.createEvents(stateTransition)
                         .forEach(event -> {
                             try {
+                                Timer.Context timerContext = publishTimer.time();
                                 eventService.emitAndMarkEventAsEmitted(event);
+                                timerContext.stop();
                             } catch (QueueException e) {
-                                handleException(e, stateTransition);
+                                publishFailedCounter.inc();
+                                handleException(e.getMessage(), stateTransition);
                             }
                         });
-                LOGGER.info(
-                        "Emitted new state transition event for [eventId={}] [eventType={}]",
-                        stateTransition.getIdentifier(),
-                        stateTransition.getStateTransitionEventClass().getSimpleName()
-                );
+                logEmitted(stateTransition);
             } catch (EventCreationException e) {
-                handleException(e, stateTransition);
+                handleException(e.getMessage(), stateTransition);
             }
         } else {
-            LOGGER.error(
-                    "State transition message failed to process beyond max retries [eventId={}] [eventType={}]:",
-                    stateTransition.getIdentifier(),
-                    stateTransition.getStateTransitionEventClass().getSimpleName()
-            );
+            logExceededMaxAttempts(stateTransition);
         }
     }
 
-    private void handleException(Exception e, StateTransition stateTransition) {
+    private void emitEventsInBatch(List<StateTransition> stateTransitions) {
+        List<StateTransition> attemptedStateTransitions = new ArrayList<>();
+        List<List<Event>> eventsByStateTransition = new ArrayList<>();
+        for (StateTransition stateTransition : stateTransitions) {
+            if (!stateTransition.shouldAttempt()) {
+                logExceededMaxAttempts(stateTransition);
+                continue;
+            }
+            try {
+                eventsByStateTransition.add(eventFactory.createEvents(stateTransition));
+                attemptedStateTransitions.add(stateTransition);
+            } catch (EventCreationException | RuntimeException e) {
+                handleException(e.getMessage(), stateTransition);
+            }
+        }
+
+        List<Event> events = new ArrayList<>();
+        eventsByStateTransition.forEach(events::addAll);
+        if (events.isEmpty()) {
+            return;
+        }
+
+        List<Event> failedEvents;
+        publishBatchSizeHistogram.update(events.size());
+        try (Timer.Context ignored = publishTimer.time()) {
+            failedEvents = eventService.emitAndMarkEventsAsEmitted(events);
+        } catch (RuntimeException e) {
+            // the events may have been sent but not marked as emitted, so all of them are re-offered
+            publishFailedCounter.inc(events.size());
+            attemptedStateTransitions.forEach(stateTransition -> handleException(e.getMessage(), stateTransition));
+            return;
+        }
+        publishFailedCounter.inc(failedEvents.size());
+
+        Set<Event> failedEventSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        failedEventSet.addAll(failedEvents);
+        for (int i = 0; i < attemptedStateTransitions.size(); i++) {
+            StateTransition stateTransition = attemptedStateTransitions.get(i);
+            if (eventsByStateTransition.get(i).stream().anyMatch(failedEventSet::contains)) {
+                handleException("Event was not accepted by the event queue", stateTransition);
+            } else {
+                logEmitted(stateTransition);
+            }
+        }
+    }
+
+    private void logEmitted(StateTransition stateTransition) {
+        LOGGER.info(
+                "Emitted new state transition event for [eventId={}] [eventType={}]",
+                stateTransition.getIdentifier(),
+                stateTransition.getStateTransitionEventClass().getSimpleName()
+        );
+    }
+
+    private void logExceededMaxAttempts(StateTransition stateTransition) {
+        LOGGER.error(
+                "State transition message failed to process beyond max retries [eventId={}] [eventType={}]:",
+                stateTransition.getIdentifier(),
+                stateTransition.getStateTransitionEventClass().getSimpleName()
+        );
+    }
+
+    private void handleException(String errorMessage, StateTransition stateTransition) {
         LOGGER.warn(
                 "Failed to emit new event for state transition [eventId={}] [eventType={}] [error={}]",
                 stateTransition.getIdentifier(),
                 stateTransition.getStateTransitionEventClass().getSimpleName(),
-                e.getMessage()
+                errorMessage
         );
         stateTransitionQueue.offer(stateTransition.getNext());
     }
@@ -0,0 +1,122 @@
+package uk.gov.pay.connector.events;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import uk.gov.pay.connector.queue.statetransition.StateTransition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads state transitions over a number of independent lanes by the external id of the payment
+ * or refund they are for. A single dispatcher takes transitions off the state transition queue in
+ * the order they become due and each lane is drained by its own thread in micro-batches, so the
+ * events for one payment or refund are emitted in order while different resources are emitted
+ * concurrently. A transition that fails and is re-offered for retry may be overtaken by later
+ * transitions for the same resource, as before.
+ * <p>
+ * The dispatcher never waits long for a full lane, as that would hold up every other lane: a
+ * transition that cannot be put in its lane is handed back to the queue and polled again after its
+ * delay, so it too may be overtaken. Transitions polled from the durable queue are claimed only for
+ * the queue's visibility timeout, so the dispatcher extends the claims of the transitions waiting in
+ * the lanes at intervals well inside it, and they are not polled and emitted a second time.
+ */
+public class StateTransitionLanes {
+
+    private static final int LANE_CAPACITY_IN_BATCHES = 10;
+    private static final long LANE_POLL_TIMEOUT_IN_MILLISECONDS = 1000L;
+    private static final long LANE_OFFER_TIMEOUT_IN_MILLISECONDS = 100L;
+    private static final long CLAIM_EXTENSION_INTERVAL_IN_MILLISECONDS = 20000L;
+
+    private final StateTransitionEmitterProcess stateTransitionEmitterProcess;
+    private final List<BlockingQueue<StateTransition>> lanes;
+    private final int batchSize;
+    private final Counter laneFullCounter;
+    private long claimsExtendedAt = System.currentTimeMillis();
+
+    public StateTransitionLanes(StateTransitionEmitterProcess stateTransitionEmitterProcess,
+                                int numberOfLanes,
+                                MetricRegistry metricRegistry) {
+        this.stateTransitionEmitterProcess = stateTransitionEmitterProcess;
+        this.batchSize = Math.max(1, stateTransitionEmitterProcess.getPublishingBatchSize());
+        this.lanes = new ArrayList<>(numberOfLanes);
+        this.laneFullCounter = metricRegistry.counter("state-transition.lane.full");
+
+        for (int i = 0; i < numberOfLanes; i++) {
+            BlockingQueue<StateTransition> lane = new LinkedBlockingQueue<>(batchSize * LANE_CAPACITY_IN_BATCHES);
+            lanes.add(lane);
+            metricRegistry.register(String.format("state-transition.lane.%s.depth", i), (Gauge<Integer>) lane::size);
+            metricRegistry.register(String.format("state-transition.lane.%s.lag", i), (Gauge<Long>) () -> lagInMillis(lane));
+        }
+    }
+
+    public int getNumberOfLanes() {
+        return lanes.size();
+    }
+
+    /**
+     * Takes the next due state transition off the queue and hands it to its lane, or back to the
+     * queue if the lane stays full for longer than a short timeout
+     */
+    public void dispatch() throws InterruptedException {
+        extendClaimsIfDue();
+        StateTransition stateTransition = stateTransitionEmitterProcess.pollStateTransition();
+        if (stateTransition == null) {
+            return;
+        }
+        if (!lanes.get(laneFor(stateTransition)).offer(stateTransition, LANE_OFFER_TIMEOUT_IN_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+            laneFullCounter.inc();
+            stateTransitionEmitterProcess.releaseStateTransition(stateTransition);
+        }
+    }
+
+    private void extendClaimsIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - claimsExtendedAt < CLAIM_EXTENSION_INTERVAL_IN_MILLISECONDS) {
+            return;
+        }
+        claimsExtendedAt = now;
+        List<StateTransition> waiting = new ArrayList<>();
+        lanes.forEach(waiting::addAll);
+        if (!waiting.isEmpty()) {
+            stateTransitionEmitterProcess.extendClaims(waiting);
+        }
+    }
+
+    /**
+     * Emits the next micro-batch of state transitions waiting in a lane, in the order they were dispatched
+     */
+    public void drain(int lane) throws InterruptedException {
+        BlockingQueue<StateTransition> laneQueue = lanes.get(lane);
+        StateTransition first = laneQueue.poll(LANE_POLL_TIMEOUT_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+
+        List<StateTransition> stateTransitions = new ArrayList<>(batchSize);
+        stateTransitions.add(first);
+        laneQueue.drainTo(stateTransitions, batchSize - 1);
+        stateTransitionEmitterProcess.emitStateTransitions(stateTransitions);
+    }
+
+    public int size() {
+        return lanes.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int laneFor(StateTransition stateTransition) {
+        return Math.floorMod(stateTransition.getPartitionKey().hashCode(), lanes.size());
+    }
+
+    private static long lagInMillis(BlockingQueue<StateTransition> lane) {
+        StateTransition head = lane.peek();
+        return head == null ? 0L : Math.max(0L, System.currentTimeMillis() - head.getReadTime());
+    }
+}
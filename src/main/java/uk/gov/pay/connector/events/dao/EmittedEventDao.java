@@ -4,6 +4,7 @@ import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
 import uk.gov.pay.connector.common.dao.JpaDao;
+import uk.gov.pay.connector.common.model.domain.UTCDateTimeConverter;
 import uk.gov.pay.connector.events.EmittedEventEntity;
 import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.events.model.ResourceType;
@@ -14,6 +15,8 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.time.ZonedDateTime.now;
 
@@ -85,6 +88,35 @@ public class EmittedEventDao extends JpaDao<EmittedEventEntity> {
         query.executeUpdate();
     }
 
+    @Transactional
+    public void markEventsAsEmitted(List<Event> events) {
+        String values = IntStream.range(0, events.size())
+                .mapToObj(i -> String.format("(?%d, ?%d, ?%d, CAST(?%d AS timestamp))", 4 * i + 2, 4 * i + 3, 4 * i + 4, 4 * i + 5))
+                .collect(Collectors.joining(", "));
+
+        Query query = entityManager.get()
+                .createNativeQuery("UPDATE emitted_events e" +
+                        " SET emitted_date = ?1, event_date = v.event_date" +
+                        " FROM (VALUES " + values + ") AS v(resource_type, resource_external_id, event_type, event_date)" +
+                        " WHERE e.resource_type = v.resource_type" +
+                        " AND e.resource_external_id = v.resource_external_id" +
+                        " AND e.event_type = v.event_type" +
+                        " AND e.emitted_date is null"
+                );
+
+        UTCDateTimeConverter utcDateTimeConverter = new UTCDateTimeConverter();
+        query.setParameter(1, utcDateTimeConverter.convertToDatabaseColumn(ZonedDateTime.now(ZoneId.of("UTC"))));
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            query.setParameter(4 * i + 2, event.getResourceType().getLowercase())
+                    .setParameter(4 * i + 3, event.getResourceExternalId())
+                    .setParameter(4 * i + 4, event.getEventType())
+                    .setParameter(4 * i + 5, utcDateTimeConverter.convertToDatabaseColumn(event.getTimestamp()));
+        }
+
+        query.executeUpdate();
+    }
+
     public Optional<Long> findNotEmittedEventMaxIdOlderThan(ZonedDateTime cutOffDate, ZonedDateTime now) {
         String query = "SELECT MAX(e.id) from EmittedEventEntity e " +
                 "WHERE e.eventDate < :cutOffDate " +
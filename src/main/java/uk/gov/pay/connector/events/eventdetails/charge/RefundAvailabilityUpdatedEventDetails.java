@@ -6,6 +6,7 @@ import uk.gov.pay.connector.charge.util.RefundCalculator;
 import uk.gov.pay.connector.common.model.api.ExternalChargeRefundAvailability;
 import uk.gov.pay.connector.events.eventdetails.EventDetails;
 import uk.gov.pay.connector.refund.model.domain.Refund;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 import uk.gov.pay.connector.refund.model.domain.RefundEntity;
 
 import java.util.List;
@@ -22,6 +23,14 @@ public class RefundAvailabilityUpdatedEventDetails extends EventDetails {
     }
     
 
+    public static RefundAvailabilityUpdatedEventDetails from(Charge charge, RefundSummary refundSummary, ExternalChargeRefundAvailability availability) {
+        return new RefundAvailabilityUpdatedEventDetails(
+                RefundCalculator.getTotalAmountAvailableToBeRefunded(charge, refundSummary),
+                refundSummary.getAmountSubmittedOrRefunded(),
+                availability.getStatus()
+        );
+    }
+
     public static RefundAvailabilityUpdatedEventDetails from(Charge charge, List<Refund> refundList, ExternalChargeRefundAvailability availability) {
         return new RefundAvailabilityUpdatedEventDetails(
                 RefundCalculator.getTotalAmountAvailableToBeRefunded(charge, refundList),
@@ -3,6 +3,7 @@ package uk.gov.pay.connector.events.model;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -13,11 +14,28 @@ import uk.gov.pay.connector.events.eventdetails.EventDetails;
 
 import java.time.ZonedDateTime;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 @JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public abstract class Event {
     private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
+    private static final Pattern WORD_BOUNDARY = Pattern.compile("([^A-Z0-9]+)([A-Z0-9])");
+
+    // Event types and writers depend only on the class, so each is worked out the first time a class is seen
+    private static final ClassValue<String> EVENT_TYPES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return WORD_BOUNDARY.matcher(type.getSimpleName()).replaceAll("$1_$2").toUpperCase();
+        }
+    };
+    private static final ClassValue<ObjectWriter> WRITERS = new ClassValue<>() {
+        @Override
+        protected ObjectWriter computeValue(Class<?> type) {
+            return MAPPER.writerFor(type);
+        }
+    };
+
     private String resourceExternalId;
     private EventDetails eventDetails;
     private ZonedDateTime timestamp;
@@ -50,7 +68,7 @@ public abstract class Event {
     }
 
     public String toJsonString() throws JsonProcessingException {
-        return MAPPER.writeValueAsString(this);
+        return WRITERS.get(getClass()).writeValueAsString(this);
     }
 
     public String getEventType() {
@@ -58,7 +76,7 @@ public abstract class Event {
     }
 
     public static String eventTypeForClass(Class clazz) {
-        return clazz.getSimpleName().replaceAll("([^A-Z0-9]+)([A-Z0-9])", "$1_$2").toUpperCase();
+        return EVENT_TYPES.get(clazz);
     }
 
     @Override
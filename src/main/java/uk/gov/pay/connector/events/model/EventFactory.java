@@ -34,8 +34,8 @@ import uk.gov.pay.connector.queue.statetransition.PaymentStateTransition;
 import uk.gov.pay.connector.queue.statetransition.RefundStateTransition;
 import uk.gov.pay.connector.queue.statetransition.StateTransition;
 import uk.gov.pay.connector.refund.dao.RefundDao;
-import uk.gov.pay.connector.refund.model.domain.Refund;
 import uk.gov.pay.connector.refund.model.domain.RefundHistory;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 import uk.gov.pay.connector.refund.service.RefundService;
 
 import javax.inject.Inject;
@@ -179,18 +179,18 @@ public class EventFactory {
             RefundAvailabilityUpdated refundAvailabilityUpdatedEvent =
                     Optional.ofNullable(charge)
                     .map(c -> {
-                        List<Refund> refundList = refundService.findRefunds(c);
+                        RefundSummary refundSummary = refundService.findRefundSummary(c);
                         ExternalChargeRefundAvailability refundAvailability;
 
                         refundAvailability = paymentProviders
                                 .byName(PaymentGatewayName.valueFrom(charge.getPaymentGatewayName()))
-                                .getExternalChargeRefundAvailability(charge, refundList);
+                                .getExternalChargeRefundAvailability(charge, refundSummary);
 
                         return new RefundAvailabilityUpdated(
                                         c.getExternalId(),
                                         RefundAvailabilityUpdatedEventDetails.from(
                                                 charge,
-                                                refundList,
+                                                refundSummary,
                                                 refundAvailability
                                         ),
                                         eventTimestamp
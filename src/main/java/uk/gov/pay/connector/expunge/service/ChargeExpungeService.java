@@ -1,6 +1,10 @@
 package uk.gov.pay.connector.expunge.service;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.inject.persist.Transactional;
+import io.dropwizard.setup.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -17,10 +21,14 @@ import javax.inject.Inject;
 import javax.persistence.OptimisticLockException;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static java.lang.String.format;
+import static java.util.stream.Collectors.toSet;
 import static net.logstash.logback.argument.StructuredArguments.kv;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_ERROR;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_TIMEOUT;
@@ -37,14 +45,28 @@ public class ChargeExpungeService {
     private final ParityCheckService parityCheckService;
     private final ChargeService chargeService;
 
+    private final Timer batchTimer;
+    private final Timer claimTimer;
+    private final Meter expungedMeter;
+    private final Meter skippedMeter;
+    private final Meter parityCheckFailedMeter;
+
     @Inject
     public ChargeExpungeService(ChargeDao chargeDao, ConnectorConfiguration connectorConfiguration,
                                 ParityCheckService parityCheckService,
-                                ChargeService chargeService) {
+                                ChargeService chargeService,
+                                Environment environment) {
         this.chargeDao = chargeDao;
         expungeConfig = connectorConfiguration.getExpungeConfig();
         this.parityCheckService = parityCheckService;
         this.chargeService = chargeService;
+
+        MetricRegistry metricRegistry = environment.metrics();
+        this.batchTimer = metricRegistry.timer("expunge.charges.batch.response_time");
+        this.claimTimer = metricRegistry.timer("expunge.charges.batch.claim.response_time");
+        this.expungedMeter = metricRegistry.meter("expunge.charges.expunged");
+        this.skippedMeter = metricRegistry.meter("expunge.charges.skipped");
+        this.parityCheckFailedMeter = metricRegistry.meter("expunge.charges.parity_check_failed");
     }
 
     private boolean inTerminalState(ChargeEntity chargeEntity) {
@@ -67,6 +89,12 @@ public class ChargeExpungeService {
         } else {
             int minimumAgeOfChargeInDays = expungeConfig.getMinimumAgeOfChargeInDays();
             int createdWithinLast = expungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays();
+            int batchSize = expungeConfig.getChargeExpungeBatchSize();
+
+            if (batchSize > 1) {
+                expungeInBatches(noOfChargesToExpunge, batchSize, minimumAgeOfChargeInDays, createdWithinLast);
+                return;
+            }
 
             for (int number = 0; number < noOfChargesToExpunge; number++) {
                 Optional<ChargeEntity> mayBeChargeToExpunge = chargeDao.findChargeToExpunge(minimumAgeOfChargeInDays, createdWithinLast);
@@ -91,6 +119,89 @@ public class ChargeExpungeService {
         }
     }
 
+    private void expungeInBatches(int noOfChargesToExpunge, int batchSize,
+                                  int minimumAgeOfChargeInDays, int excludeChargesParityCheckedWithInDays) {
+        int remaining = noOfChargesToExpunge;
+        while (remaining > 0) {
+            int limit = Math.min(batchSize, remaining);
+            int claimed = expungeBatch(limit, minimumAgeOfChargeInDays, excludeChargesParityCheckedWithInDays);
+            if (claimed < limit) {
+                break;
+            }
+            remaining -= claimed;
+        }
+    }
+
+    /**
+     * Claims a page of charges to expunge, skipping any claimed by a concurrently running expunge,
+     * parity checks them together and deletes the ones in parity with Ledger with one statement per
+     * table. The claimed charges stay locked until the batch transaction commits.
+     *
+     * @return the number of charges claimed
+     */
+    @Transactional
+    public int expungeBatch(int limit, int minimumAgeOfChargeInDays, int excludeChargesParityCheckedWithInDays) {
+        try (Timer.Context ignored = batchTimer.time()) {
+            List<ChargeEntity> claimedCharges;
+            try (Timer.Context ignoredClaim = claimTimer.time()) {
+                claimedCharges = chargeDao.findChargesToExpunge(minimumAgeOfChargeInDays,
+                        excludeChargesParityCheckedWithInDays, limit);
+            }
+            if (claimedCharges.isEmpty()) {
+                return 0;
+            }
+
+            List<ChargeEntity> chargesInTerminalState = new ArrayList<>();
+            Set<String> chargesParityCheckedBefore = new HashSet<>();
+            for (ChargeEntity chargeEntity : claimedCharges) {
+                if (inTerminalState(chargeEntity)) {
+                    chargesInTerminalState.add(chargeEntity);
+                    if (chargeEntity.getParityCheckDate() != null) {
+                        chargesParityCheckedBefore.add(chargeEntity.getExternalId());
+                    }
+                } else {
+                    chargeService.updateChargeParityStatus(chargeEntity.getExternalId(), SKIPPED);
+                }
+            }
+
+            List<ChargeEntity> chargesToExpunge = chargesInTerminalState.isEmpty() ?
+                    List.of() : parityCheckService.parityCheckChargesForExpunger(chargesInTerminalState);
+            chargeDao.expungeCharges(chargesToExpunge);
+            logParityCheckFailures(chargesInTerminalState, chargesToExpunge, chargesParityCheckedBefore);
+
+            int skipped = claimedCharges.size() - chargesInTerminalState.size();
+            int parityCheckFailed = chargesInTerminalState.size() - chargesToExpunge.size();
+            expungedMeter.mark(chargesToExpunge.size());
+            skippedMeter.mark(skipped);
+            parityCheckFailedMeter.mark(parityCheckFailed);
+
+            logger.info("Expunged batch of charges",
+                    kv("claimed", claimedCharges.size()),
+                    kv("expunged", chargesToExpunge.size()),
+                    kv("skipped", skipped),
+                    kv("parity_check_failed", parityCheckFailed));
+
+            return claimedCharges.size();
+        }
+    }
+
+    private void logParityCheckFailures(List<ChargeEntity> chargesParityChecked, List<ChargeEntity> chargesExpunged,
+                                        Set<String> chargesParityCheckedBefore) {
+        Set<String> expungedExternalIds = chargesExpunged.stream().map(ChargeEntity::getExternalId).collect(toSet());
+        chargesParityChecked.stream()
+                .map(ChargeEntity::getExternalId)
+                .filter(externalId -> !expungedExternalIds.contains(externalId))
+                .forEach(externalId -> {
+                    if (chargesParityCheckedBefore.contains(externalId)) {
+                        logger.error("Charge cannot be expunged because parity check with ledger repeatedly failed",
+                                kv(PAYMENT_EXTERNAL_ID, externalId));
+                    } else {
+                        logger.info("Charge cannot be expunged because parity check with ledger failed",
+                                kv(PAYMENT_EXTERNAL_ID, externalId));
+                    }
+                });
+    }
+
     private void parityCheckAndExpungeIfMet(ChargeEntity chargeEntity) {
         boolean hasChargeBeenParityCheckedBefore = chargeEntity.getParityCheckDate() != null;
 
@@ -0,0 +1,70 @@
+package uk.gov.pay.connector.gateway;
+
+import com.amazonaws.xray.AWSXRay;
+import com.amazonaws.xray.entities.Entity;
+import org.slf4j.MDC;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+
+import java.net.HttpCookie;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Asynchronous counterpart of {@link GatewayClient}. Requests are sent on the gateway's own executor through a
+ * {@link GatewayClient} whose Jersey client is shared by every operation on the gateway, so connections and TLS
+ * sessions are reused and the caller's thread is not held while the gateway responds. The caller's MDC and X-Ray
+ * trace entity are carried over to the executor, so the request logging and X-Ray filters of the client behave as
+ * they do for a blocking request.
+ * <p>
+ * The returned stage completes exceptionally with the same {@link GatewayException}s that {@link GatewayClient}
+ * throws, wrapped in a {@link CompletionException}.
+ */
+public class AsyncGatewayClient {
+
+    private final GatewayClient gatewayClient;
+    private final Executor executor;
+
+    public AsyncGatewayClient(GatewayClient gatewayClient, Executor executor) {
+        this.gatewayClient = gatewayClient;
+        this.executor = executor;
+    }
+
+    public CompletionStage<GatewayClient.Response> postRequestFor(URI url, GatewayAccountEntity account, GatewayOrder request,
+                                                                  Map<String, String> headers) {
+        return postRequestFor(url, account, request, emptyList(), headers);
+    }
+
+    public CompletionStage<GatewayClient.Response> postRequestFor(URI url,
+                                                                  GatewayAccountEntity account,
+                                                                  GatewayOrder request,
+                                                                  List<HttpCookie> cookies,
+                                                                  Map<String, String> headers) {
+        Map<String, String> callerMdc = MDC.getCopyOfContextMap();
+        Entity callerTraceEntity = AWSXRay.getTraceEntity();
+        return CompletableFuture.supplyAsync(() -> {
+            if (callerMdc != null) {
+                MDC.setContextMap(callerMdc);
+            }
+            if (callerTraceEntity != null) {
+                AWSXRay.setTraceEntity(callerTraceEntity);
+            }
+            try {
+                return gatewayClient.postRequestFor(url, account, request, cookies, headers);
+            } catch (GatewayException e) {
+                throw new CompletionException(e);
+            } finally {
+                if (callerTraceEntity != null) {
+                    AWSXRay.clearTraceEntity();
+                }
+                MDC.clear();
+            }
+        }, executor);
+    }
+}
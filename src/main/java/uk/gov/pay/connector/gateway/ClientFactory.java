@@ -25,6 +25,7 @@ import javax.net.ssl.SSLContext;
 import javax.ws.rs.client.Client;
 import java.security.NoSuchAlgorithmException;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
@@ -52,6 +53,26 @@ public class ClientFactory {
         return createWithDropwizardClient(gateway, conf.getCustomJerseyClient().getReadTimeout(), "all", metricRegistry);
     }
 
+    /**
+     * Creates a client to be shared by every operation on a gateway, so that its connection pool and TLS sessions
+     * are reused. Each request sets its own read timeout, from {@link #getReadTimeout(GatewayOperation, PaymentGatewayName)}.
+     */
+    public Client createSharedClient(PaymentGatewayName gateway, MetricRegistry metricRegistry) {
+        return createWithDropwizardClient(gateway, conf.getCustomJerseyClient().getReadTimeout(), "shared", metricRegistry);
+    }
+
+    /**
+     * Creates the executor that sends a gateway's asynchronous requests, sized like the Jersey client's own pool
+     */
+    public ExecutorService createAsyncExecutor(PaymentGatewayName gateway) {
+        int threads = conf.getClientConfiguration().getMaxThreads();
+        return environment.lifecycle()
+                .executorService(format("gateway-%s-async-%%d", gateway.getName()))
+                .minThreads(threads)
+                .maxThreads(threads)
+                .build();
+    }
+
     private Client createWithDropwizardClient(PaymentGatewayName gateway, Duration readTimeout, String metricName, MetricRegistry metricRegistry) {
         JerseyClientBuilder defaultClientBuilder = new JerseyClientBuilder(environment)
                 .using(new ApacheConnectorProvider())
@@ -73,7 +94,7 @@ public class ClientFactory {
         return client;
     }
 
-    private Duration getReadTimeout(GatewayOperation operation, PaymentGatewayName gateway) {
+    Duration getReadTimeout(GatewayOperation operation, PaymentGatewayName gateway) {
         return getOverridesFor(operation, gateway)
                 .map(OperationOverrides::getReadTimeout)
                 .orElse(conf.getCustomJerseyClient().getReadTimeout());
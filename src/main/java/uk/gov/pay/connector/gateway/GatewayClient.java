@@ -2,8 +2,10 @@ package uk.gov.pay.connector.gateway;
 
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Stopwatch;
+import io.dropwizard.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.gateway.GatewayException.GatewayConcurrencyLimitException;
 import uk.gov.pay.connector.gateway.GatewayException.GatewayConnectionTimeoutException;
 import uk.gov.pay.connector.gateway.GatewayException.GatewayErrorException;
 import uk.gov.pay.connector.gateway.GatewayException.GenericGatewayException;
@@ -24,20 +26,39 @@ import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.joining;
 import static javax.ws.rs.core.Response.Status.Family.SUCCESSFUL;
 import static javax.ws.rs.core.Response.Status.Family.familyOf;
 import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+import static org.glassfish.jersey.client.ClientProperties.READ_TIMEOUT;
 
 public class GatewayClient {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(GatewayClient.class);
 
     private final Client client;
-    private final MetricRegistry metricRegistry;
+    private final GatewayOperationMetrics metrics;
+    private final GatewayConcurrencyLimiter concurrencyLimiter;
+    private final Duration readTimeout;
 
     public GatewayClient(Client client, MetricRegistry metricRegistry) {
+        this(client, metricRegistry, GatewayConcurrencyLimiter.unlimited());
+    }
+
+    public GatewayClient(Client client, MetricRegistry metricRegistry, GatewayConcurrencyLimiter concurrencyLimiter) {
+        this(client, metricRegistry, concurrencyLimiter, null);
+    }
+
+    /**
+     * @param readTimeout the read timeout to set on each request, for a client that is shared by several operations,
+     *                    or null to use the client's own read timeout
+     */
+    public GatewayClient(Client client, MetricRegistry metricRegistry, GatewayConcurrencyLimiter concurrencyLimiter,
+                         Duration readTimeout) {
         this.client = client;
-        this.metricRegistry = metricRegistry;
+        this.metrics = new GatewayOperationMetrics(metricRegistry);
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.readTimeout = readTimeout;
     }
 
     public GatewayClient.Response postRequestFor(URI url, GatewayAccountEntity account, GatewayOrder request, Map<String, String> headers)
@@ -57,16 +78,30 @@ public class GatewayClient {
                                                  Map<String, String> headers)
             throws GatewayException.GenericGatewayException, GatewayConnectionTimeoutException, GatewayErrorException {
 
-        String metricsPrefix = format("gateway-operations.%s.%s.%s", account.getGatewayName(), account.getType(), request.getOrderRequestType());
+        GatewayOperationMetrics.Handles operationMetrics = metrics.forRequest(account, request.getOrderRequestType());
         javax.ws.rs.core.Response response = null;
+        boolean failed = false;
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            LOGGER.warn("Concurrency limit of {} reached for gateway {}, not POSTing request with type {} with order request type {}",
+                    concurrencyLimiter.getLimit(), account.getGatewayName(), account.getType(), request.getOrderRequestType());
+            throw new GatewayConcurrencyLimitException("Gateway concurrency limit reached");
+        }
 
         Stopwatch responseTimeStopwatch = Stopwatch.createStarted();
         try {
             LOGGER.info("POSTing request for account '{}' with type '{}'", account.getGatewayName(), account.getType());
 
             Builder requestBuilder = client.target(url).request();
+            if (readTimeout != null) {
+                requestBuilder.property(READ_TIMEOUT, (int) readTimeout.toMilliseconds());
+            }
             headers.keySet().forEach(headerKey -> requestBuilder.header(headerKey, headers.get(headerKey)));
-            cookies.forEach(cookie -> requestBuilder.header("Cookie", cookie.getName() + "=" + cookie.getValue()));
+            if (!cookies.isEmpty()) {
+                requestBuilder.header("Cookie", cookies.stream()
+                        .map(cookie -> cookie.getName() + "=" + cookie.getValue())
+                        .collect(joining("; ")));
+            }
             response = requestBuilder.post(Entity.entity(request.getPayload(), request.getMediaType()));
             int statusCode = response.getStatus();
             Response gatewayResponse = new Response(response);
@@ -76,7 +111,8 @@ public class GatewayClient {
                 if (statusCode >= INTERNAL_SERVER_ERROR.getStatusCode()) {
                     LOGGER.warn("Gateway returned unexpected status code: {}, for gateway url={} with type {} with order request type {}",
                             statusCode, url, account.getType(), request.getOrderRequestType());
-                    incrementFailureCounter(metricRegistry, metricsPrefix);
+                    operationMetrics.incrementFailures();
+                    failed = true;
                 } else {
                     LOGGER.warn("Gateway returned non-success status code: {}, for gateway url={} with type {} with order request type {}",
                             statusCode, url, account.getType(), request.getOrderRequestType());
@@ -84,7 +120,8 @@ public class GatewayClient {
                 throw new GatewayErrorException("Non-success HTTP status code " + statusCode + " from gateway", gatewayResponse.getEntity(), statusCode);
             }
         } catch (ProcessingException pe) {
-            incrementFailureCounter(metricRegistry, metricsPrefix);
+            failed = true;
+            operationMetrics.incrementFailures();
             if (pe.getCause() != null) {
                 if (pe.getCause() instanceof SocketTimeoutException) {
                     LOGGER.warn(format("Connection timed out error for gateway url=%s", url), pe);
@@ -96,22 +133,21 @@ public class GatewayClient {
         } catch (GatewayErrorException e) {
             throw e;
         } catch (Exception e) {
-            incrementFailureCounter(metricRegistry, metricsPrefix);
+            failed = true;
+            operationMetrics.incrementFailures();
             LOGGER.error(format("Exception for gateway url=%s", url), e);
             throw new GatewayException.GenericGatewayException(e.getMessage());
         } finally {
             responseTimeStopwatch.stop();
-            metricRegistry.histogram(metricsPrefix + ".response_time").update(responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS));
+            long responseTime = responseTimeStopwatch.elapsed(TimeUnit.MILLISECONDS);
+            operationMetrics.updateResponseTime(responseTime);
+            concurrencyLimiter.release(responseTime, failed);
             if (response != null) {
                 response.close();
             }
         }
     }
 
-    private void incrementFailureCounter(MetricRegistry metricRegistry, String metricsPrefix) {
-        metricRegistry.counter(metricsPrefix + ".failures").inc();
-    }
-
     public static class Response {
         private final int status;
         private final String entity;
@@ -4,26 +4,51 @@ import com.codahale.metrics.MetricRegistry;
 
 import javax.inject.Inject;
 import javax.ws.rs.client.Client;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 public class GatewayClientFactory {
 
     private final ClientFactory clientFactory;
+    private final GatewayConcurrencyLimiters concurrencyLimiters;
+    private final Map<PaymentGatewayName, Client> sharedClients = new ConcurrentHashMap<>();
+    private final Map<PaymentGatewayName, ExecutorService> asyncExecutors = new ConcurrentHashMap<>();
 
-    @Inject
     public GatewayClientFactory(ClientFactory clientFactory) {
+        this(clientFactory, GatewayConcurrencyLimiters.unlimited());
+    }
+
+    @Inject
+    public GatewayClientFactory(ClientFactory clientFactory, GatewayConcurrencyLimiters concurrencyLimiters) {
         this.clientFactory = clientFactory;
+        this.concurrencyLimiters = concurrencyLimiters;
     }
 
     public GatewayClient createGatewayClient(PaymentGatewayName gateway,
                                              GatewayOperation operation,
                                              MetricRegistry metricRegistry) {
         Client client = clientFactory.createWithDropwizardClient(gateway, operation, metricRegistry);
-        return new GatewayClient(client, metricRegistry);
+        return new GatewayClient(client, metricRegistry, concurrencyLimiters.forGateway(gateway));
     }
 
     public GatewayClient createGatewayClient(PaymentGatewayName gateway,
                                              MetricRegistry metricRegistry) {
         Client client = clientFactory.createWithDropwizardClient(gateway, metricRegistry);
-        return new GatewayClient(client, metricRegistry);
+        return new GatewayClient(client, metricRegistry, concurrencyLimiters.forGateway(gateway));
+    }
+
+    /**
+     * Creates an asynchronous client for an operation. The Jersey client and executor are created once per gateway
+     * and shared by all its operations, so this factory must be a singleton.
+     */
+    public AsyncGatewayClient createAsyncGatewayClient(PaymentGatewayName gateway,
+                                                       GatewayOperation operation,
+                                                       MetricRegistry metricRegistry) {
+        Client client = sharedClients.computeIfAbsent(gateway, g -> clientFactory.createSharedClient(g, metricRegistry));
+        ExecutorService executor = asyncExecutors.computeIfAbsent(gateway, clientFactory::createAsyncExecutor);
+        GatewayClient gatewayClient = new GatewayClient(client, metricRegistry, concurrencyLimiters.forGateway(gateway),
+                clientFactory.getReadTimeout(operation, gateway));
+        return new AsyncGatewayClient(gatewayClient, executor);
     }
 }
@@ -0,0 +1,154 @@
+package uk.gov.pay.connector.gateway;
+
+import com.codahale.metrics.Meter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit for the requests made to one payment gateway, shared by all operations on that
+ * gateway. The limit follows AIMD (additive increase, multiplicative decrease): each request completing within
+ * the latency threshold while the limit is being used raises it by 1/limit, so roughly by one per limit's worth
+ * of requests, and each request that fails or exceeds the latency threshold multiplies it by the backoff ratio.
+ * Requests over the limit are refused straight away rather than waiting on a slow gateway.
+ * <p>
+ * The latency threshold is relative to the gateway's own baseline latency, a moving average of its successful
+ * requests that follows faster responses quickly and slower ones only gradually. A request is slow when it takes
+ * longer than the baseline times the baseline latency multiplier, so a gateway that usually answers in 500ms
+ * backs off at 1s rather than only when it reaches the configured latency threshold, which stays as an upper
+ * bound and is used until the gateway has answered once.
+ */
+public class GatewayConcurrencyLimiter {
+
+    private static final GatewayConcurrencyLimiter UNLIMITED = new GatewayConcurrencyLimiter();
+    private static final double DEFAULT_BASELINE_LATENCY_MULTIPLIER = 2.0;
+    private static final double BASELINE_DECREASE_WEIGHT = 0.5;
+    private static final double BASELINE_INCREASE_WEIGHT = 0.01;
+
+    private final boolean unlimited;
+    private final int minimumLimit;
+    private final int maximumLimit;
+    private final long latencyThresholdInMillis;
+    private final double baselineLatencyMultiplier;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Meter rejections;
+
+    private volatile double limit;
+    private double baselineLatencyInMillis;
+
+    public GatewayConcurrencyLimiter(int initialLimit, int minimumLimit, int maximumLimit,
+                                     long latencyThresholdInMillis, double backoffRatio) {
+        this(initialLimit, minimumLimit, maximumLimit, latencyThresholdInMillis, DEFAULT_BASELINE_LATENCY_MULTIPLIER,
+                backoffRatio, new Meter());
+    }
+
+    /**
+     * @param latencyThresholdInMillis  the latency over which a request is always slow, whatever the baseline
+     * @param baselineLatencyMultiplier how many times the gateway's baseline latency a request may take before it is slow
+     */
+    public GatewayConcurrencyLimiter(int initialLimit, int minimumLimit, int maximumLimit,
+                                     long latencyThresholdInMillis, double baselineLatencyMultiplier,
+                                     double backoffRatio, Meter rejections) {
+        this.unlimited = false;
+        this.rejections = rejections;
+        this.minimumLimit = minimumLimit;
+        this.maximumLimit = Math.max(minimumLimit, maximumLimit);
+        this.latencyThresholdInMillis = latencyThresholdInMillis;
+        this.baselineLatencyMultiplier = baselineLatencyMultiplier;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.min(this.maximumLimit, Math.max(minimumLimit, initialLimit));
+    }
+
+    private GatewayConcurrencyLimiter() {
+        this.unlimited = true;
+        this.rejections = new Meter();
+        this.minimumLimit = Integer.MAX_VALUE;
+        this.maximumLimit = Integer.MAX_VALUE;
+        this.latencyThresholdInMillis = Long.MAX_VALUE;
+        this.baselineLatencyMultiplier = 1.0;
+        this.backoffRatio = 1.0;
+        this.limit = Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return a shared limiter that never refuses a request and keeps no count of requests in flight
+     */
+    public static GatewayConcurrencyLimiter unlimited() {
+        return UNLIMITED;
+    }
+
+    public boolean tryAcquire() {
+        if (unlimited) {
+            return true;
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                rejections.mark();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit obtained from {@link #tryAcquire()} and adjusts the limit using the outcome of the request
+     *
+     * @param latencyInMillis time taken by the gateway request
+     * @param failed          whether the request timed out or could not be completed
+     */
+    public void release(long latencyInMillis, boolean failed) {
+        if (unlimited) {
+            return;
+        }
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (failed) {
+                limit = Math.max(minimumLimit, limit * backoffRatio);
+                return;
+            }
+            boolean slow = latencyInMillis > getLatencyThresholdInMillis();
+            updateBaselineLatency(latencyInMillis);
+            if (slow) {
+                limit = Math.max(minimumLimit, limit * backoffRatio);
+            } else if (inFlightBeforeRelease * 2 >= limit) {
+                limit = Math.min(maximumLimit, limit + 1.0 / limit);
+            }
+        }
+    }
+
+    private void updateBaselineLatency(long latencyInMillis) {
+        long sample = Math.max(1, latencyInMillis);
+        if (baselineLatencyInMillis == 0) {
+            baselineLatencyInMillis = sample;
+        } else {
+            double weight = sample < baselineLatencyInMillis ? BASELINE_DECREASE_WEIGHT : BASELINE_INCREASE_WEIGHT;
+            baselineLatencyInMillis += weight * (sample - baselineLatencyInMillis);
+        }
+    }
+
+    /**
+     * @return the latency over which a request counts as slow: the baseline latency times the baseline latency
+     * multiplier, or the configured latency threshold if that is lower or the gateway has not answered yet
+     */
+    public synchronized long getLatencyThresholdInMillis() {
+        if (unlimited || baselineLatencyInMillis == 0) {
+            return latencyThresholdInMillis;
+        }
+        return Math.min(latencyThresholdInMillis, (long) Math.ceil(baselineLatencyInMillis * baselineLatencyMultiplier));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejections.getCount();
+    }
+}
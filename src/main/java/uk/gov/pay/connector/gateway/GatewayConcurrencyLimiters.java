@@ -0,0 +1,62 @@
+package uk.gov.pay.connector.gateway;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.GatewayConcurrencyLimitConfig;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static java.lang.Runtime.getRuntime;
+import static java.lang.String.format;
+
+/**
+ * Holds one {@link GatewayConcurrencyLimiter} per payment gateway so that every {@link GatewayClient} for a
+ * gateway, whatever its operation, draws on the same concurrency budget, and a slow gateway cannot tie up the
+ * threads needed by the others. Gateway requests run on the threads of the CardExecutorService, so the limit of
+ * each gateway is capped at its maximum share of that executor's threads as well as at the configured maximum.
+ */
+@Singleton
+public class GatewayConcurrencyLimiters {
+
+    private static final GatewayConcurrencyLimiters UNLIMITED = new GatewayConcurrencyLimiters();
+
+    private final Map<PaymentGatewayName, GatewayConcurrencyLimiter> limiters = new EnumMap<>(PaymentGatewayName.class);
+
+    @Inject
+    public GatewayConcurrencyLimiters(ConnectorConfiguration configuration, Environment environment) {
+        GatewayConcurrencyLimitConfig config = configuration.getGatewayConcurrencyLimitConfig();
+        if (config.isEnabled()) {
+            MetricRegistry metricRegistry = environment.metrics();
+            int executorThreads = configuration.getExecutorServiceConfig().getMaximumNumberOfThreads(getRuntime().availableProcessors());
+            int maximumLimit = Math.min(config.getMaximumLimit(),
+                    Math.max(1, (int) (executorThreads * config.getMaximumShareOfExecutor())));
+            for (PaymentGatewayName gateway : PaymentGatewayName.values()) {
+                String metricsPrefix = format("gateway-operations.%s.concurrency", gateway.getName());
+                GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(config.getInitialLimit(),
+                        config.getMinimumLimit(), maximumLimit,
+                        config.getLatencyThresholdInMillis(), config.getBaselineLatencyMultiplier(),
+                        config.getBackoffRatio(), metricRegistry.meter(metricsPrefix + ".rejections"));
+                limiters.put(gateway, limiter);
+                metricRegistry.<Gauge<Integer>>register(metricsPrefix + ".limit", limiter::getLimit);
+                metricRegistry.<Gauge<Integer>>register(metricsPrefix + ".in_flight", limiter::getInFlight);
+                metricRegistry.<Gauge<Long>>register(metricsPrefix + ".latency_threshold", limiter::getLatencyThresholdInMillis);
+            }
+        }
+    }
+
+    private GatewayConcurrencyLimiters() {
+    }
+
+    public static GatewayConcurrencyLimiters unlimited() {
+        return UNLIMITED;
+    }
+
+    public GatewayConcurrencyLimiter forGateway(PaymentGatewayName gateway) {
+        return limiters.getOrDefault(gateway, GatewayConcurrencyLimiter.unlimited());
+    }
+}
@@ -32,6 +32,23 @@ public abstract class GatewayException extends Exception {
         }
     }
 
+    /**
+     * Thrown when a request is refused by the gateway's {@link GatewayConcurrencyLimiter} without being sent. It is
+     * a {@link GenericGatewayException} so that callers which do not distinguish it keep treating it as before, but
+     * it reports its own error type so that it can be told apart from a fault at the gateway.
+     */
+    public static class GatewayConcurrencyLimitException extends GenericGatewayException {
+
+        public GatewayConcurrencyLimitException(String message) {
+            super(message);
+        }
+
+        @Override
+        public GatewayError toGatewayError() {
+            return new GatewayError(getMessage(), ErrorType.GATEWAY_CONCURRENCY_LIMIT_ERROR);
+        }
+    }
+
     public static class GatewayConnectionTimeoutException extends GatewayException {
 
         public GatewayConnectionTimeoutException(String message) {
@@ -0,0 +1,78 @@
+package uk.gov.pay.connector.gateway;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import uk.gov.pay.connector.gateway.model.OrderRequestType;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.lang.String.format;
+
+/**
+ * The gateway-operations.{gateway}.{account type}.{order request type} response time histogram and failure
+ * counter. The handles for each combination are resolved from the registry the first time it is used and
+ * then held in a table indexed by ordinal, so timing a gateway request does not format a metric name or
+ * look one up in the registry.
+ */
+public class GatewayOperationMetrics {
+
+    private static final int GATEWAY_COUNT = PaymentGatewayName.values().length;
+    private static final int ACCOUNT_TYPE_COUNT = GatewayAccountType.values().length;
+    private static final int ORDER_REQUEST_TYPE_COUNT = OrderRequestType.values().length;
+
+    private final MetricRegistry metricRegistry;
+    private final AtomicReferenceArray<Handles> handles =
+            new AtomicReferenceArray<>(GATEWAY_COUNT * ACCOUNT_TYPE_COUNT * ORDER_REQUEST_TYPE_COUNT);
+
+    public GatewayOperationMetrics(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    public Handles forRequest(GatewayAccountEntity account, OrderRequestType orderRequestType) {
+        String gatewayName = account.getGatewayName();
+        String accountType = account.getType();
+        int gateway = PaymentGatewayName.ordinalOf(gatewayName);
+        int type = GatewayAccountType.ordinalOf(accountType);
+
+        if (gateway < 0 || type < 0 || orderRequestType == null) {
+            // not one of ours, so it is not worth holding on to
+            return resolve(gatewayName, accountType, orderRequestType);
+        }
+
+        int index = (gateway * ACCOUNT_TYPE_COUNT + type) * ORDER_REQUEST_TYPE_COUNT + orderRequestType.ordinal();
+        Handles resolved = handles.get(index);
+        if (resolved == null) {
+            // threads that lose the race use the handles set by the winner
+            handles.compareAndSet(index, null, resolve(gatewayName, accountType, orderRequestType));
+            resolved = handles.get(index);
+        }
+        return resolved;
+    }
+
+    private Handles resolve(String gatewayName, String accountType, OrderRequestType orderRequestType) {
+        String metricsPrefix = format("gateway-operations.%s.%s.%s", gatewayName, accountType, orderRequestType);
+        return new Handles(metricRegistry.histogram(metricsPrefix + ".response_time"),
+                metricRegistry.counter(metricsPrefix + ".failures"));
+    }
+
+    public static class Handles {
+        private final Histogram responseTime;
+        private final Counter failures;
+
+        private Handles(Histogram responseTime, Counter failures) {
+            this.responseTime = responseTime;
+            this.failures = failures;
+        }
+
+        public void updateResponseTime(long responseTimeInMillis) {
+            responseTime.update(responseTimeInMillis);
+        }
+
+        public void incrementFailures() {
+            failures.inc();
+        }
+    }
+}
@@ -3,6 +3,8 @@ package uk.gov.pay.connector.gateway;
 public enum PaymentGatewayName {
     SANDBOX("sandbox"), SMARTPAY("smartpay"), WORLDPAY("worldpay"), EPDQ("epdq"), STRIPE("stripe");
 
+    private static final PaymentGatewayName[] VALUES = values();
+
     private final String gatewayName;
 
     PaymentGatewayName(String gatewayName) {
@@ -35,4 +37,16 @@ public enum PaymentGatewayName {
         }
         throw new Unsupported("Unsupported Payment Gateway " + gatewayName);
     }
+
+    /**
+     * @return the ordinal of the gateway with the given name, or -1 if there is none
+     */
+    public static int ordinalOf(String gatewayName) {
+        for (PaymentGatewayName paymentGatewayName : VALUES) {
+            if (paymentGatewayName.getName().equals(gatewayName)) {
+                return paymentGatewayName.ordinal();
+            }
+        }
+        return -1;
+    }
 }
@@ -17,6 +17,7 @@ import uk.gov.pay.connector.gateway.model.response.GatewayRefundResponse;
 import uk.gov.pay.connector.gateway.model.response.GatewayResponse;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.refund.model.domain.Refund;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 import uk.gov.pay.connector.wallets.WalletAuthorisationGatewayRequest;
 
 import java.util.List;
@@ -45,6 +46,8 @@ public interface PaymentProvider {
     GatewayResponse<BaseCancelResponse> cancel(CancelGatewayRequest request) throws GatewayException;
 
     ExternalChargeRefundAvailability getExternalChargeRefundAvailability(Charge charge, List<Refund> refundEntityList);
+
+    ExternalChargeRefundAvailability getExternalChargeRefundAvailability(Charge charge, RefundSummary refundSummary);
     
     AuthorisationRequestSummary generateAuthorisationRequestSummary(ChargeEntity chargeEntity, AuthCardDetails authCardDetails);
 
@@ -15,11 +15,11 @@ import uk.gov.pay.connector.gateway.processor.RefundNotificationProcessor;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.service.GatewayAccountService;
 import uk.gov.pay.connector.refund.model.domain.RefundStatus;
+import uk.gov.pay.connector.util.CidrTrie;
 import uk.gov.pay.connector.util.IpAddressMatcher;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
@@ -49,7 +49,7 @@ public class EpdqNotificationService {
     private final RefundNotificationProcessor refundNotificationProcessor;
     private final GatewayAccountService gatewayAccountService;
     private final IpAddressMatcher ipAddressMatcher;
-    private final Set<String> allowedEpdqIpAddresses;
+    private final CidrTrie allowedEpdqCidrs;
 
     @Inject
     public EpdqNotificationService(ChargeService chargeService,
@@ -58,19 +58,19 @@ public class EpdqNotificationService {
                                    RefundNotificationProcessor refundNotificationProcessor,
                                    GatewayAccountService gatewayAccountService,
                                    IpAddressMatcher ipAddressMatcher,
-                                   @Named("AllowedEpdqIpAddresses") Set<String> allowedEpdqIpAddresses) {
+                                   @Named("AllowedEpdqCidrs") CidrTrie allowedEpdqCidrs) {
         this.chargeService = chargeService;
         this.signatureGenerator = signatureGenerator;
         this.chargeNotificationProcessor = chargeNotificationProcessor;
         this.refundNotificationProcessor = refundNotificationProcessor;
         this.gatewayAccountService = gatewayAccountService;
-        this.allowedEpdqIpAddresses = allowedEpdqIpAddresses;
+        this.allowedEpdqCidrs = allowedEpdqCidrs;
         this.ipAddressMatcher = ipAddressMatcher;
     }
 
     @Transactional
     public boolean handleNotificationFor(String payload, String forwardedIpAddresses) {
-        if (!ipAddressMatcher.isMatch(forwardedIpAddresses, allowedEpdqIpAddresses)) {
+        if (!ipAddressMatcher.isMatch(forwardedIpAddresses, allowedEpdqCidrs)) {
             return false;
         }
 
@@ -44,6 +44,7 @@ import uk.gov.pay.connector.gateway.util.EpdqExternalRefundAvailabilityCalculato
 import uk.gov.pay.connector.gateway.util.ExternalRefundAvailabilityCalculator;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.refund.model.domain.Refund;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 import uk.gov.pay.connector.wallets.WalletAuthorisationGatewayRequest;
 
 import javax.inject.Inject;
@@ -242,6 +243,11 @@ public class EpdqPaymentProvider implements PaymentProvider {
         return externalRefundAvailabilityCalculator.calculate(charge, refundList);
     }
 
+    @Override
+    public ExternalChargeRefundAvailability getExternalChargeRefundAvailability(Charge charge, RefundSummary refundSummary) {
+        return externalRefundAvailabilityCalculator.calculate(charge, refundSummary);
+    }
+
     @Override
     public EpdqAuthorisationRequestSummary generateAuthorisationRequestSummary(ChargeEntity chargeEntity, AuthCardDetails authCardDetails) {
         return new EpdqAuthorisationRequestSummary(chargeEntity, authCardDetails);
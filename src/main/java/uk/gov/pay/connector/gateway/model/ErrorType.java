@@ -3,5 +3,6 @@ package uk.gov.pay.connector.gateway.model;
 public enum ErrorType {
     GENERIC_GATEWAY_ERROR,
     GATEWAY_CONNECTION_TIMEOUT_ERROR,
-    GATEWAY_ERROR
+    GATEWAY_ERROR,
+    GATEWAY_CONCURRENCY_LIMIT_ERROR
 }
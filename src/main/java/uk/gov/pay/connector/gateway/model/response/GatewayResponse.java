@@ -57,6 +57,7 @@ public class GatewayResponse<T extends BaseResponse> {
             case GENERIC_GATEWAY_ERROR: throw new GatewayException.GenericGatewayException(gatewayError.getMessage());
             case GATEWAY_ERROR: throw new GatewayException.GatewayErrorException(gatewayError.getMessage());
             case GATEWAY_CONNECTION_TIMEOUT_ERROR: throw new GatewayConnectionTimeoutException(gatewayError.getMessage());
+            case GATEWAY_CONCURRENCY_LIMIT_ERROR: throw new GatewayException.GatewayConcurrencyLimitException(gatewayError.getMessage());
         }
     }
 
@@ -26,6 +26,7 @@ import uk.gov.pay.connector.gateway.util.DefaultExternalRefundAvailabilityCalcul
 import uk.gov.pay.connector.gateway.util.ExternalRefundAvailabilityCalculator;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.refund.model.domain.Refund;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 import uk.gov.pay.connector.wallets.WalletAuthorisationGatewayRequest;
 
 import java.util.List;
@@ -105,6 +106,11 @@ public class SandboxPaymentProvider implements PaymentProvider, SandboxGatewayRe
         return externalRefundAvailabilityCalculator.calculate(charge, refundList);
     }
 
+    @Override
+    public ExternalChargeRefundAvailability getExternalChargeRefundAvailability(Charge charge, RefundSummary refundSummary) {
+        return externalRefundAvailabilityCalculator.calculate(charge, refundSummary);
+    }
+
     @Override
     public SandboxAuthorisationRequestSummary generateAuthorisationRequestSummary(ChargeEntity chargeEntity, AuthCardDetails authCardDetails) {
         return new SandboxAuthorisationRequestSummary();
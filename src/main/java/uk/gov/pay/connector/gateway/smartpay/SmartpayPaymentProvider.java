@@ -33,6 +33,7 @@ import uk.gov.pay.connector.gateway.util.DefaultExternalRefundAvailabilityCalcul
 import uk.gov.pay.connector.gateway.util.ExternalRefundAvailabilityCalculator;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.refund.model.domain.Refund;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 import uk.gov.pay.connector.wallets.WalletAuthorisationGatewayRequest;
 
 import javax.inject.Inject;
@@ -162,6 +163,11 @@ public class SmartpayPaymentProvider implements PaymentProvider {
         return externalRefundAvailabilityCalculator.calculate(charge, refundList);
     }
 
+    @Override
+    public ExternalChargeRefundAvailability getExternalChargeRefundAvailability(Charge charge, RefundSummary refundSummary) {
+        return externalRefundAvailabilityCalculator.calculate(charge, refundSummary);
+    }
+
     @Override
     public SmartpayAuthorisationRequestSummary generateAuthorisationRequestSummary(ChargeEntity chargeEntity, AuthCardDetails authCardDetails) {
         return new SmartpayAuthorisationRequestSummary(chargeEntity, authCardDetails);
@@ -25,12 +25,12 @@ import uk.gov.pay.connector.payout.PayoutEmitterService;
 import uk.gov.pay.connector.queue.QueueException;
 import uk.gov.pay.connector.queue.payout.Payout;
 import uk.gov.pay.connector.queue.payout.PayoutReconcileQueue;
+import uk.gov.pay.connector.util.CidrTrie;
 import uk.gov.pay.connector.util.IpAddressMatcher;
 
 import javax.ws.rs.WebApplicationException;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 import static java.lang.String.format;
 import static net.logstash.logback.argument.StructuredArguments.kv;
@@ -81,7 +81,7 @@ public class StripeNotificationService {
     private final PayoutReconcileQueue payoutReconcileQueue;
     private final PayoutEmitterService payoutEmitterService;
     private final IpAddressMatcher ipAddressMatcher;
-    private final Set<String> allowedStripeIpAddresses;
+    private final CidrTrie allowedStripeCidrs;
 
     private static final String PAYMENT_GATEWAY_NAME = PaymentGatewayName.STRIPE.getName();
     private static final long DEFAULT_TOLERANCE = 300L;
@@ -94,7 +94,7 @@ public class StripeNotificationService {
                                      PayoutReconcileQueue payoutReconcileQueue,
                                      PayoutEmitterService payoutEmitterService,
                                      IpAddressMatcher ipAddressMatcher,
-                                     @Named("AllowedStripeIpAddresses") Set<String> allowedStripeIpAddresses,
+                                     @Named("AllowedStripeCidrs") CidrTrie allowedStripeCidrs,
                                      ObjectMapper objectMapper) {
         this.card3dsResponseAuthService = card3dsResponseAuthService;
         this.chargeService = chargeService;
@@ -104,11 +104,11 @@ public class StripeNotificationService {
         this.stripeGatewayConfig = stripeGatewayConfig;
         this.payoutEmitterService = payoutEmitterService;
         this.ipAddressMatcher = ipAddressMatcher;
-        this.allowedStripeIpAddresses = allowedStripeIpAddresses;
+        this.allowedStripeCidrs = allowedStripeCidrs;
     }
 
     public boolean handleNotificationFor(String payload, String signatureHeader, String forwardedIpAddresses) {
-        if (!ipAddressMatcher.isMatch(forwardedIpAddresses, allowedStripeIpAddresses)) {
+        if (!ipAddressMatcher.isMatch(forwardedIpAddresses, allowedStripeCidrs)) {
             return false;
         }
 
@@ -39,6 +39,7 @@ import uk.gov.pay.connector.gateway.util.DefaultExternalRefundAvailabilityCalcul
 import uk.gov.pay.connector.gateway.util.ExternalRefundAvailabilityCalculator;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.refund.model.domain.Refund;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 import uk.gov.pay.connector.util.JsonObjectMapper;
 import uk.gov.pay.connector.wallets.WalletAuthorisationGatewayRequest;
 
@@ -194,6 +195,11 @@ public class StripePaymentProvider implements PaymentProvider {
         return externalRefundAvailabilityCalculator.calculate(charge, refundList);
     }
 
+    @Override
+    public ExternalChargeRefundAvailability getExternalChargeRefundAvailability(Charge charge, RefundSummary refundSummary) {
+        return externalRefundAvailabilityCalculator.calculate(charge, refundSummary);
+    }
+
     @Override
     public StripeAuthorisationRequestSummary generateAuthorisationRequestSummary(ChargeEntity chargeEntity, AuthCardDetails authCardDetails) {
         return new StripeAuthorisationRequestSummary(authCardDetails);
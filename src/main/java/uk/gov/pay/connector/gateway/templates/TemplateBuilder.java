@@ -7,41 +7,96 @@ import freemarker.template.TemplateExceptionHandler;
 import uk.gov.pay.connector.gateway.OrderRequestBuilder.TemplateData;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Locale;
 
 import static freemarker.template.Configuration.VERSION_2_3_20;
 
 public class TemplateBuilder implements PayloadBuilder {
-    private Template template;
+    private static final String TEMPLATE_DIR = "/templates";
+    private static final int INITIAL_BUFFER_CAPACITY = 2048;
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 64 * 1024;
+
+    /**
+     * Shared by all builders so that templates are loaded and parsed once by a single FreeMarker
+     * configuration and its template cache, rather than each builder owning a configuration.
+     */
+    private static final Configuration CONFIGURATION = buildConfiguration();
+
+    private static final ThreadLocal<StringBuilderWriter> WRITERS = ThreadLocal.withInitial(StringBuilderWriter::new);
+
+    private final Template template;
 
     public TemplateBuilder(String templatePath) {
-        templateSetup("/templates", templatePath);
+        try {
+            template = CONFIGURATION.getTemplate(templatePath);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load template " + templatePath + " in dir " + TEMPLATE_DIR, e);
+        }
     }
 
     public String buildWith(TemplateData templateData) {
-        Writer responseWriter = new StringWriter();
+        StringBuilderWriter responseWriter = WRITERS.get();
         try {
             template.process(templateData, responseWriter);
+            return responseWriter.toString();
         } catch (TemplateException | IOException e) {
             throw new RuntimeException("Could not render template " + template.getName(), e);
+        } finally {
+            responseWriter.reset();
         }
-        return responseWriter.toString();
     }
 
-    private void templateSetup(String templateDir, String templateName) {
+    private static Configuration buildConfiguration() {
         Configuration cfg = new Configuration(VERSION_2_3_20);
         cfg.setDefaultEncoding("UTF-8");
         cfg.setLocale(Locale.ENGLISH);
         cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
-        cfg.setClassForTemplateLoading(TemplateBuilder.class, templateDir);
+        cfg.setClassForTemplateLoading(TemplateBuilder.class, TEMPLATE_DIR);
+        return cfg;
+    }
 
-        try {
-            template = cfg.getTemplate(templateName);
-        } catch (IOException e) {
-            throw new RuntimeException("Could not load template " + templateName + " in dir " + templateDir, e);
+    /**
+     * Unsynchronised writer whose buffer is reused between renders on the same thread. Buffers that grew
+     * beyond {@link #MAX_RETAINED_BUFFER_CAPACITY} are dropped rather than retained.
+     */
+    private static class StringBuilderWriter extends Writer {
+        private StringBuilder buffer = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            buffer.append(chars, offset, length);
         }
-    }
 
+        @Override
+        public void write(String str, int offset, int length) {
+            buffer.append(str, offset, offset + length);
+        }
+
+        @Override
+        public void write(int c) {
+            buffer.append((char) c);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+
+        void reset() {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+                buffer = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+            } else {
+                buffer.setLength(0);
+            }
+        }
+    }
 }
@@ -6,7 +6,7 @@ import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
 import uk.gov.pay.connector.charge.util.RefundCalculator;
 import uk.gov.pay.connector.common.model.api.ExternalChargeRefundAvailability;
 import uk.gov.pay.connector.refund.model.domain.Refund;
-import uk.gov.pay.connector.refund.model.domain.RefundEntity;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 
 import java.util.List;
 
@@ -49,17 +49,22 @@ public class DefaultExternalRefundAvailabilityCalculator implements ExternalRefu
 
     @Override
     public ExternalChargeRefundAvailability calculate(Charge charge, List<Refund> refundList) {
-        return calculate(charge, STATUSES_THAT_MAP_TO_EXTERNAL_PENDING, STATUSES_THAT_MAP_TO_EXTERNAL_AVAILABLE_OR_EXTERNAL_FULL, refundList);
+        return calculate(charge, RefundSummary.from(refundList));
+    }
+
+    @Override
+    public ExternalChargeRefundAvailability calculate(Charge charge, RefundSummary refundSummary) {
+        return calculate(charge, STATUSES_THAT_MAP_TO_EXTERNAL_PENDING, STATUSES_THAT_MAP_TO_EXTERNAL_AVAILABLE_OR_EXTERNAL_FULL, refundSummary);
     }
 
     protected ExternalChargeRefundAvailability calculate(Charge charge, List<ChargeStatus> statusesThatMapToExternalPending,
                                                          List<ChargeStatus> statusesThatMapToExternalAvailableOrExternalFull,
-                                                         List<Refund> refundList) {
+                                                         RefundSummary refundSummary) {
         if (charge.isHistoric()) {
             ExternalChargeRefundAvailability currentChargeRefundAvailability = ExternalChargeRefundAvailability.from(charge.getRefundAvailabilityStatus());
 
             if (MUTABLE_REFUND_STATES.contains(currentChargeRefundAvailability)) {
-                return calculateRefundAvailability(charge, refundList);
+                return calculateRefundAvailability(charge, refundSummary);
             } else {
                 return currentChargeRefundAvailability;
             }
@@ -67,14 +72,14 @@ public class DefaultExternalRefundAvailabilityCalculator implements ExternalRefu
             if (chargeIsPending(charge, statusesThatMapToExternalPending)) {
                 return EXTERNAL_PENDING;
             } else if (chargeIsAvailableOrFull(charge, statusesThatMapToExternalAvailableOrExternalFull)) {
-                return calculateRefundAvailability(charge, refundList);
+                return calculateRefundAvailability(charge, refundSummary);
             }
             return EXTERNAL_UNAVAILABLE;
         }
     }
 
-    private ExternalChargeRefundAvailability calculateRefundAvailability(Charge charge, List<Refund> refundList) {
-        long amountAvailableToBeRefunded = RefundCalculator.getTotalAmountAvailableToBeRefunded(charge, refundList);
+    private ExternalChargeRefundAvailability calculateRefundAvailability(Charge charge, RefundSummary refundSummary) {
+        long amountAvailableToBeRefunded = RefundCalculator.getTotalAmountAvailableToBeRefunded(charge, refundSummary);
         if (amountAvailableToBeRefunded > 0) {
             return EXTERNAL_AVAILABLE;
         } else {
@@ -14,6 +14,11 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.sax.SAXSource;
 import java.io.ByteArrayInputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.xml.XMLConstants.FEATURE_SECURE_PROCESSING;
@@ -22,6 +27,11 @@ public class XMLUnmarshaller {
 
     private static final String JDK_ENTITY_EXPANSION_LIMIT = "http://www.oracle.com/xml/jaxp/properties/entityExpansionLimit";
     private static final String JDK_ENTITY_EXPANSION_LIMIT_VALUE = "1";
+    private static final int MAX_POOLED_INSTANCES = 64;
+
+    private static final ConcurrentMap<Class<?>, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, Pool<Unmarshaller>> UNMARSHALLERS = new ConcurrentHashMap<>();
+    private static final Pool<XMLReader> XML_READERS = new Pool<>();
 
     /**
      * Unmarshall XML payloads to Java instance
@@ -33,23 +43,50 @@ public class XMLUnmarshaller {
      * @throws XMLUnmarshallerException
      * @implNote DTD validations are disabled by default (not http access is allowed) and mitigate XXE attack
      * NamespaceAware must be set to true (soap envelopes are being unmarshalled using same method)
+     * JAXB contexts are cached per target class. Hardened XML readers and unmarshallers are pooled and only
+     * returned to the pool after a successful unmarshall, so a reader left in an unknown state is never reused.
      */
     public static <T> T unmarshall(String payload, Class<T> clazz) throws XMLUnmarshallerException {
         try {
-            XMLReader xmlReader = buildXmlReader();
-            return unmarshall(payload, clazz, xmlReader);
+            XMLReader xmlReader = borrowXmlReader();
+            Pool<Unmarshaller> unmarshallers = UNMARSHALLERS.computeIfAbsent(clazz, c -> new Pool<>());
+            Unmarshaller unmarshaller = borrowUnmarshaller(unmarshallers, clazz);
+            T result = unmarshall(payload, clazz, xmlReader, unmarshaller);
+            unmarshallers.release(unmarshaller);
+            XML_READERS.release(xmlReader);
+            return result;
         } catch (ParserConfigurationException | SAXException | JAXBException e) {
             throw new XMLUnmarshallerException(e);
         }
     }
 
-    private static <T> T unmarshall(String payload, Class<T> clazz, XMLReader xmlReader) throws JAXBException {
+    private static <T> T unmarshall(String payload, Class<T> clazz, XMLReader xmlReader, Unmarshaller unmarshaller) throws JAXBException {
         InputSource inputSource = new InputSource(new ByteArrayInputStream(payload.getBytes(UTF_8)));
-        JAXBContext jaxbContext = JAXBContext.newInstance(clazz);
-        Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
         return unmarshaller.unmarshal(new SAXSource(xmlReader, inputSource), clazz).getValue();
     }
 
+    private static Unmarshaller borrowUnmarshaller(Pool<Unmarshaller> unmarshallers, Class<?> clazz) throws JAXBException {
+        Unmarshaller unmarshaller = unmarshallers.borrow();
+        return unmarshaller != null ? unmarshaller : jaxbContextFor(clazz).createUnmarshaller();
+    }
+
+    private static JAXBContext jaxbContextFor(Class<?> clazz) throws JAXBException {
+        JAXBContext jaxbContext = JAXB_CONTEXTS.get(clazz);
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(clazz);
+            JAXBContext existing = JAXB_CONTEXTS.putIfAbsent(clazz, jaxbContext);
+            if (existing != null) {
+                jaxbContext = existing;
+            }
+        }
+        return jaxbContext;
+    }
+
+    private static XMLReader borrowXmlReader() throws ParserConfigurationException, SAXException {
+        XMLReader xmlReader = XML_READERS.borrow();
+        return xmlReader != null ? xmlReader : buildXmlReader();
+    }
+
     private static XMLReader buildXmlReader() throws ParserConfigurationException, SAXException {
         SAXParserFactory spf = SAXParserFactory.newInstance();
         spf.setFeature(FEATURE_SECURE_PROCESSING, true); // Explicitly set. Do not remove
@@ -71,4 +108,25 @@ public class XMLUnmarshaller {
         saxParserFactory.setFeature("http://xml.org/sax/features/validation", false);
         saxParserFactory.setNamespaceAware(true);
     }
+
+    private static class Pool<E> {
+        private final Queue<E> instances = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        E borrow() {
+            E instance = instances.poll();
+            if (instance != null) {
+                size.decrementAndGet();
+            }
+            return instance;
+        }
+
+        void release(E instance) {
+            if (size.incrementAndGet() <= MAX_POOLED_INSTANCES) {
+                instances.offer(instance);
+            } else {
+                size.decrementAndGet();
+            }
+        }
+    }
 }
@@ -3,6 +3,8 @@ package uk.gov.pay.connector.gateway.worldpay;
 import com.google.inject.name.Named;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.WorldpayConfig;
+import uk.gov.pay.connector.gateway.AsyncGatewayClient;
 import uk.gov.pay.connector.gateway.GatewayClient;
 import uk.gov.pay.connector.gateway.GatewayException;
 import uk.gov.pay.connector.gateway.model.GatewayError;
@@ -13,6 +15,8 @@ import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import javax.inject.Inject;
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 import static java.lang.String.format;
 import static javax.ws.rs.core.Response.Status.Family.CLIENT_ERROR;
@@ -26,13 +30,36 @@ public class WorldpayAuthoriseHandler implements WorldpayGatewayResponseGenerato
     private static final Logger LOGGER = LoggerFactory.getLogger(WorldpayAuthoriseHandler.class);
     
     private final GatewayClient authoriseClient;
+    private final AsyncGatewayClient asyncAuthoriseClient;
     private final Map<String, URI> gatewayUrlMap;
+    private final boolean streamingResponseParserEnabled;
+    private final boolean asyncAuthorisationEnabled;
 
     @Inject
     public WorldpayAuthoriseHandler(@Named("WorldpayAuthoriseGatewayClient") GatewayClient authoriseClient,
-                                    @Named("WorldpayGatewayUrlMap") Map<String, URI> gatewayUrlMap) {
+                                    @Named("WorldpayAuthoriseAsyncGatewayClient") AsyncGatewayClient asyncAuthoriseClient,
+                                    @Named("WorldpayGatewayUrlMap") Map<String, URI> gatewayUrlMap,
+                                    WorldpayConfig worldpayConfig) {
+        this(authoriseClient, asyncAuthoriseClient, gatewayUrlMap, worldpayConfig.isStreamingResponseParserEnabled(),
+                worldpayConfig.isAsyncAuthorisationEnabled());
+    }
+
+    public WorldpayAuthoriseHandler(GatewayClient authoriseClient,
+                                    Map<String, URI> gatewayUrlMap,
+                                    boolean streamingResponseParserEnabled) {
+        this(authoriseClient, null, gatewayUrlMap, streamingResponseParserEnabled, false);
+    }
+
+    public WorldpayAuthoriseHandler(GatewayClient authoriseClient,
+                                    AsyncGatewayClient asyncAuthoriseClient,
+                                    Map<String, URI> gatewayUrlMap,
+                                    boolean streamingResponseParserEnabled,
+                                    boolean asyncAuthorisationEnabled) {
         this.authoriseClient = authoriseClient;
+        this.asyncAuthoriseClient = asyncAuthoriseClient;
         this.gatewayUrlMap = gatewayUrlMap;
+        this.streamingResponseParserEnabled = streamingResponseParserEnabled;
+        this.asyncAuthorisationEnabled = asyncAuthorisationEnabled;
     }
     
     public GatewayResponse<WorldpayOrderStatusResponse> authoriseWithExemption(CardAuthorisationGatewayRequest request) {
@@ -42,9 +69,20 @@ public class WorldpayAuthoriseHandler implements WorldpayGatewayResponseGenerato
     public GatewayResponse<WorldpayOrderStatusResponse> authoriseWithoutExemption(CardAuthorisationGatewayRequest request) {
         return authorise(request, false);
     }
+
+    public CompletionStage<GatewayResponse<WorldpayOrderStatusResponse>> authoriseWithExemptionAsync(CardAuthorisationGatewayRequest request) {
+        return authoriseAsync(request, true);
+    }
+
+    public CompletionStage<GatewayResponse<WorldpayOrderStatusResponse>> authoriseWithoutExemptionAsync(CardAuthorisationGatewayRequest request) {
+        return authoriseAsync(request, false);
+    }
     
     private GatewayResponse<WorldpayOrderStatusResponse> authorise(CardAuthorisationGatewayRequest request, 
                                                                   boolean withExemptionEngine) {
+        if (asyncAuthorisationEnabled) {
+            return authoriseAsync(request, withExemptionEngine).toCompletableFuture().join();
+        }
 
         logMissingDdcResultFor3dsFlexIntegration(request);
         
@@ -54,13 +92,59 @@ public class WorldpayAuthoriseHandler implements WorldpayGatewayResponseGenerato
                     request.getGatewayAccount(),
                     WorldpayOrderBuilder.buildAuthoriseOrderWithExemptionEngine(request, withExemptionEngine),
                     getGatewayAccountCredentialsAsAuthHeader(request.getGatewayAccount().getCredentials()));
+            return toGatewayResponse(request, response);
+        } catch (GatewayException e) {
+            return toGatewayErrorResponse(request, e);
+        }
+    }
+
+    /**
+     * Sends the authorisation through the asynchronous client. The stage always completes with a response, which
+     * holds a gateway error if the request failed.
+     */
+    private CompletionStage<GatewayResponse<WorldpayOrderStatusResponse>> authoriseAsync(CardAuthorisationGatewayRequest request,
+                                                                                        boolean withExemptionEngine) {
+        logMissingDdcResultFor3dsFlexIntegration(request);
+
+        return asyncAuthoriseClient.postRequestFor(
+                gatewayUrlMap.get(request.getGatewayAccount().getType()),
+                request.getGatewayAccount(),
+                WorldpayOrderBuilder.buildAuthoriseOrderWithExemptionEngine(request, withExemptionEngine),
+                getGatewayAccountCredentialsAsAuthHeader(request.getGatewayAccount().getCredentials()))
+                .handle((response, throwable) -> {
+                    try {
+                        if (throwable == null) {
+                            return toGatewayResponse(request, response);
+                        }
+                        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                                ? throwable.getCause() : throwable;
+                        if (cause instanceof GatewayException) {
+                            return toGatewayErrorResponse(request, (GatewayException) cause);
+                        }
+                        return toGatewayErrorResponse(request, new GatewayException.GenericGatewayException(cause.getMessage()));
+                    } catch (GatewayException e) {
+                        return toGatewayErrorResponse(request, e);
+                    }
+                });
+    }
+
+    private GatewayResponse<WorldpayOrderStatusResponse> toGatewayResponse(CardAuthorisationGatewayRequest request,
+                                                                           GatewayClient.Response response)
+            throws GatewayException.GatewayErrorException {
+        if (response.getEntity().contains("request3DSecure")) {
+            LOGGER.info(format("Worldpay authorisation response when 3ds required for %s: %s", request.getChargeExternalId(), sanitiseMessage(response.getEntity())));
+        }
+        if (streamingResponseParserEnabled) {
+            return getStreamedWorldpayGatewayResponse(response);
+        }
+        return getWorldpayGatewayResponse(response);
+    }
+
+    private GatewayResponse<WorldpayOrderStatusResponse> toGatewayErrorResponse(CardAuthorisationGatewayRequest request,
+                                                                                GatewayException exception) {
+        if (exception instanceof GatewayException.GatewayErrorException) {
+            GatewayException.GatewayErrorException e = (GatewayException.GatewayErrorException) exception;
 
-            if (response.getEntity().contains("request3DSecure")) {
-                LOGGER.info(format("Worldpay authorisation response when 3ds required for %s: %s", request.getChargeExternalId(), sanitiseMessage(response.getEntity())));
-            }
-            return getWorldpayGatewayResponse(response);
-        } catch (GatewayException.GatewayErrorException e) {
-            
             if (e.getStatus().isPresent() && (e.getFamily() == CLIENT_ERROR || e.getFamily() == SERVER_ERROR)) {
                 
                 LOGGER.error("Authorisation failed for charge {} due to an internal error. Reason: {}. Status code from Worldpay: {}.",
@@ -74,13 +158,11 @@ public class WorldpayAuthoriseHandler implements WorldpayGatewayResponseGenerato
             LOGGER.info("Unrecognised response status when authorising. Charge_id={}, status={}, response={}",
                     request.getChargeExternalId(), e.getStatus(), e.getResponseFromGateway());
             return responseBuilder().withGatewayError(e.toGatewayError()).build();
-            
-        } catch (GatewayException.GatewayConnectionTimeoutException | GatewayException.GenericGatewayException e) {
-            
-            LOGGER.error("GatewayException occurred for charge external id {}, error:\n {}", request.getChargeExternalId(), e);
-
-            return responseBuilder().withGatewayError(e.toGatewayError()).build();
         }
+
+        LOGGER.error("GatewayException occurred for charge external id {}, error:\n {}", request.getChargeExternalId(), exception);
+
+        return responseBuilder().withGatewayError(exception.toGatewayError()).build();
     }
 
     private String sanitiseMessage(String message) {
@@ -18,8 +18,16 @@ public interface WorldpayGatewayResponseGenerator {
     }
 
     default <T extends BaseResponse> GatewayResponse<T> getWorldpayGatewayResponse(GatewayClient.Response response, Class<T> target) throws GatewayErrorException {
+        return buildWorldpayGatewayResponse(response, unmarshallResponse(response, target));
+    }
+
+    default GatewayResponse<WorldpayOrderStatusResponse> getStreamedWorldpayGatewayResponse(GatewayClient.Response response) throws GatewayErrorException {
+        return buildWorldpayGatewayResponse(response, WorldpayOrderStatusResponseParser.parse(response.getEntity()));
+    }
+
+    private <T extends BaseResponse> GatewayResponse<T> buildWorldpayGatewayResponse(GatewayClient.Response response, T baseResponse) {
         GatewayResponse.GatewayResponseBuilder<T> responseBuilder = GatewayResponse.GatewayResponseBuilder.responseBuilder();
-        responseBuilder.withResponse(unmarshallResponse(response, target));
+        responseBuilder.withResponse(baseResponse);
         Optional.ofNullable(response.getResponseCookies().get(
                 WORLDPAY_MACHINE_COOKIE_NAME))
                 .map(ProviderSessionIdentifier::of).ifPresent(responseBuilder::withSessionIdentifier);
@@ -103,6 +103,38 @@ public class WorldpayOrderStatusResponse implements BaseAuthoriseResponse, BaseC
         this.exemptionResponseResult = exemptionResponseResult;
     }
 
+    void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    void setRefusedReturnCode(String refusedReturnCode) {
+        this.refusedReturnCode = refusedReturnCode;
+    }
+
+    void setRefusedReturnCodeDescription(String refusedReturnCodeDescription) {
+        this.refusedReturnCodeDescription = refusedReturnCodeDescription;
+    }
+
+    void setExemptionResponseReason(String exemptionResponseReason) {
+        this.exemptionResponseReason = exemptionResponseReason;
+    }
+
+    void setPaRequest(String paRequest) {
+        this.paRequest = paRequest;
+    }
+
+    void setChallengeTransactionId(String challengeTransactionId) {
+        this.challengeTransactionId = challengeTransactionId;
+    }
+
+    void setChallengePayload(String challengePayload) {
+        this.challengePayload = challengePayload;
+    }
+
+    void setThreeDsVersion(String threeDsVersion) {
+        this.threeDsVersion = threeDsVersion;
+    }
+
     public Optional<String> getExemptionResponseResult() {
         return Optional.ofNullable(exemptionResponseResult);
     }
@@ -0,0 +1,200 @@
+package uk.gov.pay.connector.gateway.worldpay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.gateway.GatewayException.GatewayErrorException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+
+import static java.lang.String.format;
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * Streaming alternative to unmarshalling a {@link WorldpayOrderStatusResponse} with JAXB. Only the elements and
+ * attributes that connector reads are extracted; everything else in the payload is skipped without being
+ * materialised.
+ *
+ * @implNote DTDs and external entities are not supported, which mirrors the XXE hardening of
+ * {@link uk.gov.pay.connector.gateway.util.XMLUnmarshaller}
+ */
+public class WorldpayOrderStatusResponseParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorldpayOrderStatusResponseParser.class);
+
+    private static final String ORDER_STATUS = "reply/orderStatus";
+    private static final String REPLY_ERROR = "reply/error";
+    private static final String ORDER_STATUS_ERROR = "reply/orderStatus/error";
+    private static final String LAST_EVENT = "reply/orderStatus/payment/lastEvent";
+    private static final String ISO8583_RETURN_CODE = "reply/orderStatus/payment/ISO8583ReturnCode";
+    private static final String PA_REQUEST = "reply/orderStatus/requestInfo/request3DSecure/paRequest";
+    private static final String ISSUER_URL = "reply/orderStatus/requestInfo/request3DSecure/issuerURL";
+    private static final String EXEMPTION_RESPONSE = "reply/orderStatus/exemptionResponse";
+    private static final String CHALLENGE_ACS_URL = "reply/orderStatus/challengeRequired/threeDSChallengeDetails/acsURL";
+    private static final String CHALLENGE_TRANSACTION_ID = "reply/orderStatus/challengeRequired/threeDSChallengeDetails/transactionId3DS";
+    private static final String CHALLENGE_PAYLOAD = "reply/orderStatus/challengeRequired/threeDSChallengeDetails/payload";
+    private static final String CHALLENGE_THREE_DS_VERSION = "reply/orderStatus/challengeRequired/threeDSChallengeDetails/threeDSVersion";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = buildXmlInputFactory();
+
+    private WorldpayOrderStatusResponseParser() {
+    }
+
+    public static WorldpayOrderStatusResponse parse(String payload) throws GatewayErrorException {
+        try {
+            return parse(XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(payload)));
+        } catch (XMLStreamException e) {
+            LOGGER.error(format("Could not parse response %s.", payload), e);
+            throw new GatewayErrorException("Invalid Response Received From Gateway");
+        }
+    }
+
+    private static WorldpayOrderStatusResponse parse(XMLStreamReader reader) throws XMLStreamException {
+        WorldpayOrderStatusResponse response = new WorldpayOrderStatusResponse();
+        StringBuilder path = new StringBuilder(128);
+        int[] pathLengths = new int[16];
+        int depth = -1;
+        String textPath = null;
+        StringBuilder text = null;
+
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case START_ELEMENT:
+                        depth++;
+                        if (depth == pathLengths.length) {
+                            int[] grown = new int[pathLengths.length * 2];
+                            System.arraycopy(pathLengths, 0, grown, 0, pathLengths.length);
+                            pathLengths = grown;
+                        }
+                        pathLengths[depth] = path.length();
+                        if (depth > 0) {
+                            if (depth > 1) {
+                                path.append('/');
+                            }
+                            path.append(reader.getLocalName());
+                        }
+                        String currentPath = path.toString();
+                        textPath = isTextPath(currentPath) ? currentPath : null;
+                        text = textPath != null ? new StringBuilder() : null;
+                        readAttributes(reader, currentPath, response);
+                        break;
+                    case CHARACTERS:
+                    case CDATA:
+                    case SPACE:
+                        if (text != null) {
+                            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case END_ELEMENT:
+                        if (text != null) {
+                            assignText(textPath, text.toString(), response);
+                            textPath = null;
+                            text = null;
+                        }
+                        path.setLength(pathLengths[depth]);
+                        depth--;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return response;
+    }
+
+    private static boolean isTextPath(String path) {
+        switch (path) {
+            case REPLY_ERROR:
+            case ORDER_STATUS_ERROR:
+            case LAST_EVENT:
+            case PA_REQUEST:
+            case ISSUER_URL:
+            case CHALLENGE_ACS_URL:
+            case CHALLENGE_TRANSACTION_ID:
+            case CHALLENGE_PAYLOAD:
+            case CHALLENGE_THREE_DS_VERSION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void readAttributes(XMLStreamReader reader, String path, WorldpayOrderStatusResponse response) {
+        if (reader.getAttributeCount() == 0) {
+            return;
+        }
+        switch (path) {
+            case ORDER_STATUS:
+                response.setTransactionId(reader.getAttributeValue(null, "orderCode"));
+                break;
+            case REPLY_ERROR:
+                response.setErrorCode(reader.getAttributeValue(null, "code"));
+                break;
+            case ORDER_STATUS_ERROR:
+                response.setOrderStatusErrorCode(reader.getAttributeValue(null, "code"));
+                break;
+            case ISO8583_RETURN_CODE:
+                response.setRefusedReturnCode(reader.getAttributeValue(null, "code"));
+                response.setRefusedReturnCodeDescription(reader.getAttributeValue(null, "description"));
+                break;
+            case EXEMPTION_RESPONSE:
+                response.setExemptionResponseResult(reader.getAttributeValue(null, "result"));
+                response.setExemptionResponseReason(reader.getAttributeValue(null, "reason"));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void assignText(String path, String text, WorldpayOrderStatusResponse response) {
+        switch (path) {
+            case REPLY_ERROR:
+                response.setErrorMessage(text);
+                break;
+            case ORDER_STATUS_ERROR:
+                response.setOrderStatusErrorMessage(text);
+                break;
+            case LAST_EVENT:
+                response.setLastEvent(text);
+                break;
+            case PA_REQUEST:
+                response.setPaRequest(text);
+                break;
+            case ISSUER_URL:
+                response.set3dsIssuerUrl(text);
+                break;
+            case CHALLENGE_ACS_URL:
+                response.setChallengeAcsUrl(text);
+                break;
+            case CHALLENGE_TRANSACTION_ID:
+                response.setChallengeTransactionId(text);
+                break;
+            case CHALLENGE_PAYLOAD:
+                response.setChallengePayload(text);
+                break;
+            case CHALLENGE_THREE_DS_VERSION:
+                response.setThreeDsVersion(text);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static XMLInputFactory buildXmlInputFactory() {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false); // Explicitly set. Do not remove
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        return xmlInputFactory;
+    }
+}
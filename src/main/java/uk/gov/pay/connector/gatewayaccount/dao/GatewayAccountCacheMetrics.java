@@ -0,0 +1,33 @@
+package uk.gov.pay.connector.gatewayaccount.dao;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import javax.inject.Singleton;
+
+/**
+ * Counts gateway account lookups served from the shared cache, shared by every {@link GatewayAccountDao}
+ */
+@Singleton
+public class GatewayAccountCacheMetrics {
+
+    private final Meter hits = new Meter();
+    private final Meter misses = new Meter();
+
+    public void registerWith(MetricRegistry metricRegistry) {
+        metricRegistry.register("gateway-account.cache.hit", hits);
+        metricRegistry.register("gateway-account.cache.miss", misses);
+    }
+
+    void recordLookup(boolean cached) {
+        (cached ? hits : misses).mark();
+    }
+
+    public long getHitCount() {
+        return hits.getCount();
+    }
+
+    public long getMissCount() {
+        return misses.getCount();
+    }
+}
@@ -7,6 +7,7 @@ import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountSearchParams;
 
 import javax.inject.Inject;
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
@@ -16,15 +17,30 @@ import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccount.CREDENTIA
 @Transactional
 public class GatewayAccountDao extends JpaDao<GatewayAccountEntity> {
 
+    private final GatewayAccountCacheMetrics cacheMetrics;
+
     @Inject
-    public GatewayAccountDao(final Provider<EntityManager> entityManager) {
+    public GatewayAccountDao(final Provider<EntityManager> entityManager, GatewayAccountCacheMetrics cacheMetrics) {
         super(entityManager);
+        this.cacheMetrics = cacheMetrics;
     }
 
     public Optional<GatewayAccountEntity> findById(Long gatewayAccountId) {
+        cacheMetrics.recordLookup(sharedCache().contains(GatewayAccountEntity.class, gatewayAccountId));
         return super.findById(GatewayAccountEntity.class, gatewayAccountId);
     }
 
+    /**
+     * Drops the account from the shared cache, so that the next lookup on any thread reads it from the database
+     */
+    public void evictFromCache(Long gatewayAccountId) {
+        sharedCache().evict(GatewayAccountEntity.class, gatewayAccountId);
+    }
+
+    private Cache sharedCache() {
+        return entityManager.get().getEntityManagerFactory().getCache();
+    }
+
     public Optional<GatewayAccountEntity> findByNotificationCredentialsUsername(String username) {
         String query = "SELECT gae FROM GatewayAccountEntity gae " +
                 "WHERE gae.notificationCredentials.userName = :username";
@@ -3,6 +3,8 @@ package uk.gov.pay.connector.gatewayaccount.model;
 public enum GatewayAccountType {
     TEST("test"), LIVE("live");
 
+    private static final GatewayAccountType[] VALUES = values();
+
     private final String value;
 
     GatewayAccountType(String value) {
@@ -21,4 +23,16 @@ public enum GatewayAccountType {
         }
         throw new IllegalArgumentException("gateway account type has to be one of (test, live)");
     }
+
+    /**
+     * @return the ordinal of the account type with exactly the given value, or -1 if there is none
+     */
+    public static int ordinalOf(String type) {
+        for (GatewayAccountType typeEnum : VALUES) {
+            if (typeEnum.value.equals(type)) {
+                return typeEnum.ordinal();
+            }
+        }
+        return -1;
+    }
 }
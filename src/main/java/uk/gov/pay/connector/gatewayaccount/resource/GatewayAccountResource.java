@@ -40,6 +40,7 @@ import javax.ws.rs.core.UriInfo;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -122,7 +123,7 @@ public class GatewayAccountResource {
                 .getGatewayAccountByExternal(externalId)
                 .map(gatewayAccount ->
                 {
-                    gatewayAccount.getCredentials().remove("password");
+                    gatewayAccount.setCredentials(withoutPassword(gatewayAccount.getCredentials()));
                     return Response.ok(gatewayAccount).build();
                 })
                 .orElseGet(() -> notFoundResponse(format("Account with external id %s not found.", externalId)));
@@ -148,6 +149,12 @@ public class GatewayAccountResource {
                 .build();
     }
 
+    private static Map<String, String> withoutPassword(Map<String, String> credentials) {
+        Map<String, String> credentialsWithoutPassword = new HashMap<>(credentials);
+        credentialsWithoutPassword.remove("password");
+        return credentialsWithoutPassword;
+    }
+
     private URI buildUri(UriInfo uriInfo, long accountId) {
         return uriInfo.getBaseUriBuilder()
                 .path("/v1/api/accounts/{accountId}")
@@ -163,7 +170,7 @@ public class GatewayAccountResource {
         return gatewayAccountService.getGatewayAccount(gatewayAccountId)
                 .map(gatewayAccount ->
                 {
-                    gatewayAccount.getCredentials().remove("password");
+                    gatewayAccount.setCredentials(withoutPassword(gatewayAccount.getCredentials()));
                     return Response.ok(gatewayAccount).build();
                 })
                 .orElseGet(() -> notFoundResponse(format("Account with id '%s' not found", gatewayAccountId)));
@@ -224,7 +231,7 @@ public class GatewayAccountResource {
             return fieldsMissingResponse(Collections.singletonList(CREDENTIALS_FIELD_NAME));
         }
 
-        return gatewayAccountService.getGatewayAccount(gatewayAccountId)
+        return gatewayAccountService.getGatewayAccountForUpdate(gatewayAccountId)
                 .map(gatewayAccount ->
                         {
                             Map<String, String> credentialsPayload = (Map) gatewayAccountPayload.get(CREDENTIALS_FIELD_NAME);
@@ -256,7 +263,7 @@ public class GatewayAccountResource {
             return fieldsInvalidSizeResponse(Collections.singletonList(SERVICE_NAME_FIELD_NAME));
         }
 
-        return gatewayAccountService.getGatewayAccount(gatewayAccountId)
+        return gatewayAccountService.getGatewayAccountForUpdate(gatewayAccountId)
                 .map(gatewayAccount ->
                         {
                             gatewayAccount.setServiceName(serviceName);
@@ -277,7 +284,7 @@ public class GatewayAccountResource {
             return fieldsMissingResponse(Collections.singletonList(REQUIRES_3DS_FIELD_NAME));
         }
 
-        return gatewayAccountService.getGatewayAccount(gatewayAccountId)
+        return gatewayAccountService.getGatewayAccountForUpdate(gatewayAccountId)
                 .map(gatewayAccount ->
                         {
                             boolean requires3ds = Boolean.parseBoolean(gatewayAccountPayload.get(REQUIRES_3DS_FIELD_NAME));
@@ -317,7 +324,7 @@ public class GatewayAccountResource {
             return badRequestResponse(errorMessage);
         }
 
-        return gatewayAccountService.getGatewayAccount(gatewayAccountId)
+        return gatewayAccountService.getGatewayAccountForUpdate(gatewayAccountId)
                 .map(gatewayAccount -> {
                     if (!gatewayAccount.isRequires3ds() && hasAnyRequired3ds(cardTypeEntities)) {
                         return Response.status(Status.CONFLICT).build();
@@ -358,7 +365,7 @@ public class GatewayAccountResource {
             return fieldsMissingResponse(Collections.singletonList(PASSWORD_KEY));
         }
 
-        return gatewayAccountService.getGatewayAccount(gatewayAccountId)
+        return gatewayAccountService.getGatewayAccountForUpdate(gatewayAccountId)
                 .map((gatewayAccountEntity) -> {
                     try {
                         gatewayAccountNotificationCredentialsService.setCredentialsForAccount(notificationCredentials,
@@ -385,7 +392,7 @@ public class GatewayAccountResource {
         }
         Optional<String> descriptionMaybe = Optional.ofNullable(payload.get(DESCRIPTION_FIELD_NAME));
         Optional<String> analyticsIdMaybe = Optional.ofNullable(payload.get(ANALYTICS_ID_FIELD_NAME));
-        return gatewayAccountService.getGatewayAccount(gatewayAccountId)
+        return gatewayAccountService.getGatewayAccountForUpdate(gatewayAccountId)
                 .map((gatewayAccountEntity) -> {
                     descriptionMaybe.ifPresent(gatewayAccountEntity::setDescription);
                     analyticsIdMaybe.ifPresent(gatewayAccountEntity::setAnalyticsId);
@@ -63,6 +63,15 @@ public class GatewayAccountService {
     public Optional<GatewayAccountEntity> getGatewayAccount(long gatewayAccountId) {
         return gatewayAccountDao.findById(gatewayAccountId);
     }
+
+    /**
+     * Looks up an account that is about to be changed, reading it from the database rather than the shared
+     * cache so that the change is never made to a copy another connector instance has since updated
+     */
+    public Optional<GatewayAccountEntity> getGatewayAccountForUpdate(long gatewayAccountId) {
+        gatewayAccountDao.evictFromCache(gatewayAccountId);
+        return gatewayAccountDao.findById(gatewayAccountId);
+    }
     
     public List<GatewayAccountResourceDTO> searchGatewayAccounts(GatewayAccountSearchParams params) {
         return gatewayAccountDao.search(params).stream()
@@ -72,7 +81,7 @@ public class GatewayAccountService {
 
     @Transactional
     public Optional<GatewayAccount> doPatch(Long gatewayAccountId, JsonPatchRequest gatewayAccountRequest) {
-        return gatewayAccountDao.findById(gatewayAccountId)
+        return getGatewayAccountForUpdate(gatewayAccountId)
                 .flatMap(gatewayAccountEntity -> {
                     attributeUpdater.get(gatewayAccountRequest.getPath())
                             .accept(gatewayAccountRequest, gatewayAccountEntity);
@@ -11,10 +11,12 @@ import java.util.concurrent.ThreadPoolExecutor;
 public class CardExecutorServiceHealthCheck extends HealthCheck {
 
     private ThreadPoolExecutor threadPoolExecutor;
+    private CardExecutorService cardExecutorService;
 
     @Inject
     public CardExecutorServiceHealthCheck(CardExecutorService cardExecutorService) {
         this.threadPoolExecutor = (ThreadPoolExecutor)cardExecutorService.getExecutor();
+        this.cardExecutorService = cardExecutorService;
         initialiseMetrics(cardExecutorService.getMetricRegistry());
     }
 
@@ -22,6 +24,8 @@ public class CardExecutorServiceHealthCheck extends HealthCheck {
         metricRegistry.<Gauge<Integer>>register("card-executor.active-threads", () -> threadPoolExecutor.getActiveCount());
         metricRegistry.<Gauge<Integer>>register("card-executor.pool-size", () -> threadPoolExecutor.getPoolSize());
         metricRegistry.<Gauge<Integer>>register("card-executor.core-pool-size", () -> threadPoolExecutor.getCorePoolSize());
+        metricRegistry.<Gauge<Integer>>register("card-executor.maximum-pool-size", () -> threadPoolExecutor.getMaximumPoolSize());
+        metricRegistry.<Gauge<Integer>>register("card-executor.in-flight", () -> cardExecutorService.getInFlightCount());
         metricRegistry.<Gauge<Integer>>register("card-executor.queue-size", () ->
                 threadPoolExecutor.getQueue() == null ? 0 : threadPoolExecutor.getQueue().size());
     }
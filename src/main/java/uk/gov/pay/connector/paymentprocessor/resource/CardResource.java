@@ -172,6 +172,7 @@ public class CardResource {
         switch (error.getErrorType()) {
             case GATEWAY_CONNECTION_TIMEOUT_ERROR:
             case GATEWAY_ERROR:
+            case GATEWAY_CONCURRENCY_LIMIT_ERROR:
                 return serviceErrorResponse(error.getMessage());
             default:
                 return badRequestResponse(error.getMessage());
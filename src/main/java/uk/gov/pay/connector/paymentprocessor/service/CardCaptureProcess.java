@@ -1,18 +1,36 @@
 package uk.gov.pay.connector.paymentprocessor.service;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.dropwizard.setup.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.charge.ChargesAwaitingCaptureMetricEmitter;
 import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.common.exception.IllegalStateRuntimeException;
 import uk.gov.pay.connector.gateway.CaptureResponse;
+import uk.gov.pay.connector.gateway.PaymentGatewayName;
+import uk.gov.pay.connector.queue.QueueMessage;
 import uk.gov.pay.connector.queue.capture.CaptureQueue;
 import uk.gov.pay.connector.queue.capture.ChargeCaptureMessage;
 import uk.gov.pay.connector.queue.QueueException;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class CardCaptureProcess {
 
@@ -20,82 +38,230 @@ public class CardCaptureProcess {
     private final CaptureQueue captureQueue;
     private final ChargeService chargeService;
     private CardCaptureService cardCaptureService;
+    private final ExecutorService captureExecutor;
+    private final int captureConcurrencyPerGateway;
+
+    private final Timer batchTimer;
+    private final Histogram batchSizeHistogram;
+    private final Meter capturedMeter;
+    private final Meter retriedMeter;
+    private final Meter captureErrorMeter;
+    private final Meter acknowledgedMeter;
+
+    private enum CaptureOutcome {
+        PROCESSED, RETRY, CAPTURE_ERROR, UNHANDLED
+    }
 
     @Inject
     public CardCaptureProcess(CaptureQueue captureQueue,
                               CardCaptureService cardCaptureService,
                               ChargeService chargeService,
-                              ChargesAwaitingCaptureMetricEmitter chargesAwaitingCaptureMetricEmitter) {
+                              ChargesAwaitingCaptureMetricEmitter chargesAwaitingCaptureMetricEmitter,
+                              ConnectorConfiguration connectorConfiguration,
+                              Environment environment) {
         this.captureQueue = captureQueue;
         this.cardCaptureService = cardCaptureService;
         this.chargeService = chargeService;
 
+        int captureConcurrency = connectorConfiguration.getCaptureProcessConfig().getCaptureConcurrency();
+        this.captureExecutor = captureConcurrency > 1 ?
+                environment.lifecycle().executorService("capture-process-%d")
+                        .minThreads(captureConcurrency)
+                        .maxThreads(captureConcurrency)
+                        .build() :
+                null;
+        this.captureConcurrencyPerGateway = connectorConfiguration.getCaptureProcessConfig().getCaptureConcurrencyPerGateway();
+
+        MetricRegistry metricRegistry = environment.metrics();
+        this.batchTimer = metricRegistry.timer("gateway-operations.capture-process.batch.response_time");
+        this.batchSizeHistogram = metricRegistry.histogram("gateway-operations.capture-process.batch.size");
+        this.capturedMeter = metricRegistry.meter("gateway-operations.capture-process.captured");
+        this.retriedMeter = metricRegistry.meter("gateway-operations.capture-process.retried");
+        this.captureErrorMeter = metricRegistry.meter("gateway-operations.capture-process.capture_error");
+        this.acknowledgedMeter = metricRegistry.meter("gateway-operations.capture-process.acknowledged");
+
         chargesAwaitingCaptureMetricEmitter.register();
     }
 
+    /**
+     * Captures a received batch of messages, concurrently when a capture concurrency greater than one
+     * is configured, then acknowledges the processed messages and defers the retriable ones in
+     * batches. Concurrency per gateway is bounded by the capture concurrency per gateway when one is
+     * configured, and further by the gateway client concurrency limits.
+     */
     public void handleCaptureMessages() throws QueueException {
         List<ChargeCaptureMessage> captureMessages = captureQueue.retrieveChargesForCapture();
-        for (ChargeCaptureMessage message : captureMessages) {
-            try {
-                MDC.put("chargeId", message.getChargeId());
-                LOGGER.info("Charge capture message received - [queueMessageId={}] [queueMessageReceiptHandle={}]",
-                        message.getQueueMessageId(),
-                        message.getQueueMessageReceiptHandle()
-                );
-
-                runCapture(message);
-            } catch (Exception e) {
-                LOGGER.warn("Error capturing charge from SQS message [queueMessageId={}] [errorMessage={}]",
-                        message.getQueueMessageId(),
-                        e.getMessage()
-                );
-            } finally {
-                MDC.remove("chargeId");
+        if (captureMessages.isEmpty()) {
+            return;
+        }
+
+        batchSizeHistogram.update(captureMessages.size());
+        try (Timer.Context ignored = batchTimer.time()) {
+            List<CaptureOutcome> outcomes = captureAll(captureMessages);
+
+            List<QueueMessage> processedMessages = new ArrayList<>();
+            List<QueueMessage> retryMessages = new ArrayList<>();
+            for (int i = 0; i < captureMessages.size(); i++) {
+                QueueMessage queueMessage = captureMessages.get(i).getQueueMessage();
+                switch (outcomes.get(i)) {
+                    case PROCESSED:
+                        capturedMeter.mark();
+                        processedMessages.add(queueMessage);
+                        break;
+                    case CAPTURE_ERROR:
+                        captureErrorMeter.mark();
+                        processedMessages.add(queueMessage);
+                        break;
+                    case RETRY:
+                        retriedMeter.mark();
+                        retryMessages.add(queueMessage);
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            acknowledge(processedMessages, retryMessages);
+        }
+    }
+
+    private List<CaptureOutcome> captureAll(List<ChargeCaptureMessage> captureMessages) {
+        if (captureExecutor == null) {
+            return captureMessages.stream().map(this::capture).collect(Collectors.toList());
+        }
+        if (captureConcurrencyPerGateway > 0) {
+            return captureAllBoundedPerGateway(captureMessages);
+        }
+
+        List<CompletableFuture<CaptureOutcome>> futures = captureMessages.stream()
+                .map(message -> CompletableFuture.supplyAsync(() -> capture(message), captureExecutor)
+                        .exceptionally(throwable -> CaptureOutcome.UNHANDLED))
+                .collect(Collectors.toList());
+
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    /**
+     * Splits the messages for each gateway into at most the capture concurrency per gateway lanes, each of which
+     * captures its messages one after another, so a batch made up mostly of one gateway's charges cannot take
+     * every capture thread. The gateways are read for the whole batch with one query; messages for charges that
+     * cannot be found share one lane group.
+     */
+    private List<CaptureOutcome> captureAllBoundedPerGateway(List<ChargeCaptureMessage> captureMessages) {
+        Map<String, PaymentGatewayName> gatewayNames = chargeService.findPaymentGatewayNamesByExternalId(
+                captureMessages.stream().map(ChargeCaptureMessage::getChargeId).collect(Collectors.toList()));
+        Map<Optional<PaymentGatewayName>, List<Integer>> indicesByGateway = IntStream.range(0, captureMessages.size())
+                .boxed()
+                .collect(Collectors.groupingBy(index -> Optional.ofNullable(gatewayNames.get(captureMessages.get(index).getChargeId())),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        CaptureOutcome[] outcomes = new CaptureOutcome[captureMessages.size()];
+        Arrays.fill(outcomes, CaptureOutcome.UNHANDLED);
+        List<CompletableFuture<Void>> lanes = new ArrayList<>();
+        indicesByGateway.values().forEach(indices -> {
+            for (int lane = 0; lane < Math.min(captureConcurrencyPerGateway, indices.size()); lane++) {
+                int firstPosition = lane;
+                lanes.add(CompletableFuture.runAsync(() -> {
+                    for (int position = firstPosition; position < indices.size(); position += captureConcurrencyPerGateway) {
+                        int index = indices.get(position);
+                        outcomes[index] = capture(captureMessages.get(index));
+                    }
+                }, captureExecutor).exceptionally(throwable -> null));
             }
+        });
+
+        lanes.forEach(CompletableFuture::join);
+        return Arrays.asList(outcomes);
+    }
+
+    /**
+     * Marking processed messages and deferring retriable ones are independent, so a failure of one does not
+     * stop the other from being attempted.
+     */
+    private void acknowledge(List<QueueMessage> processedMessages, List<QueueMessage> retryMessages) {
+        if (!processedMessages.isEmpty()) {
+            List<QueueMessage> failedMessages = sendInBatch(captureQueue::markMessagesAsProcessed, processedMessages);
+            acknowledgedMeter.mark(processedMessages.size() - failedMessages.size());
+            failedMessages.forEach(message -> LOGGER.warn(
+                    "Failed to mark charge capture message as processed [queueMessageId={}]", message.getMessageId()));
+        }
+        if (!retryMessages.isEmpty()) {
+            List<QueueMessage> failedMessages = sendInBatch(captureQueue::scheduleMessagesForRetry, retryMessages);
+            failedMessages.forEach(message -> LOGGER.warn(
+                    "Failed to schedule charge capture message for retry [queueMessageId={}]", message.getMessageId()));
+        }
+    }
+
+    private List<QueueMessage> sendInBatch(Function<List<QueueMessage>, List<QueueMessage>> batchOperation,
+                                           List<QueueMessage> messages) {
+        try {
+            return batchOperation.apply(messages);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Error sending batch of charge capture messages to the queue [errorMessage={}]", e.getMessage());
+            return messages;
         }
     }
 
-    private void runCapture(ChargeCaptureMessage captureMessage) throws QueueException {
+    private CaptureOutcome capture(ChargeCaptureMessage message) {
+        try {
+            MDC.put("chargeId", message.getChargeId());
+            LOGGER.info("Charge capture message received - [queueMessageId={}] [queueMessageReceiptHandle={}]",
+                    message.getQueueMessageId(),
+                    message.getQueueMessageReceiptHandle()
+            );
+
+            return runCapture(message);
+        } catch (Exception e) {
+            LOGGER.warn("Error capturing charge from SQS message [queueMessageId={}] [errorMessage={}]",
+                    message.getQueueMessageId(),
+                    e.getMessage()
+            );
+            return CaptureOutcome.UNHANDLED;
+        } finally {
+            MDC.remove("chargeId");
+        }
+    }
+
+    private CaptureOutcome runCapture(ChargeCaptureMessage captureMessage) {
         String externalChargeId = captureMessage.getChargeId();
 
         try {
             CaptureResponse gatewayResponse = cardCaptureService.doCapture(externalChargeId);
 
             if (gatewayResponse.isSuccessful()) {
-                captureQueue.markMessageAsProcessed(captureMessage.getQueueMessage());
-            } else {
-                LOGGER.info(
-                        "Failed to capture [externalChargeId={}] due to: {}",
-                        externalChargeId,
-                        gatewayResponse.getErrorMessage()
-                );
-                handleCaptureRetry(captureMessage);
+                return CaptureOutcome.PROCESSED;
             }
+
+            LOGGER.info(
+                    "Failed to capture [externalChargeId={}] due to: {}",
+                    externalChargeId,
+                    gatewayResponse.getErrorMessage()
+            );
+            return handleCaptureRetry(captureMessage);
         } catch (IllegalStateRuntimeException e) {
-            handleCapturedInvalidTransition(captureMessage, e);
+            return handleCapturedInvalidTransition(captureMessage, e);
         }
     }
 
-    private void handleCaptureRetry(ChargeCaptureMessage captureMessage) throws QueueException {
+    private CaptureOutcome handleCaptureRetry(ChargeCaptureMessage captureMessage) {
         boolean shouldRetry = chargeService.isChargeRetriable(captureMessage.getChargeId());
 
         if (shouldRetry) {
             LOGGER.info("Charge capture message [{}] scheduled for retry.", captureMessage.getChargeId());
-            captureQueue.scheduleMessageForRetry(captureMessage.getQueueMessage());
-        } else {
-            cardCaptureService.markChargeAsCaptureError(captureMessage.getChargeId());
-            captureQueue.markMessageAsProcessed(captureMessage.getQueueMessage());
+            return CaptureOutcome.RETRY;
         }
+
+        cardCaptureService.markChargeAsCaptureError(captureMessage.getChargeId());
+        return CaptureOutcome.CAPTURE_ERROR;
     }
 
-    private void handleCapturedInvalidTransition(ChargeCaptureMessage captureMessage, IllegalStateRuntimeException e) throws QueueException {
+    private CaptureOutcome handleCapturedInvalidTransition(ChargeCaptureMessage captureMessage, IllegalStateRuntimeException e) {
         if (chargeService.isChargeCaptureSuccess(captureMessage.getChargeId())) {
             LOGGER.info(
                     "Charge capture message [{}] already captured - marking as processed. [chargeId={}]",
                     captureMessage.getQueueMessageId(),
                     captureMessage.getChargeId());
-            captureQueue.markMessageAsProcessed(captureMessage.getQueueMessage());
-            return;
+            return CaptureOutcome.PROCESSED;
         }
 
         LOGGER.info(
@@ -20,12 +20,18 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import static java.lang.Runtime.getRuntime;
+import static uk.gov.pay.connector.app.ExecutorServiceConfig.ExecutionMode.ELASTIC;
 import static uk.gov.pay.connector.paymentprocessor.service.CardExecutorService.ExecutionStatus.COMPLETED;
 import static uk.gov.pay.connector.paymentprocessor.service.CardExecutorService.ExecutionStatus.FAILED;
 import static uk.gov.pay.connector.paymentprocessor.service.CardExecutorService.ExecutionStatus.IN_PROGRESS;
@@ -42,6 +48,7 @@ public class CardExecutorService {
     private static final Logger logger = LoggerFactory.getLogger(CardExecutorService.class);
     private static final int QUEUE_WAIT_WARN_THRESHOLD_MILLIS = 10000;
     private final MetricRegistry metricRegistry;
+    private final AtomicInteger inFlightCount = new AtomicInteger();
 
     private ExecutorServiceConfig config;
     private ExecutorService executor;
@@ -60,12 +67,23 @@ public class CardExecutorService {
                 .build();
         this.metricRegistry = environment.metrics();
         this.config = configuration.getExecutorServiceConfig();
-        int numberOfThreads = config.getThreadsPerCpu() * getRuntime().availableProcessors();
-        this.executor = Executors.newFixedThreadPool(numberOfThreads, threadFactory);
+        this.executor = buildExecutor(threadFactory);
         this.xrayUtils = xrayUtils;
         addShutdownHook();
     }
 
+    private ExecutorService buildExecutor(ThreadFactory threadFactory) {
+        int numberOfThreads = config.getThreadsPerCpu() * getRuntime().availableProcessors();
+        if (config.getExecutionMode() == ELASTIC) {
+            int maximumNumberOfThreads = config.getMaximumNumberOfThreads(getRuntime().availableProcessors());
+            logger.info("Starting {} in {} mode with {} to {} threads", CardExecutorService.class.getSimpleName(),
+                    ELASTIC, numberOfThreads, maximumNumberOfThreads);
+            return new ElasticThreadPoolExecutor(numberOfThreads, maximumNumberOfThreads,
+                    config.getIdleThreadTimeoutInSeconds(), threadFactory);
+        }
+        return Executors.newFixedThreadPool(numberOfThreads, threadFactory);
+    }
+
     public MetricRegistry getMetricRegistry() {
         return metricRegistry;
     }
@@ -81,7 +99,7 @@ public class CardExecutorService {
             } catch (InterruptedException e) {
                 logger.error("Error while waiting for {} threads to terminate", className);
             }
-            executor.shutdownNow();
+            executor.shutdownNow().forEach(task -> ((Future<?>) task).cancel(false));
         }));
     }
 
@@ -89,6 +107,10 @@ public class CardExecutorService {
         return executor;
     }
 
+    public int getInFlightCount() {
+        return inFlightCount.get();
+    }
+
     // accepts a supplier function and executed that in a separate Thread of its own.
     // returns a Pair of the execution status and the return type
     public <T> Pair<ExecutionStatus, T> execute(Supplier<T> callable) {
@@ -96,22 +118,15 @@ public class CardExecutorService {
         Map<String, String> mdcContextMap = Optional.ofNullable(MDC.getCopyOfContextMap()).orElse(Map.of());
         final long startTime = System.currentTimeMillis();
 
-        Future<T> futureObject = executor.submit(() -> {
-            MDC.setContextMap(mdcContextMap);
-            xrayUtils.beginSegment();
-            long totalWaitTime = System.currentTimeMillis() - startTime;
-            logger.debug("Card operation task spent {} ms in queue", totalWaitTime);
-            if (totalWaitTime > QUEUE_WAIT_WARN_THRESHOLD_MILLIS) {
-                logger.warn("CardExecutor Service delay - queue_wait_time={}", totalWaitTime);
-            }
-            metricRegistry.histogram("card-executor.delay").update(totalWaitTime);
-            try {
-                return task.call();
-            } finally {
-                xrayUtils.endSegment();
-                MDC.clear();
-            }
-        });
+        inFlightCount.incrementAndGet();
+        Future<T> futureObject = new InFlightTask<>(() -> runTask(task, mdcContextMap, startTime));
+        try {
+            executor.execute((Runnable) futureObject);
+        } catch (RejectedExecutionException e) {
+            inFlightCount.decrementAndGet();
+            logger.error("Card operation task rejected by {}", CardExecutorService.class.getSimpleName(), e);
+            return Pair.of(FAILED, null);
+        }
 
         try {
             return Pair.of(COMPLETED, futureObject.get(config.getTimeoutInSeconds(), TimeUnit.SECONDS));
@@ -126,4 +141,96 @@ public class CardExecutorService {
             return Pair.of(IN_PROGRESS, null);
         }
     }
+
+    private <T> T runTask(Callable<T> task, Map<String, String> mdcContextMap, long startTime) throws Exception {
+        MDC.setContextMap(mdcContextMap);
+        xrayUtils.beginSegment();
+        long totalWaitTime = System.currentTimeMillis() - startTime;
+        logger.debug("Card operation task spent {} ms in queue", totalWaitTime);
+        if (totalWaitTime > QUEUE_WAIT_WARN_THRESHOLD_MILLIS) {
+            logger.warn("CardExecutor Service delay - queue_wait_time={}", totalWaitTime);
+        }
+        metricRegistry.histogram("card-executor.delay").update(totalWaitTime);
+        try {
+            return task.call();
+        } finally {
+            xrayUtils.endSegment();
+            MDC.clear();
+        }
+    }
+
+    /**
+     * Counts a task as in flight until it completes, fails or is cancelled, so that a task which never runs, such
+     * as one still queued when the executor is shut down, does not stay counted
+     */
+    private class InFlightTask<T> extends FutureTask<T> {
+
+        InFlightTask(Callable<T> callable) {
+            super(callable);
+        }
+
+        @Override
+        protected void done() {
+            inFlightCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * A ThreadPoolExecutor only starts threads above its core size when its queue refuses a task. The queue of
+     * this executor refuses tasks while the pool can still grow and every thread already has a task, so the pool
+     * grows to its maximum size before anything is queued. Once the maximum is reached, tasks are queued as they
+     * are in FIXED mode.
+     */
+    static class ElasticThreadPoolExecutor extends ThreadPoolExecutor {
+
+        private final AtomicInteger submittedCount = new AtomicInteger();
+
+        ElasticThreadPoolExecutor(int corePoolSize, int maximumPoolSize, int keepAliveSeconds, ThreadFactory threadFactory) {
+            this(corePoolSize, maximumPoolSize, keepAliveSeconds, threadFactory, new ElasticTaskQueue());
+        }
+
+        private ElasticThreadPoolExecutor(int corePoolSize, int maximumPoolSize, int keepAliveSeconds,
+                                          ThreadFactory threadFactory, ElasticTaskQueue queue) {
+            super(corePoolSize, maximumPoolSize, keepAliveSeconds, TimeUnit.SECONDS, queue, threadFactory, (task, pool) -> {
+                if (pool.isShutdown() || !queue.enqueue(task)) {
+                    throw new RejectedExecutionException("CardExecutorService is shut down");
+                }
+            });
+            queue.executor = this;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            submittedCount.incrementAndGet();
+            try {
+                super.execute(command);
+            } catch (RejectedExecutionException e) {
+                submittedCount.decrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        protected void afterExecute(Runnable r, Throwable t) {
+            submittedCount.decrementAndGet();
+        }
+    }
+
+    private static class ElasticTaskQueue extends LinkedBlockingQueue<Runnable> {
+
+        private transient ElasticThreadPoolExecutor executor;
+
+        @Override
+        public boolean offer(Runnable task) {
+            int poolSize = executor.getPoolSize();
+            if (poolSize < executor.getMaximumPoolSize() && executor.submittedCount.get() > poolSize) {
+                return false;
+            }
+            return super.offer(task);
+        }
+
+        private boolean enqueue(Runnable task) {
+            return super.offer(task);
+        }
+    }
 }
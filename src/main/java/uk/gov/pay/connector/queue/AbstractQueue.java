@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import uk.gov.pay.connector.queue.sqs.SqsQueueService;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 public abstract class AbstractQueue {
 
@@ -37,5 +38,30 @@ public abstract class AbstractQueue {
     public void scheduleMessageForRetry(QueueMessage queueMessage) throws QueueException {
         sqsQueueService.deferMessage(this.queueUrl, queueMessage.getReceiptHandle(), failedMessageRetryDelayInSeconds);
     }
-}
 
+    /**
+     * @return the messages that could not be marked as processed
+     */
+    public List<QueueMessage> markMessagesAsProcessed(List<QueueMessage> queueMessages) {
+        List<String> failedReceiptHandles = sqsQueueService.deleteMessages(this.queueUrl, receiptHandles(queueMessages));
+        return messagesWithReceiptHandles(queueMessages, failedReceiptHandles);
+    }
+
+    /**
+     * @return the messages that could not be scheduled for retry
+     */
+    public List<QueueMessage> scheduleMessagesForRetry(List<QueueMessage> queueMessages) {
+        List<String> failedReceiptHandles = sqsQueueService.deferMessages(this.queueUrl, receiptHandles(queueMessages), failedMessageRetryDelayInSeconds);
+        return messagesWithReceiptHandles(queueMessages, failedReceiptHandles);
+    }
+
+    private static List<String> receiptHandles(List<QueueMessage> queueMessages) {
+        return queueMessages.stream().map(QueueMessage::getReceiptHandle).collect(Collectors.toList());
+    }
+
+    private static List<QueueMessage> messagesWithReceiptHandles(List<QueueMessage> queueMessages, List<String> receiptHandles) {
+        return queueMessages.stream()
+                .filter(queueMessage -> receiptHandles.contains(queueMessage.getReceiptHandle()))
+                .collect(Collectors.toList());
+    }
+}
@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.events.StateTransitionEmitterProcess;
+import uk.gov.pay.connector.events.StateTransitionLanes;
 
 import javax.inject.Inject;
 import java.util.concurrent.ScheduledExecutorService;
@@ -20,6 +21,7 @@ public class StateTransitionMessageReceiver implements Managed {
 
     private final int paymentStateTransitionPollerNumberOfThreads;
     private final StateTransitionEmitterProcess stateTransitionEmitterProcess;
+    private final StateTransitionLanes stateTransitionLanes;
     private ScheduledExecutorService stateTransitionMessageExecutorService;
 
     @Inject
@@ -30,15 +32,31 @@ public class StateTransitionMessageReceiver implements Managed {
         this.paymentStateTransitionPollerNumberOfThreads = connectorConfiguration.getEventQueueConfig()
                 .getPaymentStateTransitionPollerNumberOfThreads();
 
+        int numberOfLanes = connectorConfiguration.getEventQueueConfig().getStateTransitionEmitterNumberOfLanes();
+        this.stateTransitionLanes = numberOfLanes > 0 ?
+                new StateTransitionLanes(stateTransitionEmitterProcess, numberOfLanes, environment.metrics()) :
+                null;
+
         stateTransitionMessageExecutorService = environment
                 .lifecycle()
                 .scheduledExecutorService("payment-state-transition-message-poller-%d")
-                .threads(paymentStateTransitionPollerNumberOfThreads)
+                .threads(stateTransitionLanes != null ? numberOfLanes + 1 : paymentStateTransitionPollerNumberOfThreads)
                 .build();
     }
 
     @Override
     public void start() {
+        if (stateTransitionLanes != null) {
+            stateTransitionMessageExecutorService.scheduleWithFixedDelay(
+                    this::stateTransitionMessageDispatcher, 1, 1, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < stateTransitionLanes.getNumberOfLanes(); i++) {
+                int lane = i;
+                stateTransitionMessageExecutorService.scheduleWithFixedDelay(
+                        () -> stateTransitionLaneReceiver(lane), 1, 1, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+
         for (int i = 0; i < this.paymentStateTransitionPollerNumberOfThreads; i++) {
             stateTransitionMessageExecutorService.scheduleWithFixedDelay(
                     this::stateTransitionMessageReceiver, 1, 1, TimeUnit.MILLISECONDS);
@@ -52,7 +70,7 @@ public class StateTransitionMessageReceiver implements Managed {
 
     private void stopStateTransitionExecutor() {
         int numberOfAttempts = 0;
-        while (!stateTransitionEmitterProcess.isReadyForShutdown() && numberOfAttempts < MAX_NUMBER_OF_SHUTDOWN_READINESS_CHECKS) {
+        while (!isReadyForShutdown() && numberOfAttempts < MAX_NUMBER_OF_SHUTDOWN_READINESS_CHECKS) {
             LOGGER.info("State transition receiver is not ready for shutdown");
             numberOfAttempts++;
 
@@ -71,7 +89,7 @@ public class StateTransitionMessageReceiver implements Managed {
             }
 
             LOGGER.info("State transition receiver - number of not processed messages {}",
-                    stateTransitionEmitterProcess.getNumberOfNotProcessedMessages());
+                    getNumberOfNotProcessedMessages());
         } catch (InterruptedException e) {
             handleInterruptedException();
         }
@@ -80,11 +98,39 @@ public class StateTransitionMessageReceiver implements Managed {
     private void handleInterruptedException() {
         stateTransitionMessageExecutorService.shutdownNow();
         LOGGER.info("State transition receiver - number of not processed messages {}",
-                stateTransitionEmitterProcess.getNumberOfNotProcessedMessages());
+                getNumberOfNotProcessedMessages());
         // Preserve interrupt status
         Thread.currentThread().interrupt();
     }
 
+    private boolean isReadyForShutdown() {
+        return stateTransitionEmitterProcess.isReadyForShutdown() &&
+                (stateTransitionLanes == null || stateTransitionLanes.isEmpty());
+    }
+
+    private int getNumberOfNotProcessedMessages() {
+        return stateTransitionEmitterProcess.getNumberOfNotProcessedMessages() +
+                (stateTransitionLanes == null ? 0 : stateTransitionLanes.size());
+    }
+
+    private void stateTransitionMessageDispatcher() {
+        try {
+            stateTransitionLanes.dispatch();
+        } catch (Exception e) {
+            LOGGER.error("State transition message dispatcher thread failed to dispatch message due to [message={}]",
+                    e.getMessage());
+        }
+    }
+
+    private void stateTransitionLaneReceiver(int lane) {
+        try {
+            stateTransitionLanes.drain(lane);
+        } catch (Exception e) {
+            LOGGER.error("State transition lane {} thread failed to process messages due to [message={}]",
+                    lane, e.getMessage());
+        }
+    }
+
     private void stateTransitionMessageReceiver() {
         try {
             stateTransitionEmitterProcess.handleStateTransitionMessages();
@@ -10,6 +10,14 @@ import com.amazonaws.services.sqs.model.ReceiveMessageResult;
 import com.amazonaws.services.sqs.model.AmazonSQSException;
 import com.amazonaws.services.sqs.model.ChangeMessageVisibilityResult;
 import com.amazonaws.services.sqs.model.ChangeMessageVisibilityRequest;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import com.amazonaws.services.sqs.model.ChangeMessageVisibilityBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
@@ -17,10 +25,13 @@ import uk.gov.pay.connector.queue.QueueException;
 import uk.gov.pay.connector.queue.QueueMessage;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.List;
 
 public class SqsQueueService {
 
+    private static final int MAXIMUM_BATCH_REQUEST_ENTRIES = 10;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private AmazonSQS sqsClient;
@@ -47,6 +58,39 @@ public class SqsQueueService {
         }
     }
 
+    /**
+     * Sends messages in batches of up to ten, the most SQS accepts in one request. As with the other batch
+     * operations, a batch that cannot be sent at all counts all of its messages as failed, and the remaining
+     * batches are still sent, so that the messages already sent are not reported as failed and sent again.
+     *
+     * @return the indices in {@code messageBodies} of the messages that could not be sent
+     */
+    public List<Integer> sendMessages(String queueUrl, List<String> messageBodies) {
+        List<Integer> failedIndices = new ArrayList<>();
+        int offset = 0;
+        for (List<String> batch : Lists.partition(messageBodies, MAXIMUM_BATCH_REQUEST_ENTRIES)) {
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                entries.add(new SendMessageBatchRequestEntry(String.valueOf(i), batch.get(i)));
+            }
+            try {
+                SendMessageBatchResult result = sqsClient.sendMessageBatch(queueUrl, entries);
+                logger.info("Messages sent to SQS queue - [successful={}] [failed={}]",
+                        result.getSuccessful().size(), result.getFailed().size());
+                for (int failedIndex : failedEntryIndices(result.getFailed())) {
+                    failedIndices.add(offset + failedIndex);
+                }
+            } catch (AmazonServiceException | UnsupportedOperationException e) {
+                logBatchFailure("send messages to", e);
+                for (int i = 0; i < batch.size(); i++) {
+                    failedIndices.add(offset + i);
+                }
+            }
+            offset += batch.size();
+        }
+        return failedIndices;
+    }
+
     public List<QueueMessage> receiveMessages(String queueUrl, String messageAttributeName) throws QueueException {
         try {
             ReceiveMessageRequest receiveMessageRequest = new ReceiveMessageRequest(queueUrl);
@@ -90,4 +134,71 @@ public class SqsQueueService {
             throw new QueueException(e.getMessage());
         }
     }
+
+    /**
+     * Deletes messages in batches of up to ten, the most SQS accepts in one request. A batch that cannot be
+     * deleted at all counts all of its messages as failed, and the remaining batches are still deleted.
+     *
+     * @return the receipt handles of the messages that could not be deleted
+     */
+    public List<String> deleteMessages(String queueUrl, List<String> messageReceiptHandles) {
+        List<String> failedReceiptHandles = new ArrayList<>();
+        for (List<String> batch : Lists.partition(messageReceiptHandles, MAXIMUM_BATCH_REQUEST_ENTRIES)) {
+            List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                entries.add(new DeleteMessageBatchRequestEntry(String.valueOf(i), batch.get(i)));
+            }
+            try {
+                DeleteMessageBatchResult result = sqsClient.deleteMessageBatch(queueUrl, entries);
+                failedEntryIndices(result.getFailed()).forEach(i -> failedReceiptHandles.add(batch.get(i)));
+            } catch (AmazonServiceException | UnsupportedOperationException e) {
+                logBatchFailure("delete messages from", e);
+                failedReceiptHandles.addAll(batch);
+            }
+        }
+        return failedReceiptHandles;
+    }
+
+    /**
+     * Defers messages in batches of up to ten, the most SQS accepts in one request. A batch that cannot be
+     * deferred at all counts all of its messages as failed, and the remaining batches are still deferred.
+     *
+     * @return the receipt handles of the messages that could not be deferred
+     */
+    public List<String> deferMessages(String queueUrl, List<String> messageReceiptHandles, int timeoutInSeconds) {
+        List<String> failedReceiptHandles = new ArrayList<>();
+        for (List<String> batch : Lists.partition(messageReceiptHandles, MAXIMUM_BATCH_REQUEST_ENTRIES)) {
+            List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                entries.add(new ChangeMessageVisibilityBatchRequestEntry(String.valueOf(i), batch.get(i))
+                        .withVisibilityTimeout(timeoutInSeconds));
+            }
+            try {
+                ChangeMessageVisibilityBatchResult result = sqsClient.changeMessageVisibilityBatch(queueUrl, entries);
+                failedEntryIndices(result.getFailed()).forEach(i -> failedReceiptHandles.add(batch.get(i)));
+            } catch (AmazonServiceException | UnsupportedOperationException e) {
+                logBatchFailure("defer messages from", e);
+                failedReceiptHandles.addAll(batch);
+            }
+        }
+        return failedReceiptHandles;
+    }
+
+    private List<Integer> failedEntryIndices(List<BatchResultErrorEntry> failedEntries) {
+        List<Integer> failed = new ArrayList<>();
+        for (BatchResultErrorEntry failedEntry : failedEntries) {
+            logger.warn("Failed batch entry for SQS queue - [errorMessage={}] [errorCode={}]", failedEntry.getMessage(), failedEntry.getCode());
+            failed.add(Integer.parseInt(failedEntry.getId()));
+        }
+        return failed;
+    }
+
+    private void logBatchFailure(String operation, RuntimeException e) {
+        if (e instanceof AmazonServiceException) {
+            logger.error("Failed to {} SQS queue - [errorMessage={}] [awsErrorCode={}]",
+                    operation, e.getMessage(), ((AmazonServiceException) e).getErrorCode());
+        } else {
+            logger.error("Failed to {} SQS queue - {}", operation, e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package uk.gov.pay.connector.queue.statetransition;
+
+import uk.gov.pay.connector.queue.statetransition.dao.StateTransitionQueueDao;
+
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * State transition queue backed by the state_transition_queue work table. Transitions are written
+ * in the same transaction as the state change that produced them, so they are not lost when an
+ * instance restarts, and are shared between the pollers of every instance. The delay and retry
+ * behaviour is the same as the in-memory queue: a transition is only polled once its read time
+ * has passed, and a failed one is re-offered as {@link StateTransition#getNext()}. The size is
+ * counted at most once per refresh interval, as it is reported as a metric on every scrape.
+ */
+public class DatabaseStateTransitionQueue extends StateTransitionQueue {
+
+    private static final long POLL_INTERVAL_IN_MILLISECONDS = 200L;
+    private static final long VISIBILITY_TIMEOUT_IN_MILLISECONDS = 60000L;
+    private static final long SIZE_REFRESH_INTERVAL_IN_MILLISECONDS = 10000L;
+
+    private final StateTransitionQueueDao stateTransitionQueueDao;
+    private final Set<Long> claimedIds = ConcurrentHashMap.newKeySet();
+    private volatile int size;
+    private volatile long sizeRefreshedAt;
+
+    @Inject
+    public DatabaseStateTransitionQueue(StateTransitionQueueDao stateTransitionQueueDao) {
+        this.stateTransitionQueueDao = stateTransitionQueueDao;
+    }
+
+    @Override
+    public boolean offer(StateTransition stateTransition) {
+        stateTransitionQueueDao.insert(stateTransition);
+        return true;
+    }
+
+    @Override
+    public StateTransition poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        while (true) {
+            List<StateTransition> claimed = stateTransitionQueueDao.claimDue(1, VISIBILITY_TIMEOUT_IN_MILLISECONDS);
+            if (!claimed.isEmpty()) {
+                StateTransition stateTransition = claimed.get(0);
+                claimedIds.add(stateTransition.getQueueId());
+                return stateTransition;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+            Thread.sleep(Math.min(remaining, POLL_INTERVAL_IN_MILLISECONDS));
+        }
+    }
+
+    @Override
+    public void acknowledge(StateTransition stateTransition) {
+        Long id = stateTransition.getQueueId();
+        if (id != null && claimedIds.remove(id)) {
+            stateTransitionQueueDao.delete(id);
+        }
+    }
+
+    /**
+     * Makes the transition due again after its retry delay, rather than after the visibility timeout
+     */
+    @Override
+    public void release(StateTransition stateTransition) {
+        Long id = stateTransition.getQueueId();
+        if (id != null && claimedIds.remove(id)) {
+            stateTransitionQueueDao.release(id, stateTransition.getDelayDurationInMilliseconds());
+        }
+    }
+
+    @Override
+    public void extendClaims(Collection<StateTransition> stateTransitions) {
+        List<Long> ids = stateTransitions.stream()
+                .map(StateTransition::getQueueId)
+                .filter(id -> id != null && claimedIds.contains(id))
+                .collect(Collectors.toList());
+        if (!ids.isEmpty()) {
+            stateTransitionQueueDao.extendClaims(ids, VISIBILITY_TIMEOUT_IN_MILLISECONDS);
+        }
+    }
+
+    @Override
+    public int size() {
+        long now = System.currentTimeMillis();
+        if (now - sizeRefreshedAt >= SIZE_REFRESH_INTERVAL_IN_MILLISECONDS) {
+            size = (int) stateTransitionQueueDao.count();
+            sizeRefreshedAt = now;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return stateTransitionQueueDao.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        stateTransitionQueueDao.deleteAll();
+        claimedIds.clear();
+        size = 0;
+        sizeRefreshedAt = 0L;
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+}
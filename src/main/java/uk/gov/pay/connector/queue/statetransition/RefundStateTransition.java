@@ -32,11 +32,21 @@ public class RefundStateTransition extends StateTransition {
         return refundExternalId + "_" + refundStatus;
     }
 
+    @Override
+    public String getResourceExternalId() {
+        return refundExternalId;
+    }
+
     @Override
     public RefundStateTransition getNext() {
         return new RefundStateTransition(refundExternalId, refundStatus, getStateTransitionEventClass(), getAttempts() + 1, getDelayDurationInMilliseconds());
     }
 
+    @Override
+    public RefundStateTransition getDeferred() {
+        return new RefundStateTransition(refundExternalId, refundStatus, getStateTransitionEventClass(), getAttempts(), getDelayDurationInMilliseconds());
+    }
+
     @Override
     public String toString() {
         return "RefundStateTransition{" +
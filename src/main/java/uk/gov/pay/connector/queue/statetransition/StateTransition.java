@@ -11,6 +11,7 @@ public abstract class StateTransition implements Delayed {
     private final Long readTime;
     private final long delayDurationInMilliseconds;
     private final AtomicInteger attempts;
+    private Long queueId;
 
     private static final int MAXIMUM_NUMBER_OF_ATTEMPTS = 10;
     private static final int BASE_ATTEMPTS = 1;
@@ -63,7 +64,38 @@ public abstract class StateTransition implements Delayed {
         return attempts.intValue();
     }
 
+    /**
+     * @return the id of the row in the durable queue this transition was polled from, or null if it
+     * was not polled from a durable queue
+     */
+    public Long getQueueId() {
+        return queueId;
+    }
+
+    public void setQueueId(Long queueId) {
+        this.queueId = queueId;
+    }
+
     public abstract String getIdentifier();
 
+    /**
+     * @return the external id of the payment or refund the transition is for, or null if it is not known
+     */
+    public abstract String getResourceExternalId();
+
+    /**
+     * @return a key that is the same for all the transitions of one payment or refund, so that they
+     * can be emitted in order
+     */
+    public String getPartitionKey() {
+        String resourceExternalId = getResourceExternalId();
+        return resourceExternalId != null ? resourceExternalId : getIdentifier();
+    }
+
     public abstract StateTransition getNext();
+
+    /**
+     * @return the same transition, due again after its delay, without using up an attempt
+     */
+    public abstract StateTransition getDeferred();
 }
@@ -0,0 +1,141 @@
+package uk.gov.pay.connector.queue.statetransition;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import uk.gov.pay.connector.charge.model.domain.ChargeStatus;
+import uk.gov.pay.connector.gateway.PaymentGatewayName;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.lang.String.format;
+
+/**
+ * The state-transition metrics recorded for each payment state transition offered to the emitter queue.
+ * The per gateway handles for each account type, gateway and target status are resolved from the registry
+ * the first time they are used and then held in a table indexed by ordinal. Per gateway account counters
+ * are held in a map and capped at {@link #MAXIMUM_PER_GATEWAY_ACCOUNT_COUNTERS}; transitions for accounts
+ * beyond that are only counted in the state-transition.per-gateway-account.overflow meter. A single instance
+ * is shared so that the cap applies to the whole registry.
+ */
+@Singleton
+public class StateTransitionMetrics {
+
+    static final int MAXIMUM_PER_GATEWAY_ACCOUNT_COUNTERS = 10000;
+
+    private static final int ACCOUNT_TYPE_COUNT = GatewayAccountType.values().length;
+    private static final int GATEWAY_COUNT = PaymentGatewayName.values().length;
+    private static final int STATUS_COUNT = ChargeStatus.values().length;
+
+    private final MetricRegistry metricRegistry;
+    private final AtomicReferenceArray<Handles> handles =
+            new AtomicReferenceArray<>(ACCOUNT_TYPE_COUNT * GATEWAY_COUNT * STATUS_COUNT);
+    private final AtomicInteger perGatewayAccountCounterCount = new AtomicInteger();
+    private final Meter perGatewayAccountOverflow;
+
+    @Inject
+    public StateTransitionMetrics(Environment environment) {
+        this(environment.metrics());
+    }
+
+    public StateTransitionMetrics(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+        this.perGatewayAccountOverflow = metricRegistry.meter("state-transition.per-gateway-account.overflow");
+    }
+
+    public void recordTransition(GatewayAccountEntity gatewayAccount, ChargeStatus targetChargeState) {
+        Handles transitionMetrics = forTransition(gatewayAccount.getType(), gatewayAccount.getGatewayName(), targetChargeState);
+        transitionMetrics.transitions.inc();
+        transitionMetrics.rate.mark();
+
+        if (transitionMetrics.perGatewayAccount == null || gatewayAccount.getId() == null) {
+            perGatewayAccountCounter(gatewayAccount, targetChargeState).inc();
+            return;
+        }
+
+        Counter perGatewayAccountCounter = transitionMetrics.perGatewayAccount.get(gatewayAccount.getId());
+        if (perGatewayAccountCounter == null) {
+            perGatewayAccountCounter = newPerGatewayAccountCounter(gatewayAccount, targetChargeState, transitionMetrics);
+        }
+        if (perGatewayAccountCounter == null) {
+            perGatewayAccountOverflow.mark();
+        } else {
+            perGatewayAccountCounter.inc();
+        }
+    }
+
+    private Handles forTransition(String accountType, String gatewayName, ChargeStatus targetChargeState) {
+        int type = GatewayAccountType.ordinalOf(accountType);
+        int gateway = PaymentGatewayName.ordinalOf(gatewayName);
+
+        if (type < 0 || gateway < 0 || targetChargeState == null) {
+            // not one of ours, so it is looked up from the registry every time as before
+            return resolve(accountType, gatewayName, targetChargeState);
+        }
+
+        int index = (type * GATEWAY_COUNT + gateway) * STATUS_COUNT + targetChargeState.ordinal();
+        Handles resolved = handles.get(index);
+        if (resolved == null) {
+            // only one set of handles is ever published for an index, so per gateway account counters are
+            // never added to a map that threads losing the race then throw away
+            handles.compareAndSet(index, null,
+                    new Handles(resolve(accountType, gatewayName, targetChargeState), new ConcurrentHashMap<>()));
+            resolved = handles.get(index);
+        }
+        return resolved;
+    }
+
+    private Handles resolve(String accountType, String gatewayName, ChargeStatus targetChargeState) {
+        return new Handles(
+                metricRegistry.counter(format("state-transition.%s.%s.to.%s", accountType, gatewayName, targetChargeState)),
+                metricRegistry.meter(format("state-transition.%s.%s.to.%s.rate", accountType, gatewayName, targetChargeState)),
+                null);
+    }
+
+    private Counter perGatewayAccountCounter(GatewayAccountEntity gatewayAccount, ChargeStatus targetChargeState) {
+        return metricRegistry.counter(format("state-transition.%s.%s.%s.to.%s",
+                gatewayAccount.getType(), gatewayAccount.getGatewayName(), gatewayAccount.getId(), targetChargeState));
+    }
+
+    private Counter newPerGatewayAccountCounter(GatewayAccountEntity gatewayAccount, ChargeStatus targetChargeState,
+                                                Handles transitionMetrics) {
+        if (perGatewayAccountCounterCount.incrementAndGet() > MAXIMUM_PER_GATEWAY_ACCOUNT_COUNTERS) {
+            perGatewayAccountCounterCount.decrementAndGet();
+            return null;
+        }
+
+        Counter counter = perGatewayAccountCounter(gatewayAccount, targetChargeState);
+        if (transitionMetrics.perGatewayAccount.putIfAbsent(gatewayAccount.getId(), counter) != null) {
+            perGatewayAccountCounterCount.decrementAndGet();
+        }
+        return counter;
+    }
+
+    int getPerGatewayAccountCounterCount() {
+        return perGatewayAccountCounterCount.get();
+    }
+
+    private static class Handles {
+        private final Counter transitions;
+        private final Meter rate;
+        private final Map<Long, Counter> perGatewayAccount;
+
+        private Handles(Counter transitions, Meter rate, Map<Long, Counter> perGatewayAccount) {
+            this.transitions = transitions;
+            this.rate = rate;
+            this.perGatewayAccount = perGatewayAccount;
+        }
+
+        private Handles(Handles handles, Map<Long, Counter> perGatewayAccount) {
+            this(handles.transitions, handles.rate, perGatewayAccount);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package uk.gov.pay.connector.queue.statetransition;
 
+import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.TimeUnit;
@@ -30,4 +31,33 @@ public class StateTransitionQueue {
     public void clear() {
         queue.clear();
     }
+
+    /**
+     * Signals that a polled state transition has been dealt with, either emitted or re-offered for
+     * retry, so a durable queue can forget it. Transitions polled from memory need no acknowledgement.
+     */
+    public void acknowledge(StateTransition stateTransition) {
+    }
+
+    /**
+     * Gives up on a polled state transition without having dealt with it, making it available to
+     * poll again once its delay has elapsed
+     */
+    public void release(StateTransition stateTransition) {
+        queue.offer(stateTransition.getDeferred());
+    }
+
+    /**
+     * Keeps polled state transitions that are still waiting to be dealt with from being handed to
+     * another poller. Transitions polled from memory are never handed out twice.
+     */
+    public void extendClaims(Collection<StateTransition> stateTransitions) {
+    }
+
+    /**
+     * @return whether offered state transitions survive a restart
+     */
+    public boolean isDurable() {
+        return false;
+    }
 }
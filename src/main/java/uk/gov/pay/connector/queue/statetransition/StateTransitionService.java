@@ -1,8 +1,6 @@
 package uk.gov.pay.connector.queue.statetransition;
 
-import com.codahale.metrics.MetricRegistry;
 import com.google.inject.persist.Transactional;
-import io.dropwizard.setup.Environment;
 import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,15 +29,15 @@ public class StateTransitionService {
 
     private StateTransitionQueue stateTransitionQueue;
     private EventService eventService;
-    private MetricRegistry metricRegistry;
+    private StateTransitionMetrics stateTransitionMetrics;
 
     @Inject
     public StateTransitionService(StateTransitionQueue stateTransitionQueue,
                                   EventService eventService, 
-                                  Environment environment) {
+                                  StateTransitionMetrics stateTransitionMetrics) {
         this.stateTransitionQueue = stateTransitionQueue;
         this.eventService = eventService;
-        this.metricRegistry = environment.metrics();
+        this.stateTransitionMetrics = stateTransitionMetrics;
     }
 
     @Transactional
@@ -68,15 +66,13 @@ public class StateTransitionService {
             String externalId, ChargeStatus fromChargeState, ChargeStatus targetChargeState,
             ChargeEventEntity chargeEventEntity, Class<T> eventClass) {
 
-        PaymentStateTransition transition = new PaymentStateTransition(chargeEventEntity.getId(), eventClass);
+        PaymentStateTransition transition = new PaymentStateTransition(chargeEventEntity.getId(), externalId, eventClass);
         stateTransitionQueue.offer(transition);
 
         var logMessage = format("Offered payment state transition to emitter queue [from=%s] [to=%s] [chargeEventId=%s] [chargeId=%s]",
                 fromChargeState, targetChargeState, chargeEventEntity.getId(), externalId);
 
-        incrementPerGatewayStateTransitionCounter(targetChargeState, chargeEventEntity);
-        incrementPerGatewayStateTransitionMeter(targetChargeState, chargeEventEntity);
-        incrementPerGatewayAccountStateTransitionCounter(targetChargeState, chargeEventEntity);
+        stateTransitionMetrics.recordTransition(chargeEventEntity.getChargeEntity().getGatewayAccount(), targetChargeState);
 
         Object[] structuredArgs = ArrayUtils.addAll(
                 chargeEventEntity.getChargeEntity().getStructuredLoggingArgs(),
@@ -91,31 +87,6 @@ public class StateTransitionService {
                 chargeEventEntity.getUpdated());
     }
 
-    private void incrementPerGatewayAccountStateTransitionCounter(ChargeStatus targetChargeState, ChargeEventEntity chargeEventEntity) {
-        metricRegistry.counter(String.format(
-                "state-transition.%s.%s.%s.to.%s",
-                chargeEventEntity.getChargeEntity().getGatewayAccount().getType(),
-                chargeEventEntity.getChargeEntity().getGatewayAccount().getGatewayName(),
-                chargeEventEntity.getChargeEntity().getGatewayAccount().getId(),
-                targetChargeState)).inc();
-    }
-    
-    private void incrementPerGatewayStateTransitionMeter(ChargeStatus targetChargeState, ChargeEventEntity chargeEventEntity) {
-        metricRegistry.meter(String.format(
-                "state-transition.%s.%s.to.%s.rate",
-                chargeEventEntity.getChargeEntity().getGatewayAccount().getType(),
-                chargeEventEntity.getChargeEntity().getGatewayAccount().getGatewayName(),
-                targetChargeState)).mark();
-    }
-
-    private void incrementPerGatewayStateTransitionCounter(ChargeStatus targetChargeState, ChargeEventEntity chargeEventEntity) {
-        metricRegistry.counter(String.format(
-                "state-transition.%s.%s.to.%s",
-                chargeEventEntity.getChargeEntity().getGatewayAccount().getType(),
-                chargeEventEntity.getChargeEntity().getGatewayAccount().getGatewayName(),
-                targetChargeState)).inc();
-    }
-
     @Transactional
     public void offerStateTransition(StateTransition stateTransition, Event event,
                                      ZonedDateTime doNotRetryEmitUntilDate) {
@@ -0,0 +1,181 @@
+package uk.gov.pay.connector.queue.statetransition.dao;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.queue.statetransition.PaymentStateTransition;
+import uk.gov.pay.connector.queue.statetransition.RefundStateTransition;
+import uk.gov.pay.connector.queue.statetransition.StateTransition;
+import uk.gov.pay.connector.refund.model.domain.RefundStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Work table backing the durable state transition queue. Transitions are claimed with
+ * {@code FOR UPDATE SKIP LOCKED} so that any number of pollers, on any number of instances, can
+ * claim due transitions without blocking each other. Claiming a transition pushes its read time
+ * forward by a visibility timeout rather than removing it, so a transition claimed by an instance
+ * that dies before acknowledging it becomes due again and is replayed.
+ */
+@Transactional
+public class StateTransitionQueueDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(StateTransitionQueueDao.class);
+    private static final String PAYMENT = "PAYMENT";
+    private static final String REFUND = "REFUND";
+
+    private final Provider<EntityManager> entityManager;
+
+    @Inject
+    public StateTransitionQueueDao(Provider<EntityManager> entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public void insert(StateTransition stateTransition) {
+        Long chargeEventId = null;
+        String chargeExternalId = null;
+        String refundExternalId = null;
+        String refundStatus = null;
+        String transitionType;
+
+        if (stateTransition instanceof PaymentStateTransition) {
+            transitionType = PAYMENT;
+            chargeEventId = ((PaymentStateTransition) stateTransition).getChargeEventId();
+            chargeExternalId = ((PaymentStateTransition) stateTransition).getChargeExternalId();
+        } else if (stateTransition instanceof RefundStateTransition) {
+            transitionType = REFUND;
+            refundExternalId = ((RefundStateTransition) stateTransition).getRefundExternalId();
+            refundStatus = ((RefundStateTransition) stateTransition).getRefundStatus().name();
+        } else {
+            throw new IllegalArgumentException("Unsupported state transition " + stateTransition.getClass().getName());
+        }
+
+        entityManager.get()
+                .createNativeQuery("INSERT INTO state_transition_queue(transition_type, charge_event_id, charge_external_id, " +
+                        "refund_external_id, refund_status, event_class, attempts, delay_duration_in_millis, read_time) " +
+                        "VALUES (?1, CAST(?2 AS bigint), ?3, ?4, ?5, ?6, ?7, ?8, ?9)")
+                .setParameter(1, transitionType)
+                .setParameter(2, chargeEventId)
+                .setParameter(3, chargeExternalId)
+                .setParameter(4, refundExternalId)
+                .setParameter(5, refundStatus)
+                .setParameter(6, stateTransition.getStateTransitionEventClass().getName())
+                .setParameter(7, stateTransition.getAttempts())
+                .setParameter(8, stateTransition.getDelayDurationInMilliseconds())
+                .setParameter(9, stateTransition.getReadTime())
+                .executeUpdate();
+    }
+
+    /**
+     * Claims up to maxElements transitions whose read time has passed, hiding them from other pollers
+     * until visibilityTimeoutInMillis has elapsed or they are deleted
+     *
+     * @return the claimed transitions, carrying their id in the work table, in read time order
+     */
+    public List<StateTransition> claimDue(int maxElements, long visibilityTimeoutInMillis) {
+        long now = System.currentTimeMillis();
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.get()
+                .createNativeQuery("UPDATE state_transition_queue SET read_time = ?1 " +
+                        "WHERE id IN (SELECT id FROM state_transition_queue WHERE read_time <= ?2 " +
+                        "ORDER BY read_time LIMIT ?3 FOR UPDATE SKIP LOCKED) " +
+                        "RETURNING id, transition_type, charge_event_id, refund_external_id, refund_status, " +
+                        "event_class, attempts, delay_duration_in_millis, charge_external_id")
+                .setParameter(1, now + visibilityTimeoutInMillis)
+                .setParameter(2, now)
+                .setParameter(3, maxElements)
+                .getResultList();
+
+        List<StateTransition> claimed = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            try {
+                StateTransition stateTransition = toStateTransition(row);
+                stateTransition.setQueueId(id);
+                claimed.add(stateTransition);
+            } catch (ClassNotFoundException | IllegalArgumentException e) {
+                logger.error("Discarding state transition that can no longer be processed [id={}] [error={}]", id, e.getMessage());
+                delete(id);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Makes a claimed transition due again once delayInMillis has elapsed, instead of waiting for its
+     * visibility timeout to expire
+     */
+    public void release(long id, long delayInMillis) {
+        entityManager.get()
+                .createNativeQuery("UPDATE state_transition_queue SET read_time = ?1 WHERE id = ?2")
+                .setParameter(1, System.currentTimeMillis() + delayInMillis)
+                .setParameter(2, id)
+                .executeUpdate();
+    }
+
+    /**
+     * Pushes the visibility timeout of claimed transitions forward, for transitions that are still
+     * waiting to be emitted
+     */
+    public void extendClaims(List<Long> ids, long visibilityTimeoutInMillis) {
+        String placeholders = IntStream.range(2, ids.size() + 2)
+                .mapToObj(position -> "?" + position)
+                .collect(Collectors.joining(", "));
+        Query query = entityManager.get()
+                .createNativeQuery("UPDATE state_transition_queue SET read_time = ?1 WHERE id IN (" + placeholders + ")")
+                .setParameter(1, System.currentTimeMillis() + visibilityTimeoutInMillis);
+        for (int i = 0; i < ids.size(); i++) {
+            query.setParameter(i + 2, ids.get(i));
+        }
+        query.executeUpdate();
+    }
+
+    public void delete(long id) {
+        entityManager.get()
+                .createNativeQuery("DELETE FROM state_transition_queue WHERE id = ?1")
+                .setParameter(1, id)
+                .executeUpdate();
+    }
+
+    public void deleteAll() {
+        entityManager.get()
+                .createNativeQuery("DELETE FROM state_transition_queue")
+                .executeUpdate();
+    }
+
+    public boolean isEmpty() {
+        return !((Boolean) entityManager.get()
+                .createNativeQuery("SELECT EXISTS (SELECT 1 FROM state_transition_queue)")
+                .getSingleResult());
+    }
+
+    public long count() {
+        return ((Number) entityManager.get()
+                .createNativeQuery("SELECT count(*) FROM state_transition_queue")
+                .getSingleResult()).longValue();
+    }
+
+    private static StateTransition toStateTransition(Object[] row) throws ClassNotFoundException {
+        String transitionType = (String) row[1];
+        Class eventClass = Class.forName((String) row[5]);
+        int attempts = ((Number) row[6]).intValue();
+        long delayDurationInMillis = ((Number) row[7]).longValue();
+
+        if (PAYMENT.equals(transitionType)) {
+            return new PaymentStateTransition(((Number) row[2]).longValue(), (String) row[8], eventClass, attempts,
+                    delayDurationInMillis);
+        }
+        if (REFUND.equals(transitionType)) {
+            return new RefundStateTransition((String) row[3], RefundStatus.valueOf((String) row[4]), eventClass,
+                    attempts, delayDurationInMillis);
+        }
+        throw new IllegalArgumentException("Unknown state transition type " + transitionType);
+    }
+}
@@ -13,11 +13,13 @@ import uk.gov.pay.connector.refund.model.domain.RefundStatus;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
-import javax.persistence.TemporalType;
-import java.sql.Date;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static java.time.ZoneOffset.UTC;
 
@@ -89,6 +91,31 @@ public class RefundDao extends JpaDao<RefundEntity> {
                 .getResultList();
     }
 
+    /**
+     * All refund history for the charges with the given external ids, read in one query rather than one per charge
+     */
+    public List<RefundHistory> searchAllHistoryByChargeExternalIds(Collection<String> chargeExternalIds) {
+        if (chargeExternalIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> parameters = List.copyOf(chargeExternalIds);
+        String placeholders = IntStream.rangeClosed(1, parameters.size())
+                .mapToObj(position -> "?" + position)
+                .collect(Collectors.joining(", "));
+        String query = "SELECT r.id, r.external_id, r.amount, r.status, r.created_date, r.version, " +
+                "history_start_date, history_end_date, user_external_id, r.gateway_transaction_id, " +
+                "r.charge_external_id AS charge_external_id, r.user_email " +
+                " FROM refunds_history r " +
+                " WHERE charge_external_id IN (" + placeholders + ")";
+
+        Query nativeQuery = entityManager.get().createNativeQuery(query, "RefundEntityHistoryMapping");
+        for (int position = 1; position <= parameters.size(); position++) {
+            nativeQuery.setParameter(position, parameters.get(position - 1));
+        }
+        return nativeQuery.getResultList();
+    }
+
     public Optional<RefundEntity> findByExternalId(String externalId) {
         String query = "SELECT refund FROM RefundEntity refund " +
                 "WHERE refund.externalId = :externalId";
@@ -99,23 +126,49 @@ public class RefundDao extends JpaDao<RefundEntity> {
                 .getResultList().stream().findFirst();
     }
 
-    public List<RefundHistory> getRefundHistoryByDateRange(ZonedDateTime startDate, ZonedDateTime endDate, int page, int size) {
+    /**
+     * Finds the next page of refund history started between the start and end dates (inclusive), in order of
+     * history start date, id and version. Pages are read by seeking past the last history record of the
+     * previous page, rather than by offset, so each one costs the same however far into the date range it is.
+     *
+     * @param after the last history record of the previous page, or null for the first page
+     */
+    public List<RefundHistory> getRefundHistoryByDateRange(ZonedDateTime startDate, ZonedDateTime endDate, RefundHistory after, int size) {
 
         String query = "SELECT id, external_id, amount, status, created_date, version, " +
-                "       history_start_date, history_end_date, user_external_id, gateway_transaction_id, user_email " +
+                "       history_start_date, history_end_date, user_external_id, gateway_transaction_id, user_email, charge_external_id " +
                 " FROM refunds_history rh " +
                 " WHERE rh.history_start_date >= ?1 AND rh.history_start_date <= ?2" +
-                " order by rh.history_start_date asc " +
-                " limit ?3 offset ?4";
+                (after == null ? "" : " AND (rh.history_start_date, rh.id, rh.version) > (?1, ?4, ?5)") +
+                " order by rh.history_start_date asc, rh.id asc, rh.version asc " +
+                " limit ?3";
 
-        int offset = (page - 1) * size;
-        return entityManager.get()
+        UTCDateTimeConverter utcDateTimeConverter = new UTCDateTimeConverter();
+        Query nativeQuery = entityManager.get()
                 .createNativeQuery(query, "RefundEntityHistoryMapping")
-                .setParameter(1, Date.from(startDate.toInstant()), TemporalType.TIMESTAMP)
-                .setParameter(2, Date.from(endDate.toInstant()), TemporalType.TIMESTAMP)
-                .setParameter(3, size)
-                .setParameter(4, offset)
-                .getResultList();
+                .setParameter(1, utcDateTimeConverter.convertToDatabaseColumn(after == null ? startDate : after.getHistoryStartDate()))
+                .setParameter(2, utcDateTimeConverter.convertToDatabaseColumn(endDate))
+                .setParameter(3, size);
+
+        if (after != null) {
+            nativeQuery.setParameter(4, after.getId())
+                    .setParameter(5, after.getVersion());
+        }
+
+        return nativeQuery.getResultList();
+    }
+
+    /**
+     * Streams the refund history started between the start and end dates (inclusive), in order of history start
+     * date, id and version, reading it a page at a time as the stream is consumed.
+     */
+    public Stream<RefundHistory> streamRefundHistoryByDateRange(ZonedDateTime startDate, ZonedDateTime endDate, int pageSize) {
+        return Stream.iterate(
+                getRefundHistoryByDateRange(startDate, endDate, null, pageSize),
+                page -> !page.isEmpty(),
+                page -> page.size() < pageSize ? List.of() :
+                        getRefundHistoryByDateRange(startDate, endDate, page.get(page.size() - 1), pageSize))
+                .flatMap(List::stream);
     }
 
     public List<RefundEntity> findRefundsByChargeExternalId(String chargeExternalId) {
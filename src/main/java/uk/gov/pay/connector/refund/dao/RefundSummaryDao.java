@@ -0,0 +1,102 @@
+package uk.gov.pay.connector.refund.dao;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.persist.Transactional;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Refund summaries are kept per charge external id rather than on the charge itself so that they outlive
+ * charges and refunds that have been expunged. A summary row is created uninitialised by whichever of a
+ * refund state transition or a refund request gets to the charge first, and both then hold the row lock
+ * for the rest of their transaction. A summary is initialised from the charge's refunds only while
+ * holding that lock, so no state transition can be missed between reading the refunds and initialising
+ * the summary. Once initialised, state transitions keep it up to date.
+ */
+@Transactional
+public class RefundSummaryDao {
+
+    private final Provider<EntityManager> entityManager;
+
+    @Inject
+    public RefundSummaryDao(Provider<EntityManager> entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @return the summary for the charge, if it has been initialised
+     */
+    public Optional<RefundSummary> find(String chargeExternalId) {
+        return toRefundSummary(entityManager.get()
+                .createNativeQuery("SELECT amount_pending, amount_refunded, initialised FROM refund_summaries " +
+                        "WHERE charge_external_id = ?1")
+                .setParameter(1, chargeExternalId)
+                .getResultList());
+    }
+
+    /**
+     * Locks the summary for the charge until the end of the current transaction, creating it uninitialised if
+     * there is no summary yet
+     *
+     * @return the summary for the charge, if it has been initialised
+     */
+    public Optional<RefundSummary> lock(String chargeExternalId) {
+        insertIfAbsent(chargeExternalId);
+        return toRefundSummary(entityManager.get()
+                .createNativeQuery("SELECT amount_pending, amount_refunded, initialised FROM refund_summaries " +
+                        "WHERE charge_external_id = ?1 FOR UPDATE")
+                .setParameter(1, chargeExternalId)
+                .getResultList());
+    }
+
+    /**
+     * Sets the amounts of a summary that has been locked with {@link #lock(String)} and marks it initialised
+     */
+    public void initialise(String chargeExternalId, RefundSummary refundSummary) {
+        entityManager.get()
+                .createNativeQuery("UPDATE refund_summaries SET amount_pending = ?2, amount_refunded = ?3, " +
+                        "initialised = true WHERE charge_external_id = ?1")
+                .setParameter(1, chargeExternalId)
+                .setParameter(2, refundSummary.getAmountPending())
+                .setParameter(3, refundSummary.getAmountRefunded())
+                .executeUpdate();
+    }
+
+    /**
+     * Adds to the amounts of the summary for the charge if it has been initialised, locking it until the end of
+     * the current transaction either way
+     */
+    public void addToAmounts(String chargeExternalId, long amountPendingDelta, long amountRefundedDelta) {
+        insertIfAbsent(chargeExternalId);
+        entityManager.get()
+                .createNativeQuery("UPDATE refund_summaries " +
+                        "SET amount_pending = amount_pending + CASE WHEN initialised THEN ?2 ELSE 0 END, " +
+                        "amount_refunded = amount_refunded + CASE WHEN initialised THEN ?3 ELSE 0 END " +
+                        "WHERE charge_external_id = ?1")
+                .setParameter(1, chargeExternalId)
+                .setParameter(2, amountPendingDelta)
+                .setParameter(3, amountRefundedDelta)
+                .executeUpdate();
+    }
+
+    private void insertIfAbsent(String chargeExternalId) {
+        // waits for any other transaction that has just created the row, so that the row is then visible to lock
+        entityManager.get()
+                .createNativeQuery("INSERT INTO refund_summaries(charge_external_id) VALUES (?1) " +
+                        "ON CONFLICT (charge_external_id) DO NOTHING")
+                .setParameter(1, chargeExternalId)
+                .executeUpdate();
+    }
+
+    private static Optional<RefundSummary> toRefundSummary(List<?> rows) {
+        return rows.stream()
+                .map(row -> (Object[]) row)
+                .filter(row -> (Boolean) row[2])
+                .map(row -> new RefundSummary(((Number) row[0]).longValue(), ((Number) row[1]).longValue()))
+                .findFirst();
+    }
+}
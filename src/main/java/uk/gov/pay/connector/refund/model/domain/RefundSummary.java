@@ -0,0 +1,95 @@
+package uk.gov.pay.connector.refund.model.domain;
+
+import uk.gov.pay.connector.common.model.api.ExternalRefundStatus;
+
+import java.util.List;
+import java.util.Objects;
+
+import static uk.gov.pay.connector.common.model.api.ExternalRefundStatus.EXTERNAL_SUBMITTED;
+import static uk.gov.pay.connector.common.model.api.ExternalRefundStatus.EXTERNAL_SUCCESS;
+
+/**
+ * The amounts of a charge's refunds that are pending (created or submitted to the gateway) and refunded,
+ * which is all that refund validation and refund availability need to know about the refunds
+ */
+public class RefundSummary {
+
+    private final long amountPending;
+    private final long amountRefunded;
+
+    public RefundSummary(long amountPending, long amountRefunded) {
+        this.amountPending = amountPending;
+        this.amountRefunded = amountRefunded;
+    }
+
+    public static RefundSummary from(List<Refund> refunds) {
+        long amountPending = 0;
+        long amountRefunded = 0;
+        for (Refund refund : refunds) {
+            if (refund.getExternalStatus() == EXTERNAL_SUBMITTED) {
+                amountPending += refund.getAmount();
+            } else if (refund.getExternalStatus() == EXTERNAL_SUCCESS) {
+                amountRefunded += refund.getAmount();
+            }
+        }
+        return new RefundSummary(amountPending, amountRefunded);
+    }
+
+    /**
+     * @return the change to the amount pending when a refund of the given amount moves from one status to another
+     */
+    public static long amountPendingDelta(RefundStatus fromStatus, RefundStatus toStatus, long amount) {
+        return delta(fromStatus, toStatus, EXTERNAL_SUBMITTED, amount);
+    }
+
+    /**
+     * @return the change to the amount refunded when a refund of the given amount moves from one status to another
+     */
+    public static long amountRefundedDelta(RefundStatus fromStatus, RefundStatus toStatus, long amount) {
+        return delta(fromStatus, toStatus, EXTERNAL_SUCCESS, amount);
+    }
+
+    private static long delta(RefundStatus fromStatus, RefundStatus toStatus, ExternalRefundStatus counted, long amount) {
+        long delta = 0;
+        if (fromStatus != null && fromStatus.toExternal() == counted) {
+            delta -= amount;
+        }
+        if (toStatus.toExternal() == counted) {
+            delta += amount;
+        }
+        return delta;
+    }
+
+    public long getAmountPending() {
+        return amountPending;
+    }
+
+    public long getAmountRefunded() {
+        return amountRefunded;
+    }
+
+    /**
+     * @return the amount that is no longer available to be refunded, being both the pending and the refunded amounts
+     */
+    public long getAmountSubmittedOrRefunded() {
+        return amountPending + amountRefunded;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RefundSummary that = (RefundSummary) o;
+        return amountPending == that.amountPending && amountRefunded == that.amountRefunded;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(amountPending, amountRefunded);
+    }
+
+    @Override
+    public String toString() {
+        return "RefundSummary{amountPending=" + amountPending + ", amountRefunded=" + amountRefunded + '}';
+    }
+}
@@ -16,19 +16,19 @@ import uk.gov.pay.connector.gatewayaccount.exception.GatewayAccountNotFoundExcep
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.queue.statetransition.StateTransitionService;
 import uk.gov.pay.connector.refund.dao.RefundDao;
+import uk.gov.pay.connector.refund.dao.RefundSummaryDao;
 import uk.gov.pay.connector.refund.exception.RefundException;
 import uk.gov.pay.connector.refund.model.RefundRequest;
 import uk.gov.pay.connector.refund.model.domain.Refund;
 import uk.gov.pay.connector.refund.model.domain.RefundEntity;
 import uk.gov.pay.connector.refund.model.domain.RefundStatus;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 import uk.gov.pay.connector.usernotification.service.UserNotificationService;
 
 import javax.inject.Inject;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -52,6 +52,7 @@ public class RefundService {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final RefundDao refundDao;
+    private final RefundSummaryDao refundSummaryDao;
     private final GatewayAccountDao gatewayAccountDao;
     private final PaymentProviders providers;
     private final UserNotificationService userNotificationService;
@@ -60,6 +61,7 @@ public class RefundService {
 
     @Inject
     public RefundService(RefundDao refundDao,
+                         RefundSummaryDao refundSummaryDao,
                          GatewayAccountDao gatewayAccountDao,
                          PaymentProviders providers,
                          UserNotificationService userNotificationService,
@@ -67,6 +69,7 @@ public class RefundService {
                          LedgerService ledgerService
     ) {
         this.refundDao = refundDao;
+        this.refundSummaryDao = refundSummaryDao;
         this.gatewayAccountDao = gatewayAccountDao;
         this.providers = providers;
         this.userNotificationService = userNotificationService;
@@ -88,8 +91,10 @@ public class RefundService {
     @Transactional
     @SuppressWarnings("WeakerAccess")
     public RefundEntity createRefund(Charge charge, GatewayAccountEntity gatewayAccountEntity, RefundRequest refundRequest) {
-        List<Refund> refundList = findRefunds(charge);
-        long availableAmount = validateRefundAndGetAvailableAmount(charge, gatewayAccountEntity, refundRequest, refundList);
+        // The refund summary stays locked until this transaction ends, so concurrent refund requests for the same
+        // charge are validated one at a time, each against the amounts left by the refunds created before it
+        RefundSummary refundSummary = lockRefundSummary(charge);
+        long availableAmount = validateRefundAndGetAvailableAmount(charge, gatewayAccountEntity, refundRequest, refundSummary);
         RefundEntity refundEntity = createRefundEntity(refundRequest, gatewayAccountEntity, charge);
 
         logger.info("Card refund request sent - charge_external_id={}, status={}, amount={}, transaction_id={}, account_id={}, operation_type=Refund, amount_available_refund={}, amount_requested_refund={}, provider={}, provider_type={}, user_external_id={}",
@@ -193,8 +198,10 @@ public class RefundService {
         return refundEntity;
     }
 
+    @Transactional
     public void transitionRefundState(RefundEntity refundEntity, GatewayAccountEntity gatewayAccountEntity, RefundStatus refundStatus) {
-        String fromState = (refundEntity.hasStatus()) ? refundEntity.getStatus().getValue() : "UNDEFINED";
+        RefundStatus fromStatus = refundEntity.hasStatus() ? refundEntity.getStatus() : null;
+        String fromState = (fromStatus != null) ? fromStatus.getValue() : "UNDEFINED";
         logger.info("Changing refund status for externalId [{}] [{}]->[{}]",
                 refundEntity.getExternalId(), fromState, refundStatus.getValue(),
                 kv(PAYMENT_EXTERNAL_ID, refundEntity.getChargeExternalId()),
@@ -205,6 +212,7 @@ public class RefundService {
                 kv("from_state", fromState),
                 kv("to_state", refundStatus.getValue()));
 
+        updateRefundSummary(refundEntity, fromStatus, refundStatus);
         refundEntity.setStatus(refundStatus);
         stateTransitionService.offerRefundStateTransition(refundEntity, refundStatus);
     }
@@ -270,19 +278,15 @@ public class RefundService {
     private long validateRefundAndGetAvailableAmount(Charge charge,
                                                      GatewayAccountEntity gatewayAccountEntity,
                                                      RefundRequest refundRequest,
-                                                     List<Refund> refundList) {
+                                                     RefundSummary refundSummary) {
         ExternalChargeRefundAvailability refundAvailability;
 
         refundAvailability = providers
                 .byName(PaymentGatewayName.valueFrom(gatewayAccountEntity.getGatewayName()))
-                .getExternalChargeRefundAvailability(charge, refundList);
+                .getExternalChargeRefundAvailability(charge, refundSummary);
         checkIfChargeIsRefundableOrTerminate(charge, refundAvailability, gatewayAccountEntity);
 
-        // We re-check the database for any newly created refunds that could have been made when we were making the
-        // network request to find the external refund-ability
-        List<Refund> updatedRefunds = checkForNewRefunds(charge, refundList);
-
-        long availableToBeRefunded = getTotalAmountAvailableToBeRefunded(charge, updatedRefunds);
+        long availableToBeRefunded = getTotalAmountAvailableToBeRefunded(charge, refundSummary);
         checkIfRefundRequestIsInConflictOrTerminate(refundRequest, charge, availableToBeRefunded);
 
         checkIfRefundAmountWithinLimitOrTerminate(refundRequest, charge, refundAvailability,
@@ -291,14 +295,30 @@ public class RefundService {
         return availableToBeRefunded;
     }
 
-    private List<Refund> checkForNewRefunds(Charge charge, List<Refund> refundList) {
-        List<RefundEntity> databaseRefunds = findNotExpungedRefunds(charge.getExternalId());
+    private RefundSummary lockRefundSummary(Charge charge) {
+        return refundSummaryDao.lock(charge.getExternalId()).orElseGet(() -> {
+            // read while holding the lock, so no refund state transition can happen in between
+            RefundSummary refundSummary = RefundSummary.from(findRefunds(charge));
+            refundSummaryDao.initialise(charge.getExternalId(), refundSummary);
+            return refundSummary;
+        });
+    }
 
-        // Add any new or updated refunds to our existing list. If a refund has been expunged since we last queried and 
-        // so no longer exists in the database, continue using the existing record from the original refund list.
-        Map<String, Refund> updatedRefunds = refundList.stream().collect(Collectors.toMap(Refund::getExternalId, refund -> refund));
-        databaseRefunds.forEach(refundEntity -> updatedRefunds.put(refundEntity.getExternalId(), Refund.from(refundEntity)));
-        return new ArrayList<>(updatedRefunds.values());
+    /**
+     * The stored refund summary for the charge, or one worked out from its refunds (which may involve asking
+     * Ledger for expunged refunds) if no refund has been requested for the charge since summaries were introduced
+     */
+    public RefundSummary findRefundSummary(Charge charge) {
+        return refundSummaryDao.find(charge.getExternalId())
+                .orElseGet(() -> RefundSummary.from(findRefunds(charge)));
+    }
+
+    private void updateRefundSummary(RefundEntity refundEntity, RefundStatus fromStatus, RefundStatus toStatus) {
+        long amountPendingDelta = RefundSummary.amountPendingDelta(fromStatus, toStatus, refundEntity.getAmount());
+        long amountRefundedDelta = RefundSummary.amountRefundedDelta(fromStatus, toStatus, refundEntity.getAmount());
+        if (amountPendingDelta != 0 || amountRefundedDelta != 0) {
+            refundSummaryDao.addToAmounts(refundEntity.getChargeExternalId(), amountPendingDelta, amountRefundedDelta);
+        }
     }
 
     public List<RefundEntity> findNotExpungedRefunds(String chargeExternalId) {
@@ -44,6 +44,10 @@ public class EventEmitterParamUtil {
         }
     }
 
+    public static boolean getResumeParam(Map<String, List<String>> parameters) {
+        return Boolean.parseBoolean(getParameterValue(parameters, "resume"));
+    }
+
     public static Optional<String> getStringParam(Map<String, List<String>> parameters, String paramName) {
         return Optional.ofNullable(getParameterValue(parameters, paramName));
     }
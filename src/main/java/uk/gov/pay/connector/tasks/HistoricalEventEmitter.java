@@ -116,6 +116,21 @@ public class HistoricalEventEmitter {
                 .forEach(refundHistory -> emitAndPersistEventForRefundHistoryEntry(refundHistory, forceEmission));
     }
 
+    /**
+     * Emits the refund events of a charge from refund history that has already been read, such as for a whole page
+     * of charges at once, without reading the history or the charge again.
+     */
+    public void processRefundEvents(ChargeEntity charge, List<RefundHistory> refundHistories, boolean forceEmission) {
+        processRefundEvents(charge.getGatewayAccount().getId(), refundHistories, forceEmission);
+    }
+
+    public void processRefundEvents(Long gatewayAccountId, List<RefundHistory> refundHistories, boolean forceEmission) {
+        refundHistories
+                .stream()
+                .sorted(Comparator.comparing(RefundHistory::getHistoryStartDate))
+                .forEach(refundHistory -> emitAndPersistEventForRefundHistoryEntry(refundHistory, gatewayAccountId, forceEmission));
+    }
+
     public void emitEventsForRefund(String refundExternalId, boolean shouldForceEmission) {
         List<RefundHistory> refundHistories = refundDao.getRefundHistoryByRefundExternalId(refundExternalId);
         refundHistories
@@ -126,12 +141,16 @@ public class HistoricalEventEmitter {
 
     @Transactional
     public void emitAndPersistEventForRefundHistoryEntry(RefundHistory refundHistory, boolean shouldForceEmission) {
-        Class<? extends RefundEvent> refundEventClass = RefundStateEventMap.calculateRefundEventClass(
-                refundHistory.getUserExternalId(), refundHistory.getStatus());
         Charge charge = chargeService.findCharge(refundHistory.getChargeExternalId())
                 .orElseThrow(() -> new ChargeNotFoundRuntimeException(refundHistory.getChargeExternalId()));
-        Event event = EventFactory.createRefundEvent(refundHistory, refundEventClass,
-                charge.getGatewayAccountId());
+        emitAndPersistEventForRefundHistoryEntry(refundHistory, charge.getGatewayAccountId(), shouldForceEmission);
+    }
+
+    private void emitAndPersistEventForRefundHistoryEntry(RefundHistory refundHistory, Long gatewayAccountId,
+                                                          boolean shouldForceEmission) {
+        Class<? extends RefundEvent> refundEventClass = RefundStateEventMap.calculateRefundEventClass(
+                refundHistory.getUserExternalId(), refundHistory.getStatus());
+        Event event = EventFactory.createRefundEvent(refundHistory, refundEventClass, gatewayAccountId);
 
         if (shouldForceEmission) {
             emitRefundEvent(refundHistory, refundEventClass, event);
@@ -199,7 +218,8 @@ public class HistoricalEventEmitter {
         Optional<Class<Event>> eventForTransition = getEventForTransition(fromChargeState, chargeEventEntity);
 
         eventForTransition.ifPresent(eventType -> {
-            PaymentStateTransition transition = new PaymentStateTransition(chargeEventEntity.getId(), eventType);
+            PaymentStateTransition transition = new PaymentStateTransition(chargeEventEntity.getId(),
+                    chargeEventEntity.getChargeEntity().getExternalId(), eventType);
             offerPaymentStateTransitionEvents(currentId, chargeEventEntity, transition, forceEmission);
         });
     }
@@ -17,6 +17,7 @@ import java.util.concurrent.SynchronousQueue;
 
 import static uk.gov.pay.connector.tasks.EventEmitterParamUtil.getOptionalLongParam;
 import static uk.gov.pay.connector.tasks.EventEmitterParamUtil.getRecordType;
+import static uk.gov.pay.connector.tasks.EventEmitterParamUtil.getResumeParam;
 import static uk.gov.pay.connector.tasks.RecordType.CHARGE;
 
 public class HistoricalEventEmitterTask extends Task {
@@ -49,10 +50,10 @@ public class HistoricalEventEmitterTask extends Task {
 
     @Override
     public void execute(Map<String, List<String>> parameters, PrintWriter output) {
-        Long startId = getOptionalLongParam(parameters, "start_id").orElse(0);
+        final RecordType recordType = getRecordType(parameters).orElse(CHARGE);
+        Long startId = getOptionalLongParam(parameters, "start_id").orElse(getDefaultStartId(parameters, recordType));
         final OptionalLong maybeMaxId = getOptionalLongParam(parameters, "max_id");
         final Long doNotRetryEmitUntilDuration = getDoNotRetryEmitUntilDuration(parameters);
-        final RecordType recordType = getRecordType(parameters).orElse(CHARGE);
 
         logger.info("Execute called start_id={} max_id={} doNotRetryEmitUntilDuration={} - processing",
                 startId, maybeMaxId, doNotRetryEmitUntilDuration);
@@ -73,6 +74,13 @@ public class HistoricalEventEmitterTask extends Task {
         }
     }
 
+    private long getDefaultStartId(Map<String, List<String>> parameters, RecordType recordType) {
+        if (CHARGE == recordType && getResumeParam(parameters)) {
+            return worker.getLastCheckpointedId().orElse(-1L) + 1;
+        }
+        return 0;
+    }
+
     private Long getDoNotRetryEmitUntilDuration(Map<String, List<String>> parameters) {
         OptionalLong doNotRetryEmitUntil = getOptionalLongParam(parameters,
                 "do_not_retry_emit_until");
@@ -5,6 +5,8 @@ import org.apache.commons.lang3.RandomUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.EventEmitterConfig;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.model.domain.Charge;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
@@ -20,8 +22,10 @@ import uk.gov.pay.connector.refund.model.domain.RefundHistory;
 import javax.inject.Inject;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.stream.Collectors;
 
 import static uk.gov.service.payments.logging.LoggingKeys.MDC_REQUEST_ID_KEY;
 
@@ -35,13 +39,16 @@ public class HistoricalEventEmitterWorker {
     private final StateTransitionService stateTransitionService;
     private final EventService eventService;
     private final RefundDao refundDao;
+    private final IdRangePageProcessor idRangePageProcessor;
     private HistoricalEventEmitter historicalEventEmitter;
     private long maxId;
+    private volatile Long lastCheckpointedId;
 
     @Inject
     public HistoricalEventEmitterWorker(ChargeDao chargeDao, RefundDao refundDao, ChargeEventDao chargeEventDao,
                                         EmittedEventDao emittedEventDao, StateTransitionService stateTransitionService,
-                                        EventService eventService, ChargeService chargeService) {
+                                        EventService eventService, ChargeService chargeService,
+                                        ConnectorConfiguration connectorConfiguration) {
         this.chargeDao = chargeDao;
         this.refundDao = refundDao;
         this.chargeEventDao = chargeEventDao;
@@ -49,6 +56,14 @@ public class HistoricalEventEmitterWorker {
         this.stateTransitionService = stateTransitionService;
         this.eventService = eventService;
         this.chargeService = chargeService;
+
+        EventEmitterConfig eventEmitterConfig = connectorConfiguration.getEventEmitterConfig();
+        this.idRangePageProcessor = new IdRangePageProcessor(eventEmitterConfig.getIdRangePageSize(),
+                eventEmitterConfig.getIdRangeNumberOfThreads(), "HistoricalEventEmitterWorker-page-%d");
+    }
+
+    public OptionalLong getLastCheckpointedId() {
+        return lastCheckpointedId == null ? OptionalLong.empty() : OptionalLong.of(lastCheckpointedId);
     }
 
     public void execute(Long startId, OptionalLong maybeMaxId, Long doNotRetryEmitUntilDuration) {
@@ -57,9 +72,7 @@ public class HistoricalEventEmitterWorker {
             initializeHistoricalEventEmitter(doNotRetryEmitUntilDuration);
             maxId = maybeMaxId.orElseGet(chargeDao::findMaxId);
             logger.info("Starting from {} up to {}", startId, maxId);
-            for (long i = startId; i <= maxId; i++) {
-                emitEventsFor(i);
-            }
+            idRangePageProcessor.process(startId, maxId, this::emitEventsForPage, this::checkpoint);
         } catch (NullPointerException e) {
             for (StackTraceElement s : e.getStackTrace()) {
                 logger.error("Null pointer exception stack trace: {}", s);
@@ -115,83 +128,125 @@ public class HistoricalEventEmitterWorker {
 
     // needs to be public for transactional annotation
     @Transactional
-    public void emitEventsFor(long currentId) {
-        final Optional<ChargeEntity> maybeCharge = chargeDao.findById(currentId);
+    public void emitEventsForCharges(List<Long> chargeIds) {
+        List<ChargeEntity> charges = chargeDao.findByIdsWithEventsAndFee(chargeIds);
+        Map<String, List<RefundHistory>> refundHistoriesByChargeExternalId = findRefundHistoriesByChargeExternalId(
+                charges.stream().map(ChargeEntity::getExternalId).collect(Collectors.toList()));
+        charges.forEach(charge -> {
+            try {
+                emitEventsForCharge(charge, refundHistoriesByChargeExternalId.getOrDefault(charge.getExternalId(), List.of()));
+            } catch (Exception e) {
+                logger.error("Error attempting to process event for charge [chargeId={}] [error={}]", charge.getId(), e);
+            }
+        });
+    }
 
-        try {
-            maybeCharge.ifPresent(c -> MDC.put("chargeId", c.getExternalId()));
+    // needs to be public for transactional annotation
+    @Transactional
+    public List<Long> emitEventsForPage(long afterId, long pageMaxId, int pageSize) {
+        List<ChargeEntity> charges = chargeDao.findByIdRange(afterId, pageMaxId, pageSize);
+        Map<String, List<RefundHistory>> refundHistoriesByChargeExternalId = findRefundHistoriesByChargeExternalId(
+                charges.stream().map(ChargeEntity::getExternalId).collect(Collectors.toList()));
+        charges.forEach(charge -> emitEventsForCharge(charge,
+                refundHistoriesByChargeExternalId.getOrDefault(charge.getExternalId(), List.of())));
+        logger.info("Processed charges with ids ({}, {}] - [no.of.charges={}]", afterId, pageMaxId, charges.size());
+        return charges.stream().map(ChargeEntity::getId).collect(Collectors.toList());
+    }
 
-            if (maybeCharge.isPresent()) {
-                final ChargeEntity charge = maybeCharge.get();
+    private void emitEventsForCharge(ChargeEntity charge, List<RefundHistory> refundHistories) {
+        try {
+            MDC.put("chargeId", charge.getExternalId());
 
-                historicalEventEmitter.processPaymentEvents(charge, false);
-                historicalEventEmitter.processRefundEvents(charge.getExternalId(), false);
-            } else {
-                logger.info("[{}/{}] - not found", currentId, maxId);
-            }
+            historicalEventEmitter.processPaymentEvents(charge, false);
+            historicalEventEmitter.processRefundEvents(charge, refundHistories, false);
         } finally {
             MDC.remove("chargeId");
         }
     }
 
+    private Map<String, List<RefundHistory>> findRefundHistoriesByChargeExternalId(List<String> chargeExternalIds) {
+        return refundDao.searchAllHistoryByChargeExternalIds(chargeExternalIds)
+                .stream()
+                .collect(Collectors.groupingBy(RefundHistory::getChargeExternalId));
+    }
+
+    private void checkpoint(long lastProcessedId) {
+        lastCheckpointedId = lastProcessedId;
+        logger.info("Checkpoint [lastProcessedId={}] [max={}]", lastProcessedId, maxId);
+    }
+
     private void processRefundEvents(ZonedDateTime startDate, ZonedDateTime endDate) {
         int page = 1;
+        List<RefundHistory> refundHistoryList = refundDao.getRefundHistoryByDateRange(startDate, endDate, null, PAGE_SIZE);
+
+        while (!refundHistoryList.isEmpty()) {
+            logger.info("Processing refunds events [page {}, no.of refund events {}] by date range", page, refundHistoryList.size());
+            processRefundEventsForCharges(refundHistoryList
+                    .stream()
+                    .map(RefundHistory::getChargeExternalId)
+                    .distinct()
+                    .collect(Collectors.toList()));
 
-        while (true) {
-            List<RefundHistory> refundHistoryList =
-                    refundDao.getRefundHistoryByDateRange(startDate, endDate, page, PAGE_SIZE);
-
-            if (!refundHistoryList.isEmpty()) {
-                logger.info("Processing refunds events [page {}, no.of refund events {}] by date range", page, refundHistoryList.size());
-                refundHistoryList
-                        .stream()
-                        .map(refundHistory -> refundHistory.getChargeExternalId())
-                        .distinct()
-                        .forEach(this::processRefundsEventsForCharge);
-                page++;
-            } else {
+            if (refundHistoryList.size() < PAGE_SIZE) {
                 break;
             }
+            RefundHistory lastRefundHistory = refundHistoryList.get(refundHistoryList.size() - 1);
+            refundHistoryList = refundDao.getRefundHistoryByDateRange(startDate, endDate, lastRefundHistory, PAGE_SIZE);
+            page++;
         }
     }
 
     private void processChargeEvents(ZonedDateTime startDate, ZonedDateTime endDate) {
         int page = 1;
+        List<ChargeEventEntity> chargeEvents = chargeEventDao.findChargeEvents(startDate, endDate, null, PAGE_SIZE);
 
-        while (true) {
-            List<ChargeEventEntity> chargeEvents = chargeEventDao.findChargeEvents(startDate, endDate, page, PAGE_SIZE);
+        while (!chargeEvents.isEmpty()) {
+            logger.info("Processing charge events [page {}, no.of.events {}] by date range", page, chargeEvents.size());
+            processChargeEventsForCharges(chargeEvents.stream().map(chargeEvent -> chargeEvent.getChargeEntity().getId())
+                    .distinct()
+                    .collect(Collectors.toList()));
 
-            if (!chargeEvents.isEmpty()) {
-                logger.info("Processing charge events [page {}, no.of.events {}] by date range", page, chargeEvents.size());
-                chargeEvents.stream().map(chargeEvent -> chargeEvent.getChargeEntity().getId())
-                        .distinct()
-                        .forEach(this::processChargeEventsForCharge);
-                page++;
-            } else {
+            if (chargeEvents.size() < PAGE_SIZE) {
                 break;
             }
+            ChargeEventEntity lastChargeEvent = chargeEvents.get(chargeEvents.size() - 1);
+            chargeEvents = chargeEventDao.findChargeEvents(startDate, endDate, lastChargeEvent, PAGE_SIZE);
+            page++;
         }
     }
 
-    private void processChargeEventsForCharge(Long chargeId) {
+    private void processChargeEventsForCharges(List<Long> chargeIds) {
         try {
-            emitEventsFor(chargeId);
+            emitEventsForCharges(chargeIds);
         } catch (Exception e) {
-            logger.error("Error attempting to process event for charge [chargeId={}] [error={}]", chargeId, e);
+            logger.error("Error attempting to process events for charges [chargeIds={}] [error={}]", chargeIds, e);
         }
     }
 
-    private void processRefundsEventsForCharge(String chargeExternalId) {
-        try {
-            Optional<Charge> maybeCharge = chargeService.findCharge(chargeExternalId);
-            maybeCharge.ifPresent(c -> MDC.put("chargeId", c.getExternalId()));
-
-            if (maybeCharge.isPresent()) {
-                final Charge charge = maybeCharge.get();
-                historicalEventEmitter.processRefundEvents(charge.getExternalId(), false);
+    /**
+     * Charges still in connector and the refund history of every charge are each read with one query for the
+     * page. Only charges that have been expunged are looked up one at a time, from ledger.
+     */
+    private void processRefundEventsForCharges(List<String> chargeExternalIds) {
+        Map<String, Long> gatewayAccountIdByChargeExternalId = chargeDao.findByExternalIds(chargeExternalIds)
+                .stream()
+                .collect(Collectors.toMap(ChargeEntity::getExternalId, charge -> charge.getGatewayAccount().getId()));
+        Map<String, List<RefundHistory>> refundHistoriesByChargeExternalId = findRefundHistoriesByChargeExternalId(chargeExternalIds);
+
+        chargeExternalIds.forEach(chargeExternalId -> {
+            try {
+                Optional<Long> maybeGatewayAccountId = Optional.ofNullable(gatewayAccountIdByChargeExternalId.get(chargeExternalId))
+                        .or(() -> chargeService.findCharge(chargeExternalId).map(Charge::getGatewayAccountId));
+                maybeGatewayAccountId.ifPresent(gatewayAccountId -> {
+                    MDC.put("chargeId", chargeExternalId);
+                    historicalEventEmitter.processRefundEvents(gatewayAccountId,
+                            refundHistoriesByChargeExternalId.getOrDefault(chargeExternalId, List.of()), false);
+                });
+            } catch (Exception e) {
+                logger.error("Error attempting to process refund events for charge [chargeExternalId={}] [error={}]", chargeExternalId, e);
+            } finally {
+                MDC.remove("chargeId");
             }
-        } finally {
-            MDC.remove("chargeId");
-        }
+        });
     }
 }
@@ -0,0 +1,153 @@
+package uk.gov.pay.connector.tasks;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Walks an id range in keyset pages. With more than one thread the range is split into contiguous
+ * segments that are claimed in order by the worker threads, each of which pages through its own
+ * segment so that entities never cross threads. Checkpoints are only ever reported for an id
+ * below which every segment has been processed, so a run can be resumed from the last checkpoint.
+ */
+class IdRangePageProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdRangePageProcessor.class);
+    private static final int PAGES_PER_SEGMENT = 10;
+
+    @FunctionalInterface
+    interface PageHandler {
+        /**
+         * Processes up to pageSize records with an id greater than afterId and no greater than maxId
+         *
+         * @return the ids of the records processed, in ascending order
+         */
+        List<Long> processPage(long afterId, long maxId, int pageSize);
+    }
+
+    private final int pageSize;
+    private final int numberOfThreads;
+    private final String threadNameFormat;
+
+    IdRangePageProcessor(int pageSize, int numberOfThreads, String threadNameFormat) {
+        this.pageSize = pageSize;
+        this.numberOfThreads = numberOfThreads;
+        this.threadNameFormat = threadNameFormat;
+    }
+
+    /**
+     * @return the id up to which the whole range has been processed
+     */
+    long process(long startId, long maxId, PageHandler pageHandler, LongConsumer checkpoint) {
+        if (numberOfThreads <= 1) {
+            return processSegment(startId - 1, maxId, pageHandler, checkpoint);
+        }
+
+        long segmentSize = (long) pageSize * PAGES_PER_SEGMENT;
+        AtomicLong nextSegmentStart = new AtomicLong(startId - 1);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        SegmentCheckpoints segmentCheckpoints = new SegmentCheckpoints(startId - 1, checkpoint);
+
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads,
+                new ThreadFactoryBuilder().setNameFormat(threadNameFormat).build());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < numberOfThreads; i++) {
+                futures.add(executor.submit(() -> {
+                    if (mdcContext != null) {
+                        MDC.setContextMap(mdcContext);
+                    }
+                    long afterId;
+                    while (!failed.get() && (afterId = nextSegmentStart.getAndAdd(segmentSize)) < maxId) {
+                        long segmentMaxId = Math.min(afterId + segmentSize, maxId);
+                        try {
+                            processSegment(afterId, segmentMaxId, pageHandler, id -> {});
+                            segmentCheckpoints.complete(afterId, segmentMaxId);
+                        } catch (RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                waitFor(future);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return segmentCheckpoints.getCheckpoint();
+    }
+
+    private long processSegment(long afterId, long maxId, PageHandler pageHandler, LongConsumer checkpoint) {
+        long lastProcessedId = afterId;
+        while (lastProcessedId < maxId) {
+            List<Long> processedIds = pageHandler.processPage(lastProcessedId, maxId, pageSize);
+            if (processedIds.isEmpty()) {
+                break;
+            }
+            lastProcessedId = processedIds.get(processedIds.size() - 1);
+            checkpoint.accept(lastProcessedId);
+            if (processedIds.size() < pageSize) {
+                break;
+            }
+        }
+        if (lastProcessedId < maxId) {
+            checkpoint.accept(maxId);
+        }
+        return maxId;
+    }
+
+    private static void waitFor(Future<?> future) {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class SegmentCheckpoints {
+        private final LongConsumer checkpoint;
+        private final Map<Long, Long> completedSegments = new HashMap<>();
+        private long contiguousMaxId;
+
+        SegmentCheckpoints(long initialId, LongConsumer checkpoint) {
+            this.contiguousMaxId = initialId;
+            this.checkpoint = checkpoint;
+        }
+
+        synchronized void complete(long afterId, long segmentMaxId) {
+            logger.debug("Completed id range segment ({}, {}]", afterId, segmentMaxId);
+            completedSegments.put(afterId, segmentMaxId);
+            Long nextMaxId;
+            while ((nextMaxId = completedSegments.remove(contiguousMaxId)) != null) {
+                contiguousMaxId = nextMaxId;
+            }
+            checkpoint.accept(contiguousMaxId);
+        }
+
+        synchronized long getCheckpoint() {
+            return contiguousMaxId;
+        }
+    }
+}
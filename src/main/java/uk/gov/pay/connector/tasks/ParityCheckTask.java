@@ -19,6 +19,7 @@ import java.util.concurrent.SynchronousQueue;
 import static uk.gov.pay.connector.tasks.EventEmitterParamUtil.getLongParam;
 import static uk.gov.pay.connector.tasks.EventEmitterParamUtil.getParameterValue;
 import static uk.gov.pay.connector.tasks.EventEmitterParamUtil.getRecordType;
+import static uk.gov.pay.connector.tasks.EventEmitterParamUtil.getResumeParam;
 import static uk.gov.pay.connector.tasks.EventEmitterParamUtil.getStringParam;
 import static uk.gov.pay.connector.tasks.RecordType.CHARGE;
 
@@ -55,12 +56,12 @@ public class ParityCheckTask extends Task {
 
     @Override
     public void execute(Map<String, List<String>> parameters, PrintWriter output) {
-        Long startId = getLongParam(parameters, "start_id").orElse(0L);
+        final RecordType recordType = getRecordType(parameters).orElse(CHARGE);
+        Long startId = getLongParam(parameters, "start_id").orElse(getDefaultStartId(parameters, recordType));
         final Optional<Long> maybeMaxId = getLongParam(parameters, "max_id");
         Optional<String> mayBeParityCheckStatus = getStringParam(parameters, "parity_check_status");
         boolean doNotReprocessValidRecords = getDoNotReprocessValidRecordsParam(parameters).orElse(false);
         final Long doNotRetryEmitUntilDuration = getDoNotRetryEmitUntilDuration(parameters);
-        final RecordType recordType = getRecordType(parameters).orElse(CHARGE);
 
         logger.info("Execute called start_id={} max_id={} - processing", startId, maybeMaxId);
 
@@ -83,6 +84,13 @@ public class ParityCheckTask extends Task {
         }
     }
 
+    private long getDefaultStartId(Map<String, List<String>> parameters, RecordType recordType) {
+        if (CHARGE == recordType && getResumeParam(parameters)) {
+            return worker.getLastCheckpointedId().orElse(-1L) + 1;
+        }
+        return 0L;
+    }
+
     private Optional<Boolean> getDoNotReprocessValidRecordsParam(Map<String, List<String>> parameters) {
         String value = getParameterValue(parameters, "do_not_reprocess_valid_records");
         return Optional.of(StringUtils.isNotBlank(value) && Boolean.parseBoolean(value));
@@ -5,6 +5,8 @@ import org.apache.commons.lang3.RandomUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.EventEmitterConfig;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ParityCheckStatus;
@@ -19,7 +21,10 @@ import uk.gov.pay.connector.tasks.service.ParityCheckService;
 
 import javax.inject.Inject;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
 
 import static java.util.Optional.ofNullable;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -41,12 +46,15 @@ public class ParityCheckWorker {
     private RefundDao refundDao;
     private ParityCheckService parityCheckService;
     private HistoricalEventEmitter historicalEventEmitter;
+    private final IdRangePageProcessor idRangePageProcessor;
     private long maxId;
+    private volatile Long lastCheckpointedId;
 
     @Inject
     public ParityCheckWorker(ChargeDao chargeDao, ChargeService chargeService, EmittedEventDao emittedEventDao,
                              StateTransitionService stateTransitionService, EventService eventService,
-                             RefundService refundService, RefundDao refundDao, ParityCheckService parityCheckService) {
+                             RefundService refundService, RefundDao refundDao, ParityCheckService parityCheckService,
+                             ConnectorConfiguration connectorConfiguration) {
         this.chargeDao = chargeDao;
         this.chargeService = chargeService;
         this.emittedEventDao = emittedEventDao;
@@ -55,6 +63,14 @@ public class ParityCheckWorker {
         this.refundService = refundService;
         this.refundDao = refundDao;
         this.parityCheckService = parityCheckService;
+
+        EventEmitterConfig eventEmitterConfig = connectorConfiguration.getEventEmitterConfig();
+        this.idRangePageProcessor = new IdRangePageProcessor(eventEmitterConfig.getIdRangePageSize(),
+                eventEmitterConfig.getIdRangeNumberOfThreads(), "ParityCheckWorker-page-%d");
+    }
+
+    public OptionalLong getLastCheckpointedId() {
+        return lastCheckpointedId == null ? OptionalLong.empty() : OptionalLong.of(lastCheckpointedId);
     }
 
     public void execute(Long startId, Optional<Long> maybeMaxId, boolean doNotReprocessValidRecords,
@@ -131,17 +147,41 @@ public class ParityCheckWorker {
 
     public void checkParityForIdRange(long startId, long maxId, boolean doNotReprocessValidRecords) {
         logger.info("Starting from {} up to {}", startId, maxId);
-        for (long i = startId; i <= maxId; i++) {
-            final Optional<ChargeEntity> maybeCharge = chargeDao.findById(i);
+        idRangePageProcessor.process(startId, maxId,
+                (afterId, pageMaxId, pageSize) -> checkParityForPage(afterId, pageMaxId, pageSize, doNotReprocessValidRecords),
+                this::checkpoint);
+    }
 
-            if (maybeCharge.isPresent()) {
-                checkParityFor(maybeCharge.get(), doNotReprocessValidRecords);
-            } else {
-                logger.info("[{}/{}] - not found", i, maxId);
-            }
+    // needs to be public for transactional annotation
+    @Transactional
+    public List<Long> checkParityForPage(long afterId, long pageMaxId, int pageSize, boolean doNotReprocessValidRecords) {
+        List<ChargeEntity> charges = chargeDao.findByIdRange(afterId, pageMaxId, pageSize);
+        List<ChargeEntity> chargesToCheck = charges.stream()
+                .filter(charge -> !skipParityCheck(charge.getId(), charge.getParityCheckStatus(), doNotReprocessValidRecords))
+                .collect(Collectors.toList());
+        Map<String, ParityCheckStatus> parityCheckStatuses = parityCheckService.getChargeAndRefundsParityCheckStatuses(chargesToCheck);
+        chargesToCheck.forEach(charge -> recordParityCheckStatusForPageCharge(charge, parityCheckStatuses.get(charge.getExternalId())));
+        logger.info("Processed charges with ids ({}, {}] - [no.of.charges={}]", afterId, pageMaxId, charges.size());
+        return charges.stream().map(ChargeEntity::getId).collect(Collectors.toList());
+    }
+
+    private void recordParityCheckStatusForPageCharge(ChargeEntity charge, ParityCheckStatus parityCheckStatus) {
+        try {
+            MDC.put(PAYMENT_EXTERNAL_ID, charge.getExternalId());
+            recordParityCheckStatus(charge, parityCheckStatus);
+        } catch (RuntimeException e) {
+            logger.error("Error recording parity check status for charge [id={}] [error={}]",
+                    charge.getId(), e.getMessage(), e);
+        } finally {
+            MDC.remove(PAYMENT_EXTERNAL_ID);
         }
     }
 
+    private void checkpoint(long lastProcessedId) {
+        lastCheckpointedId = lastProcessedId;
+        logger.info("Checkpoint [lastProcessedId={}] [max={}]", lastProcessedId, maxId);
+    }
+
     // needs to be public for transactional annotation
     @Transactional
     public void checkParityFor(ChargeEntity charge, boolean doNotReprocessValidRecords) {
@@ -152,15 +192,18 @@ public class ParityCheckWorker {
                 return;
             }
 
-            ParityCheckStatus parityCheckStatus = parityCheckService.getChargeAndRefundsParityCheckStatus(charge);
-            chargeService.updateChargeParityStatus(charge.getExternalId(), parityCheckStatus);
-            logger.info("transaction parity check finished [id={},status={}]", charge.getId(), parityCheckStatus);
-
-            if (!parityCheckStatus.equals(EXISTS_IN_LEDGER)) {
-                historicalEventEmitter.processPaymentEvents(charge, true);
-            }
+            recordParityCheckStatus(charge, parityCheckService.getChargeAndRefundsParityCheckStatus(charge));
         } finally {
-            MDC.remove("chargeId");
+            MDC.remove(PAYMENT_EXTERNAL_ID);
+        }
+    }
+
+    private void recordParityCheckStatus(ChargeEntity charge, ParityCheckStatus parityCheckStatus) {
+        chargeService.updateChargeParityStatus(charge.getExternalId(), parityCheckStatus);
+        logger.info("transaction parity check finished [id={},status={}]", charge.getId(), parityCheckStatus);
+
+        if (!parityCheckStatus.equals(EXISTS_IN_LEDGER)) {
+            historicalEventEmitter.processPaymentEvents(charge, true);
         }
     }
 
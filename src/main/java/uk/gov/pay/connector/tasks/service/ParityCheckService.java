@@ -13,8 +13,13 @@ import uk.gov.pay.connector.refund.model.domain.RefundEntity;
 import uk.gov.pay.connector.refund.service.RefundService;
 import uk.gov.pay.connector.tasks.HistoricalEventEmitter;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static uk.gov.pay.connector.charge.model.domain.ParityCheckStatus.EXISTS_IN_LEDGER;
 
@@ -46,12 +51,50 @@ public class ParityCheckService {
     public ParityCheckStatus getChargeAndRefundsParityCheckStatus(ChargeEntity charge) {
         ParityCheckStatus parityCheckStatus = getChargeParityCheckStatus(charge);
         if (parityCheckStatus.equals(EXISTS_IN_LEDGER)) {
-            return getRefundsParityCheckStatus(refundService.findNotExpungedRefunds(charge.getExternalId()));
+            return getRefundsParityCheckStatus(refundService.findNotExpungedRefunds(charge.getExternalId()),
+                    id -> ledgerService.getTransaction(id).orElse(null));
         }
 
         return parityCheckStatus;
     }
 
+    /**
+     * Parity checks a batch of charges and their refunds. When Ledger lookups are allowed to run
+     * concurrently, all the transactions are looked up in one go before they are compared, instead
+     * of one charge at a time.
+     *
+     * @return the parity check status for each charge, keyed by charge external id
+     */
+    public Map<String, ParityCheckStatus> getChargeAndRefundsParityCheckStatuses(List<ChargeEntity> charges) {
+        Map<String, ParityCheckStatus> parityCheckStatuses = new HashMap<>();
+        if (ledgerService.getMaxConcurrentRequests() <= 1) {
+            charges.forEach(charge -> parityCheckStatuses.put(charge.getExternalId(), getChargeAndRefundsParityCheckStatus(charge)));
+            return parityCheckStatuses;
+        }
+
+        Map<String, List<RefundEntity>> refundsByChargeExternalId = new HashMap<>();
+        List<String> transactionIds = new ArrayList<>();
+        for (ChargeEntity charge : charges) {
+            List<RefundEntity> refunds = refundService.findNotExpungedRefunds(charge.getExternalId());
+            refundsByChargeExternalId.put(charge.getExternalId(), refunds);
+            transactionIds.add(charge.getExternalId());
+            refunds.forEach(refund -> transactionIds.add(refund.getExternalId()));
+        }
+
+        Map<String, Optional<LedgerTransaction>> transactions = ledgerService.getTransactions(transactionIds);
+        Function<String, LedgerTransaction> transactionLookup = id -> transactions.getOrDefault(id, Optional.empty()).orElse(null);
+
+        for (ChargeEntity charge : charges) {
+            ParityCheckStatus parityCheckStatus = chargeParityChecker.checkParity(charge, transactionLookup.apply(charge.getExternalId()));
+            if (parityCheckStatus.equals(EXISTS_IN_LEDGER)) {
+                parityCheckStatus = getRefundsParityCheckStatus(refundsByChargeExternalId.get(charge.getExternalId()), transactionLookup);
+            }
+            parityCheckStatuses.put(charge.getExternalId(), parityCheckStatus);
+        }
+
+        return parityCheckStatuses;
+    }
+
     @Transactional
     public boolean parityCheckChargeForExpunger(ChargeEntity chargeEntity) {
         ParityCheckStatus parityCheckStatus = getChargeParityCheckStatus(chargeEntity);
@@ -67,6 +110,38 @@ public class ParityCheckService {
         return false;
     }
 
+    /**
+     * Parity checks a batch of charges for the expunger, looking the charges up in Ledger concurrently
+     * when allowed to. Charges that fail the check are re-emitted and have their parity status updated.
+     *
+     * @return the charges that exist in Ledger and can be expunged
+     */
+    @Transactional
+    public List<ChargeEntity> parityCheckChargesForExpunger(List<ChargeEntity> chargeEntities) {
+        if (ledgerService.getMaxConcurrentRequests() <= 1) {
+            return chargeEntities.stream()
+                    .filter(this::parityCheckChargeForExpunger)
+                    .collect(Collectors.toList());
+        }
+
+        Map<String, Optional<LedgerTransaction>> transactions = ledgerService.getTransactions(
+                chargeEntities.stream().map(ChargeEntity::getExternalId).collect(Collectors.toList()));
+
+        List<ChargeEntity> chargesInParity = new ArrayList<>();
+        for (ChargeEntity chargeEntity : chargeEntities) {
+            LedgerTransaction transaction = transactions.getOrDefault(chargeEntity.getExternalId(), Optional.empty()).orElse(null);
+            ParityCheckStatus parityCheckStatus = chargeParityChecker.checkParity(chargeEntity, transaction);
+            if (EXISTS_IN_LEDGER.equals(parityCheckStatus)) {
+                chargesInParity.add(chargeEntity);
+            } else {
+                historicalEventEmitter.processPaymentEvents(chargeEntity, true);
+                chargeService.updateChargeParityStatus(chargeEntity.getExternalId(), parityCheckStatus);
+            }
+        }
+
+        return chargesInParity;
+    }
+
     @Transactional
     public boolean parityCheckRefundForExpunger(RefundEntity refundEntity) {
         ParityCheckStatus parityCheckStatus = getRefundParityCheckStatus(refundEntity);
@@ -81,9 +156,10 @@ public class ParityCheckService {
         return false;
     }
 
-    private ParityCheckStatus getRefundsParityCheckStatus(List<RefundEntity> refunds) {
+    private ParityCheckStatus getRefundsParityCheckStatus(List<RefundEntity> refunds,
+                                                          Function<String, LedgerTransaction> transactionLookup) {
         for (var refund : refunds) {
-            ParityCheckStatus parityCheckStatus = getRefundParityCheckStatus(refund);
+            ParityCheckStatus parityCheckStatus = refundParityChecker.checkParity(refund, transactionLookup.apply(refund.getExternalId()));
             if (!parityCheckStatus.equals(EXISTS_IN_LEDGER)) {
                 logger.info("refund transaction does not exist in ledger or is in a different state [externalId={},status={}] -",
                         refund.getExternalId(), parityCheckStatus);
@@ -0,0 +1,148 @@
+package uk.gov.pay.connector.util;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.pay.connector.app.config.ReverseDnsLookupConfig;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches the results of reverse DNS lookups, so that a burst of notifications from the same IP address costs one
+ * DNS query rather than one per notification. Lookups run on their own threads: concurrent lookups of an IP address
+ * share the one query in flight, and callers give up waiting after the timeout, leaving the query to finish and
+ * populate the cache for the next caller. Failed lookups are cached for a shorter time than successful ones.
+ */
+public class CachingReverseDnsLookup extends ReverseDnsLookup {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingReverseDnsLookup.class);
+
+    private final ReverseDnsLookup delegate;
+    private final ExecutorService executorService;
+    private final Clock clock;
+    private final long timeoutInMillis;
+    private final Duration cacheTtl;
+    private final Duration negativeCacheTtl;
+    private final int cacheMaximumSize;
+    private final ConcurrentMap<DnsPointerResourceRecord, CachedLookup> cache = new ConcurrentHashMap<>();
+
+    private final Meter cacheHits;
+    private final Meter cacheMisses;
+    private final Meter timeouts;
+    private final Timer lookupTimer;
+
+    public CachingReverseDnsLookup(ReverseDnsLookup delegate, ReverseDnsLookupConfig config,
+                                   ExecutorService executorService, MetricRegistry metricRegistry, Clock clock) {
+        this.delegate = delegate;
+        this.executorService = executorService;
+        this.clock = clock;
+        this.timeoutInMillis = config.getTimeoutInMillis();
+        this.cacheTtl = Duration.ofSeconds(config.getCacheTtlInSeconds());
+        this.negativeCacheTtl = Duration.ofSeconds(config.getNegativeCacheTtlInSeconds());
+        this.cacheMaximumSize = config.getCacheMaximumSize();
+
+        this.cacheHits = metricRegistry.meter("reverse-dns.cache.hit");
+        this.cacheMisses = metricRegistry.meter("reverse-dns.cache.miss");
+        this.timeouts = metricRegistry.meter("reverse-dns.lookup.timeout");
+        this.lookupTimer = metricRegistry.timer("reverse-dns.lookup.response_time");
+        metricRegistry.register("reverse-dns.cache.hit_ratio", new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(cacheHits.getCount(), cacheHits.getCount() + cacheMisses.getCount());
+            }
+        });
+        metricRegistry.<Gauge<Integer>>register("reverse-dns.cache.size", cache::size);
+    }
+
+    @Override
+    public Optional<String> lookup(DnsPointerResourceRecord pointerRecord) {
+        Instant now = clock.instant();
+        CachedLookup cachedLookup = cache.get(pointerRecord);
+        if (cachedLookup == null || cachedLookup.isExpiredAt(now)) {
+            CachedLookup newLookup = new CachedLookup();
+            cachedLookup = cache.compute(pointerRecord,
+                    (key, existing) -> existing == null || existing.isExpiredAt(now) ? newLookup : existing);
+            if (cachedLookup == newLookup) {
+                cacheMisses.mark();
+                evictIfFull();
+                startLookup(pointerRecord, newLookup);
+                return await(pointerRecord, newLookup);
+            }
+        }
+        cacheHits.mark();
+        return await(pointerRecord, cachedLookup);
+    }
+
+    private void startLookup(DnsPointerResourceRecord pointerRecord, CachedLookup cachedLookup) {
+        try {
+            executorService.execute(() -> {
+                Optional<String> host = Optional.empty();
+                try (Timer.Context ignored = lookupTimer.time()) {
+                    host = delegate.lookup(pointerRecord);
+                } finally {
+                    cachedLookup.complete(host, clock.instant().plus(host.isPresent() ? cacheTtl : negativeCacheTtl));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Reverse DNS lookup of {} rejected: {}", pointerRecord.getReverseIp(), e.getMessage());
+            cache.remove(pointerRecord, cachedLookup);
+            cachedLookup.complete(Optional.empty(), Instant.MIN);
+        }
+    }
+
+    private Optional<String> await(DnsPointerResourceRecord pointerRecord, CachedLookup cachedLookup) {
+        try {
+            return timeoutInMillis > 0 ? cachedLookup.host.get(timeoutInMillis, MILLISECONDS) : cachedLookup.host.get();
+        } catch (TimeoutException e) {
+            timeouts.mark();
+            LOGGER.warn("Reverse DNS lookup of {} timed out after {} ms", pointerRecord.getReverseIp(), timeoutInMillis);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void evictIfFull() {
+        if (cache.size() > cacheMaximumSize) {
+            Instant now = clock.instant();
+            cache.values().removeIf(cachedLookup -> cachedLookup.isExpiredAt(now));
+            if (cache.size() > cacheMaximumSize) {
+                // lookups in flight still complete for the callers waiting on them
+                cache.clear();
+            }
+        }
+    }
+
+    private static class CachedLookup {
+        private final CompletableFuture<Optional<String>> host = new CompletableFuture<>();
+        private volatile Instant expiresAt = Instant.MAX;
+
+        private void complete(Optional<String> result, Instant expiresAt) {
+            this.expiresAt = expiresAt;
+            host.complete(result);
+        }
+
+        private boolean isExpiredAt(Instant instant) {
+            return !instant.isBefore(expiresAt);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package uk.gov.pay.connector.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An immutable set of IPv4 and IPv6 CIDR ranges, held as a binary prefix trie over the numeric
+ * address. A range costs one node per prefix bit rather than one entry per address, so a /16 is
+ * held in 16 nodes instead of 65,536 strings. Lookups parse the address straight out of the
+ * given characters and walk the trie without allocating.
+ */
+public class CidrTrie {
+
+    private static final int IPV4_ROOT = 0;
+    private static final int IPV6_ROOT = 1;
+    private static final int IPV4_BITS = 32;
+    private static final int IPV6_BITS = 128;
+    private static final int IPV6_GROUPS = 8;
+    private static final long INVALID_IPV4_ADDRESS = -1;
+
+    @FunctionalInterface
+    private interface AddressVisitor {
+        boolean visit(long high, long low);
+    }
+
+    private final int[] children;
+    private final boolean[] terminal;
+    private final int nodeCount;
+    private final AddressVisitor ipv6Matcher = (high, low) -> matches(IPV6_ROOT, high, low, IPV6_BITS);
+
+    private CidrTrie(int[] children, boolean[] terminal, int nodeCount) {
+        this.children = children;
+        this.terminal = terminal;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * @param cidrs ranges in CIDR notation, such as 1.2.3.0/24 or 2001:db8::/32. An address without a prefix
+     *              length is treated as a single address.
+     * @throws IllegalArgumentException if any of the ranges cannot be parsed
+     */
+    public static CidrTrie of(Collection<String> cidrs) {
+        requireNonNull(cidrs);
+
+        List<Cidr> parsedCidrs = new ArrayList<>(cidrs.size());
+        cidrs.forEach(cidr -> parsedCidrs.add(Cidr.parse(cidr)));
+        // inserting the widest ranges first means that narrower ranges they cover never add any nodes
+        parsedCidrs.sort(Comparator.comparingInt(cidr -> cidr.prefixLength));
+
+        Builder builder = new Builder();
+        parsedCidrs.forEach(builder::insert);
+        return builder.build();
+    }
+
+    public boolean contains(CharSequence ipAddress) {
+        return contains(ipAddress, 0, ipAddress.length());
+    }
+
+    /**
+     * Checks whether the address held in the characters from start (inclusive) to end (exclusive) is within
+     * any of the ranges. Surrounding whitespace is ignored and anything that is not a valid IPv4 or IPv6
+     * address is not contained.
+     */
+    public boolean contains(CharSequence characters, int start, int end) {
+        while (start < end && Character.isWhitespace(characters.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(characters.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return false;
+        }
+
+        if (indexOf(characters, start, end, ':') >= 0) {
+            return parseIpv6(characters, start, end, ipv6Matcher);
+        }
+
+        long ipv4Address = parseIpv4(characters, start, end);
+        return ipv4Address != INVALID_IPV4_ADDRESS && matches(IPV4_ROOT, ipv4Address << IPV4_BITS, 0, IPV4_BITS);
+    }
+
+    /**
+     * @return the number of trie nodes, including the IPv4 and IPv6 roots
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    private boolean matches(int root, long high, long low, int bits) {
+        int node = root;
+        for (int bit = 0; ; bit++) {
+            if (terminal[node]) {
+                return true;
+            }
+            if (bit == bits) {
+                return false;
+            }
+            node = children[2 * node + bitAt(high, low, bit)];
+            if (node == 0) {
+                return false;
+            }
+        }
+    }
+
+    private static int bitAt(long high, long low, int bit) {
+        return bit < 64 ? (int) (high >>> (63 - bit)) & 1 : (int) (low >>> (127 - bit)) & 1;
+    }
+
+    private static int indexOf(CharSequence characters, int start, int end, char c) {
+        for (int i = start; i < end; i++) {
+            if (characters.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long parseIpv4(CharSequence characters, int start, int end) {
+        long address = 0;
+        int octets = 0;
+        int octet = 0;
+        int digits = 0;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? characters.charAt(i) : '.';
+            if (c == '.') {
+                if (digits == 0 || octets == 4) {
+                    return INVALID_IPV4_ADDRESS;
+                }
+                address = (address << 8) | octet;
+                octets++;
+                octet = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (digits > 0 && octet == 0) {
+                    return INVALID_IPV4_ADDRESS;
+                }
+                octet = octet * 10 + (c - '0');
+                digits++;
+                if (octet > 255) {
+                    return INVALID_IPV4_ADDRESS;
+                }
+            } else {
+                return INVALID_IPV4_ADDRESS;
+            }
+        }
+        return octets == 4 ? address : INVALID_IPV4_ADDRESS;
+    }
+
+    /**
+     * Parses an IPv6 address in its full or :: compressed form, without an embedded IPv4 address or zone,
+     * and passes its upper and lower 64 bits to the visitor.
+     *
+     * @return false if the address is not valid, otherwise the result of the visitor
+     */
+    private static boolean parseIpv6(CharSequence characters, int start, int end, AddressVisitor visitor) {
+        long headHigh = 0;
+        long headLow = 0;
+        long tailHigh = 0;
+        long tailLow = 0;
+        int headGroups = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+
+        int i = start;
+        if (end - start >= 2 && characters.charAt(start) == ':' && characters.charAt(start + 1) == ':') {
+            compressed = true;
+            i += 2;
+        }
+
+        while (i < end) {
+            int group = 0;
+            int digits = 0;
+            int hexValue;
+            while (i < end && (hexValue = hexValue(characters.charAt(i))) >= 0) {
+                group = (group << 4) | hexValue;
+                digits++;
+                i++;
+            }
+            if (digits == 0 || digits > 4 || headGroups + tailGroups == IPV6_GROUPS) {
+                return false;
+            }
+
+            if (compressed) {
+                tailHigh = (tailHigh << 16) | (tailLow >>> 48);
+                tailLow = (tailLow << 16) | group;
+                tailGroups++;
+            } else {
+                headHigh = (headHigh << 16) | (headLow >>> 48);
+                headLow = (headLow << 16) | group;
+                headGroups++;
+            }
+
+            if (i == end) {
+                break;
+            }
+            if (characters.charAt(i) != ':' || ++i == end) {
+                return false;
+            }
+            if (characters.charAt(i) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i++;
+            }
+        }
+
+        int groups = headGroups + tailGroups;
+        if (compressed ? groups == IPV6_GROUPS : groups != IPV6_GROUPS) {
+            return false;
+        }
+
+        int shift = 16 * (IPV6_GROUPS - headGroups);
+        if (shift >= 64) {
+            headHigh = shift == 128 ? 0 : headLow << (shift - 64);
+            headLow = 0;
+        } else if (shift > 0) {
+            headHigh = (headHigh << shift) | (headLow >>> (64 - shift));
+            headLow = headLow << shift;
+        }
+
+        return visitor.visit(headHigh | tailHigh, headLow | tailLow);
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static class Cidr {
+        private final boolean ipv6;
+        private final long high;
+        private final long low;
+        private final int prefixLength;
+
+        private Cidr(boolean ipv6, long high, long low, int prefixLength) {
+            this.ipv6 = ipv6;
+            this.high = high;
+            this.low = low;
+            this.prefixLength = prefixLength;
+        }
+
+        private static Cidr parse(String cidr) {
+            int slash = cidr.indexOf('/');
+            int addressEnd = slash < 0 ? cidr.length() : slash;
+            boolean ipv6 = indexOf(cidr, 0, addressEnd, ':') >= 0;
+            int maximumPrefixLength = ipv6 ? IPV6_BITS : IPV4_BITS;
+
+            int prefixLength;
+            try {
+                prefixLength = slash < 0 ? maximumPrefixLength : Integer.parseInt(cidr.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw invalidCidr(cidr);
+            }
+            if (prefixLength < 0 || prefixLength > maximumPrefixLength) {
+                throw invalidCidr(cidr);
+            }
+
+            if (ipv6) {
+                long[] address = new long[2];
+                if (!parseIpv6(cidr, 0, addressEnd, (high, low) -> {
+                    address[0] = high;
+                    address[1] = low;
+                    return true;
+                })) {
+                    throw invalidCidr(cidr);
+                }
+                return new Cidr(true, address[0], address[1], prefixLength);
+            }
+
+            long address = parseIpv4(cidr, 0, addressEnd);
+            if (address == INVALID_IPV4_ADDRESS) {
+                throw invalidCidr(cidr);
+            }
+            return new Cidr(false, address << IPV4_BITS, 0, prefixLength);
+        }
+
+        private static IllegalArgumentException invalidCidr(String cidr) {
+            return new IllegalArgumentException("Invalid CIDR: " + cidr);
+        }
+    }
+
+    private static class Builder {
+        private int[] children = new int[64];
+        private boolean[] terminal = new boolean[32];
+        private int nodeCount = 2;
+
+        private void insert(Cidr cidr) {
+            int node = cidr.ipv6 ? IPV6_ROOT : IPV4_ROOT;
+            for (int bit = 0; bit < cidr.prefixLength; bit++) {
+                if (terminal[node]) {
+                    return;
+                }
+                int childIndex = 2 * node + bitAt(cidr.high, cidr.low, bit);
+                if (children[childIndex] == 0) {
+                    int child = newNode();
+                    children[childIndex] = child;
+                }
+                node = children[childIndex];
+            }
+            terminal[node] = true;
+        }
+
+        private int newNode() {
+            if (nodeCount == terminal.length) {
+                terminal = Arrays.copyOf(terminal, nodeCount * 2);
+                children = Arrays.copyOf(children, nodeCount * 4);
+            }
+            return nodeCount++;
+        }
+
+        private CidrTrie build() {
+            return new CidrTrie(Arrays.copyOf(children, nodeCount * 2), Arrays.copyOf(terminal, nodeCount), nodeCount);
+        }
+    }
+}
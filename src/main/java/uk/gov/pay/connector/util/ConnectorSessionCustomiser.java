@@ -1,19 +1,59 @@
 package uk.gov.pay.connector.util;
 
+import org.eclipse.persistence.config.CacheIsolationType;
 import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.descriptors.invalidation.TimeToLiveCacheInvalidationPolicy;
 import org.eclipse.persistence.sessions.DatabaseLogin;
 import org.eclipse.persistence.sessions.Session;
+import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+import uk.gov.pay.connector.gatewayaccount.model.Worldpay3dsFlexCredentialsEntity;
+import uk.gov.pay.connector.usernotification.model.domain.EmailNotificationEntity;
+import uk.gov.pay.connector.usernotification.model.domain.NotificationCredentials;
+
+import java.util.List;
 
 public class ConnectorSessionCustomiser implements SessionCustomizer {
 
+    /**
+     * Persistence unit properties that, when set, hold the gateway account entities in the shared cache
+     */
+    public static final String SHARED_CACHE_SIZE_PROPERTY = "connector.shared-cache.size";
+    public static final String SHARED_CACHE_TTL_MILLIS_PROPERTY = "connector.shared-cache.ttl-millis";
+
     private static final int QUERY_RETRY_ATTEMPT_COUNT_ZERO_BASED_INDEX = 0;
     private static final int DELAY_BETWEEN_CONNECTION_ATTEMPTS_MILLIS = 2000;
 
+    // a gateway account and everything it references, so that a cached account never has to be rebuilt from the database
+    private static final List<Class<?>> SHARED_CACHE_ENTITIES = List.of(
+            GatewayAccountEntity.class,
+            CardTypeEntity.class,
+            EmailNotificationEntity.class,
+            NotificationCredentials.class,
+            Worldpay3dsFlexCredentialsEntity.class);
+
     @Override
     public void customize(Session session) {
         DatabaseLogin datasourceLogin = (DatabaseLogin) session.getDatasourceLogin();
         datasourceLogin.setQueryRetryAttemptCount(QUERY_RETRY_ATTEMPT_COUNT_ZERO_BASED_INDEX);
         datasourceLogin.setDelayBetweenConnectionAttempts(DELAY_BETWEEN_CONNECTION_ATTEMPTS_MILLIS);
+        customiseSharedCache(session);
     }
-}
 
+    private void customiseSharedCache(Session session) {
+        Object cacheSize = session.getProperty(SHARED_CACHE_SIZE_PROPERTY);
+        Object cacheTtlMillis = session.getProperty(SHARED_CACHE_TTL_MILLIS_PROPERTY);
+        if (cacheSize == null || cacheTtlMillis == null) {
+            return;
+        }
+
+        for (Class<?> entityClass : SHARED_CACHE_ENTITIES) {
+            ClassDescriptor descriptor = session.getDescriptor(entityClass);
+            descriptor.setCacheIsolation(CacheIsolationType.SHARED);
+            descriptor.useCacheIdentityMap();
+            descriptor.setIdentityMapSize(Integer.parseInt(cacheSize.toString()));
+            descriptor.setCacheInvalidationPolicy(new TimeToLiveCacheInvalidationPolicy(Long.parseLong(cacheTtlMillis.toString())));
+        }
+    }
+}
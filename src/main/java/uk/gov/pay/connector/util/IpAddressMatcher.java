@@ -24,6 +24,19 @@ public class IpAddressMatcher {
         return false;
     }
 
+    /**
+     * Checks the first of the forwarded IP addresses against the allowed CIDR ranges, reading it in place
+     * rather than splitting the header
+     */
+    public boolean isMatch(String forwardedIpAddresses, CidrTrie allowedCidrs) {
+        if (Objects.nonNull(forwardedIpAddresses) && Objects.nonNull(allowedCidrs)) {
+            int firstIpAddressEnd = forwardedIpAddresses.indexOf(',');
+            return allowedCidrs.contains(forwardedIpAddresses, 0,
+                    firstIpAddressEnd < 0 ? forwardedIpAddresses.length() : firstIpAddressEnd);
+        }
+        return false;
+    }
+
     private String getFirstIpAddress(String forwardedIpAddresses) {
        return forwardedIpAddresses.split(",")[0];
     }
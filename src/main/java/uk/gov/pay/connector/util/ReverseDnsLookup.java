@@ -1,25 +1,59 @@
 package uk.gov.pay.connector.util;
 
+import javax.naming.NamingException;
 import javax.naming.directory.Attributes;
 import javax.naming.directory.DirContext;
 import javax.naming.directory.InitialDirContext;
 import java.util.Hashtable;
-import java.util.Map;
 import java.util.Optional;
 
 public class ReverseDnsLookup {
 
-    private static final Hashtable<String, String> INITIAL_DIR_CONTEXT_ENV = new Hashtable<>(Map.of(
-            "java.naming.factory.initial", "com.sun.jndi.dns.DnsContextFactory"));
+    private final Hashtable<String, String> initialDirContextEnv = new Hashtable<>();
+
+    public ReverseDnsLookup() {
+        this(null, 0);
+    }
+
+    public ReverseDnsLookup(int timeoutInMillis) {
+        this(null, timeoutInMillis);
+    }
+
+    /**
+     * @param dnsServerUrl    the DNS server to query, such as dns://127.0.0.1:53, or null to use the system resolvers
+     * @param timeoutInMillis how long to wait for a response before giving up, or zero to use the JNDI DNS provider
+     *                        defaults, which retry several times with an increasing timeout
+     */
+    public ReverseDnsLookup(String dnsServerUrl, int timeoutInMillis) {
+        initialDirContextEnv.put("java.naming.factory.initial", "com.sun.jndi.dns.DnsContextFactory");
+        if (dnsServerUrl != null) {
+            initialDirContextEnv.put("java.naming.provider.url", dnsServerUrl);
+        }
+        if (timeoutInMillis > 0) {
+            initialDirContextEnv.put("com.sun.jndi.dns.timeout.initial", String.valueOf(timeoutInMillis));
+            initialDirContextEnv.put("com.sun.jndi.dns.timeout.retries", "1");
+        }
+    }
 
     public Optional<String> lookup(DnsPointerResourceRecord pointerRecord) {
+        DirContext ctx = null;
         try {
-            DirContext ctx = new InitialDirContext(INITIAL_DIR_CONTEXT_ENV);
+            ctx = new InitialDirContext(initialDirContextEnv);
             Attributes attrs = ctx.getAttributes(pointerRecord.getReverseIp(), new String[]{"PTR"});
-            ctx.close();
             return Optional.ofNullable(attrs.get("ptr").get().toString());
         } catch (Exception e) {
             return Optional.empty();
+        } finally {
+            close(ctx);
+        }
+    }
+
+    private static void close(DirContext ctx) {
+        if (ctx != null) {
+            try {
+                ctx.close();
+            } catch (NamingException ignored) {
+            }
         }
     }
 }
@@ -55,6 +55,7 @@ public abstract class WalletService {
         switch (error.getErrorType()) {
             case GATEWAY_ERROR:
             case GATEWAY_CONNECTION_TIMEOUT_ERROR:
+            case GATEWAY_CONCURRENCY_LIMIT_ERROR:
                 return serviceErrorResponse(error.getMessage());
             default:
                 LOGGER.error("Charge {}: error {}", chargeId, error.getMessage());
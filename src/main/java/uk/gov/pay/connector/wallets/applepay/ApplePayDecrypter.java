@@ -3,6 +3,7 @@ package uk.gov.pay.connector.wallets.applepay;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
+import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,11 +19,11 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
-import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
@@ -45,11 +46,14 @@ public class ApplePayDecrypter {
     private static final byte[] APPLE_OEM = "Apple".getBytes(UTF_8);
     private static final byte[] ALG_IDENTIFIER_BYTES = "id-aes256-GCM".getBytes(UTF_8);
     private static final String MERCHANT_ID_CERTIFICATE_OID = "1.2.840.113635.100.6.32";
+    private static final GCMParameterSpec GCM_PARAMETER_SPEC = new GCMParameterSpec(128, new byte[16]);
+
+    // the JCA engines are not thread safe but can be reused once initialised again, so each thread keeps its own
+    private static final ThreadLocal<CryptoEngines> CRYPTO_ENGINES = ThreadLocal.withInitial(CryptoEngines::new);
 
-    private final PrivateKey primaryPrivateKey;
     private final X509Certificate primaryCertificate;
-    private final Optional<PrivateKey> secondaryPrivateKey;
-    private final Optional<X509Certificate> secondaryCertificate;
+    private final DecryptionKey primaryKey;
+    private final Optional<DecryptionKey> secondaryKey;
 
     private final ObjectMapper objectMapper;
     private final static Base64.Decoder BASE64_DECODER = Base64.getDecoder();
@@ -58,27 +62,31 @@ public class ApplePayDecrypter {
     public ApplePayDecrypter(WorldpayConfig worldpayConfig, ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
         ApplePayConfig applePayConfig = worldpayConfig.getApplePayConfig();
+        PrivateKey primaryPrivateKey;
         try {
             primaryPrivateKey = generatePrivateKey(removeWhitespace(applePayConfig.getPrimaryPrivateKey()));
             primaryCertificate = generateCertificate(removeWhitespace(applePayConfig.getPrimaryPublicCertificate()));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        primaryKey = new DecryptionKey(primaryPrivateKey, primaryCertificate);
 
-        secondaryPrivateKey = applePayConfig.getSecondaryPrivateKey().map(privateKey -> {
+        Optional<PrivateKey> secondaryPrivateKey = applePayConfig.getSecondaryPrivateKey().map(privateKey -> {
             try {
                 return generatePrivateKey(removeWhitespace(privateKey));
             } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
                 throw new RuntimeException();
             }
         });
-        secondaryCertificate = applePayConfig.getSecondaryPublicCertificate().map(cert -> {
+        Optional<X509Certificate> secondaryCertificate = applePayConfig.getSecondaryPublicCertificate().map(cert -> {
             try {
                 return generateCertificate(removeWhitespace(cert));
             } catch (IOException | CertificateException e) {
                 throw new RuntimeException();
             }
         });
+        secondaryKey = secondaryPrivateKey.flatMap(privateKey ->
+                secondaryCertificate.map(certificate -> new DecryptionKey(privateKey, certificate)));
         
         long daysToExpiry = DAYS.between(Instant.now(), primaryCertificate.getNotAfter().toInstant());
         LOGGER.info("The Apple Pay payment processing cert will expire in {} days", daysToExpiry);
@@ -90,18 +98,28 @@ public class ApplePayDecrypter {
 
     public AppleDecryptedPaymentData performDecryptOperation(ApplePayAuthRequest applePayAuthRequest) {
         
-        byte[] ephemeralPublicKey = BASE64_DECODER.decode(
+        byte[] ephemeralPublicKeyBytes = BASE64_DECODER.decode(
                 applePayAuthRequest.getEncryptedPaymentData().getHeader().getEphemeralPublicKey().getBytes(UTF_8));
         byte[] data = BASE64_DECODER.decode(applePayAuthRequest.getEncryptedPaymentData().getData().getBytes(UTF_8));
         byte[] rawData;
 
+        CryptoEngines cryptoEngines = CRYPTO_ENGINES.get();
+        ECPublicKey ephemeralPublicKey;
         try {
-            rawData = decrypt(primaryCertificate, primaryPrivateKey, ephemeralPublicKey, data);
+            // Reconstitute Ephemeral Public Key, once for both the primary and the secondary key
+            ephemeralPublicKey = (ECPublicKey) cryptoEngines.keyFactory.generatePublic(new X509EncodedKeySpec(ephemeralPublicKeyBytes));
         } catch (Exception e) {
-            if (secondaryCertificate.isPresent() && secondaryPrivateKey.isPresent()) {
+            LOGGER.error("Error while trying to decrypt apple pay payload: " + e.getMessage());
+            throw new InvalidKeyException("Error while trying to decrypt apple pay payload: " + e.getMessage());
+        }
+
+        try {
+            rawData = decrypt(cryptoEngines, primaryKey, ephemeralPublicKey, data);
+        } catch (Exception e) {
+            if (secondaryKey.isPresent()) {
                 LOGGER.info("Could not decrypt Apple auth request with primary key, trying with secondary key.");
                 try {
-                    rawData = decrypt(secondaryCertificate.get(), secondaryPrivateKey.get(), ephemeralPublicKey, data);
+                    rawData = decrypt(cryptoEngines, secondaryKey.get(), ephemeralPublicKey, data);
                 } catch (Exception ex) {
                     LOGGER.error("Error while trying to decrypt apple pay payload: " + ex.getMessage());
                     throw new InvalidKeyException("Error while trying to decrypt apple pay payload: " + ex.getMessage());
@@ -122,37 +140,32 @@ public class ApplePayDecrypter {
         }
     }
 
-    private byte[] decrypt(Certificate certificate, PrivateKey privateKey, byte[] ephemeralPublicKeyBytes, byte[] data) throws Exception {
-        // Reconstitute Ephemeral Public Key
-        KeyFactory keyFactory = KeyFactory.getInstance("EC");
-        X509EncodedKeySpec encodedKeySpec = new X509EncodedKeySpec(ephemeralPublicKeyBytes);
-        ECPublicKey ephemeralPublicKey = (ECPublicKey) keyFactory.generatePublic(encodedKeySpec);
+    private byte[] decrypt(CryptoEngines cryptoEngines, DecryptionKey decryptionKey, ECPublicKey ephemeralPublicKey,
+                           byte[] data) throws Exception {
         // Perform KeyAgreement
-        KeyAgreement agreement = KeyAgreement.getInstance("ECDH");
-        agreement.init(privateKey);
+        KeyAgreement agreement = cryptoEngines.keyAgreement;
+        agreement.init(decryptionKey.privateKey);
         agreement.doPhase(ephemeralPublicKey, true);
         byte[] sharedSecret = agreement.generateSecret();
 
         // Perform KDF
-        byte[] derivedSecret = performKeyDerivationFunction(((X509Certificate) certificate), sharedSecret);
+        byte[] derivedSecret = performKeyDerivationFunction(cryptoEngines.sha256, decryptionKey, sharedSecret);
 
         // Use the derived secret to decrypt the data
-        Cipher aesCipher = Cipher.getInstance("AES/GCM/NoPadding");
-        SecretKeySpec key = new SecretKeySpec(derivedSecret, "AES");
-        aesCipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, new byte[16]));
+        Cipher aesCipher = cryptoEngines.aesCipher;
+        aesCipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(derivedSecret, "AES"), GCM_PARAMETER_SPEC);
         return aesCipher.doFinal(data);
     }
 
-    private byte[] performKeyDerivationFunction(X509Certificate certificate, byte[] sharedSecret) throws Exception {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        byteArrayOutputStream.write(COUNTER);
-        byteArrayOutputStream.write(sharedSecret);
-        byteArrayOutputStream.write(ALG_IDENTIFIER_BYTES.length);
-        byteArrayOutputStream.write(ALG_IDENTIFIER_BYTES);
-        byteArrayOutputStream.write(APPLE_OEM);
-        // Add Merchant Id
-        byteArrayOutputStream.write(Hex.decodeHex(new String((certificate.getExtensionValue(MERCHANT_ID_CERTIFICATE_OID)), UTF_8).substring(4).toCharArray()));
-        return MessageDigest.getInstance("SHA-256").digest(byteArrayOutputStream.toByteArray());
+    private byte[] performKeyDerivationFunction(MessageDigest sha256, DecryptionKey decryptionKey, byte[] sharedSecret) {
+        if (decryptionKey.otherInfo == null) {
+            throw new IllegalStateException("Certificate does not have a valid merchant id extension");
+        }
+        sha256.reset();
+        sha256.update(COUNTER);
+        sha256.update(sharedSecret);
+        sha256.update(decryptionKey.otherInfo);
+        return sha256.digest();
     }
 
     private X509Certificate generateCertificate(String publicCertificate) throws IOException, CertificateException {
@@ -168,4 +181,56 @@ public class ApplePayDecrypter {
         return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(privateKeyBytes));
     }
 
+    /**
+     * A private key with the part of the key derivation function input that only depends on its certificate: the
+     * algorithm identifier, party U info ("Apple") and party V info (the merchant id from the certificate).
+     */
+    private static class DecryptionKey {
+        private final PrivateKey privateKey;
+        private final byte[] otherInfo;
+
+        private DecryptionKey(PrivateKey privateKey, X509Certificate certificate) {
+            this.privateKey = privateKey;
+            this.otherInfo = otherInfo(certificate);
+        }
+
+        private static byte[] otherInfo(X509Certificate certificate) {
+            byte[] merchantIdExtension = certificate.getExtensionValue(MERCHANT_ID_CERTIFICATE_OID);
+            if (merchantIdExtension == null) {
+                return null;
+            }
+            byte[] merchantId;
+            try {
+                merchantId = Hex.decodeHex(new String(merchantIdExtension, UTF_8).substring(4).toCharArray());
+            } catch (DecoderException | StringIndexOutOfBoundsException e) {
+                return null;
+            }
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            byteArrayOutputStream.write(ALG_IDENTIFIER_BYTES.length);
+            byteArrayOutputStream.writeBytes(ALG_IDENTIFIER_BYTES);
+            byteArrayOutputStream.writeBytes(APPLE_OEM);
+            // Add Merchant Id
+            byteArrayOutputStream.writeBytes(merchantId);
+            return byteArrayOutputStream.toByteArray();
+        }
+    }
+
+    private static class CryptoEngines {
+        private final KeyFactory keyFactory;
+        private final KeyAgreement keyAgreement;
+        private final Cipher aesCipher;
+        private final MessageDigest sha256;
+
+        private CryptoEngines() {
+            try {
+                keyFactory = KeyFactory.getInstance("EC");
+                keyAgreement = KeyAgreement.getInstance("ECDH");
+                aesCipher = Cipher.getInstance("AES/GCM/NoPadding");
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
 }
@@ -1,8 +1,15 @@
 package uk.gov.pay.connector.charge.service;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
+import com.google.inject.persist.UnitOfWork;
+import io.dropwizard.lifecycle.JettyManaged;
+import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
+import io.dropwizard.setup.Environment;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -96,6 +103,16 @@ public class ChargeExpiryServiceTest {
     @Mock
     private ConnectorConfiguration mockedConfig;
 
+    @Mock
+    private UnitOfWork mockUnitOfWork;
+
+    @Mock
+    private Environment mockEnvironment;
+
+    private MetricRegistry metricRegistry = new MetricRegistry();
+
+    private LifecycleEnvironment lifecycleEnvironment = new LifecycleEnvironment(metricRegistry);
+
     private static final List<ChargeStatus> EXPIRABLE_REGULAR_STATUSES = ImmutableList.of(
             CREATED,
             ENTERING_CARD_DETAILS,
@@ -115,13 +132,25 @@ public class ChargeExpiryServiceTest {
     @Before
     public void setup() {
         when(mockedConfig.getChargeSweepConfig()).thenReturn(mockedChargeSweepConfig);
-        chargeExpiryService = new ChargeExpiryService(mockChargeDao, mockChargeService, mockTokenDao, mockPaymentProviders, mockQueryService, mockedConfig);
+        when(mockEnvironment.metrics()).thenReturn(metricRegistry);
+        chargeExpiryService = new ChargeExpiryService(mockChargeDao, mockChargeService, mockTokenDao, mockPaymentProviders, mockQueryService, mockedConfig,
+                mockUnitOfWork, mockEnvironment);
         GatewayResponseBuilder<BaseCancelResponse> gatewayResponseBuilder = responseBuilder();
         gatewayResponse = gatewayResponseBuilder.withResponse(mockWorldpayCancelResponse).build();
         gatewayAccount = ChargeEntityFixture.defaultGatewayAccountEntity();
         gatewayAccount.setGatewayName("worldpay");
     }
 
+    @After
+    public void stopExecutors() throws Exception {
+        // the environment is never started, so shut the executors down directly rather than through Jetty
+        for (LifeCycle managedObject : lifecycleEnvironment.getManagedObjects()) {
+            if (managedObject instanceof JettyManaged) {
+                ((JettyManaged) managedObject).getManaged().stop();
+            }
+        }
+    }
+
     private ChargeEntity mockExpiredChargeEntity() {
 
         ChargeEntity expiredCharge = mock(ChargeEntity.class);
@@ -365,6 +394,91 @@ public class ChargeExpiryServiceTest {
         verify(mockChargeService).transitionChargeState(chargeEntityAuthorisationSuccess.getExternalId(), EXPIRED);
     }
 
+    @Test
+    public void shouldSweepAndExpireChargesInPages() throws Exception {
+        when(mockedChargeSweepConfig.getExpiryPageSize()).thenReturn(2);
+        when(mockedChargeSweepConfig.getGatewayExpiryConcurrency()).thenReturn(2);
+        when(mockEnvironment.lifecycle()).thenReturn(lifecycleEnvironment);
+        ChargeExpiryService pagedChargeExpiryService = new ChargeExpiryService(mockChargeDao, mockChargeService, mockTokenDao,
+                mockPaymentProviders, mockQueryService, mockedConfig, mockUnitOfWork, mockEnvironment);
+
+        ChargeEntity createdCharge = ChargeEntityFixture.aValidChargeEntity()
+                .withId(1L)
+                .withStatus(CREATED)
+                .withGatewayAccountEntity(gatewayAccount)
+                .build();
+        ChargeEntity enteringCardDetailsCharge = ChargeEntityFixture.aValidChargeEntity()
+                .withId(2L)
+                .withStatus(ENTERING_CARD_DETAILS)
+                .withGatewayAccountEntity(gatewayAccount)
+                .build();
+        ChargeEntity authorisationSuccessCharge = ChargeEntityFixture.aValidChargeEntity()
+                .withId(3L)
+                .withStatus(AUTHORISATION_SUCCESS)
+                .withGatewayAccountEntity(gatewayAccount)
+                .build();
+
+        when(mockChargeDao.findBeforeDateWithStatusIn(any(Instant.class), eq(EXPIRABLE_REGULAR_STATUSES), eq(Long.MIN_VALUE), eq(2)))
+                .thenReturn(List.of(createdCharge, enteringCardDetailsCharge));
+        when(mockChargeDao.findBeforeDateWithStatusIn(any(Instant.class), eq(EXPIRABLE_REGULAR_STATUSES), eq(2L), eq(2)))
+                .thenReturn(List.of(authorisationSuccessCharge));
+        when(mockChargeDao.findBeforeDateWithStatusIn(any(Instant.class), eq(EXPIRABLE_AWAITING_CAPTURE_REQUEST_STATUS), eq(Long.MIN_VALUE), eq(2)))
+                .thenReturn(List.of());
+
+        when(mockWorldpayCancelResponse.cancelStatus()).thenReturn(CancelStatus.CANCELLED);
+        when(mockChargeDao.findByExternalId(authorisationSuccessCharge.getExternalId())).thenReturn(Optional.of(authorisationSuccessCharge));
+        when(mockPaymentProvider.cancel(any())).thenReturn(gatewayResponse);
+        when(mockPaymentProviders.byName(PaymentGatewayName.WORLDPAY)).thenReturn(mockPaymentProvider);
+        ChargeEntity expiredCharge = mockExpiredChargeEntity();
+        when(mockChargeService.transitionChargeState(any(String.class), any())).thenReturn(expiredCharge);
+
+        Map<String, Integer> sweepResult = pagedChargeExpiryService.sweepAndExpireChargesAndTokens();
+
+        verify(mockChargeService).transitionChargeState(createdCharge.getExternalId(), EXPIRED);
+        verify(mockChargeService).transitionChargeState(enteringCardDetailsCharge.getExternalId(), EXPIRED);
+        verify(mockChargeService).transitionChargeState(authorisationSuccessCharge.getExternalId(), EXPIRED);
+        verify(mockChargeDao, never()).findBeforeDateWithStatusIn(any(Instant.class), any());
+        assertThat(sweepResult.get("expiry-success"), is(3));
+        assertThat(sweepResult.get("expiry-failed"), is(0));
+        assertThat(metricRegistry.meter("charge-expiry.expire_without_gateway").getCount(), is(2L));
+        assertThat(metricRegistry.meter("charge-expiry.expire_with_gateway").getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldCountChargesThatCannotBeExpiredWithoutFailingTheRestOfThePage() {
+        when(mockedChargeSweepConfig.getExpiryPageSize()).thenReturn(2);
+        when(mockedChargeSweepConfig.getGatewayExpiryConcurrency()).thenReturn(1);
+        when(mockEnvironment.lifecycle()).thenReturn(lifecycleEnvironment);
+        ChargeExpiryService pagedChargeExpiryService = new ChargeExpiryService(mockChargeDao, mockChargeService, mockTokenDao,
+                mockPaymentProviders, mockQueryService, mockedConfig, mockUnitOfWork, mockEnvironment);
+
+        ChargeEntity createdCharge = ChargeEntityFixture.aValidChargeEntity()
+                .withId(1L)
+                .withStatus(CREATED)
+                .withGatewayAccountEntity(gatewayAccount)
+                .build();
+        ChargeEntity movedOnCharge = ChargeEntityFixture.aValidChargeEntity()
+                .withId(2L)
+                .withStatus(ENTERING_CARD_DETAILS)
+                .withGatewayAccountEntity(gatewayAccount)
+                .build();
+
+        when(mockChargeDao.findBeforeDateWithStatusIn(any(Instant.class), eq(EXPIRABLE_REGULAR_STATUSES), eq(Long.MIN_VALUE), eq(2)))
+                .thenReturn(List.of(createdCharge, movedOnCharge));
+        when(mockChargeDao.findBeforeDateWithStatusIn(any(Instant.class), eq(EXPIRABLE_REGULAR_STATUSES), eq(2L), eq(2)))
+                .thenReturn(List.of());
+        when(mockChargeDao.findBeforeDateWithStatusIn(any(Instant.class), eq(EXPIRABLE_AWAITING_CAPTURE_REQUEST_STATUS), eq(Long.MIN_VALUE), eq(2)))
+                .thenReturn(List.of());
+        when(mockChargeService.transitionChargeState(movedOnCharge.getExternalId(), EXPIRED))
+                .thenThrow(InvalidStateTransitionException.class);
+
+        Map<String, Integer> sweepResult = pagedChargeExpiryService.sweepAndExpireChargesAndTokens();
+
+        verify(mockChargeService).transitionChargeState(createdCharge.getExternalId(), EXPIRED);
+        assertThat(sweepResult.get("expiry-success"), is(1));
+        assertThat(sweepResult.get("expiry-failed"), is(1));
+    }
+
     @Test
     public void shouldCancelChargeWithGatewayWhenChargeInPreAuthorisedStateAndExistsWithGateway() throws Exception {
         ChargeEntity preAuthorisationCharge = ChargeEntityFixture.aValidChargeEntity()
@@ -11,6 +11,7 @@ import uk.gov.service.payments.commons.testing.pact.consumers.PactProviderRule;
 import uk.gov.service.payments.commons.testing.pact.consumers.Pacts;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.RestClientFactory;
+import uk.gov.pay.connector.app.config.LedgerClientConfig;
 import uk.gov.pay.connector.app.config.RestClientConfig;
 import uk.gov.pay.connector.client.ledger.model.LedgerTransaction;
 import uk.gov.pay.connector.client.ledger.model.RefundTransactionsForPayment;
@@ -37,6 +38,7 @@ public class LedgerServiceConsumerTest {
     @Before
     public void setUp() {
         when(configuration.getLedgerBaseUrl()).thenReturn(ledgerRule.getUrl());
+        when(configuration.getLedgerClientConfig()).thenReturn(new LedgerClientConfig());
         Client client = RestClientFactory.buildClient(new RestClientConfig());
         ledgerService = new LedgerService(client, configuration);
     }
@@ -0,0 +1,77 @@
+package uk.gov.pay.connector.client.ledger.service;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.RestClientFactory;
+import uk.gov.pay.connector.app.config.LedgerClientConfig;
+import uk.gov.pay.connector.app.config.RestClientConfig;
+import uk.gov.pay.connector.client.ledger.exception.LedgerException;
+import uk.gov.pay.connector.client.ledger.model.LedgerTransaction;
+import uk.gov.pay.connector.expunge.service.LedgerStub;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.model.domain.LedgerTransactionFixture.aValidLedgerTransaction;
+
+public class LedgerServiceGetTransactionsTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(options().dynamicPort());
+
+    private LedgerStub ledgerStub;
+    private LedgerService ledgerService;
+
+    @Before
+    public void setUp() {
+        ConnectorConfiguration configuration = mock(ConnectorConfiguration.class);
+        LedgerClientConfig ledgerClientConfig = mock(LedgerClientConfig.class);
+        when(configuration.getLedgerBaseUrl()).thenReturn("http://localhost:" + wireMockRule.port());
+        when(configuration.getLedgerClientConfig()).thenReturn(ledgerClientConfig);
+        when(ledgerClientConfig.getMaxConcurrentRequests()).thenReturn(2);
+
+        ledgerStub = new LedgerStub(wireMockRule);
+        ledgerService = new LedgerService(RestClientFactory.buildClient(new RestClientConfig()), configuration);
+    }
+
+    @Test
+    public void shouldLookUpEachTransactionOnceAndReturnEmptyForTransactionsNotInLedger() throws Exception {
+        ledgerStub.returnLedgerTransaction("payment-1", aValidLedgerTransaction().withExternalId("payment-1").build());
+        ledgerStub.returnLedgerTransaction("refund-1", aValidLedgerTransaction().withExternalId("refund-1").build());
+        ledgerStub.returnTransactionNotFound("payment-2");
+
+        Map<String, Optional<LedgerTransaction>> transactions = ledgerService.getTransactions(
+                List.of("payment-1", "refund-1", "payment-2", "payment-1"));
+
+        assertThat(transactions.keySet(), contains("payment-1", "refund-1", "payment-2"));
+        assertThat(transactions.get("payment-1").get().getTransactionId(), is("payment-1"));
+        assertThat(transactions.get("refund-1").get().getTransactionId(), is("refund-1"));
+        assertThat(transactions.get("payment-2").isPresent(), is(false));
+        wireMockRule.verify(1, getRequestedFor(urlPathEqualTo("/v1/transaction/payment-1")));
+        wireMockRule.verify(3, getRequestedFor(urlPathMatching("/v1/transaction/.*")));
+    }
+
+    @Test
+    public void shouldThrowLedgerExceptionIfALookupFails() {
+        wireMockRule.stubFor(get(urlPathEqualTo("/v1/transaction/payment-1"))
+                .willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json").withBody("{not-json")));
+
+        assertThrows(LedgerException.class, () -> ledgerService.getTransactions(List.of("payment-1")));
+    }
+}
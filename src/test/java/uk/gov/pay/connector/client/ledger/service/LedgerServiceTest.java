@@ -5,6 +5,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.LedgerClientConfig;
 import uk.gov.pay.connector.client.ledger.exception.GetRefundsForPaymentException;
 import uk.gov.pay.connector.client.ledger.exception.LedgerException;
 import uk.gov.pay.connector.client.ledger.model.RefundTransactionsForPayment;
@@ -38,6 +39,7 @@ public class LedgerServiceTest {
         mockResponse = mock(Response.class);
 
         when(mockConnectorConfiguration.getLedgerBaseUrl()).thenReturn("http://ledgerUrl");
+        when(mockConnectorConfiguration.getLedgerClientConfig()).thenReturn(new LedgerClientConfig());
         when(mockClient.target(any(UriBuilder.class))).thenReturn(mockWebTarget);
         when(mockWebTarget.request()).thenReturn(mockBuilder);
         when(mockBuilder.accept(APPLICATION_JSON)).thenReturn(mockBuilder);
@@ -19,8 +19,10 @@ import uk.gov.pay.connector.events.model.charge.PaymentExpired;
 import uk.gov.pay.connector.events.model.charge.PaymentNotificationCreated;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -28,6 +30,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsIterableContaining.hasItem;
 import static org.hamcrest.core.IsIterableContaining.hasItems;
+import static org.mockito.Mockito.mock;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_READY;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_REQUIRED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_ABORTED;
@@ -178,6 +181,25 @@ public class PaymentGatewayStateTransitionsTest {
         assertThat(eventClassType.get(), is(AuthorisationCancelled.class));
     }
 
+    @Test
+    public void compiledTransitions_matchTheGraphForEveryPairOfStatuses() {
+        Event unrelatedEvent = mock(Event.class);
+        for (ChargeStatus fromStatus : ChargeStatus.values()) {
+            for (ChargeStatus toStatus : ChargeStatus.values()) {
+                String transition = fromStatus + " -> " + toStatus;
+                Optional<Class<Event>> eventClass = transitions.getEventForTransitionFromGraph(fromStatus, toStatus);
+                assertThat(transition, transitions.getEventForTransition(fromStatus, toStatus), is(eventClass));
+
+                List<Event> events = new ArrayList<>(List.of(new UnspecifiedEvent(), unrelatedEvent));
+                eventClass.ifPresent(clazz -> events.add(mock(clazz)));
+                for (Event event : events) {
+                    assertThat(transition, PaymentGatewayStateTransitions.isValidTransition(fromStatus, toStatus, event),
+                            is(transitions.isValidTransitionInGraph(fromStatus, toStatus, event)));
+                }
+            }
+        }
+    }
+
     @Test
     public void getNextStatus_returnsAListOfFollowingStatuses() {
         assertThat(transitions.getNextStatus(AUTHORISATION_READY), hasItems(AUTHORISATION_ABORTED,
@@ -15,9 +15,11 @@ import uk.gov.pay.connector.it.dao.DaoITestBase;
 import uk.gov.pay.connector.it.dao.DatabaseFixtures;
 import uk.gov.pay.connector.util.RandomIdGenerator;
 
+import java.sql.Timestamp;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 
 import static java.time.ZonedDateTime.now;
 import static java.util.Arrays.asList;
@@ -133,6 +135,31 @@ public class ChargeEventDaoIT extends DaoITestBase {
         assertDateMatch(events.get(0).getUpdated());
     }
 
+    @Test
+    public void persistChargeEventOfChargeEntity_shouldSetTheIdAndUpdatedDateThatAreWrittenToTheDatabase() {
+        Long chargeId = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withChargeId(nextLong())
+                .withExternalChargeId(RandomIdGenerator.newId())
+                .insert()
+                .getChargeId();
+
+        ChargeEntity entity = chargeDao.findById(chargeId).get();
+        entity.setStatus(ENTERING_CARD_DETAILS);
+
+        ChargeEventEntity chargeEvent = chargeEventDao.persistChargeEventOf(entity);
+
+        assertThat(chargeEvent.getId(), Matchers.notNullValue());
+        assertDateMatch(chargeEvent.getUpdated());
+
+        List<Map<String, Object>> chargeEvents = databaseTestHelper.getChargeEvents(chargeId);
+        assertThat(chargeEvents, hasSize(1));
+        assertThat(chargeEvents.get(0).get("id"), Matchers.is(chargeEvent.getId()));
+        assertThat(chargeEvents.get(0).get("updated"), Matchers.is(Timestamp.valueOf(chargeEvent.getUpdated().toLocalDateTime())));
+    }
+
     @Test
     public void findChargeEventsByDateRangeShouldReturnResultCorrectly() {
         ZonedDateTime eventDate = ZonedDateTime.parse("2016-01-01T00:00:00Z");
@@ -144,7 +171,7 @@ public class ChargeEventDaoIT extends DaoITestBase {
         createTestChargeEvent(testCharge, ENTERING_CARD_DETAILS, eventDate.minusHours(10));
         createTestChargeEvent(testCharge, AUTHORISATION_SUCCESS, eventDate.plusMinutes(1));
 
-        List<ChargeEventEntity> events = chargeEventDao.findChargeEvents(eventDate, eventDate.plusMinutes(1), 1, 2);
+        List<ChargeEventEntity> events = chargeEventDao.findChargeEvents(eventDate, eventDate.plusMinutes(1), null, 2);
 
         assertThat(events, hasSize(2));
         assertThat(events, shouldIncludeStatus(AUTHORISATION_READY));
@@ -153,6 +180,47 @@ public class ChargeEventDaoIT extends DaoITestBase {
         assertThat(events.get(1).getChargeEntity().getId(), Matchers.is(testCharge.getChargeId()));
     }
 
+    @Test
+    public void findChargeEventsByDateRangeShouldSeekPastEventsWithTheSameDateOnThePreviousPage() {
+        ZonedDateTime eventDate = ZonedDateTime.parse("2016-01-01T00:00:00Z");
+
+        DatabaseFixtures.TestCharge testCharge = createTestCharge();
+
+        createTestChargeEvent(testCharge, ENTERING_CARD_DETAILS, eventDate);
+        createTestChargeEvent(testCharge, AUTHORISATION_READY, eventDate);
+        createTestChargeEvent(testCharge, AUTHORISATION_SUCCESS, eventDate);
+        createTestChargeEvent(testCharge, CAPTURE_APPROVED, eventDate.plusMinutes(1));
+
+        List<ChargeEventEntity> firstPage = chargeEventDao.findChargeEvents(eventDate, eventDate.plusMinutes(1), null, 2);
+        List<ChargeEventEntity> secondPage = chargeEventDao.findChargeEvents(eventDate, eventDate.plusMinutes(1), firstPage.get(1), 2);
+
+        assertThat(firstPage, hasSize(2));
+        assertThat(secondPage, hasSize(2));
+        assertThat(firstPage.get(0).getStatus(), Matchers.is(ENTERING_CARD_DETAILS));
+        assertThat(firstPage.get(1).getStatus(), Matchers.is(AUTHORISATION_READY));
+        assertThat(secondPage.get(0).getStatus(), Matchers.is(AUTHORISATION_SUCCESS));
+        assertThat(secondPage.get(1).getStatus(), Matchers.is(CAPTURE_APPROVED));
+    }
+
+    @Test
+    public void streamChargeEventsByDateRangeShouldReturnEveryEventAcrossPages() {
+        ZonedDateTime eventDate = ZonedDateTime.parse("2016-01-01T00:00:00Z");
+
+        DatabaseFixtures.TestCharge testCharge = createTestCharge();
+
+        createTestChargeEvent(testCharge, ENTERING_CARD_DETAILS, eventDate.minusHours(10));
+        createTestChargeEvent(testCharge, AUTHORISATION_READY, eventDate);
+        createTestChargeEvent(testCharge, AUTHORISATION_SUCCESS, eventDate);
+        createTestChargeEvent(testCharge, AWAITING_CAPTURE_REQUEST, eventDate.plusSeconds(1));
+        createTestChargeEvent(testCharge, CAPTURE_APPROVED, eventDate.plusMinutes(1));
+
+        List<ChargeStatus> statuses = chargeEventDao.streamChargeEvents(eventDate, eventDate.plusMinutes(1), 2)
+                .map(ChargeEventEntity::getStatus)
+                .collect(toList());
+
+        assertThat(statuses, Matchers.contains(AUTHORISATION_READY, AUTHORISATION_SUCCESS, AWAITING_CAPTURE_REQUEST, CAPTURE_APPROVED));
+    }
+
     private DatabaseFixtures.TestCharge createTestCharge() {
         DatabaseFixtures.TestAccount testAccount = withDatabaseTestHelper(databaseTestHelper)
                 .aTestAccount().insert();
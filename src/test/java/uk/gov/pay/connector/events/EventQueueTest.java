@@ -11,7 +11,12 @@ import uk.gov.pay.connector.app.SqsConfig;
 import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.queue.sqs.SqsQueueService;
 
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -63,4 +68,20 @@ public class EventQueueTest {
 
         verifyNoMoreInteractions(mockSqsQueueService);
     }
+
+    @Test
+    public void emitEvents_returnsTheEventsAtTheFailedIndices() throws Exception {
+        when(eventQueueConfig.getEventQueueEnabled()).thenReturn(true);
+        eventQueue = new EventQueue(mockSqsQueueService,
+                mockConnectorConfiguration);
+        Event anotherEvent = mock(Event.class);
+        when(event.toJsonString()).thenReturn("{~~SERIALIZED~~}");
+        when(anotherEvent.toJsonString()).thenReturn("{~~SERIALIZED~~}");
+        when(mockSqsQueueService.sendMessages(eventQueueUrl, List.of("{~~SERIALIZED~~}", "{~~SERIALIZED~~}")))
+                .thenReturn(List.of(1));
+
+        List<Event> failedEvents = eventQueue.emitEvents(List.of(event, anotherEvent));
+
+        assertThat(failedEvents, contains(anotherEvent));
+    }
 }
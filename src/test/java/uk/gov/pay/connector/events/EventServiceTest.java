@@ -12,12 +12,16 @@ import uk.gov.pay.connector.events.model.charge.PaymentEvent;
 import uk.gov.pay.connector.queue.QueueException;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import static java.time.ZoneOffset.UTC;
 import static java.time.ZonedDateTime.now;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class EventServiceTest {
@@ -98,4 +102,16 @@ public class EventServiceTest {
         verify(eventQueue).emitEvent(event);
         verify(emittedEventDao).markEventAsEmitted(event);
     }
+
+    @Test
+    public void emitAndMarkEventsAsEmitted_shouldOnlyMarkEventsAcceptedByTheQueue() throws QueueException {
+        Event emittedEvent = new PaymentEvent("external-id-1", now());
+        Event failedEvent = new PaymentEvent("external-id-2", now());
+        when(eventQueue.emitEvents(List.of(emittedEvent, failedEvent))).thenReturn(List.of(failedEvent));
+
+        List<Event> failedEvents = eventService.emitAndMarkEventsAsEmitted(List.of(emittedEvent, failedEvent));
+
+        assertThat(failedEvents, is(List.of(failedEvent)));
+        verify(emittedEventDao).markEventsAsEmitted(List.of(emittedEvent));
+    }
 }
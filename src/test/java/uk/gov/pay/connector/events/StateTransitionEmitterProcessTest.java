@@ -1,17 +1,23 @@
 package uk.gov.pay.connector.events;
 
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.EventQueueConfig;
 import uk.gov.pay.connector.chargeevent.model.domain.ChargeEventEntity;
 import uk.gov.pay.connector.events.eventdetails.charge.PaymentCreatedEventDetails;
 import uk.gov.pay.connector.events.exception.EventCreationException;
+import uk.gov.pay.connector.events.model.Event;
 import uk.gov.pay.connector.events.model.EventFactory;
 import uk.gov.pay.connector.events.model.charge.PaymentCreated;
 import uk.gov.pay.connector.events.model.charge.PaymentEvent;
 import uk.gov.pay.connector.queue.statetransition.PaymentStateTransition;
+import uk.gov.pay.connector.queue.statetransition.StateTransition;
 import uk.gov.pay.connector.queue.QueueException;
 import uk.gov.pay.connector.queue.statetransition.StateTransitionQueue;
 
@@ -19,6 +25,8 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.atMost;
@@ -44,9 +52,29 @@ public class StateTransitionEmitterProcessTest {
     @Mock
     EventService mockEventService;
 
-    @InjectMocks
+    @Mock
+    ConnectorConfiguration connectorConfiguration;
+
+    @Mock
+    EventQueueConfig eventQueueConfig;
+
+    @Mock
+    Environment environment;
+
+    MetricRegistry metricRegistry = new MetricRegistry();
+
     StateTransitionEmitterProcess stateTransitionEmitterProcess;
 
+    @Before
+    public void setUp() {
+        when(connectorConfiguration.getEventQueueConfig()).thenReturn(eventQueueConfig);
+        when(eventQueueConfig.getPublishingBatchSize()).thenReturn(1);
+        when(environment.metrics()).thenReturn(metricRegistry);
+
+        stateTransitionEmitterProcess = new StateTransitionEmitterProcess(stateTransitionQueue, eventFactory,
+                stateTransitionQueueMetricEmitter, mockEventService, connectorConfiguration, environment);
+    }
+
     @Test
     public void shouldEmitPaymentEventGivenStateTransitionMessageOnQueue() throws Exception {
         PaymentStateTransition paymentStateTransition = new PaymentStateTransition(100L, PaymentCreated.class);
@@ -61,6 +89,7 @@ public class StateTransitionEmitterProcessTest {
         stateTransitionEmitterProcess.handleStateTransitionMessages();
 
         verify(mockEventService).emitAndMarkEventAsEmitted(any(PaymentCreated.class));
+        verify(stateTransitionQueue).acknowledge(paymentStateTransition);
     }
 
     @Test
@@ -91,13 +120,15 @@ public class StateTransitionEmitterProcessTest {
         stateTransitionEmitterProcess.handleStateTransitionMessages();
 
         verify(stateTransitionQueue).offer(any(PaymentStateTransition.class));
+        verify(stateTransitionQueue).acknowledge(paymentStateTransition);
     }
 
 
     @Test
     public void shouldNotPutPaymentTransitionBackOnQueueIfItHasExceededMaxAttempts() throws Exception {
         StateTransitionQueue spyQueue = spy(new StateTransitionQueue());
-        StateTransitionEmitterProcess stateTransitionEmitterProcess = new StateTransitionEmitterProcess(spyQueue, eventFactory, stateTransitionQueueMetricEmitter, mockEventService);
+        StateTransitionEmitterProcess stateTransitionEmitterProcess = new StateTransitionEmitterProcess(spyQueue, eventFactory,
+                stateTransitionQueueMetricEmitter, mockEventService, connectorConfiguration, environment);
         PaymentStateTransition paymentStateTransition = new PaymentStateTransition(100L, PaymentEvent.class, 0);
 
         when(eventFactory.createEvents(any(PaymentStateTransition.class))).thenThrow(EventCreationException.class);
@@ -114,4 +145,58 @@ public class StateTransitionEmitterProcessTest {
 
         verify(spyQueue, atMost(maximumStateTransitionMessageRetries)).offer(any());
     }
+
+    @Test
+    public void shouldEmitEventsForStateTransitionsInBatchAndPutFailedTransitionBackOnQueue() throws Exception {
+        when(eventQueueConfig.getPublishingBatchSize()).thenReturn(10);
+        when(eventQueueConfig.getPublishingLingerTimeInMillis()).thenReturn(50);
+        StateTransitionQueue queue = spy(new StateTransitionQueue());
+        StateTransitionEmitterProcess batchingEmitterProcess = new StateTransitionEmitterProcess(queue, eventFactory,
+                stateTransitionQueueMetricEmitter, mockEventService, connectorConfiguration, environment);
+
+        PaymentStateTransition emittedTransition = new PaymentStateTransition(100L, PaymentCreated.class, 0L);
+        PaymentStateTransition failedTransition = new PaymentStateTransition(101L, PaymentCreated.class, 0L);
+        Event emittedEvent = new PaymentCreated("id-1", mock(PaymentCreatedEventDetails.class), ZonedDateTime.now());
+        Event failedEvent = new PaymentCreated("id-2", mock(PaymentCreatedEventDetails.class), ZonedDateTime.now());
+        when(eventFactory.createEvents(emittedTransition)).thenReturn(List.of(emittedEvent));
+        when(eventFactory.createEvents(failedTransition)).thenReturn(List.of(failedEvent));
+        when(mockEventService.emitAndMarkEventsAsEmitted(List.of(emittedEvent, failedEvent))).thenReturn(List.of(failedEvent));
+
+        queue.offer(emittedTransition);
+        queue.offer(failedTransition);
+        batchingEmitterProcess.handleStateTransitionMessages();
+
+        verify(mockEventService).emitAndMarkEventsAsEmitted(List.of(emittedEvent, failedEvent));
+        verify(queue, times(3)).offer(any(StateTransition.class));
+        assertThat(metricRegistry.histogram("state-transition.publish.batch_size").getCount(), is(1L));
+        assertThat(metricRegistry.counter("state-transition.publish.failed").getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldPutEveryTransitionInTheBatchBackOnQueueWhenMarkingEventsAsEmittedFails() throws Exception {
+        when(eventQueueConfig.getPublishingBatchSize()).thenReturn(10);
+        when(eventQueueConfig.getPublishingLingerTimeInMillis()).thenReturn(50);
+        StateTransitionQueue queue = spy(new StateTransitionQueue());
+        StateTransitionEmitterProcess batchingEmitterProcess = new StateTransitionEmitterProcess(queue, eventFactory,
+                stateTransitionQueueMetricEmitter, mockEventService, connectorConfiguration, environment);
+
+        PaymentStateTransition firstTransition = new PaymentStateTransition(100L, PaymentCreated.class, 0L);
+        PaymentStateTransition secondTransition = new PaymentStateTransition(101L, PaymentCreated.class, 0L);
+        Event firstEvent = new PaymentCreated("id-1", mock(PaymentCreatedEventDetails.class), ZonedDateTime.now());
+        Event secondEvent = new PaymentCreated("id-2", mock(PaymentCreatedEventDetails.class), ZonedDateTime.now());
+        when(eventFactory.createEvents(firstTransition)).thenReturn(List.of(firstEvent));
+        when(eventFactory.createEvents(secondTransition)).thenReturn(List.of(secondEvent));
+        when(mockEventService.emitAndMarkEventsAsEmitted(List.of(firstEvent, secondEvent)))
+                .thenThrow(new RuntimeException("database unavailable"));
+
+        queue.offer(firstTransition);
+        queue.offer(secondTransition);
+        batchingEmitterProcess.handleStateTransitionMessages();
+
+        verify(queue, times(4)).offer(any(StateTransition.class));
+        verify(queue).acknowledge(firstTransition);
+        verify(queue).acknowledge(secondTransition);
+        assertThat(queue.size(), is(2));
+        assertThat(metricRegistry.counter("state-transition.publish.failed").getCount(), is(2L));
+    }
 }
@@ -0,0 +1,81 @@
+package uk.gov.pay.connector.events;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.pay.connector.events.model.charge.PaymentCreated;
+import uk.gov.pay.connector.events.model.charge.PaymentStarted;
+import uk.gov.pay.connector.queue.statetransition.PaymentStateTransition;
+import uk.gov.pay.connector.queue.statetransition.StateTransition;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StateTransitionLanesTest {
+
+    private static final int NUMBER_OF_LANES = 4;
+
+    @Mock
+    private StateTransitionEmitterProcess stateTransitionEmitterProcess;
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private StateTransitionLanes stateTransitionLanes;
+
+    @Before
+    public void setUp() {
+        when(stateTransitionEmitterProcess.getPublishingBatchSize()).thenReturn(10);
+        stateTransitionLanes = new StateTransitionLanes(stateTransitionEmitterProcess, NUMBER_OF_LANES, metricRegistry);
+    }
+
+    @Test
+    public void shouldEmitTransitionsForTheSameChargeFromOneLaneInTheOrderTheyWereDispatched() throws Exception {
+        StateTransition created = new PaymentStateTransition(1L, "charge-external-id", PaymentCreated.class);
+        StateTransition started = new PaymentStateTransition(2L, "charge-external-id", PaymentStarted.class);
+        when(stateTransitionEmitterProcess.pollStateTransition()).thenReturn(created, started);
+
+        stateTransitionLanes.dispatch();
+        stateTransitionLanes.dispatch();
+
+        int lane = stateTransitionLanes.laneFor(created);
+        assertThat(stateTransitionLanes.laneFor(started), is(lane));
+        assertThat(metricRegistry.getGauges().get("state-transition.lane." + lane + ".depth").getValue(), is(2));
+
+        stateTransitionLanes.drain(lane);
+
+        verify(stateTransitionEmitterProcess).emitStateTransitions(List.of(created, started));
+        assertThat(stateTransitionLanes.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldHandATransitionBackToTheQueueRatherThanWaitForRoomInAFullLane() throws Exception {
+        StateTransition waiting = new PaymentStateTransition(1L, "charge-external-id", PaymentCreated.class);
+        StateTransition overflowing = new PaymentStateTransition(2L, "charge-external-id", PaymentStarted.class);
+        when(stateTransitionEmitterProcess.pollStateTransition()).thenReturn(waiting);
+        for (int i = 0; i < 100; i++) {
+            stateTransitionLanes.dispatch();
+        }
+        when(stateTransitionEmitterProcess.pollStateTransition()).thenReturn(overflowing);
+
+        stateTransitionLanes.dispatch();
+
+        verify(stateTransitionEmitterProcess).releaseStateTransition(overflowing);
+        assertThat(stateTransitionLanes.size(), is(100));
+        assertThat(metricRegistry.counter("state-transition.lane.full").getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldReportZeroLagForAnEmptyLane() {
+        Gauge lag = metricRegistry.getGauges().get("state-transition.lane.0.lag");
+
+        assertThat(lag.getValue(), is(0L));
+    }
+}
@@ -13,6 +13,7 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static java.time.ZoneOffset.UTC;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -144,6 +145,24 @@ public class EmittedEventDaoIT extends DaoITestBase {
         assertThat(event.get("emitted_date").toString(), is(emittedDateBeforeUpdate));
     }
 
+    @Test
+    public void markEventsAsEmitted_shouldUpdateAllMatchingRecordsWithNullEmittedDate() {
+        final PaymentCreated paymentCreatedEvent = aPaymentCreatedEvent();
+        final RefundSubmitted refundSubmittedEvent = aRefundSubmittedEvent(ZonedDateTime.parse("2019-01-01T15:00:00Z"));
+        emittedEventDao.recordEmission(paymentCreatedEvent.getResourceType(), paymentCreatedEvent.getResourceExternalId(),
+                paymentCreatedEvent.getEventType(), null, null);
+        emittedEventDao.recordEmission(refundSubmittedEvent.getResourceType(), refundSubmittedEvent.getResourceExternalId(),
+                refundSubmittedEvent.getEventType(), null, null);
+
+        emittedEventDao.markEventsAsEmitted(List.of(paymentCreatedEvent, refundSubmittedEvent));
+
+        List<Map<String, Object>> events = databaseTestHelper.readEmittedEvents();
+        assertThat(events.size(), is(2));
+        events.forEach(event -> assertThat(event.get("emitted_date"), is(notNullValue())));
+        assertThat(events.stream().map(event -> event.get("event_date").toString()).sorted().collect(Collectors.toList()),
+                is(List.of("2019-01-01 14:00:00.0", "2019-01-01 15:00:00.0")));
+    }
+
     @Test
     public void findNotEmittedEventsOlderThan_shouldReturnEventsWithEmptyEmittedDate() {
         final PaymentCreated paymentCreatedEvent = aPaymentCreatedEvent();
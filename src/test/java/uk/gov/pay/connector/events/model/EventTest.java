@@ -4,6 +4,7 @@ import org.junit.Test;
 import uk.gov.pay.connector.events.model.charge.GatewayRequires3dsAuthorisation;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class EventTest {
 
@@ -17,4 +18,10 @@ public class EventTest {
         assertEquals("GATEWAY_REQUIRES_3DS_AUTHORISATION", 
                 Event.eventTypeForClass(GatewayRequires3dsAuthorisation.class));
     }
+
+    @Test
+    public void eventTypeForClass_shouldBeWorkedOutOncePerClass() {
+        assertSame(Event.eventTypeForClass(GatewayRequires3dsAuthorisation.class),
+                Event.eventTypeForClass(GatewayRequires3dsAuthorisation.class));
+    }
 }
@@ -64,6 +64,7 @@ import uk.gov.pay.connector.queue.statetransition.StateTransition;
 import uk.gov.pay.connector.refund.dao.RefundDao;
 import uk.gov.pay.connector.refund.model.domain.RefundHistory;
 import uk.gov.pay.connector.refund.model.domain.RefundStatus;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 import uk.gov.pay.connector.refund.service.RefundService;
 
 import java.time.Instant;
@@ -102,6 +103,7 @@ public class EventFactoryTest {
 
         PaymentProvider paymentProvider = new SandboxPaymentProvider();
         when(paymentProviders.byName(any(PaymentGatewayName.class))).thenReturn(paymentProvider);
+        when(refundService.findRefundSummary(any(Charge.class))).thenReturn(new RefundSummary(0L, 0L));
 
         eventFactory = new EventFactory(chargeService, refundDao, refundService, chargeEventDao, paymentProviders);
     }
@@ -148,6 +150,33 @@ public class EventFactoryTest {
         assertThat(refundAvailabilityUpdated.getEventDetails(), is(instanceOf(RefundAvailabilityUpdatedEventDetails.class)));
     }
 
+    @Test
+    public void shouldUseRefundSummaryForRefundAvailabilityUpdatedEvent() throws Exception {
+        when(chargeService.findCharge(charge.getExternalId())).thenReturn(Optional.of(Charge.from(charge)));
+        when(refundService.findRefundSummary(any(Charge.class))).thenReturn(new RefundSummary(100L, 50L));
+        RefundHistory refundCreatedHistory = RefundHistoryEntityFixture.aValidRefundHistoryEntity()
+                .withStatus(RefundStatus.CREATED.getValue())
+                .withChargeExternalId(charge.getExternalId())
+                .withAmount(100L)
+                .build();
+        when(refundDao.getRefundHistoryByRefundExternalIdAndRefundStatus(
+                refundCreatedHistory.getExternalId(),
+                refundCreatedHistory.getStatus())
+        ).thenReturn(Optional.of(refundCreatedHistory));
+
+        StateTransition refundStateTransition = new RefundStateTransition(
+                refundCreatedHistory.getExternalId(), refundCreatedHistory.getStatus(), RefundCreatedByUser.class
+        );
+        List<Event> refundEvents = eventFactory.createEvents(refundStateTransition);
+
+        RefundAvailabilityUpdated refundAvailabilityUpdated = (RefundAvailabilityUpdated) refundEvents.stream()
+                .filter(e -> ResourceType.PAYMENT.equals(e.getResourceType()))
+                .findFirst().get();
+        RefundAvailabilityUpdatedEventDetails eventDetails = (RefundAvailabilityUpdatedEventDetails) refundAvailabilityUpdated.getEventDetails();
+        assertThat(eventDetails.getRefundAmountRefunded(), is(150L));
+        assertThat(eventDetails.getRefundAmountAvailable(), is(charge.getAmount() - 150L));
+    }
+
     @Test
     public void shouldCreateCorrectEventsFromRefundSubmittedStateTransition() throws Exception {
         when(chargeService.findCharge(charge.getExternalId())).thenReturn(Optional.of(Charge.from(charge)));
@@ -1,14 +1,23 @@
 package uk.gov.pay.connector.expunge.service;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.setup.Environment;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.slf4j.LoggerFactory;
 import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.app.config.ExpungeConfig;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
@@ -20,9 +29,16 @@ import uk.gov.pay.connector.tasks.service.ParityCheckService;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -31,6 +47,7 @@ import static org.mockito.Mockito.when;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURE_SUBMITTED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CREATED;
+import static uk.gov.pay.connector.charge.model.domain.ParityCheckStatus.MISSING_IN_LEDGER;
 import static uk.gov.pay.connector.charge.model.domain.ParityCheckStatus.SKIPPED;
 import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntityFixture.aGatewayAccountEntity;
 
@@ -55,14 +72,23 @@ public class ChargeExpungeServiceTest {
     private ConnectorConfiguration mockConnectorConfiguration;
     @Mock
     private ParityCheckService parityCheckService;
+    @Mock
+    private Environment mockEnvironment;
+
+    @Mock
+    private Appender<ILoggingEvent> mockAppender;
+
+    private final ArgumentCaptor<LoggingEvent> loggingEventArgumentCaptor = ArgumentCaptor.forClass(LoggingEvent.class);
+    private MetricRegistry metricRegistry = new MetricRegistry();
 
     @Before
     public void setUp() {
         when(mockConnectorConfiguration.getExpungeConfig()).thenReturn(mockExpungeConfig);
         when(mockExpungeConfig.isExpungeChargesEnabled()).thenReturn(true);
+        when(mockEnvironment.metrics()).thenReturn(metricRegistry);
 
         chargeExpungeService = new ChargeExpungeService(mockChargeDao, mockConnectorConfiguration, parityCheckService,
-                mockChargeService);
+                mockChargeService, mockEnvironment);
     }
 
     @Test
@@ -199,4 +225,61 @@ public class ChargeExpungeServiceTest {
         chargeExpungeService.expunge(1);
         verify(mockChargeDao).expungeCharge(chargeEntity.getId(), chargeEntity.getExternalId());
     }
+
+    @Test
+    public void expunge_shouldExpungeChargesInBatchesWhenBatchSizeIsConfigured() {
+        ChargeEntity chargeInParity = ChargeEntityFixture.aValidChargeEntity().withStatus(CAPTURED).build();
+        ChargeEntity chargeNotInParity = ChargeEntityFixture.aValidChargeEntity().withStatus(CAPTURED).build();
+        ChargeEntity chargeInNonTerminalState = ChargeEntityFixture.aValidChargeEntity().withStatus(CREATED).build();
+        List<ChargeEntity> claimedCharges = List.of(chargeInParity, chargeNotInParity, chargeInNonTerminalState);
+
+        when(mockExpungeConfig.getChargeExpungeBatchSize()).thenReturn(5);
+        when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
+        when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
+        when(mockChargeDao.findChargesToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays, 5))
+                .thenReturn(claimedCharges);
+        when(parityCheckService.parityCheckChargesForExpunger(List.of(chargeInParity, chargeNotInParity)))
+                .thenReturn(List.of(chargeInParity));
+
+        chargeExpungeService.expunge(defaultNumberOfChargesToExpunge);
+
+        verify(mockChargeDao, times(1)).findChargesToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays, 5);
+        verify(mockChargeService).updateChargeParityStatus(chargeInNonTerminalState.getExternalId(), SKIPPED);
+        verify(mockChargeDao).expungeCharges(List.of(chargeInParity));
+        verify(mockChargeDao, never()).findChargeToExpunge(anyInt(), anyInt());
+        assertThat(metricRegistry.meter("expunge.charges.expunged").getCount(), is(1L));
+        assertThat(metricRegistry.meter("expunge.charges.skipped").getCount(), is(1L));
+        assertThat(metricRegistry.meter("expunge.charges.parity_check_failed").getCount(), is(1L));
+    }
+
+    @Test
+    public void expunge_shouldLogAnErrorForEachChargeInABatchThatRepeatedlyFailedParityCheck() {
+        Logger logger = (Logger) LoggerFactory.getLogger(ChargeExpungeService.class);
+        logger.addAppender(mockAppender);
+        ChargeEntity chargeFailingAgain = ChargeEntityFixture.aValidChargeEntity().withStatus(CAPTURED)
+                .withParityStatus(MISSING_IN_LEDGER).build();
+        ChargeEntity chargeFailingFirstTime = ChargeEntityFixture.aValidChargeEntity().withStatus(CAPTURED).build();
+
+        when(mockExpungeConfig.getChargeExpungeBatchSize()).thenReturn(5);
+        when(mockExpungeConfig.getMinimumAgeOfChargeInDays()).thenReturn(minimumAgeOfChargeInDays);
+        when(mockExpungeConfig.getExcludeChargesOrRefundsParityCheckedWithInDays()).thenReturn(defaultExcludeChargesParityCheckedWithInDays);
+        when(mockChargeDao.findChargesToExpunge(minimumAgeOfChargeInDays, defaultExcludeChargesParityCheckedWithInDays, 5))
+                .thenReturn(List.of(chargeFailingAgain, chargeFailingFirstTime));
+        when(parityCheckService.parityCheckChargesForExpunger(List.of(chargeFailingAgain, chargeFailingFirstTime)))
+                .thenReturn(List.of());
+
+        try {
+            chargeExpungeService.expunge(defaultNumberOfChargesToExpunge);
+        } finally {
+            logger.detachAppender(mockAppender);
+        }
+
+        verify(mockAppender, atLeastOnce()).doAppend(loggingEventArgumentCaptor.capture());
+        List<LoggingEvent> errors = loggingEventArgumentCaptor.getAllValues().stream()
+                .filter(event -> event.getLevel() == Level.ERROR)
+                .collect(Collectors.toList());
+        assertThat(errors.size(), is(1));
+        assertThat(errors.get(0).getMessage(), is("Charge cannot be expunged because parity check with ledger repeatedly failed"));
+        assertThat(errors.get(0).getArgumentArray()[0].toString(), containsString(chargeFailingAgain.getExternalId()));
+    }
 }
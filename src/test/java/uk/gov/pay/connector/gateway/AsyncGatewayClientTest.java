@@ -0,0 +1,149 @@
+package uk.gov.pay.connector.gateway;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.dropwizard.util.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.slf4j.MDC;
+import uk.gov.pay.connector.gateway.model.OrderRequestType;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.MediaType;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.gateway.model.ErrorType.GATEWAY_CONCURRENCY_LIMIT_ERROR;
+import static uk.gov.service.payments.logging.LoggingKeys.MDC_REQUEST_ID_KEY;
+
+public class AsyncGatewayClientTest {
+
+    private static final String ORDER_PAYLOAD = "<order/>";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(options().dynamicPort());
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final GatewayOrder gatewayOrder = new GatewayOrder(OrderRequestType.AUTHORISE, ORDER_PAYLOAD, MediaType.APPLICATION_XML_TYPE);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private Client client;
+    private GatewayAccountEntity gatewayAccountEntity;
+    private URI url;
+
+    @Before
+    public void setUp() {
+        client = ClientBuilder.newClient();
+        gatewayAccountEntity = mock(GatewayAccountEntity.class);
+        when(gatewayAccountEntity.getGatewayName()).thenReturn("worldpay");
+        when(gatewayAccountEntity.getType()).thenReturn("test");
+        url = URI.create("http://localhost:" + wireMockRule.port() + "/order");
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        client.close();
+        MDC.clear();
+    }
+
+    @Test
+    public void shouldSendCookiesInOneHeaderWithTheCallersRequestIdOnTheExecutor() {
+        wireMockRule.stubFor(post(urlPathEqualTo("/order"))
+                .willReturn(aResponse().withStatus(200).withHeader("Set-Cookie", "machine=value").withBody("<reply/>")));
+        AtomicReference<String> requestIdSeenByFilter = new AtomicReference<>();
+        AtomicReference<Thread> filterThread = new AtomicReference<>();
+        client.register((ClientRequestFilter) requestContext -> {
+            requestIdSeenByFilter.set(MDC.get(MDC_REQUEST_ID_KEY));
+            filterThread.set(Thread.currentThread());
+        });
+        MDC.put(MDC_REQUEST_ID_KEY, "request-id");
+
+        GatewayClient.Response response = anAsyncGatewayClient(Duration.seconds(5))
+                .postRequestFor(url, gatewayAccountEntity, gatewayOrder,
+                        List.of(new HttpCookie("machine", "previous"), new HttpCookie("session", "id")),
+                        Map.of("Authorization", "Basic credentials"))
+                .toCompletableFuture().join();
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getEntity(), is("<reply/>"));
+        assertThat(response.getResponseCookies().get("machine"), is("value"));
+        assertThat(requestIdSeenByFilter.get(), is("request-id"));
+        assertThat(filterThread.get(), is(not(Thread.currentThread())));
+        assertThat(metricRegistry.histogram("gateway-operations.worldpay.test.authorise.response_time").getCount(), is(1L));
+        wireMockRule.verify(postRequestedFor(urlPathEqualTo("/order"))
+                .withHeader("Authorization", equalTo("Basic credentials"))
+                .withHeader("Cookie", equalTo("machine=previous; session=id")));
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWithGatewayErrorExceptionAndReleaseThePermitForServerError() {
+        wireMockRule.stubFor(post(urlPathEqualTo("/order")).willReturn(aResponse().withStatus(500).withBody("error")));
+        GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(1, 1, 1, 10000, 0.9);
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                anAsyncGatewayClient(Duration.seconds(5), limiter)
+                        .postRequestFor(url, gatewayAccountEntity, gatewayOrder, Map.of()).toCompletableFuture().join());
+
+        assertThat(exception.getCause(), instanceOf(GatewayException.GatewayErrorException.class));
+        assertThat(metricRegistry.counter("gateway-operations.worldpay.test.authorise.failures").getCount(), is(1L));
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWithConcurrencyLimitExceptionWithoutSendingTheRequestWhenTheLimitIsReached() {
+        GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(1, 1, 1, 10000, 0.9);
+        limiter.tryAcquire();
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                anAsyncGatewayClient(Duration.seconds(5), limiter)
+                        .postRequestFor(url, gatewayAccountEntity, gatewayOrder, Map.of()).toCompletableFuture().join());
+
+        assertThat(exception.getCause(), instanceOf(GatewayException.GatewayConcurrencyLimitException.class));
+        assertThat(((GatewayException) exception.getCause()).toGatewayError().getErrorType(), is(GATEWAY_CONCURRENCY_LIMIT_ERROR));
+        assertThat(limiter.getInFlight(), is(1));
+        wireMockRule.verify(0, postRequestedFor(urlPathEqualTo("/order")));
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWithTimeoutExceptionWhenReadTimeoutIsExceeded() {
+        wireMockRule.stubFor(post(urlPathEqualTo("/order")).willReturn(aResponse().withStatus(200).withFixedDelay(2000)));
+
+        CompletionException exception = assertThrows(CompletionException.class, () ->
+                anAsyncGatewayClient(Duration.milliseconds(200))
+                        .postRequestFor(url, gatewayAccountEntity, gatewayOrder, Map.of()).toCompletableFuture().join());
+
+        assertThat(exception.getCause(), instanceOf(GatewayException.GatewayConnectionTimeoutException.class));
+    }
+
+    private AsyncGatewayClient anAsyncGatewayClient(Duration readTimeout) {
+        return anAsyncGatewayClient(readTimeout, GatewayConcurrencyLimiter.unlimited());
+    }
+
+    private AsyncGatewayClient anAsyncGatewayClient(Duration readTimeout, GatewayConcurrencyLimiter limiter) {
+        return new AsyncGatewayClient(new GatewayClient(client, metricRegistry, limiter, readTimeout), executor);
+    }
+}
@@ -0,0 +1,131 @@
+package uk.gov.pay.connector.gateway;
+
+import com.codahale.metrics.Meter;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class GatewayConcurrencyLimiterTest {
+
+    @Test
+    public void shouldRejectRequestsOverTheLimit() {
+        GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(2, 1, 10, 1000, 0.5);
+
+        assertThat(limiter.tryAcquire(), is(true));
+        assertThat(limiter.tryAcquire(), is(true));
+        assertThat(limiter.tryAcquire(), is(false));
+        assertThat(limiter.getInFlight(), is(2));
+        assertThat(limiter.getRejected(), is(1L));
+    }
+
+    @Test
+    public void shouldBackOffWhenRequestsAreSlow() {
+        GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(8, 1, 10, 1000, 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(1001, false);
+
+        assertThat(limiter.getLimit(), is(4));
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    public void shouldBackOffWhenRequestsFailButNotBelowTheMinimum() {
+        GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(4, 3, 10, 1000, 0.5);
+
+        limiter.tryAcquire();
+        limiter.release(10, true);
+
+        assertThat(limiter.getLimit(), is(3));
+    }
+
+    @Test
+    public void shouldIncreaseTheLimitWhenItIsBeingUsedAndRequestsAreFast() {
+        GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(2, 1, 10, 1000, 0.5);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.release(10, false);
+            limiter.release(10, false);
+        }
+
+        assertThat(limiter.getLimit(), is(3));
+    }
+
+    @Test
+    public void shouldNotExceedTheMaximumLimit() {
+        GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(2, 1, 2, 1000, 0.5);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.release(10, false);
+            limiter.release(10, false);
+        }
+
+        assertThat(limiter.getLimit(), is(2));
+    }
+
+    @Test
+    public void shouldBackOffWhenRequestsAreSlowComparedWithTheGatewaysBaselineLatency() {
+        GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(8, 1, 10, 10000, 2.0, 0.5, new Meter());
+
+        limiter.tryAcquire();
+        limiter.release(500, false);
+        assertThat(limiter.getLatencyThresholdInMillis(), is(1000L));
+
+        limiter.tryAcquire();
+        limiter.release(1500, false);
+
+        assertThat(limiter.getLimit(), is(4));
+    }
+
+    @Test
+    public void shouldRaiseTheBaselineLatencyOnlyGraduallyWhenTheGatewaySlowsDown() {
+        GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(8, 1, 10, 10000, 2.0, 0.5, new Meter());
+        limiter.tryAcquire();
+        limiter.release(500, false);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(9000, false);
+        }
+
+        assertThat(limiter.getLatencyThresholdInMillis() < 3000, is(true));
+        assertThat(limiter.getLimit(), is(1));
+    }
+
+    @Test
+    public void shouldFollowTheBaselineLatencyDownQuicklyButNeverAboveTheConfiguredThreshold() {
+        GatewayConcurrencyLimiter limiter = new GatewayConcurrencyLimiter(8, 1, 10, 1000, 2.0, 0.5, new Meter());
+
+        limiter.tryAcquire();
+        limiter.release(800, false);
+        assertThat(limiter.getLatencyThresholdInMillis(), is(1000L));
+
+        limiter.tryAcquire();
+        limiter.release(200, false);
+        assertThat(limiter.getLatencyThresholdInMillis(), is(1000L));
+
+        limiter.tryAcquire();
+        limiter.release(200, false);
+        assertThat(limiter.getLatencyThresholdInMillis(), is(700L));
+    }
+
+    @Test
+    public void shouldShareOneUnlimitedLimiterThatNeverRejects() {
+        GatewayConcurrencyLimiter limiter = GatewayConcurrencyLimiter.unlimited();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire(), is(true));
+        }
+        limiter.release(Long.MAX_VALUE, true);
+
+        assertThat(limiter.getInFlight(), is(0));
+        assertThat(limiter.getRejected(), is(0L));
+        assertThat(GatewayConcurrencyLimiters.unlimited().forGateway(PaymentGatewayName.WORLDPAY), sameInstance(limiter));
+    }
+}
@@ -15,17 +15,16 @@ import uk.gov.pay.connector.gateway.processor.ChargeNotificationProcessor;
 import uk.gov.pay.connector.gateway.processor.RefundNotificationProcessor;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.service.GatewayAccountService;
-import uk.gov.pay.connector.util.CidrUtils;
+import uk.gov.pay.connector.util.CidrTrie;
 import uk.gov.pay.connector.util.IpAddressMatcher;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Set;
 
 import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccount.CREDENTIALS_SHA_OUT_PASSPHRASE;
 
 abstract class BaseEpdqNotificationServiceTest {
-    private static final Set<String> ALLOWED_IP_ADDRESSES = CidrUtils.getIpAddresses(List.of("102.22.31.0/24", "9.9.9.9/32"));
+    private static final CidrTrie ALLOWED_CIDRS = CidrTrie.of(List.of("102.22.31.0/24", "9.9.9.9/32"));
 
     EpdqNotificationService notificationService;
 
@@ -53,7 +52,7 @@ abstract class BaseEpdqNotificationServiceTest {
                 mockRefundNotificationProcessor,
                 mockGatewayAccountService,
                 new IpAddressMatcher(new InetAddressValidator()),
-                ALLOWED_IP_ADDRESSES
+                ALLOWED_CIDRS
         );
         gatewayAccountEntity = ChargeEntityFixture.defaultGatewayAccountEntity();
         gatewayAccountEntity.setCredentials(ImmutableMap.of(CREDENTIALS_SHA_OUT_PASSPHRASE, shaPhraseOut));
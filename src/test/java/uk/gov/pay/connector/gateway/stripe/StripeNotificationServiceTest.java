@@ -29,7 +29,7 @@ import uk.gov.pay.connector.payout.PayoutEmitterService;
 import uk.gov.pay.connector.queue.QueueException;
 import uk.gov.pay.connector.queue.payout.Payout;
 import uk.gov.pay.connector.queue.payout.PayoutReconcileQueue;
-import uk.gov.pay.connector.util.CidrUtils;
+import uk.gov.pay.connector.util.CidrTrie;
 import uk.gov.pay.connector.util.IpAddressMatcher;
 import uk.gov.pay.connector.util.TestTemplateResourceLoader;
 
@@ -76,7 +76,7 @@ import static uk.gov.pay.connector.util.TestTemplateResourceLoader.STRIPE_PAYOUT
 @ExtendWith(MockitoExtension.class)
 class StripeNotificationServiceTest {
     private static final String FORWARDED_IP_ADDRESSES = "1.2.3.4, 102.108.0.6";
-    private static final Set<String> ALLOWED_IP_ADDRESSES = CidrUtils.getIpAddresses(Set.of("1.2.3.0/24", "9.9.9.9/32"));
+    private static final CidrTrie ALLOWED_CIDRS = CidrTrie.of(Set.of("1.2.3.0/24", "9.9.9.9/32"));
     private static ObjectMapper objectMapper = new ObjectMapper();
 
     private StripeNotificationService notificationService;
@@ -119,7 +119,7 @@ class StripeNotificationServiceTest {
                 mockPayoutReconcileQueue,
                 mockPayoutEmitterService,
                 new IpAddressMatcher(new InetAddressValidator()),
-                ALLOWED_IP_ADDRESSES,
+                ALLOWED_CIDRS,
                 objectMapper);
 
         lenient().when(stripeGatewayConfig.getWebhookSigningSecrets()).thenReturn(List.of(webhookLiveSigningSecret, webhookTestSigningSecret));
@@ -14,6 +14,7 @@ import uk.gov.service.payments.commons.model.CardExpiryDate;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntityFixture;
 import uk.gov.pay.connector.common.model.domain.Address;
+import uk.gov.pay.connector.gateway.AsyncGatewayClient;
 import uk.gov.pay.connector.gateway.ClientFactory;
 import uk.gov.pay.connector.gateway.GatewayClient;
 import uk.gov.pay.connector.gateway.GatewayClientFactory;
@@ -24,6 +25,7 @@ import uk.gov.pay.connector.gateway.model.AuthCardDetails;
 import uk.gov.pay.connector.gateway.model.ErrorType;
 import uk.gov.pay.connector.gateway.model.GatewayError;
 import uk.gov.pay.connector.gateway.model.request.CardAuthorisationGatewayRequest;
+import uk.gov.pay.connector.gateway.model.response.BaseAuthoriseResponse.AuthoriseStatus;
 import uk.gov.pay.connector.gateway.model.response.GatewayResponse;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.model.domain.AuthCardDetailsFixture;
@@ -40,6 +42,7 @@ import javax.xml.xpath.XPathFactory;
 import java.net.URI;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
@@ -56,6 +59,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static uk.gov.pay.connector.charge.model.domain.ChargeEntityFixture.aValidChargeEntity;
 import static uk.gov.pay.connector.gateway.GatewayOperation.AUTHORISE;
@@ -66,6 +70,8 @@ import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccount.CREDENTIA
 import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccount.CREDENTIALS_USERNAME;
 import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType.TEST;
 import static uk.gov.pay.connector.gatewayaccount.model.Worldpay3dsFlexCredentialsEntity.Worldpay3dsFlexCredentialsEntityBuilder.aWorldpay3dsFlexCredentialsEntity;
+import static uk.gov.pay.connector.util.TestTemplateResourceLoader.WORLDPAY_3DS_FLEX_RESPONSE;
+import static uk.gov.pay.connector.util.TestTemplateResourceLoader.WORLDPAY_AUTHORISATION_FAILED_RESPONSE;
 import static uk.gov.pay.connector.util.TestTemplateResourceLoader.WORLDPAY_AUTHORISATION_PARES_PARSE_ERROR_RESPONSE;
 import static uk.gov.pay.connector.util.TestTemplateResourceLoader.WORLDPAY_AUTHORISATION_SUCCESS_RESPONSE;
 import static uk.gov.pay.connector.util.TestTemplateResourceLoader.WORLDPAY_VALID_AUTHORISE_WORLDPAY_REQUEST_EXCLUDING_3DS;
@@ -89,7 +95,7 @@ class WorldpayAuthoriseHandlerTest {
     
     @BeforeEach
     void setup() {
-        worldpayAuthoriseHandler = new WorldpayAuthoriseHandler(authoriseClient, GATEWAY_URL_MAP);
+        worldpayAuthoriseHandler = new WorldpayAuthoriseHandler(authoriseClient, GATEWAY_URL_MAP, false);
 
         gatewayAccountEntity = aServiceAccount();
         gatewayAccountEntity.setCredentials( Map.of("merchant_id", "MERCHANTCODE"));
@@ -288,7 +294,7 @@ class WorldpayAuthoriseHandlerTest {
     void should_send_successfully_an_order_for_merchant() {
         Client mockClient = mockWorldpaySuccessfulOrderSubmitResponse();
 
-        var handlerWithRealJerseyClient = new WorldpayAuthoriseHandler(createGatewayClient(mockClient), GATEWAY_URL_MAP);
+        var handlerWithRealJerseyClient = new WorldpayAuthoriseHandler(createGatewayClient(mockClient), GATEWAY_URL_MAP, false);
 
         GatewayResponse response = handlerWithRealJerseyClient.authoriseWithoutExemption(getCardAuthorisationRequest(chargeEntityFixture.build()));
         assertTrue(response.isSuccessful());
@@ -299,7 +305,7 @@ class WorldpayAuthoriseHandlerTest {
     void should_error_if_worldpay_returns_401() {
         Client mockClient = mockWorldpayResponse(401, load(WORLDPAY_AUTHORISATION_PARES_PARSE_ERROR_RESPONSE));
 
-        var handlerWithRealJerseyClient = new WorldpayAuthoriseHandler(createGatewayClient(mockClient), GATEWAY_URL_MAP);
+        var handlerWithRealJerseyClient = new WorldpayAuthoriseHandler(createGatewayClient(mockClient), GATEWAY_URL_MAP, false);
 
         GatewayResponse<WorldpayOrderStatusResponse> response = 
                 handlerWithRealJerseyClient.authoriseWithoutExemption(getCardAuthorisationRequest(chargeEntityFixture.build()));
@@ -312,7 +318,7 @@ class WorldpayAuthoriseHandlerTest {
     void should_error_if_worldpay_returns_500() {
         Client mockClient = mockWorldpayResponse(500, load(WORLDPAY_AUTHORISATION_PARES_PARSE_ERROR_RESPONSE));
 
-        var handlerWithRealJerseyClient = new WorldpayAuthoriseHandler(createGatewayClient(mockClient), GATEWAY_URL_MAP);
+        var handlerWithRealJerseyClient = new WorldpayAuthoriseHandler(createGatewayClient(mockClient), GATEWAY_URL_MAP, false);
         
         GatewayResponse<WorldpayOrderStatusResponse> response = 
                 handlerWithRealJerseyClient.authoriseWithoutExemption(getCardAuthorisationRequest(chargeEntityFixture.build()));
@@ -321,6 +327,99 @@ class WorldpayAuthoriseHandlerTest {
                 new GatewayError("Non-success HTTP status code 500 from gateway", ErrorType.GATEWAY_ERROR));
     }
 
+    @Test
+    void should_parse_an_authorised_response_with_the_streaming_parser() {
+        Client mockClient = mockWorldpaySuccessfulOrderSubmitResponse();
+
+        var handlerWithRealJerseyClient = new WorldpayAuthoriseHandler(createGatewayClient(mockClient), GATEWAY_URL_MAP, true);
+
+        GatewayResponse<WorldpayOrderStatusResponse> response =
+                handlerWithRealJerseyClient.authoriseWithoutExemption(getCardAuthorisationRequest(chargeEntityFixture.build()));
+        assertTrue(response.isSuccessful());
+        assertTrue(response.getSessionIdentifier().isPresent());
+
+        WorldpayOrderStatusResponse orderStatusResponse = response.getBaseResponse().get();
+        assertThat(orderStatusResponse.getTransactionId(), is("transaction-id"));
+        assertThat(orderStatusResponse.getLastEvent(), is(Optional.of("AUTHORISED")));
+        assertThat(orderStatusResponse.authoriseStatus(), is(AuthoriseStatus.AUTHORISED));
+    }
+
+    @Test
+    void should_parse_a_refused_response_with_the_streaming_parser() {
+        Client mockClient = mockWorldpayResponse(200, load(WORLDPAY_AUTHORISATION_FAILED_RESPONSE));
+
+        var handlerWithRealJerseyClient = new WorldpayAuthoriseHandler(createGatewayClient(mockClient), GATEWAY_URL_MAP, true);
+
+        GatewayResponse<WorldpayOrderStatusResponse> response =
+                handlerWithRealJerseyClient.authoriseWithoutExemption(getCardAuthorisationRequest(chargeEntityFixture.build()));
+        assertTrue(response.isSuccessful());
+
+        WorldpayOrderStatusResponse orderStatusResponse = response.getBaseResponse().get();
+        assertThat(orderStatusResponse.getTransactionId(), is("MyUniqueTransactionId!12"));
+        assertThat(orderStatusResponse.authoriseStatus(), is(AuthoriseStatus.REJECTED));
+        assertThat(orderStatusResponse.getRefusedReturnCode(), is("5"));
+        assertThat(orderStatusResponse.getRefusedReturnCodeDescription(), is("REFUSED"));
+    }
+
+    @Test
+    void should_parse_a_3ds_flex_challenge_with_the_streaming_parser() {
+        Client mockClient = mockWorldpayResponse(200, load(WORLDPAY_3DS_FLEX_RESPONSE));
+
+        var handlerWithRealJerseyClient = new WorldpayAuthoriseHandler(createGatewayClient(mockClient), GATEWAY_URL_MAP, true);
+
+        GatewayResponse<WorldpayOrderStatusResponse> response =
+                handlerWithRealJerseyClient.authoriseWithoutExemption(getCardAuthorisationRequest(chargeEntityFixture.build()));
+        assertTrue(response.isSuccessful());
+
+        WorldpayOrderStatusResponse orderStatusResponse = response.getBaseResponse().get();
+        assertThat(orderStatusResponse.authoriseStatus(), is(AuthoriseStatus.REQUIRES_3DS));
+        assertThat(orderStatusResponse.getThreeDsVersion(), is("2.1.0"));
+        assertThat(orderStatusResponse.getChallengeTransactionId(), is("rUT8fLKDviHXr8aUn3l1"));
+        assertThat(orderStatusResponse.getChallengeAcsUrl(), is("https://worldpay.com"));
+    }
+
+    @Test
+    void should_error_if_worldpay_returns_500_with_the_streaming_parser() {
+        Client mockClient = mockWorldpayResponse(500, load(WORLDPAY_AUTHORISATION_PARES_PARSE_ERROR_RESPONSE));
+
+        var handlerWithRealJerseyClient = new WorldpayAuthoriseHandler(createGatewayClient(mockClient), GATEWAY_URL_MAP, true);
+
+        GatewayResponse<WorldpayOrderStatusResponse> response =
+                handlerWithRealJerseyClient.authoriseWithoutExemption(getCardAuthorisationRequest(chargeEntityFixture.build()));
+        assertTrue(response.getGatewayError().isPresent());
+        assertGatewayErrorEquals(response.getGatewayError().get(),
+                new GatewayError("Non-success HTTP status code 500 from gateway", ErrorType.GATEWAY_ERROR));
+    }
+
+    @Test
+    void should_send_successfully_an_order_for_merchant_through_the_async_client() {
+        Client mockClient = mockWorldpaySuccessfulOrderSubmitResponse();
+
+        var handlerWithAsyncClient = new WorldpayAuthoriseHandler(authoriseClient,
+                new AsyncGatewayClient(createGatewayClient(mockClient), Runnable::run), GATEWAY_URL_MAP, false, true);
+
+        GatewayResponse<WorldpayOrderStatusResponse> response =
+                handlerWithAsyncClient.authoriseWithoutExemption(getCardAuthorisationRequest(chargeEntityFixture.build()));
+        assertTrue(response.isSuccessful());
+        assertTrue(response.getSessionIdentifier().isPresent());
+        verifyZeroInteractions(authoriseClient);
+    }
+
+    @Test
+    void should_complete_with_a_gateway_error_if_worldpay_returns_500_to_the_async_client() {
+        Client mockClient = mockWorldpayResponse(500, load(WORLDPAY_AUTHORISATION_PARES_PARSE_ERROR_RESPONSE));
+
+        var handlerWithAsyncClient = new WorldpayAuthoriseHandler(authoriseClient,
+                new AsyncGatewayClient(createGatewayClient(mockClient), Runnable::run), GATEWAY_URL_MAP, true, true);
+
+        GatewayResponse<WorldpayOrderStatusResponse> response = handlerWithAsyncClient
+                .authoriseWithoutExemptionAsync(getCardAuthorisationRequest(chargeEntityFixture.build()))
+                .toCompletableFuture().join();
+        assertTrue(response.getGatewayError().isPresent());
+        assertGatewayErrorEquals(response.getGatewayError().get(),
+                new GatewayError("Non-success HTTP status code 500 from gateway", ErrorType.GATEWAY_ERROR));
+    }
+
     private void assertGatewayErrorEquals(GatewayError actual, GatewayError expected) {
         assertNotNull(actual);
         assertThat(actual.getMessage(), is(expected.getMessage()));
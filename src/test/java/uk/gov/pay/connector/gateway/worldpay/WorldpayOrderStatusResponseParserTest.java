@@ -0,0 +1,93 @@
+package uk.gov.pay.connector.gateway.worldpay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.gov.pay.connector.gateway.GatewayException.GatewayErrorException;
+import uk.gov.pay.connector.gateway.util.XMLUnmarshaller;
+
+import static io.dropwizard.testing.FixtureHelpers.fixture;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WorldpayOrderStatusResponseParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "templates/worldpay/3ds-flex-response.xml",
+            "templates/worldpay/3ds-response.xml",
+            "templates/worldpay/authorisation-cancelled-response.xml",
+            "templates/worldpay/authorisation-error-response.xml",
+            "templates/worldpay/authorisation-failed-response.xml",
+            "templates/worldpay/authorisation-pares-parse-error-response.xml",
+            "templates/worldpay/authorisation-success-response.xml",
+            "templates/worldpay/cancel-error-response.xml",
+            "templates/worldpay/cancel-success-response.xml",
+            "templates/worldpay/capture-error-response.xml",
+            "templates/worldpay/capture-success-response.xml",
+            "templates/worldpay/error-response.xml",
+            "templates/worldpay/exemption-request-decline-response.xml",
+            "templates/worldpay/exemption-request-honoured-response.xml",
+            "templates/worldpay/exemption-request-rejected-authorised-response.xml",
+            "templates/worldpay/exemption-request-soft-decline-result-out-of-scope-response.xml",
+            "templates/worldpay/exemption-request-soft-decline-result-rejected-response.xml",
+            "templates/worldpay/refund-error-response.xml",
+            "templates/worldpay/refund-success-response.xml",
+            "templates/worldpay/inquiry/authorised.xml",
+            "templates/worldpay/inquiry/cancelled.xml",
+            "templates/worldpay/inquiry/captured.xml",
+            "templates/worldpay/inquiry/rejected.xml"
+    })
+    void should_parse_the_same_values_as_jaxb(String fixturePath) throws Exception {
+        String payload = fixture(fixturePath);
+
+        WorldpayOrderStatusResponse expected = XMLUnmarshaller.unmarshall(payload, WorldpayOrderStatusResponse.class);
+        WorldpayOrderStatusResponse actual = WorldpayOrderStatusResponseParser.parse(payload);
+
+        assertThat(actual.getTransactionId(), is(expected.getTransactionId()));
+        assertThat(actual.getLastEvent(), is(expected.getLastEvent()));
+        assertThat(actual.getRefusedReturnCode(), is(expected.getRefusedReturnCode()));
+        assertThat(actual.getRefusedReturnCodeDescription(), is(expected.getRefusedReturnCodeDescription()));
+        assertThat(actual.getErrorCode(), is(expected.getErrorCode()));
+        assertThat(actual.getErrorMessage(), is(expected.getErrorMessage()));
+        assertThat(actual.getPaRequest(), is(expected.getPaRequest()));
+        assertThat(actual.getIssuerUrl(), is(expected.getIssuerUrl()));
+        assertThat(actual.getChallengeAcsUrl(), is(expected.getChallengeAcsUrl()));
+        assertThat(actual.getChallengeTransactionId(), is(expected.getChallengeTransactionId()));
+        assertThat(actual.getChallengePayload(), is(expected.getChallengePayload()));
+        assertThat(actual.getThreeDsVersion(), is(expected.getThreeDsVersion()));
+        assertThat(actual.getExemptionResponseResult(), is(expected.getExemptionResponseResult()));
+        assertThat(actual.getExemptionResponseReason(), is(expected.getExemptionResponseReason()));
+        assertThat(actual.isSoftDecline(), is(expected.isSoftDecline()));
+        assertThat(actual.authoriseStatus(), is(expected.authoriseStatus()));
+        assertThat(actual.getGatewayParamsFor3ds().isPresent(), is(expected.getGatewayParamsFor3ds().isPresent()));
+        assertThat(actual.toString(), is(expected.toString()));
+    }
+
+    @Test
+    void should_parse_order_status_error() throws Exception {
+        String payload = "<paymentService version=\"1.4\" merchantCode=\"MERCHANTCODE\">" +
+                "<reply><orderStatus orderCode=\"transaction-id\"><error code=\"7\"><![CDATA[Payment details invalid]]></error></orderStatus></reply>" +
+                "</paymentService>";
+
+        WorldpayOrderStatusResponse response = WorldpayOrderStatusResponseParser.parse(payload);
+
+        assertThat(response.getTransactionId(), is("transaction-id"));
+        assertThat(response.getErrorCode(), is("7"));
+        assertThat(response.getErrorMessage(), is("Payment details invalid"));
+    }
+
+    @Test
+    void should_not_expand_entities_declared_in_a_dtd() {
+        String payload = "<!DOCTYPE paymentService [<!ENTITY mrdanger SYSTEM \"file:///etc/passwd\" >]>" +
+                "<paymentService><reply><orderStatus orderCode=\"&mrdanger;\"/></reply></paymentService>";
+
+        assertThrows(GatewayErrorException.class, () -> WorldpayOrderStatusResponseParser.parse(payload));
+    }
+
+    @Test
+    void should_throw_when_payload_is_not_well_formed() {
+        assertThrows(GatewayErrorException.class, () -> WorldpayOrderStatusResponseParser.parse("<paymentService><reply>"));
+    }
+}
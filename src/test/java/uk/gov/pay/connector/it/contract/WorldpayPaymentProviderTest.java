@@ -393,7 +393,7 @@ public class WorldpayPaymentProviderTest {
                 gatewayClient,
                 gatewayClient, 
                 new WorldpayWalletAuthorisationHandler(gatewayClient, gatewayUrlMap()), 
-                new WorldpayAuthoriseHandler(gatewayClient, gatewayUrlMap()), 
+                new WorldpayAuthoriseHandler(gatewayClient, gatewayUrlMap(), false), 
                 new WorldpayCaptureHandler(gatewayClient, gatewayUrlMap()),
                 new WorldpayRefundHandler(gatewayClient, gatewayUrlMap()), 
                 new AuthorisationService(mockCardExecutorService, mockEnvironment), 
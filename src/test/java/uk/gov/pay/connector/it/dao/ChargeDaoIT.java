@@ -20,6 +20,7 @@ import uk.gov.pay.connector.paymentprocessor.model.Exemption3ds;
 import uk.gov.pay.connector.util.DateTimeUtils;
 import uk.gov.pay.connector.util.RandomIdGenerator;
 
+import javax.persistence.EntityManager;
 import javax.validation.ConstraintViolationException;
 import java.time.Duration;
 import java.time.Instant;
@@ -32,6 +33,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static java.time.ZonedDateTime.now;
 import static junit.framework.TestCase.assertTrue;
@@ -52,6 +54,7 @@ import static uk.gov.pay.connector.charge.model.domain.ChargeEntityFixture.aVali
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_READY;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_3DS_REQUIRED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_SUCCESS;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURE_APPROVED;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURE_APPROVED_RETRY;
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURE_READY;
@@ -453,6 +456,18 @@ public class ChargeDaoIT extends DaoITestBase {
         assertThat(chargeForAccount.isPresent(), is(false));
     }
 
+    @Test
+    public void findByExternalIds_shouldFindOnlyTheChargesThatExist() {
+        TestCharge firstCharge = insertTestChargeWithStatus(defaultTestAccount, CREATED);
+        TestCharge secondCharge = insertTestChargeWithStatus(defaultTestAccount, CAPTURED);
+
+        List<ChargeEntity> charges = chargeDao.findByExternalIds(
+                List.of(firstCharge.getExternalChargeId(), secondCharge.getExternalChargeId(), "abcdefg123"));
+
+        assertThat(charges.stream().map(ChargeEntity::getExternalId).collect(Collectors.toList()),
+                containsInAnyOrder(firstCharge.getExternalChargeId(), secondCharge.getExternalChargeId()));
+    }
+
     @Test
     public void testFindByDate_status_findsValidChargeForStatus() {
         TestCharge charge = DatabaseFixtures
@@ -508,6 +523,28 @@ public class ChargeDaoIT extends DaoITestBase {
         assertThat(charges.size(), is(0));
     }
 
+    @Test
+    public void testFindByDateStatus_findsPagesOfChargesInIdOrder() {
+        List<Long> chargeIds = List.of(101L, 102L, 103L);
+        chargeIds.forEach(chargeId -> DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withChargeId(chargeId)
+                .withExternalChargeId(RandomIdGenerator.newId())
+                .withCreatedDate(Instant.now().minus(Duration.ofHours(2)))
+                .insert());
+
+        ArrayList<ChargeStatus> chargeStatuses = Lists.newArrayList(CREATED, ENTERING_CARD_DETAILS, AUTHORISATION_SUCCESS);
+        Instant expiryDate = Instant.now().minus(Duration.ofHours(1));
+
+        List<ChargeEntity> firstPage = chargeDao.findBeforeDateWithStatusIn(expiryDate, chargeStatuses, 0L, 2);
+        List<ChargeEntity> secondPage = chargeDao.findBeforeDateWithStatusIn(expiryDate, chargeStatuses, 102L, 2);
+
+        assertThat(firstPage.stream().map(ChargeEntity::getId).collect(Collectors.toList()), is(List.of(101L, 102L)));
+        assertThat(secondPage.stream().map(ChargeEntity::getId).collect(Collectors.toList()), is(List.of(103L)));
+    }
+
     @Test
     public void testFindChargeByUnusedTokenId() {
         TestCharge charge = DatabaseFixtures
@@ -818,6 +855,93 @@ public class ChargeDaoIT extends DaoITestBase {
         assertThat(chargeToExpungeFromDB.getCreatedDate(), is(chargeToExpunge.getCreatedDate()));
     }
 
+    @Test
+    public void findChargesToExpunge_shouldReturnOldestChargesReadyForExpungingUpToLimit() {
+        TestCharge oldestCharge = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withCreatedDate(Instant.now().minus(Duration.ofDays(90)))
+                .insert();
+
+        TestCharge olderCharge = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withCreatedDate(Instant.now().minus(Duration.ofDays(80)))
+                .insert();
+
+        DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withCreatedDate(Instant.now().minus(Duration.ofDays(70)))
+                .insert();
+
+        DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withCreatedDate(Instant.now().minus(Duration.ofDays(4)))
+                .insert();
+
+        List<ChargeEntity> chargesToExpunge = chargeDao.findChargesToExpunge(5, 7, 2);
+
+        assertThat(chargesToExpunge.size(), is(2));
+        assertThat(chargesToExpunge.get(0).getExternalId(), is(oldestCharge.getExternalChargeId()));
+        assertThat(chargesToExpunge.get(1).getExternalId(), is(olderCharge.getExternalChargeId()));
+    }
+
+    @Test
+    public void expungeCharges_shouldDeleteAllGivenCharges() {
+        TestCharge chargeToExpunge = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withCreatedDate(Instant.now().minus(Duration.ofDays(90)))
+                .insert();
+
+        TestCharge anotherChargeToExpunge = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withCreatedDate(Instant.now().minus(Duration.ofDays(90)))
+                .insert();
+
+        TestCharge chargeToKeep = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(defaultTestAccount)
+                .withCreatedDate(Instant.now().minus(Duration.ofDays(90)))
+                .insert();
+
+        for (TestCharge charge : List.of(chargeToExpunge, anotherChargeToExpunge, chargeToKeep)) {
+            databaseTestHelper.addEvent(charge.getChargeId(), CAPTURED.getValue());
+            databaseTestHelper.addToken(charge.getChargeId(), "token-" + charge.getExternalChargeId());
+            databaseTestHelper.addFee("fee-" + charge.getExternalChargeId(), charge.getChargeId(), 5L, 5L,
+                    ZonedDateTime.now(), "gateway-transaction-id");
+            databaseTestHelper.addEmittedEvent("payment", charge.getExternalChargeId(), Instant.now(),
+                    "PAYMENT_CREATED", Instant.now(), null);
+        }
+
+        chargeDao.expungeCharges(List.of(
+                chargeDao.findByExternalId(chargeToExpunge.getExternalChargeId()).get(),
+                chargeDao.findByExternalId(anotherChargeToExpunge.getExternalChargeId()).get()));
+
+        for (TestCharge expunged : List.of(chargeToExpunge, anotherChargeToExpunge)) {
+            assertThat(databaseTestHelper.containsChargeWithExternalId(expunged.getExternalChargeId()), is(false));
+            assertThat(databaseTestHelper.getChargeEvents(expunged.getChargeId()), hasSize(0));
+            assertThat(databaseTestHelper.containsTokenWithChargeId(expunged.getChargeId()), is(false));
+            assertThat(databaseTestHelper.containsEmittedEventWithExternalId(expunged.getExternalChargeId()), is(false));
+            assertThat(databaseTestHelper.containsFeeWithChargeId(expunged.getChargeId()), is(false));
+        }
+        assertThat(databaseTestHelper.containsChargeWithExternalId(chargeToKeep.getExternalChargeId()), is(true));
+        assertThat(databaseTestHelper.getChargeEvents(chargeToKeep.getChargeId()), hasSize(1));
+        assertThat(databaseTestHelper.containsTokenWithChargeId(chargeToKeep.getChargeId()), is(true));
+        assertThat(databaseTestHelper.containsEmittedEventWithExternalId(chargeToKeep.getExternalChargeId()), is(true));
+        assertThat(databaseTestHelper.containsFeeWithChargeId(chargeToKeep.getChargeId()), is(true));
+    }
+
     @Test
     public void shouldFindChargesWithPaymentProviderAndStatuses() {
         DatabaseFixtures.TestAccount epdqAccount = insertTestAccountWithProvider("epdq");
@@ -849,6 +973,44 @@ public class ChargeDaoIT extends DaoITestBase {
         assertThat(charges, hasSize(2));
     }
 
+    @Test
+    public void findByIdsWithEventsAndFee_shouldLoadEventsAndFeesWithoutAQueryPerCharge() {
+        List<Long> chargeIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TestCharge testCharge = insertTestChargeWithStatus(defaultTestAccount, AUTHORISATION_SUCCESS);
+            DatabaseFixtures.withDatabaseTestHelper(databaseTestHelper).aTestChargeEvent()
+                    .withTestCharge(testCharge).withChargeStatus(CREATED).insert();
+            DatabaseFixtures.withDatabaseTestHelper(databaseTestHelper).aTestChargeEvent()
+                    .withTestCharge(testCharge).withChargeStatus(AUTHORISATION_SUCCESS).insert();
+            DatabaseFixtures.withDatabaseTestHelper(databaseTestHelper).aTestFee()
+                    .withTestCharge(testCharge).withFeeCollected(10L).insert();
+            chargeIds.add(testCharge.getChargeId());
+        }
+        Collections.sort(chargeIds);
+
+        int sqlCallsForOneCharge = countSqlCallsToLoadEventsAndFees(List.of(chargeIds.get(0)));
+        int sqlCallsForAllCharges = countSqlCallsToLoadEventsAndFees(chargeIds);
+
+        assertThat(sqlCallsForAllCharges, is(sqlCallsForOneCharge));
+
+        List<ChargeEntity> charges = chargeDao.findByIdsWithEventsAndFee(chargeIds);
+        assertThat(charges.stream().map(ChargeEntity::getId).collect(Collectors.toList()), is(chargeIds));
+        charges.forEach(charge -> {
+            assertThat(charge.getEvents(), hasSize(2));
+            assertThat(charge.getFeeAmount(), is(Optional.of(10L)));
+        });
+    }
+
+    private int countSqlCallsToLoadEventsAndFees(List<Long> chargeIds) {
+        env.getInstance(EntityManager.class).clear();
+        SqlCallCounter.reset();
+        chargeDao.findByIdsWithEventsAndFee(chargeIds).forEach(charge -> {
+            charge.getEvents().size();
+            charge.getFeeAmount();
+        });
+        return SqlCallCounter.getCount();
+    }
+
     private void insertTestAccount() {
         this.defaultTestAccount = DatabaseFixtures
                 .withDatabaseTestHelper(databaseTestHelper)
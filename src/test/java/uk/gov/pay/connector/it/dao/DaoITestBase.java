@@ -45,6 +45,7 @@ abstract public class DaoITestBase {
         properties.put("eclipselink.query-results-cache", "false");
         properties.put("eclipselink.cache.shared.default", "false");
         properties.put("eclipselink.ddl-generation.output-mode", "database");
+        properties.put("eclipselink.session-event-listener", SqlCallCounter.class.getName());
 
         JpaPersistModule jpaModule = new JpaPersistModule("ConnectorUnit");
         jpaModule.properties(properties);
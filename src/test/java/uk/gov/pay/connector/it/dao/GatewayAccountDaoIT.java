@@ -7,6 +7,7 @@ import org.junit.Before;
 import org.junit.Test;
 import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
 import uk.gov.pay.connector.common.model.api.CommaDelimitedSetParameter;
+import uk.gov.pay.connector.gatewayaccount.dao.GatewayAccountCacheMetrics;
 import uk.gov.pay.connector.gatewayaccount.dao.GatewayAccountDao;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountSearchParams;
@@ -156,6 +157,19 @@ public class GatewayAccountDaoIT extends DaoITestBase {
         assertThat(credentialsMap, hasEntry("some_payment_provider_account_id", "accountid"));
     }
 
+    @Test
+    public void findById_shouldRecordCacheMissWhenSharedCacheIsDisabled() {
+        GatewayAccountCacheMetrics cacheMetrics = env.getInstance(GatewayAccountCacheMetrics.class);
+        DatabaseFixtures.TestAccount accountRecord = createAccountRecordWithCorporateSurcharges();
+        long missCount = cacheMetrics.getMissCount();
+
+        assertThat(gatewayAccountDao.findById(accountRecord.getAccountId()).isPresent(), is(true));
+        assertThat(gatewayAccountDao.findById(accountRecord.getAccountId()).isPresent(), is(true));
+
+        assertThat(cacheMetrics.getMissCount(), is(missCount + 2));
+        assertThat(cacheMetrics.getHitCount(), is(0L));
+    }
+
     @Test
     public void findById_shouldFindGatewayAccountWithCorporateSurcharges() {
         DatabaseFixtures.TestAccount accountRecord = createAccountRecordWithCorporateSurcharges();
@@ -16,6 +16,7 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static java.time.ZoneOffset.UTC;
 import static java.time.ZonedDateTime.now;
@@ -198,6 +199,36 @@ public class RefundDaoJpaIT extends DaoITestBase {
         assertThat(refundHistoryList.size(), is(2));
     }
 
+    @Test
+    public void searchAllHistoryByChargeExternalIds_shouldReturnTheHistoryOfEveryChargeInOneQuery() {
+        DatabaseFixtures.TestCharge otherCharge = DatabaseFixtures
+                .withDatabaseTestHelper(databaseTestHelper)
+                .aTestCharge()
+                .withTestAccount(sandboxAccount)
+                .withChargeStatus(ChargeStatus.CAPTURED)
+                .insert();
+
+        RefundEntity refundEntity = new RefundEntity(100L, userExternalId, userEmail, chargeTestRecord.getExternalChargeId());
+        refundEntity.setStatus(CREATED);
+        refundDao.persist(refundEntity);
+        refundEntity.setStatus(REFUND_SUBMITTED);
+        refundDao.merge(refundEntity);
+
+        RefundEntity otherRefundEntity = new RefundEntity(200L, userExternalId, userEmail, otherCharge.getExternalChargeId());
+        otherRefundEntity.setStatus(CREATED);
+        refundDao.persist(otherRefundEntity);
+
+        SqlCallCounter.reset();
+        List<RefundHistory> refundHistoryList = refundDao.searchAllHistoryByChargeExternalIds(
+                List.of(chargeTestRecord.getExternalChargeId(), otherCharge.getExternalChargeId()));
+
+        assertThat(SqlCallCounter.getCount(), is(1));
+        Map<String, List<RefundHistory>> refundHistoryByChargeExternalId = refundHistoryList.stream()
+                .collect(Collectors.groupingBy(RefundHistory::getChargeExternalId));
+        assertThat(refundHistoryByChargeExternalId.get(chargeTestRecord.getExternalChargeId()).size(), is(2));
+        assertThat(refundHistoryByChargeExternalId.get(otherCharge.getExternalChargeId()).size(), is(1));
+    }
+
     // CREATED to REFUND_SUBMITTED happens synchronously so not needed to return history for CREATED status
     // Causing issues since gateway transaction id is not populated for CREATED is also being removed as is detected as
     // duplicated.
@@ -274,7 +305,7 @@ public class RefundDaoJpaIT extends DaoITestBase {
                 .insert(REFUNDED, "history-tobe-excluded", historyDate.minusDays(10), historyDate.minusDays(10))
                 .insert(REFUNDED, "history-tobe-excluded", historyDate.plusHours(1), historyDate.plusHours(1), SUBMITTED_BY, userEmail);
 
-        List<RefundHistory> refundHistoryList = refundDao.getRefundHistoryByDateRange(historyDate, historyDate.plusMinutes(11), 1, 2);
+        List<RefundHistory> refundHistoryList = refundDao.getRefundHistoryByDateRange(historyDate, historyDate.plusMinutes(11), null, 2);
 
         assertThat(refundHistoryList.size(), is(2));
 
@@ -291,6 +322,38 @@ public class RefundDaoJpaIT extends DaoITestBase {
         assertThat(refundHistory.getUserEmail(), is(testRefund.getUserEmail()));
     }
 
+    @Test
+    public void streamRefundHistoryByDateRangeShouldReturnEveryRecordAcrossPages() {
+
+        ZonedDateTime historyDate = ZonedDateTime.parse("2016-01-01T00:00:00Z");
+
+        DatabaseFixtures.TestAccount testAccount = withDatabaseTestHelper(databaseTestHelper).aTestAccount().insert();
+        DatabaseFixtures.TestCharge testCharge = withDatabaseTestHelper(databaseTestHelper).aTestCharge().withTestAccount(testAccount).insert();
+        DatabaseFixtures.TestRefund testRefund = withDatabaseTestHelper(databaseTestHelper)
+                .aTestRefund()
+                .withTestCharge(testCharge)
+                .withType(REFUNDED)
+                .withCreatedDate(now())
+                .withChargeExternalId(testCharge.getExternalChargeId())
+                .insert();
+
+        withDatabaseTestHelper(databaseTestHelper)
+                .aTestRefundHistory(testRefund)
+                .insert(REFUNDED, "ref-3", historyDate.plusMinutes(2), historyDate.plusMinutes(2))
+                .insert(CREATED, "ref-1", historyDate, historyDate)
+                .insert(REFUND_SUBMITTED, "ref-2", historyDate.plusMinutes(1), historyDate.plusMinutes(1))
+                .insert(REFUNDED, "history-tobe-excluded", historyDate.plusHours(1), historyDate.plusHours(1));
+
+        List<RefundHistory> refundHistoryList = refundDao.streamRefundHistoryByDateRange(historyDate, historyDate.plusMinutes(2), 2)
+                .collect(Collectors.toList());
+
+        assertThat(refundHistoryList.size(), is(3));
+        assertThat(refundHistoryList.get(0).getGatewayTransactionId(), is("ref-1"));
+        assertThat(refundHistoryList.get(1).getGatewayTransactionId(), is("ref-2"));
+        assertThat(refundHistoryList.get(2).getGatewayTransactionId(), is("ref-3"));
+        assertThat(refundHistoryList.get(2).getChargeExternalId(), is(testCharge.getExternalChargeId()));
+    }
+
     @Test
     public void findByChargeExternalIdShouldReturnAListOfRefunds() {
         DatabaseFixtures
@@ -0,0 +1,67 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.refund.dao.RefundSummaryDao;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
+
+import java.util.Optional;
+
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class RefundSummaryDaoIT extends DaoITestBase {
+
+    private RefundSummaryDao refundSummaryDao;
+    private String chargeExternalId;
+
+    @Before
+    public void setUp() {
+        refundSummaryDao = env.getInstance(RefundSummaryDao.class);
+        chargeExternalId = randomAlphanumeric(26);
+    }
+
+    @After
+    public void truncate() {
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void shouldNotFindASummaryThatHasNotBeenInitialised() {
+        assertThat(refundSummaryDao.find(chargeExternalId), is(Optional.empty()));
+        assertThat(refundSummaryDao.lock(chargeExternalId), is(Optional.empty()));
+        assertThat(refundSummaryDao.find(chargeExternalId), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldFindASummaryOnceInitialised() {
+        refundSummaryDao.lock(chargeExternalId);
+        refundSummaryDao.initialise(chargeExternalId, new RefundSummary(100L, 200L));
+
+        assertThat(refundSummaryDao.find(chargeExternalId), is(Optional.of(new RefundSummary(100L, 200L))));
+        assertThat(refundSummaryDao.lock(chargeExternalId), is(Optional.of(new RefundSummary(100L, 200L))));
+    }
+
+    @Test
+    public void shouldAddToAmountsOfAnInitialisedSummary() {
+        refundSummaryDao.lock(chargeExternalId);
+        refundSummaryDao.initialise(chargeExternalId, new RefundSummary(100L, 200L));
+
+        refundSummaryDao.addToAmounts(chargeExternalId, -100L, 100L);
+
+        assertThat(refundSummaryDao.find(chargeExternalId), is(Optional.of(new RefundSummary(0L, 300L))));
+    }
+
+    @Test
+    public void shouldNotAddToAmountsOfASummaryThatHasNotBeenInitialised() {
+        refundSummaryDao.addToAmounts(chargeExternalId, 100L, 0L);
+
+        assertThat(refundSummaryDao.find(chargeExternalId), is(Optional.empty()));
+
+        refundSummaryDao.initialise(chargeExternalId, new RefundSummary(0L, 50L));
+
+        assertThat(refundSummaryDao.find(chargeExternalId), is(Optional.of(new RefundSummary(0L, 50L))));
+    }
+}
@@ -0,0 +1,28 @@
+package uk.gov.pay.connector.it.dao;
+
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements EclipseLink sends to the database, so that tests can check how many
+ * queries loading something takes. Registered for the DAO tests in {@link DaoITestBase}.
+ */
+public class SqlCallCounter extends SessionEventAdapter {
+
+    private static final AtomicInteger sqlCalls = new AtomicInteger();
+
+    @Override
+    public void postExecuteCall(SessionEvent event) {
+        sqlCalls.incrementAndGet();
+    }
+
+    public static void reset() {
+        sqlCalls.set(0);
+    }
+
+    public static int getCount() {
+        return sqlCalls.get();
+    }
+}
@@ -1,22 +1,44 @@
 package uk.gov.pay.connector.paymentprocessor.service;
 
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.lifecycle.JettyManaged;
+import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
+import io.dropwizard.setup.Environment;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.CaptureProcessConfig;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
 import uk.gov.pay.connector.charge.ChargesAwaitingCaptureMetricEmitter;
 import uk.gov.pay.connector.charge.service.ChargeService;
 import uk.gov.pay.connector.common.exception.IllegalStateRuntimeException;
 import uk.gov.pay.connector.gateway.CaptureResponse;
+import uk.gov.pay.connector.gateway.PaymentGatewayName;
+import uk.gov.pay.connector.queue.QueueMessage;
 import uk.gov.pay.connector.queue.capture.CaptureQueue;
 import uk.gov.pay.connector.queue.capture.ChargeCaptureMessage;
 import uk.gov.pay.connector.queue.QueueException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -36,6 +58,16 @@ public class CardCaptureProcessTest {
     ChargeService chargeService;
     @Mock
     ChargesAwaitingCaptureMetricEmitter chargesAwaitingCaptureMetricEmitter;
+    @Mock
+    ConnectorConfiguration connectorConfiguration;
+    @Mock
+    CaptureProcessConfig captureProcessConfig;
+    @Mock
+    Environment environment;
+    @Mock
+    QueueMessage queueMessage;
+    MetricRegistry metricRegistry = new MetricRegistry();
+    LifecycleEnvironment lifecycleEnvironment = new LifecycleEnvironment(metricRegistry);
     CardCaptureProcess cardCaptureProcess;
 
     @Before
@@ -43,11 +75,25 @@ public class CardCaptureProcessTest {
         List<ChargeCaptureMessage> messages = Arrays.asList(chargeCaptureMessage);
 
         when(chargeCaptureMessage.getChargeId()).thenReturn(chargeExternalId);
+        when(chargeCaptureMessage.getQueueMessage()).thenReturn(queueMessage);
         when(captureQueue.retrieveChargesForCapture()).thenReturn(messages);
         when(cardCaptureService.doCapture(anyString())).thenReturn(captureResponse);
+        when(connectorConfiguration.getCaptureProcessConfig()).thenReturn(captureProcessConfig);
+        when(captureProcessConfig.getCaptureConcurrency()).thenReturn(1);
+        when(environment.metrics()).thenReturn(metricRegistry);
 
         cardCaptureProcess = new CardCaptureProcess(captureQueue, cardCaptureService,
-                chargeService, chargesAwaitingCaptureMetricEmitter);
+                chargeService, chargesAwaitingCaptureMetricEmitter, connectorConfiguration, environment);
+    }
+
+    @After
+    public void stopExecutors() throws Exception {
+        // the environment is never started, so shut the capture executor down directly rather than through Jetty
+        for (LifeCycle managedObject : lifecycleEnvironment.getManagedObjects()) {
+            if (managedObject instanceof JettyManaged) {
+                ((JettyManaged) managedObject).getManaged().stop();
+            }
+        }
     }
 
     @Test
@@ -56,7 +102,7 @@ public class CardCaptureProcessTest {
 
         cardCaptureProcess.handleCaptureMessages();
 
-        verify(captureQueue).markMessageAsProcessed(chargeCaptureMessage.getQueueMessage());
+        verify(captureQueue).markMessagesAsProcessed(List.of(queueMessage));
     }
 
     @Test
@@ -66,7 +112,7 @@ public class CardCaptureProcessTest {
 
         cardCaptureProcess.handleCaptureMessages();
 
-        verify(captureQueue).scheduleMessageForRetry(chargeCaptureMessage.getQueueMessage());
+        verify(captureQueue).scheduleMessagesForRetry(List.of(queueMessage));
     }
 
     @Test
@@ -77,7 +123,7 @@ public class CardCaptureProcessTest {
         cardCaptureProcess.handleCaptureMessages();
 
         verify(cardCaptureService).markChargeAsCaptureError(chargeExternalId);
-        verify(captureQueue).markMessageAsProcessed(chargeCaptureMessage.getQueueMessage());
+        verify(captureQueue).markMessagesAsProcessed(List.of(queueMessage));
     }
 
     @Test
@@ -87,6 +133,116 @@ public class CardCaptureProcessTest {
 
         cardCaptureProcess.handleCaptureMessages();
 
-        verify(captureQueue).markMessageAsProcessed(chargeCaptureMessage.getQueueMessage());
+        verify(captureQueue).markMessagesAsProcessed(List.of(queueMessage));
+    }
+
+    @Test
+    public void shouldNotAcknowledgeMessageGivenChargeInNonCapturedIllegalState() throws QueueException {
+        when(cardCaptureService.doCapture(anyString())).thenThrow(IllegalStateRuntimeException.class);
+        when(chargeService.isChargeCaptureSuccess(anyString())).thenReturn(false);
+
+        cardCaptureProcess.handleCaptureMessages();
+
+        verify(captureQueue, never()).markMessagesAsProcessed(any());
+        verify(captureQueue, never()).scheduleMessagesForRetry(any());
+    }
+
+    @Test
+    public void shouldCaptureBatchConcurrentlyAndAcknowledgeInBatches() throws Exception {
+        when(environment.lifecycle()).thenReturn(lifecycleEnvironment);
+        when(captureProcessConfig.getCaptureConcurrency()).thenReturn(4);
+
+        QueueMessage retryQueueMessage = mock(QueueMessage.class);
+        ChargeCaptureMessage retryMessage = captureMessage("retry-charge-id", retryQueueMessage);
+        CaptureResponse failedCaptureResponse = mock(CaptureResponse.class);
+
+        when(captureQueue.retrieveChargesForCapture()).thenReturn(List.of(chargeCaptureMessage, retryMessage));
+        when(captureResponse.isSuccessful()).thenReturn(true);
+        when(failedCaptureResponse.isSuccessful()).thenReturn(false);
+        when(cardCaptureService.doCapture("retry-charge-id")).thenReturn(failedCaptureResponse);
+        when(chargeService.isChargeRetriable("retry-charge-id")).thenReturn(true);
+        when(captureQueue.markMessagesAsProcessed(List.of(queueMessage))).thenReturn(Collections.emptyList());
+        when(captureQueue.scheduleMessagesForRetry(List.of(retryQueueMessage))).thenReturn(Collections.emptyList());
+
+        CardCaptureProcess concurrentCardCaptureProcess = new CardCaptureProcess(captureQueue, cardCaptureService,
+                chargeService, chargesAwaitingCaptureMetricEmitter, connectorConfiguration, environment);
+        concurrentCardCaptureProcess.handleCaptureMessages();
+
+        verify(captureQueue).markMessagesAsProcessed(List.of(queueMessage));
+        verify(captureQueue).scheduleMessagesForRetry(List.of(retryQueueMessage));
+        assertThat(metricRegistry.meter("gateway-operations.capture-process.captured").getCount(), is(1L));
+        assertThat(metricRegistry.meter("gateway-operations.capture-process.retried").getCount(), is(1L));
+        assertThat(metricRegistry.meter("gateway-operations.capture-process.acknowledged").getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldScheduleRetriesWhenMarkingMessagesAsProcessedFails() throws QueueException {
+        QueueMessage retryQueueMessage = mock(QueueMessage.class);
+        ChargeCaptureMessage retryMessage = captureMessage("retry-charge-id", retryQueueMessage);
+        CaptureResponse failedCaptureResponse = mock(CaptureResponse.class);
+
+        when(captureQueue.retrieveChargesForCapture()).thenReturn(List.of(chargeCaptureMessage, retryMessage));
+        when(captureResponse.isSuccessful()).thenReturn(true);
+        when(failedCaptureResponse.isSuccessful()).thenReturn(false);
+        when(cardCaptureService.doCapture("retry-charge-id")).thenReturn(failedCaptureResponse);
+        when(chargeService.isChargeRetriable("retry-charge-id")).thenReturn(true);
+        when(captureQueue.markMessagesAsProcessed(List.of(queueMessage))).thenThrow(new RuntimeException("queue unavailable"));
+
+        cardCaptureProcess.handleCaptureMessages();
+
+        verify(captureQueue).scheduleMessagesForRetry(List.of(retryQueueMessage));
+        assertThat(metricRegistry.meter("gateway-operations.capture-process.acknowledged").getCount(), is(0L));
+    }
+
+    @Test
+    public void shouldNotCaptureMoreThanTheCaptureConcurrencyPerGatewayAtOnce() throws Exception {
+        when(environment.lifecycle()).thenReturn(lifecycleEnvironment);
+        when(captureProcessConfig.getCaptureConcurrency()).thenReturn(4);
+        when(captureProcessConfig.getCaptureConcurrencyPerGateway()).thenReturn(1);
+
+        List<ChargeCaptureMessage> worldpayMessages = List.of(
+                chargeCaptureMessage,
+                captureMessage("worldpay-charge-2", mock(QueueMessage.class)),
+                captureMessage("worldpay-charge-3", mock(QueueMessage.class)));
+        ChargeCaptureMessage stripeMessage = captureMessage("stripe-charge", mock(QueueMessage.class));
+        List<ChargeCaptureMessage> messages = new ArrayList<>(worldpayMessages);
+        messages.add(stripeMessage);
+        when(captureQueue.retrieveChargesForCapture()).thenReturn(messages);
+        when(chargeService.findPaymentGatewayNamesByExternalId(List.of(chargeExternalId, "worldpay-charge-2", "worldpay-charge-3", "stripe-charge")))
+                .thenReturn(Map.of(chargeExternalId, PaymentGatewayName.WORLDPAY,
+                        "worldpay-charge-2", PaymentGatewayName.WORLDPAY,
+                        "worldpay-charge-3", PaymentGatewayName.WORLDPAY,
+                        "stripe-charge", PaymentGatewayName.STRIPE));
+        when(captureResponse.isSuccessful()).thenReturn(true);
+
+        AtomicInteger worldpayInFlight = new AtomicInteger();
+        AtomicInteger maximumWorldpayInFlight = new AtomicInteger();
+        CountDownLatch stripeCaptured = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            String chargeId = invocation.getArgument(0);
+            if (chargeId.startsWith("stripe")) {
+                stripeCaptured.countDown();
+                return captureResponse;
+            }
+            maximumWorldpayInFlight.accumulateAndGet(worldpayInFlight.incrementAndGet(), Math::max);
+            // the stripe charge is captured while the worldpay lane is busy, not after it
+            assertThat(stripeCaptured.await(5, TimeUnit.SECONDS), is(true));
+            worldpayInFlight.decrementAndGet();
+            return captureResponse;
+        }).when(cardCaptureService).doCapture(anyString());
+
+        CardCaptureProcess concurrentCardCaptureProcess = new CardCaptureProcess(captureQueue, cardCaptureService,
+                chargeService, chargesAwaitingCaptureMetricEmitter, connectorConfiguration, environment);
+        concurrentCardCaptureProcess.handleCaptureMessages();
+
+        assertThat(maximumWorldpayInFlight.get(), is(1));
+        assertThat(metricRegistry.meter("gateway-operations.capture-process.captured").getCount(), is(4L));
+    }
+
+    private ChargeCaptureMessage captureMessage(String chargeId, QueueMessage queueMessage) {
+        ChargeCaptureMessage message = mock(ChargeCaptureMessage.class);
+        when(message.getChargeId()).thenReturn(chargeId);
+        when(message.getQueueMessage()).thenReturn(queueMessage);
+        return message;
     }
 }
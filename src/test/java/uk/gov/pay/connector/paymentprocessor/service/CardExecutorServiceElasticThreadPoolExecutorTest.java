@@ -0,0 +1,61 @@
+package uk.gov.pay.connector.paymentprocessor.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CardExecutorServiceElasticThreadPoolExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ThreadPoolExecutor executor = new CardExecutorService.ElasticThreadPoolExecutor(
+            1, 3, 60, Executors.defaultThreadFactory());
+
+    @After
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldStartNewThreadsBeforeQueueingUntilMaximumPoolSizeIsReached() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(3);
+
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> blockUntilReleased(started));
+        }
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThat(executor.getPoolSize(), is(3));
+        assertThat(executor.getQueue().size(), is(0));
+    }
+
+    @Test
+    public void shouldQueueTasksOnceMaximumPoolSizeIsReached() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(3);
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> blockUntilReleased(started));
+        }
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThat(executor.getPoolSize(), is(3));
+        assertThat(executor.getQueue().size(), is(2));
+    }
+
+    private void blockUntilReleased(CountDownLatch started) {
+        started.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
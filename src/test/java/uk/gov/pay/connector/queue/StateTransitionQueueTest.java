@@ -36,4 +36,22 @@ public class StateTransitionQueueTest {
 
         assertThat(readTransition.getChargeEventId(), is(chargeEventId));
     }
+
+    @Test
+    public void shouldReturnReleasedElementAgainAfterItsDelayWithoutUsingUpAnAttempt() throws InterruptedException {
+        StateTransitionQueue queue = new StateTransitionQueue();
+        PaymentStateTransition transition = new PaymentStateTransition(1L, "charge-external-id", PaymentEvent.class, 3, 100L);
+        queue.offer(transition);
+        Thread.sleep(200L);
+
+        queue.release(queue.poll());
+
+        assertNull(queue.poll());
+
+        Thread.sleep(200L);
+        PaymentStateTransition readTransition = (PaymentStateTransition) queue.poll();
+
+        assertThat(readTransition.getChargeEventId(), is(1L));
+        assertThat(readTransition.getAttempts(), is(3));
+    }
 }
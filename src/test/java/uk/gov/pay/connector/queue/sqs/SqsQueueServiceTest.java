@@ -20,14 +20,19 @@ import uk.gov.pay.connector.app.SqsConfig;
 import uk.gov.pay.connector.queue.QueueException;
 import uk.gov.pay.connector.queue.QueueMessage;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -64,6 +69,41 @@ public class SqsQueueServiceTest {
         root.addAppender(mockAppender);
     }
 
+    @Test
+    public void shouldReturnIndicesOfMessagesThatCouldNotBeSentInBatches() {
+        List<String> messageBodies = IntStream.range(0, 12)
+                .mapToObj(i -> "{chargeId: " + i + "}")
+                .collect(Collectors.toList());
+        SendMessageBatchResult firstBatchResult = new SendMessageBatchResult()
+                .withFailed(new BatchResultErrorEntry().withId("3").withCode("InternalError"));
+        when(mockSqsClient.sendMessageBatch(eq(QUEUE_URL), anyList()))
+                .thenReturn(firstBatchResult)
+                .thenThrow(new AmazonSQSException("Service unavailable"));
+
+        List<Integer> failedIndices = sqsQueueService.sendMessages(QUEUE_URL, messageBodies);
+
+        assertThat(failedIndices, is(List.of(3, 10, 11)));
+        verify(mockSqsClient, times(2)).sendMessageBatch(eq(QUEUE_URL), anyList());
+    }
+
+    @Test
+    public void shouldReturnReceiptHandlesOfMessagesThatCouldNotBeDeletedAndCarryOnAfterAFailedBatch() {
+        List<String> receiptHandles = IntStream.range(0, 12)
+                .mapToObj(i -> "receipt-handle-" + i)
+                .collect(Collectors.toList());
+        when(mockSqsClient.deleteMessageBatch(eq(QUEUE_URL), anyList()))
+                .thenThrow(new AmazonSQSException("Service unavailable"))
+                .thenReturn(new DeleteMessageBatchResult()
+                        .withFailed(new BatchResultErrorEntry().withId("1").withCode("ReceiptHandleIsInvalid")));
+
+        List<String> failedReceiptHandles = sqsQueueService.deleteMessages(QUEUE_URL, receiptHandles);
+
+        List<String> expectedReceiptHandles = new ArrayList<>(receiptHandles.subList(0, 10));
+        expectedReceiptHandles.add("receipt-handle-11");
+        assertThat(failedReceiptHandles, is(expectedReceiptHandles));
+        verify(mockSqsClient, times(2)).deleteMessageBatch(eq(QUEUE_URL), anyList());
+    }
+
     @Test
     public void shouldSendMessageToQueueSuccessfully() throws QueueException {
         SendMessageResult sendMessageResult = new SendMessageResult();
@@ -0,0 +1,83 @@
+package uk.gov.pay.connector.queue.statetransition;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.pay.connector.events.model.charge.PaymentCreated;
+import uk.gov.pay.connector.events.model.refund.RefundSubmitted;
+import uk.gov.pay.connector.it.dao.DaoITestBase;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static uk.gov.pay.connector.refund.model.domain.RefundStatus.REFUND_SUBMITTED;
+
+public class DatabaseStateTransitionQueueIT extends DaoITestBase {
+
+    private DatabaseStateTransitionQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = env.getInstance(DatabaseStateTransitionQueue.class);
+        databaseTestHelper.truncateAllData();
+    }
+
+    @Test
+    public void shouldOnlyReturnPaymentStateTransitionOnceItsDelayHasPassed() throws Exception {
+        queue.offer(new PaymentStateTransition(12L, "charge-external-id", PaymentCreated.class, 3, 300L));
+
+        assertThat(queue.poll(), is(nullValue()));
+
+        PaymentStateTransition polled = (PaymentStateTransition) queue.poll(1, TimeUnit.SECONDS);
+
+        assertThat(polled.getChargeEventId(), is(12L));
+        assertThat(polled.getChargeExternalId(), is("charge-external-id"));
+        assertThat(polled.getStateTransitionEventClass(), is(PaymentCreated.class));
+        assertThat(polled.getAttempts(), is(3));
+        assertThat(polled.getDelayDurationInMilliseconds(), is(300L));
+    }
+
+    @Test
+    public void shouldHideClaimedStateTransitionFromOtherPollersUntilAcknowledged() throws Exception {
+        queue.offer(new RefundStateTransition("refund-external-id", REFUND_SUBMITTED, RefundSubmitted.class, 1, 0L));
+
+        RefundStateTransition polled = (RefundStateTransition) queue.poll(1, TimeUnit.SECONDS);
+
+        assertThat(polled.getRefundExternalId(), is("refund-external-id"));
+        assertThat(polled.getRefundStatus(), is(REFUND_SUBMITTED));
+        assertThat(queue.poll(), is(nullValue()));
+        assertThat(queue.size(), is(1));
+
+        queue.acknowledge(polled);
+
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldReplayReleasedStateTransitionOnceItsDelayHasPassed() throws Exception {
+        queue.offer(new PaymentStateTransition(12L, PaymentCreated.class, 1, 300L));
+
+        StateTransition polled = queue.poll(1, TimeUnit.SECONDS);
+        queue.release(polled);
+
+        assertThat(queue.poll(), is(nullValue()));
+        assertThat(queue.size(), is(1));
+
+        PaymentStateTransition replayed = (PaymentStateTransition) queue.poll(1, TimeUnit.SECONDS);
+
+        assertThat(replayed.getChargeEventId(), is(12L));
+        assertThat(replayed.getQueueId(), is(polled.getQueueId()));
+    }
+
+    @Test
+    public void shouldOnlyAcknowledgeStateTransitionsClaimedByThisQueue() throws Exception {
+        queue.offer(new PaymentStateTransition(12L, PaymentCreated.class, 1, 0L));
+
+        StateTransition polled = queue.poll(1, TimeUnit.SECONDS);
+        queue.release(polled);
+        queue.acknowledge(polled);
+
+        assertThat(queue.isEmpty(), is(false));
+    }
+}
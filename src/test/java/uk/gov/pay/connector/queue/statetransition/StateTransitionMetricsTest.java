@@ -0,0 +1,98 @@
+package uk.gov.pay.connector.queue.statetransition;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.AUTHORISATION_SUCCESS;
+import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURED;
+import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntityFixture.aGatewayAccountEntity;
+import static uk.gov.pay.connector.gatewayaccount.model.GatewayAccountType.LIVE;
+import static uk.gov.pay.connector.queue.statetransition.StateTransitionMetrics.MAXIMUM_PER_GATEWAY_ACCOUNT_COUNTERS;
+
+public class StateTransitionMetricsTest {
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final StateTransitionMetrics stateTransitionMetrics = new StateTransitionMetrics(metricRegistry);
+
+    @Test
+    public void recordTransition_shouldUpdateTheSameMetricsAsBefore() {
+        GatewayAccountEntity gatewayAccount = aGatewayAccountEntity().withId(42L).withGatewayName("worldpay").withType(LIVE).build();
+
+        stateTransitionMetrics.recordTransition(gatewayAccount, CAPTURED);
+        stateTransitionMetrics.recordTransition(gatewayAccount, CAPTURED);
+        stateTransitionMetrics.recordTransition(gatewayAccount, AUTHORISATION_SUCCESS);
+
+        assertThat(metricRegistry.counter("state-transition.live.worldpay.to.CAPTURED").getCount(), is(2L));
+        assertThat(metricRegistry.meter("state-transition.live.worldpay.to.CAPTURED.rate").getCount(), is(2L));
+        assertThat(metricRegistry.counter("state-transition.live.worldpay.42.to.CAPTURED").getCount(), is(2L));
+        assertThat(metricRegistry.counter("state-transition.live.worldpay.to.AUTHORISATION SUCCESS").getCount(), is(1L));
+        assertThat(metricRegistry.counter("state-transition.live.worldpay.42.to.AUTHORISATION SUCCESS").getCount(), is(1L));
+        assertThat(stateTransitionMetrics.getPerGatewayAccountCounterCount(), is(2));
+    }
+
+    @Test
+    public void recordTransition_shouldStillUpdateMetricsForAnUnknownGateway() {
+        GatewayAccountEntity gatewayAccount = aGatewayAccountEntity().withId(1L).withGatewayName("unknown").withType(LIVE).build();
+
+        stateTransitionMetrics.recordTransition(gatewayAccount, CAPTURED);
+        stateTransitionMetrics.recordTransition(gatewayAccount, CAPTURED);
+
+        assertThat(metricRegistry.counter("state-transition.live.unknown.to.CAPTURED").getCount(), is(2L));
+        assertThat(metricRegistry.counter("state-transition.live.unknown.1.to.CAPTURED").getCount(), is(2L));
+    }
+
+    @Test
+    public void recordTransition_shouldStopAddingPerGatewayAccountCountersOnceTheLimitIsReached() {
+        for (long id = 1; id <= MAXIMUM_PER_GATEWAY_ACCOUNT_COUNTERS + 5; id++) {
+            stateTransitionMetrics.recordTransition(aGatewayAccountEntity().withId(id).withGatewayName("sandbox").withType(LIVE).build(), CAPTURED);
+        }
+
+        assertThat(stateTransitionMetrics.getPerGatewayAccountCounterCount(), is(MAXIMUM_PER_GATEWAY_ACCOUNT_COUNTERS));
+        assertThat(metricRegistry.meter("state-transition.per-gateway-account.overflow").getCount(), is(5L));
+        assertThat(metricRegistry.counter("state-transition.live.sandbox.to.CAPTURED").getCount(),
+                is((long) MAXIMUM_PER_GATEWAY_ACCOUNT_COUNTERS + 5));
+        assertThat(metricRegistry.getCounters().containsKey(
+                "state-transition.live.sandbox." + (MAXIMUM_PER_GATEWAY_ACCOUNT_COUNTERS + 1) + ".to.CAPTURED"), is(false));
+    }
+
+    @Test
+    public void recordTransition_shouldCountEveryPerGatewayAccountCounterOnceWhenTheFirstTransitionsRace() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long id = 1; id <= threads; id++) {
+                GatewayAccountEntity gatewayAccount = aGatewayAccountEntity().withId(id).withGatewayName("stripe").withType(LIVE).build();
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    stateTransitionMetrics.recordTransition(gatewayAccount, CAPTURED);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        stateTransitionMetrics.recordTransition(aGatewayAccountEntity().withId(1L).withGatewayName("stripe").withType(LIVE).build(), CAPTURED);
+
+        assertThat(stateTransitionMetrics.getPerGatewayAccountCounterCount(), is(threads));
+        assertThat(metricRegistry.counter("state-transition.live.stripe.1.to.CAPTURED").getCount(), is(2L));
+        assertThat(metricRegistry.counter("state-transition.live.stripe.to.CAPTURED").getCount(), is((long) threads + 1));
+    }
+}
@@ -120,6 +120,23 @@ public class GatewayAccountServiceTest {
         verify(mockGatewayAccountDao).merge(mockGatewayAccountEntity);
     }
 
+    @Test
+    public void shouldReadAccountFromDatabaseRatherThanCacheBeforePatching() {
+        JsonPatchRequest request = JsonPatchRequest.from(objectMapper.valueToTree(Map.of(
+                "op", "replace",
+                "path", "allow_zero_amount",
+                "value", true)));
+
+        when(mockGatewayAccountDao.findById(GATEWAY_ACCOUNT_ID)).thenReturn(Optional.of(mockGatewayAccountEntity));
+
+        gatewayAccountService.doPatch(GATEWAY_ACCOUNT_ID, request);
+
+        InOrder inOrder = inOrder(mockGatewayAccountDao);
+        inOrder.verify(mockGatewayAccountDao).evictFromCache(GATEWAY_ACCOUNT_ID);
+        inOrder.verify(mockGatewayAccountDao).findById(GATEWAY_ACCOUNT_ID);
+        inOrder.verify(mockGatewayAccountDao).merge(mockGatewayAccountEntity);
+    }
+
     @Test
     public void shouldUpdateNotifySettingsWhenRemove() {
         JsonPatchRequest request = JsonPatchRequest.from(objectMapper.valueToTree(Map.of("op", "replace",
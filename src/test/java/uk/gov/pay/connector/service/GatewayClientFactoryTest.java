@@ -6,15 +6,24 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.pay.connector.gateway.AsyncGatewayClient;
 import uk.gov.pay.connector.gateway.ClientFactory;
 import uk.gov.pay.connector.gateway.GatewayClient;
 import uk.gov.pay.connector.gateway.GatewayClientFactory;
+import uk.gov.pay.connector.gateway.GatewayConcurrencyLimiters;
 import uk.gov.pay.connector.gateway.PaymentGatewayName;
 
+import javax.ws.rs.client.Client;
+import java.util.concurrent.ExecutorService;
+
 import static java.util.Collections.emptyMap;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static uk.gov.pay.connector.gateway.GatewayOperation.AUTHORISE;
+import static uk.gov.pay.connector.gateway.GatewayOperation.CAPTURE;
 
 @RunWith(MockitoJUnitRunner.class)
 public class GatewayClientFactoryTest {
@@ -25,6 +34,8 @@ public class GatewayClientFactoryTest {
     @Mock
     ClientFactory mockClientFactory;
     @Mock
+    GatewayConcurrencyLimiters mockConcurrencyLimiters;
+    @Mock
     MetricRegistry mockMetricRegistry;
     @Test
     public void shouldBuildGatewayClient() {
@@ -33,4 +44,18 @@ public class GatewayClientFactoryTest {
         assertNotNull(gatewayClient);
         verify(mockClientFactory).createWithDropwizardClient(PaymentGatewayName.WORLDPAY, AUTHORISE, mockMetricRegistry);
     }
+
+    @Test
+    public void shouldShareOneClientAndExecutorPerGatewayBetweenAsyncGatewayClients() {
+        when(mockClientFactory.createSharedClient(PaymentGatewayName.WORLDPAY, mockMetricRegistry)).thenReturn(mock(Client.class));
+        when(mockClientFactory.createAsyncExecutor(PaymentGatewayName.WORLDPAY)).thenReturn(mock(ExecutorService.class));
+
+        AsyncGatewayClient authoriseClient = gatewayClientFactory.createAsyncGatewayClient(PaymentGatewayName.WORLDPAY, AUTHORISE, mockMetricRegistry);
+        AsyncGatewayClient captureClient = gatewayClientFactory.createAsyncGatewayClient(PaymentGatewayName.WORLDPAY, CAPTURE, mockMetricRegistry);
+
+        assertNotNull(authoriseClient);
+        assertNotNull(captureClient);
+        verify(mockClientFactory, times(1)).createSharedClient(PaymentGatewayName.WORLDPAY, mockMetricRegistry);
+        verify(mockClientFactory, times(1)).createAsyncExecutor(PaymentGatewayName.WORLDPAY);
+    }
 }
@@ -29,11 +29,13 @@ import uk.gov.pay.connector.gatewayaccount.dao.GatewayAccountDao;
 import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
 import uk.gov.pay.connector.queue.statetransition.StateTransitionService;
 import uk.gov.pay.connector.refund.dao.RefundDao;
+import uk.gov.pay.connector.refund.dao.RefundSummaryDao;
 import uk.gov.pay.connector.refund.exception.RefundException;
 import uk.gov.pay.connector.refund.model.RefundRequest;
 import uk.gov.pay.connector.refund.model.domain.Refund;
 import uk.gov.pay.connector.refund.model.domain.RefundEntity;
 import uk.gov.pay.connector.refund.model.domain.RefundStatus;
+import uk.gov.pay.connector.refund.model.domain.RefundSummary;
 import uk.gov.pay.connector.refund.service.ChargeRefundResponse;
 import uk.gov.pay.connector.refund.service.RefundService;
 import uk.gov.pay.connector.usernotification.service.UserNotificationService;
@@ -48,6 +50,8 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.argThat;
@@ -73,6 +77,7 @@ import static uk.gov.pay.connector.model.domain.RefundEntityFixture.userExternal
 import static uk.gov.pay.connector.model.domain.RefundTransactionsForPaymentFixture.aValidRefundTransactionsForPayment;
 import static uk.gov.pay.connector.refund.model.domain.RefundStatus.CREATED;
 import static uk.gov.pay.connector.refund.model.domain.RefundStatus.REFUNDED;
+import static uk.gov.pay.connector.refund.model.domain.RefundStatus.REFUND_SUBMITTED;
 
 @RunWith(MockitoJUnitRunner.class)
 public class RefundServiceTest {
@@ -92,6 +97,8 @@ public class RefundServiceTest {
     @Mock
     private RefundDao mockRefundDao;
     @Mock
+    private RefundSummaryDao mockRefundSummaryDao;
+    @Mock
     private PaymentProviders mockProviders;
     @Mock
     private PaymentProvider mockProvider;
@@ -106,9 +113,9 @@ public class RefundServiceTest {
     public void setUp() {
         refundId = ThreadLocalRandom.current().nextLong();
         when(mockProviders.byName(any(PaymentGatewayName.class))).thenReturn(mockProvider);
-        when(mockProvider.getExternalChargeRefundAvailability(any(Charge.class), any(List.class))).thenReturn(EXTERNAL_AVAILABLE);
+        when(mockProvider.getExternalChargeRefundAvailability(any(Charge.class), any(RefundSummary.class))).thenReturn(EXTERNAL_AVAILABLE);
         refundService = new RefundService(
-                mockRefundDao, mockGatewayAccountDao, mockProviders, mockUserNotificationService, mockStateTransitionService, mockLedgerService
+                mockRefundDao, mockRefundSummaryDao, mockGatewayAccountDao, mockProviders, mockUserNotificationService, mockStateTransitionService, mockLedgerService
         );
     }
 
@@ -548,7 +555,7 @@ public class RefundServiceTest {
     }
 
     @Test
-    public void shouldFailWhenANewRefundHasBeenCreatedSincePreviouslyQueried() {
+    public void shouldFailWhenStoredRefundSummaryLeavesADifferentAmountAvailable() {
         String externalChargeId = "chargeId";
         Long accountId = 2L;
         GatewayAccountEntity account = new GatewayAccountEntity("sandbox", newHashMap(), TEST);
@@ -562,12 +569,38 @@ public class RefundServiceTest {
                 .build();
 
         when(mockGatewayAccountDao.findById(accountId)).thenReturn(Optional.of(account));
+        when(mockRefundSummaryDao.lock(externalChargeId)).thenReturn(Optional.of(new RefundSummary(100L, 200L)));
+
+        RefundException refundException = assertThrows(RefundException.class,
+                () -> refundService.doRefund(accountId, Charge.from(chargeEntity), new RefundRequest(100L, 800L, userExternalId)));
+        assertThat(refundException.getMessage(), is("HTTP 412 Precondition Failed"));
+
+        verify(mockRefundSummaryDao, never()).initialise(anyString(), any(RefundSummary.class));
+        verify(mockRefundDao, never()).findRefundsByChargeExternalId(anyString());
+        verify(mockRefundDao, never()).persist(any(RefundEntity.class));
+    }
 
-        RefundEntity refundExpungedSinceWeFirstChecked = aValidRefundEntity()
+    @Test
+    public void shouldInitialiseRefundSummaryFromRefundsIncludingExpungedRefundsWhenNoneIsStored() {
+        String externalChargeId = "chargeId";
+        Long accountId = 2L;
+        GatewayAccountEntity account = new GatewayAccountEntity("sandbox", newHashMap(), TEST);
+        account.setId(accountId);
+        ChargeEntity chargeEntity = aValidChargeEntity()
+                .withAmount(1000L)
+                .withExternalId(externalChargeId)
+                .withGatewayAccountEntity(account)
+                .withTransactionId("transactionId")
+                .withStatus(AUTHORISATION_SUCCESS)
+                .build();
+
+        when(mockGatewayAccountDao.findById(accountId)).thenReturn(Optional.of(account));
+
+        RefundEntity refundInDatabase = aValidRefundEntity()
                 .withAmount(100L)
                 .withExternalId("refund1")
                 .withChargeExternalId(externalChargeId)
-                .withStatus(REFUNDED)
+                .withStatus(CREATED)
                 .build();
 
         LedgerTransaction refundObtainedFromLedger = aValidLedgerTransaction()
@@ -577,34 +610,20 @@ public class RefundServiceTest {
                 .withStatus(REFUNDED.toExternal().getStatus())
                 .build();
 
-        RefundEntity newlyCreatedRefund = aValidRefundEntity()
-                .withAmount(100L)
-                .withExternalId("refund3")
-                .withChargeExternalId(externalChargeId)
-                .withStatus(CREATED)
-                .build();
-
-        // The second time we query, return a different list of refunds containing a new refund and not containing the
-        // first refund, which has since been expunged. Both refunds are for the same amount to ensure that we are
-        // still including the newly expunged refund in the calculation.
-        when(mockRefundDao.findRefundsByChargeExternalId(chargeEntity.getExternalId()))
-                .thenReturn(List.of(refundExpungedSinceWeFirstChecked))
-                .thenReturn(List.of(newlyCreatedRefund));
-
+        when(mockRefundDao.findRefundsByChargeExternalId(externalChargeId)).thenReturn(List.of(refundInDatabase));
         var refundTransactionsForPayment = aValidRefundTransactionsForPayment()
                 .withTransactions(List.of(refundObtainedFromLedger))
                 .withParentTransactionId(externalChargeId).build();
         when(mockLedgerService.getRefundsForPayment(accountId, externalChargeId)).thenReturn(refundTransactionsForPayment);
 
-        expectedException.expect(RefundException.class);
-        expectedException.expectMessage("HTTP 412 Precondition Failed");
-
         Charge charge = Charge.from(chargeEntity);
         charge.setHistoric(true);
-        refundService.doRefund(accountId, charge, new RefundRequest(100L, 800L, userExternalId));
+        assertThrows(RefundException.class,
+                () -> refundService.doRefund(accountId, charge, new RefundRequest(100L, 900L, userExternalId)));
 
-        verify(mockChargeDao).findByExternalIdAndGatewayAccount(externalChargeId, accountId);
-        verifyNoMoreInteractions(mockChargeDao, mockRefundDao);
+        verify(mockRefundSummaryDao).lock(externalChargeId);
+        verify(mockRefundSummaryDao).initialise(externalChargeId, new RefundSummary(100L, 100L));
+        verify(mockRefundDao, never()).persist(any(RefundEntity.class));
     }
 
     @Test
@@ -668,6 +687,44 @@ public class RefundServiceTest {
         verify(mockStateTransitionService).offerRefundStateTransition(refundEntity, CREATED);
     }
 
+    @Test
+    public void shouldAddToRefundSummaryAmountsWhenRefundStateChanges() {
+        ChargeEntity charge = aValidChargeEntity().build();
+        RefundEntity refundEntity = aValidRefundEntity()
+                .withAmount(100L)
+                .withChargeExternalId(charge.getExternalId())
+                .withStatus(REFUND_SUBMITTED)
+                .build();
+
+        refundService.transitionRefundState(refundEntity, charge.getGatewayAccount(), REFUNDED);
+
+        verify(mockRefundSummaryDao).addToAmounts(charge.getExternalId(), -100L, 100L);
+    }
+
+    @Test
+    public void shouldNotUpdateRefundSummaryWhenRefundStateChangeDoesNotAffectAmounts() {
+        ChargeEntity charge = aValidChargeEntity().build();
+        RefundEntity refundEntity = aValidRefundEntity()
+                .withAmount(100L)
+                .withChargeExternalId(charge.getExternalId())
+                .withStatus(CREATED)
+                .build();
+
+        refundService.transitionRefundState(refundEntity, charge.getGatewayAccount(), REFUND_SUBMITTED);
+
+        verify(mockRefundSummaryDao, never()).addToAmounts(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldFindStoredRefundSummaryWithoutLookingUpRefunds() {
+        Charge charge = Charge.from(aValidChargeEntity().build());
+        when(mockRefundSummaryDao.find(charge.getExternalId())).thenReturn(Optional.of(new RefundSummary(50L, 150L)));
+
+        assertThat(refundService.findRefundSummary(charge), is(new RefundSummary(50L, 150L)));
+
+        verify(mockRefundDao, never()).findRefundsByChargeExternalId(anyString());
+    }
+
     @Test
     public void shouldFindRefundsGivenValidNotHistoricCharge() {
         Charge charge = Charge.from(aValidChargeEntity().build());
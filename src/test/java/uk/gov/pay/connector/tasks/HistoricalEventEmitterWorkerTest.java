@@ -6,6 +6,8 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.EventEmitterConfig;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.model.CardDetailsEntity;
 import uk.gov.pay.connector.charge.model.LastDigitsCardNumber;
@@ -44,13 +46,15 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.mockito.AdditionalMatchers.and;
-import static org.mockito.AdditionalMatchers.geq;
-import static org.mockito.AdditionalMatchers.leq;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNotNull;
 import static org.mockito.Mockito.atMostOnce;
 import static org.mockito.Mockito.mock;
@@ -78,13 +82,23 @@ public class HistoricalEventEmitterWorkerTest {
     @Mock
     RefundDao refundDao;
 
+    @Mock
+    ConnectorConfiguration connectorConfiguration;
+    @Mock
+    EventEmitterConfig eventEmitterConfig;
+
+    private static final int PAGE_SIZE = 100;
+
     HistoricalEventEmitterWorker worker;
     private ChargeEntity chargeEntity;
 
     @Before
     public void setUp() {
+        when(connectorConfiguration.getEventEmitterConfig()).thenReturn(eventEmitterConfig);
+        when(eventEmitterConfig.getIdRangePageSize()).thenReturn(PAGE_SIZE);
+        when(eventEmitterConfig.getIdRangeNumberOfThreads()).thenReturn(1);
         worker = new HistoricalEventEmitterWorker(chargeDao, refundDao, chargeEventDao, emittedEventDao,
-                stateTransitionService, eventService, chargeService);
+                stateTransitionService, eventService, chargeService, connectorConfiguration);
         CardDetailsEntity cardDetails = mock(CardDetailsEntity.class);
         when(cardDetails.getLastDigitsCardNumber()).thenReturn(LastDigitsCardNumber.of("1234"));
         chargeEntity = ChargeEntityFixture
@@ -102,7 +116,7 @@ public class HistoricalEventEmitterWorkerTest {
     @Test
     public void executeEmitsEventAndRecordsEmission() {
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, OptionalLong.empty(), 1L);
 
@@ -112,13 +126,13 @@ public class HistoricalEventEmitterWorkerTest {
 
         assertThat(argument.getAllValues().get(0).getStateTransitionEventClass(), is(PaymentCreated.class));
 
-        verify(chargeDao, never()).findById(2L);
+        verify(chargeDao, never()).findByIdRange(eq(1L), anyLong(), anyInt());
     }
 
     @Test
     public void executeShouldNotProcessIfNoEventsFound() {
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         chargeEntity.getEvents().clear();
 
@@ -128,23 +142,28 @@ public class HistoricalEventEmitterWorkerTest {
     }
 
     @Test
-    public void iteratesThroughSpecifiedRange() {
-        when(chargeDao.findById((any()))).thenReturn(Optional.of(chargeEntity));
-
-        worker.execute(1L, OptionalLong.of(100L), 1L);
-
-        verify(chargeDao, times(100)).findById(and(geq(1L), leq(100L)));
-        verify(stateTransitionService, times(100)).offerStateTransition(any(), any(), isNotNull());
+    public void iteratesThroughSpecifiedRangeInPages() {
+        List<ChargeEntity> firstPage = chargesWithIds(1, PAGE_SIZE);
+        List<ChargeEntity> secondPage = chargesWithIds(PAGE_SIZE + 1, 150);
+        when(chargeDao.findByIdRange(0L, 150L, PAGE_SIZE)).thenReturn(firstPage);
+        when(chargeDao.findByIdRange((long) PAGE_SIZE, 150L, PAGE_SIZE)).thenReturn(secondPage);
+
+        worker.execute(1L, OptionalLong.of(150L), 1L);
+
+        verify(chargeDao, times(2)).findByIdRange(anyLong(), eq(150L), eq(PAGE_SIZE));
+        verify(chargeDao, never()).findById(any());
+        verify(stateTransitionService, times(150)).offerStateTransition(any(), any(), isNotNull());
+        assertThat(worker.getLastCheckpointedId(), is(OptionalLong.of(150L)));
     }
 
     @Test
     public void executeShouldNotEmitEventIfEmittedPreviously() {
-        when(chargeDao.findById((any()))).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
         when(emittedEventDao.hasBeenEmittedBefore(any())).thenReturn(true);
 
         worker.execute(1L, OptionalLong.of(1L), 1L);
 
-        verify(chargeDao, times(1)).findById(1L);
+        verify(chargeDao, times(1)).findByIdRange(0L, 1L, PAGE_SIZE);
         verify(stateTransitionService, never()).offerStateTransition(any(), any(), any());
     }
 
@@ -159,7 +178,7 @@ public class HistoricalEventEmitterWorkerTest {
         chargeEntity.getEvents().add(secondChargeEventEntity);
 
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, OptionalLong.empty(), 1L);
 
@@ -188,7 +207,7 @@ public class HistoricalEventEmitterWorkerTest {
         chargeEntity.getEvents().add(secondEvent);
 
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, OptionalLong.empty(), 1L);
 
@@ -206,7 +225,7 @@ public class HistoricalEventEmitterWorkerTest {
         chargeEntity.getEvents().add(firstEvent);
 
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, OptionalLong.empty(), 1L);
 
@@ -231,7 +250,7 @@ public class HistoricalEventEmitterWorkerTest {
         chargeEntity.getEvents().add(secondEvent);
 
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, OptionalLong.empty(), 1L);
 
@@ -249,7 +268,7 @@ public class HistoricalEventEmitterWorkerTest {
         chargeEntity.getEvents().add(firstEvent);
 
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, OptionalLong.empty(), 1L);
 
@@ -284,7 +303,7 @@ public class HistoricalEventEmitterWorkerTest {
         chargeEntity.getEvents().add(captureSubmittedEvent);
 
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, OptionalLong.empty(), 1L);
 
@@ -316,7 +335,7 @@ public class HistoricalEventEmitterWorkerTest {
         chargeEntity.setEmail(null);
 
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, OptionalLong.empty(), 1L);
 
@@ -340,10 +359,9 @@ public class HistoricalEventEmitterWorkerTest {
                 .build();
 
         chargeEntity.getEvents().clear();
-        when(refundDao.searchAllHistoryByChargeExternalId(chargeEntity.getExternalId())).thenReturn(List.of(refundHistory));
+        when(refundDao.searchAllHistoryByChargeExternalIds(List.of(chargeEntity.getExternalId()))).thenReturn(List.of(refundHistory));
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
-        when(chargeService.findCharge(chargeEntity.getExternalId())).thenReturn(Optional.of(Charge.from(chargeEntity)));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, OptionalLong.empty(), 1L);
 
@@ -353,6 +371,8 @@ public class HistoricalEventEmitterWorkerTest {
         assertThat(argument.getAllValues().get(0).getStateTransitionEventClass(), is(RefundCreatedByService.class));
 
         verify(emittedEventDao, atMostOnce()).recordEmission(any(), isNotNull());
+        verify(refundDao, never()).searchAllHistoryByChargeExternalId(any());
+        verify(chargeService, never()).findCharge(any());
     }
 
     @Test
@@ -381,7 +401,7 @@ public class HistoricalEventEmitterWorkerTest {
         chargeEntity.getEvents().add(thirdEvent);
 
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, OptionalLong.empty(), 1L);
 
@@ -409,8 +429,8 @@ public class HistoricalEventEmitterWorkerTest {
         chargeEntity.getEvents().add(firstEvent);
         chargeEntity.getEvents().add(secondEvent);
 
-        when(chargeDao.findById(any())).thenReturn(Optional.of(chargeEntity));
-        when(chargeEventDao.findChargeEvents(eventDate, eventDate, 1, 100)).thenReturn(chargeEventEntities);
+        when(chargeDao.findByIdsWithEventsAndFee(List.of(chargeEntity.getId()))).thenReturn(List.of(chargeEntity));
+        when(chargeEventDao.findChargeEvents(eventDate, eventDate, null, 100)).thenReturn(chargeEventEntities);
 
         worker.executeForDateRange(eventDate, eventDate, 1L);
 
@@ -429,9 +449,9 @@ public class HistoricalEventEmitterWorkerTest {
         RefundHistory refundHistory2 = getRefundHistoryEntity(chargeEntity, RefundStatus.REFUNDED);
 
         chargeEntity.getEvents().clear();
-        when(chargeService.findCharge(chargeEntity.getExternalId())).thenReturn(Optional.of(Charge.from(chargeEntity)));
-        when(refundDao.getRefundHistoryByDateRange(eventDate, eventDate, 1, 100)).thenReturn(List.of(refundHistory));
-        when(refundDao.searchAllHistoryByChargeExternalId(chargeEntity.getExternalId())).thenReturn(List.of(refundHistory, refundHistory2));
+        when(chargeDao.findByExternalIds(List.of(chargeEntity.getExternalId()))).thenReturn(List.of(chargeEntity));
+        when(refundDao.getRefundHistoryByDateRange(eventDate, eventDate, null, 100)).thenReturn(List.of(refundHistory, refundHistory2));
+        when(refundDao.searchAllHistoryByChargeExternalIds(List.of(chargeEntity.getExternalId()))).thenReturn(List.of(refundHistory, refundHistory2));
 
         worker.executeForDateRange(eventDate, eventDate, 1L);
 
@@ -440,6 +460,52 @@ public class HistoricalEventEmitterWorkerTest {
 
         assertThat(argument.getAllValues().get(0).getStateTransitionEventClass(), is(RefundCreatedByService.class));
         assertThat(argument.getAllValues().get(1).getStateTransitionEventClass(), is(RefundSucceeded.class));
+        verify(refundDao, never()).searchAllHistoryByChargeExternalId(any());
+        verify(chargeService, never()).findCharge(any());
+    }
+
+    @Test
+    public void executeForDateRange_ShouldLookUpAChargeInLedgerOnlyWhenItIsNotInConnector() {
+        ZonedDateTime eventDate = ZonedDateTime.parse("2016-01-01T00:00:00Z");
+
+        RefundHistory refundHistory = getRefundHistoryEntity(chargeEntity, RefundStatus.CREATED);
+
+        chargeEntity.getEvents().clear();
+        when(chargeService.findCharge(chargeEntity.getExternalId())).thenReturn(Optional.of(Charge.from(chargeEntity)));
+        when(refundDao.getRefundHistoryByDateRange(eventDate, eventDate, null, 100)).thenReturn(List.of(refundHistory));
+        when(refundDao.searchAllHistoryByChargeExternalIds(List.of(chargeEntity.getExternalId()))).thenReturn(List.of(refundHistory));
+
+        worker.executeForDateRange(eventDate, eventDate, 1L);
+
+        ArgumentCaptor<StateTransition> argument = ArgumentCaptor.forClass(StateTransition.class);
+        verify(stateTransitionService).offerStateTransition(argument.capture(), any(), isNotNull());
+
+        assertThat(argument.getValue().getStateTransitionEventClass(), is(RefundCreatedByService.class));
+    }
+
+    @Test
+    public void executeForDateRange_ShouldCarryOnWithTheOtherChargesOfAPageWhenOneFails() {
+        ZonedDateTime eventDate = ZonedDateTime.parse("2016-01-01T00:00:00Z");
+        ChargeEntity failingCharge = mock(ChargeEntity.class);
+        when(failingCharge.getExternalId()).thenReturn("failing-charge");
+        when(failingCharge.getEvents()).thenThrow(new IllegalStateException("events could not be read"));
+
+        ChargeEventEntity failingChargeEvent = getChargeEventEntity(failingCharge, ChargeStatus.CREATED, eventDate);
+        ChargeEventEntity chargeEvent = getChargeEventEntity(chargeEntity, ChargeStatus.CREATED, eventDate);
+        chargeEntity.getEvents().clear();
+        chargeEntity.getEvents().add(chargeEvent);
+
+        when(failingCharge.getId()).thenReturn(1L);
+        when(chargeEventDao.findChargeEvents(eventDate, eventDate, null, 100)).thenReturn(List.of(failingChargeEvent, chargeEvent));
+        when(chargeDao.findByIdsWithEventsAndFee(List.of(1L, chargeEntity.getId())))
+                .thenReturn(List.of(failingCharge, chargeEntity));
+
+        worker.executeForDateRange(eventDate, eventDate, 1L);
+
+        ArgumentCaptor<StateTransition> argument = ArgumentCaptor.forClass(StateTransition.class);
+        verify(stateTransitionService).offerStateTransition(argument.capture(), any(), isNotNull());
+
+        assertThat(argument.getValue().getStateTransitionEventClass(), is(PaymentCreated.class));
     }
 
     @Test
@@ -494,4 +560,18 @@ public class HistoricalEventEmitterWorkerTest {
                 .withChargeStatus(status)
                 .build();
     }
+
+    private List<ChargeEntity> chargesWithIds(long firstId, long lastId) {
+        return LongStream.rangeClosed(firstId, lastId)
+                .mapToObj(id -> {
+                    ChargeEntity charge = ChargeEntityFixture.aValidChargeEntity().withId(id).build();
+                    charge.getEvents().add(ChargeEventEntityFixture.aValidChargeEventEntity()
+                            .withTimestamp(ZonedDateTime.ofInstant(charge.getCreatedDate(), ZoneOffset.UTC))
+                            .withCharge(charge)
+                            .withChargeStatus(ChargeStatus.CREATED)
+                            .build());
+                    return charge;
+                })
+                .collect(Collectors.toList());
+    }
 }
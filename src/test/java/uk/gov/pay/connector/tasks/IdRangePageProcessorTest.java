@@ -0,0 +1,79 @@
+package uk.gov.pay.connector.tasks;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThrows;
+
+public class IdRangePageProcessorTest {
+
+    @Test
+    public void shouldProcessEveryIdInRangeOnceInPagesOnOneThread() {
+        Set<Long> existingIds = Set.of(3L, 4L, 9L, 10L, 11L);
+        Set<Long> processedIds = ConcurrentHashMap.newKeySet();
+        List<Long> checkpoints = new CopyOnWriteArrayList<>();
+
+        long processedUpTo = new IdRangePageProcessor(2, 1, "test-%d")
+                .process(1L, 10L, pageHandler(existingIds, processedIds), checkpoints::add);
+
+        assertThat(processedUpTo, is(10L));
+        assertThat(processedIds, is(Set.of(3L, 4L, 9L, 10L)));
+        assertThat(checkpoints, contains(4L, 10L));
+    }
+
+    @Test
+    public void shouldProcessEveryIdInRangeOnceAcrossThreadsAndOnlyCheckpointContiguousSegments() {
+        Set<Long> existingIds = LongStream.rangeClosed(1, 1000).filter(id -> id % 7 != 0).boxed().collect(Collectors.toSet());
+        Set<Long> processedIds = ConcurrentHashMap.newKeySet();
+        List<Long> checkpoints = new CopyOnWriteArrayList<>();
+
+        long processedUpTo = new IdRangePageProcessor(5, 4, "test-%d")
+                .process(1L, 1000L, pageHandler(existingIds, processedIds), checkpoints::add);
+
+        assertThat(processedUpTo, is(1000L));
+        assertThat(processedIds, is(existingIds));
+        for (int i = 1; i < checkpoints.size(); i++) {
+            assertThat(checkpoints.get(i - 1) <= checkpoints.get(i), is(true));
+        }
+        assertThat(checkpoints.get(checkpoints.size() - 1), is(1000L));
+    }
+
+    @Test
+    public void shouldNotCheckpointBeyondAFailedSegment() {
+        List<Long> checkpoints = new CopyOnWriteArrayList<>();
+        IdRangePageProcessor.PageHandler failingPageHandler = (afterId, maxId, pageSize) -> {
+            if (afterId >= 100) {
+                throw new IllegalStateException("page failed");
+            }
+            return List.of();
+        };
+
+        assertThrows(IllegalStateException.class, () -> new IdRangePageProcessor(5, 2, "test-%d")
+                .process(1L, 1000L, failingPageHandler, checkpoints::add));
+
+        assertThat(checkpoints, everyItem(lessThan(101L)));
+    }
+
+    private static IdRangePageProcessor.PageHandler pageHandler(Set<Long> existingIds, Set<Long> processedIds) {
+        return (afterId, maxId, pageSize) -> {
+            List<Long> page = existingIds.stream()
+                    .filter(id -> id > afterId && id <= maxId)
+                    .sorted()
+                    .limit(pageSize)
+                    .collect(Collectors.toList());
+            page.forEach(id -> assertThat("processed twice: " + id, processedIds.add(id), is(true)));
+            return page;
+        };
+    }
+}
@@ -28,6 +28,7 @@ import uk.gov.pay.connector.tasks.service.ParityCheckService;
 import uk.gov.pay.connector.tasks.service.RefundParityChecker;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -48,6 +49,7 @@ import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CAPTURE_SUBM
 import static uk.gov.pay.connector.charge.model.domain.ChargeStatus.CREATED;
 import static uk.gov.pay.connector.charge.model.domain.ParityCheckStatus.DATA_MISMATCH;
 import static uk.gov.pay.connector.charge.model.domain.ParityCheckStatus.EXISTS_IN_LEDGER;
+import static uk.gov.pay.connector.charge.model.domain.ParityCheckStatus.MISSING_IN_LEDGER;
 import static uk.gov.pay.connector.model.domain.LedgerTransactionFixture.from;
 import static uk.gov.pay.connector.pact.ChargeEventEntityFixture.aValidChargeEventEntity;
 import static uk.gov.pay.connector.refund.model.domain.RefundStatus.REFUNDED;
@@ -118,6 +120,22 @@ public class ParityCheckServiceTest {
         assertThat(chargeAndRefundsParityCheckStatus, is(EXISTS_IN_LEDGER));
     }
 
+    @Test
+    public void chargeAndRefundsParityCheckStatuses_shouldLookUpChargeAndRefundTransactionsTogetherWhenLookupsAreConcurrent() {
+        LedgerTransaction transaction = from(chargeEntity, refundEntities)
+                .build();
+        when(mockLedgerService.getMaxConcurrentRequests()).thenReturn(4);
+        when(mockRefundService.findNotExpungedRefunds(chargeEntity.getExternalId())).thenReturn(List.of(refundEntity));
+        when(mockLedgerService.getTransactions(List.of(chargeEntity.getExternalId(), refundEntity.getExternalId())))
+                .thenReturn(Map.of(chargeEntity.getExternalId(), Optional.of(transaction),
+                        refundEntity.getExternalId(), Optional.empty()));
+
+        Map<String, ParityCheckStatus> parityCheckStatuses = parityCheckService.getChargeAndRefundsParityCheckStatuses(List.of(chargeEntity));
+
+        assertThat(parityCheckStatuses.get(chargeEntity.getExternalId()), is(MISSING_IN_LEDGER));
+        verify(mockLedgerService, never()).getTransaction(any());
+    }
+
     @Test
     public void parityCheckChargeForExpunger_shouldBackfillChargeIfParityCheckFails() {
         LedgerTransaction transaction = from(chargeEntity, refundEntities)
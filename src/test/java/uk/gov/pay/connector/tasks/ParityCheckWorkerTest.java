@@ -6,6 +6,9 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.slf4j.MDC;
+import uk.gov.pay.connector.app.ConnectorConfiguration;
+import uk.gov.pay.connector.app.config.EventEmitterConfig;
 import uk.gov.pay.connector.charge.dao.ChargeDao;
 import uk.gov.pay.connector.charge.model.domain.Charge;
 import uk.gov.pay.connector.charge.model.domain.ChargeEntity;
@@ -35,12 +38,18 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -58,6 +67,7 @@ import static uk.gov.pay.connector.model.domain.RefundEntityFixture.aValidRefund
 import static uk.gov.pay.connector.pact.RefundHistoryEntityFixture.aValidRefundHistoryEntity;
 import static uk.gov.pay.connector.refund.model.domain.RefundStatus.CREATED;
 import static uk.gov.pay.connector.wallets.WalletType.APPLE_PAY;
+import static uk.gov.service.payments.logging.LoggingKeys.PAYMENT_EXTERNAL_ID;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ParityCheckWorkerTest {
@@ -86,6 +96,13 @@ public class ParityCheckWorkerTest {
     @InjectMocks
     ChargeParityChecker chargeParityChecker;
 
+    @Mock
+    private ConnectorConfiguration connectorConfiguration;
+    @Mock
+    private EventEmitterConfig eventEmitterConfig;
+
+    private static final int PAGE_SIZE = 100;
+
     private ParityCheckWorker worker;
     private ChargeEntity chargeEntity;
     private RefundEntity refundEntity;
@@ -101,8 +118,12 @@ public class ParityCheckWorkerTest {
         parityCheckService = new ParityCheckService(ledgerService, chargeService, historicalEventEmitter,
                 chargeParityChecker, refundParityChecker, refundService);
 
+        when(connectorConfiguration.getEventEmitterConfig()).thenReturn(eventEmitterConfig);
+        when(eventEmitterConfig.getIdRangePageSize()).thenReturn(PAGE_SIZE);
+        when(eventEmitterConfig.getIdRangeNumberOfThreads()).thenReturn(1);
         worker = new ParityCheckWorker(chargeDao, chargeService, emittedEventDao,
-                stateTransitionService, eventService, refundService, refundDao, parityCheckService);
+                stateTransitionService, eventService, refundService, refundDao, parityCheckService,
+                connectorConfiguration);
         chargeEntity = aValidChargeEntity()
                 .withCardDetails(defaultCardDetails())
                 .withGatewayAccountEntity(defaultGatewayAccountEntity())
@@ -136,7 +157,7 @@ public class ParityCheckWorkerTest {
     public void executeSkipsParityCheckForAlreadyCheckedChargesExistingInLedger() {
         chargeEntity.updateParityCheck(ParityCheckStatus.EXISTS_IN_LEDGER);
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
 
         worker.execute(1L, Optional.empty(), true,
                 emptyParityCheckStatus, null);
@@ -144,13 +165,13 @@ public class ParityCheckWorkerTest {
         verify(chargeService, never()).updateChargeParityStatus(any(), any());
         verify(stateTransitionService, never()).offerStateTransition(any(), any(), any());
         verify(emittedEventDao, never()).recordEmission(any(), any());
-        verify(chargeDao, never()).findById(2L);
+        verify(chargeDao, never()).findByIdRange(eq(1L), anyLong(), anyInt());
     }
 
     @Test
     public void executeRecordsParityStatusForChargesExistingInLedger() {
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
         when(ledgerService.getTransaction(chargeEntity.getExternalId())).thenReturn(Optional.of(from(chargeEntity, null).build()));
 
         worker.execute(1L, Optional.empty(), doNotReprocessValidRecords, emptyParityCheckStatus, 1L);
@@ -158,7 +179,28 @@ public class ParityCheckWorkerTest {
         verify(chargeService, times(1)).updateChargeParityStatus(chargeEntity.getExternalId(), ParityCheckStatus.EXISTS_IN_LEDGER);
         verify(stateTransitionService, never()).offerStateTransition(any(), any(), any());
         verify(emittedEventDao, never()).recordEmission(any(), any());
-        verify(chargeDao, never()).findById(2L);
+        verify(chargeDao, never()).findByIdRange(eq(1L), anyLong(), anyInt());
+    }
+
+    @Test
+    public void executeCarriesOnWithTheRestOfThePageWhenRecordingTheStatusOfOneChargeFails() {
+        ChargeEntity failingCharge = aValidChargeEntity()
+                .withId(1L)
+                .withGatewayAccountEntity(defaultGatewayAccountEntity())
+                .build();
+        chargeEntity.setId(2L);
+        when(chargeDao.findMaxId()).thenReturn(2L);
+        when(chargeDao.findByIdRange(0L, 2L, PAGE_SIZE)).thenReturn(List.of(failingCharge, chargeEntity));
+        when(ledgerService.getTransaction(any())).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("could not update charge"))
+                .when(chargeService).updateChargeParityStatus(failingCharge.getExternalId(), MISSING_IN_LEDGER);
+
+        worker.execute(1L, Optional.empty(), doNotReprocessValidRecords, emptyParityCheckStatus, 1L);
+
+        verify(chargeService).updateChargeParityStatus(chargeEntity.getExternalId(), MISSING_IN_LEDGER);
+        verify(stateTransitionService, times(1)).offerStateTransition(any(), any(), notNull());
+        assertThat(MDC.get(PAYMENT_EXTERNAL_ID), is(nullValue()));
+        assertThat(worker.getLastCheckpointedId(), is(OptionalLong.of(2L)));
     }
 
     @Test
@@ -166,7 +208,7 @@ public class ParityCheckWorkerTest {
         RefundEntity refundEntity = aValidRefundEntity().build();
         chargeEntity.setStatus(ChargeStatus.EXPIRED);
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
         when(refundService.findNotExpungedRefunds(chargeEntity.getExternalId())).thenReturn(List.of(refundEntity));
         when(refundService.findRefunds(Charge.from(chargeEntity))).thenReturn(List.of(Refund.from(refundEntity)));
         when(ledgerService.getTransaction(chargeEntity.getExternalId())).thenReturn(Optional.of(from(chargeEntity, null).build()));
@@ -186,13 +228,13 @@ public class ParityCheckWorkerTest {
         verify(ledgerService, times(1)).getTransaction(chargeEntity.getExternalId());
         verify(stateTransitionService, never()).offerStateTransition(any(), any(), any());
         verify(emittedEventDao, never()).recordEmission(any(), any());
-        verify(chargeDao, never()).findById(2L);
+        verify(chargeDao, never()).findByIdRange(eq(1L), anyLong(), anyInt());
     }
 
     @Test
     public void executeRecordsParityStatusForChargeWithDifferentStatusInLedger() {
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
         when(ledgerService.getTransaction(chargeEntity.getExternalId())).thenReturn(Optional.of(aValidLedgerTransaction().withStatus("started").build()));
 
         worker.execute(1L, Optional.empty(), doNotReprocessValidRecords, emptyParityCheckStatus, 1L);
@@ -208,7 +250,7 @@ public class ParityCheckWorkerTest {
         when(chargeDao.findMaxId()).thenReturn(1L);
         when(refundService.findNotExpungedRefunds(chargeEntity.getExternalId()))
                 .thenReturn(List.of(aValidRefundEntity().build(), aValidRefundEntity().build()));
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
         when(ledgerService.getTransaction(any())).thenReturn(Optional.empty());
         when(ledgerService.getTransaction(chargeEntity.getExternalId())).thenReturn(Optional.of(from(chargeEntity, null).build()));
 
@@ -224,7 +266,7 @@ public class ParityCheckWorkerTest {
         when(chargeDao.findMaxId()).thenReturn(1L);
         when(refundService.findNotExpungedRefunds(chargeEntity.getExternalId()))
                 .thenReturn(List.of(aValidRefundEntity().build(), aValidRefundEntity().build()));
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
         when(ledgerService.getTransaction(any())).thenReturn(Optional.of(
                 aValidLedgerTransaction().withStatus("failed").build()));
         when(ledgerService.getTransaction(chargeEntity.getExternalId())).thenReturn(Optional.of(from(chargeEntity, null).build()));
@@ -239,7 +281,7 @@ public class ParityCheckWorkerTest {
     @Test
     public void executeEmitsEventAndRecordsEmission() {
         when(chargeDao.findMaxId()).thenReturn(1L);
-        when(chargeDao.findById(1L)).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
         when(ledgerService.getTransaction(chargeEntity.getExternalId())).thenReturn(Optional.empty());
 
         worker.execute(1L, Optional.empty(), doNotReprocessValidRecords, emptyParityCheckStatus,
@@ -253,7 +295,7 @@ public class ParityCheckWorkerTest {
 
     @Test
     public void executeShouldEmitEventIfEmittedPreviously() {
-        when(chargeDao.findById((any()))).thenReturn(Optional.of(chargeEntity));
+        when(chargeDao.findByIdRange(0L, 1L, PAGE_SIZE)).thenReturn(List.of(chargeEntity));
         when(ledgerService.getTransaction(chargeEntity.getExternalId())).thenReturn(Optional.empty());
 
         worker.execute(1L, Optional.of(1L), doNotReprocessValidRecords, emptyParityCheckStatus, 120L);
@@ -0,0 +1,146 @@
+package uk.gov.pay.connector.util;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.pay.connector.app.config.ReverseDnsLookupConfig;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingReverseDnsLookupTest {
+
+    private static final String WORLDPAY_IP_ADDRESS = "195.35.90.1";
+    private static final String WORLDPAY_HOST = "hello.worldpay.com.";
+    private static final String UNKNOWN_IP_ADDRESS = "10.0.0.1";
+    private static final int TIMEOUT_IN_MILLIS = 1000;
+    private static final int CACHE_TTL_IN_SECONDS = 300;
+    private static final int NEGATIVE_CACHE_TTL_IN_SECONDS = 30;
+
+    @Mock
+    private ReverseDnsLookupConfig config;
+
+    @Mock
+    private Clock clock;
+
+    private Instant now = Instant.parse("2020-01-01T10:00:00Z");
+    private StubDnsServer dnsServer;
+    private ExecutorService executorService = Executors.newFixedThreadPool(4);
+    private MetricRegistry metricRegistry = new MetricRegistry();
+    private CachingReverseDnsLookup cachingReverseDnsLookup;
+
+    @Before
+    public void setUp() throws Exception {
+        dnsServer = new StubDnsServer();
+        dnsServer.addPointerRecord(WORLDPAY_IP_ADDRESS, WORLDPAY_HOST);
+
+        when(config.getTimeoutInMillis()).thenReturn(TIMEOUT_IN_MILLIS);
+        when(config.getCacheTtlInSeconds()).thenReturn(CACHE_TTL_IN_SECONDS);
+        when(config.getNegativeCacheTtlInSeconds()).thenReturn(NEGATIVE_CACHE_TTL_IN_SECONDS);
+        when(config.getCacheMaximumSize()).thenReturn(100);
+        when(clock.instant()).thenAnswer(invocation -> now);
+
+        cachingReverseDnsLookup = new CachingReverseDnsLookup(new ReverseDnsLookup(dnsServer.getUrl(), 5000),
+                config, executorService, metricRegistry, clock);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+        dnsServer.close();
+    }
+
+    @Test
+    public void shouldResolveHostFromDnsServer() {
+        assertThat(lookup(WORLDPAY_IP_ADDRESS), is(Optional.of(WORLDPAY_HOST)));
+        assertThat(dnsServer.getQueryCount(), is(1));
+        assertThat(metricRegistry.meter("reverse-dns.cache.miss").getCount(), is(1L));
+        assertThat(metricRegistry.timer("reverse-dns.lookup.response_time").getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldCacheHostUntilTtlExpires() {
+        lookup(WORLDPAY_IP_ADDRESS);
+        now = now.plusSeconds(CACHE_TTL_IN_SECONDS - 1);
+
+        assertThat(lookup(WORLDPAY_IP_ADDRESS), is(Optional.of(WORLDPAY_HOST)));
+        assertThat(dnsServer.getQueryCount(), is(1));
+        assertThat(metricRegistry.meter("reverse-dns.cache.hit").getCount(), is(1L));
+
+        now = now.plusSeconds(1);
+
+        assertThat(lookup(WORLDPAY_IP_ADDRESS), is(Optional.of(WORLDPAY_HOST)));
+        assertThat(dnsServer.getQueryCount(), is(2));
+        assertThat(metricRegistry.meter("reverse-dns.cache.miss").getCount(), is(2L));
+    }
+
+    @Test
+    public void shouldCacheFailedLookupUntilNegativeTtlExpires() {
+        assertThat(lookup(UNKNOWN_IP_ADDRESS), is(Optional.empty()));
+        now = now.plusSeconds(NEGATIVE_CACHE_TTL_IN_SECONDS - 1);
+
+        assertThat(lookup(UNKNOWN_IP_ADDRESS), is(Optional.empty()));
+        assertThat(dnsServer.getQueryCount(), is(1));
+
+        now = now.plusSeconds(1);
+
+        assertThat(lookup(UNKNOWN_IP_ADDRESS), is(Optional.empty()));
+        assertThat(dnsServer.getQueryCount(), is(2));
+    }
+
+    @Test
+    public void shouldShareOneQueryBetweenConcurrentLookupsOfTheSameIpAddress() throws Exception {
+        dnsServer.setDelayInMillis(300);
+        ExecutorService callers = Executors.newFixedThreadPool(10);
+        try {
+            List<Callable<Optional<String>>> lookups = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                lookups.add(() -> lookup(WORLDPAY_IP_ADDRESS));
+            }
+            for (Future<Optional<String>> result : callers.invokeAll(lookups)) {
+                assertThat(result.get(), is(Optional.of(WORLDPAY_HOST)));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(dnsServer.getQueryCount(), is(1));
+        assertThat(metricRegistry.meter("reverse-dns.cache.miss").getCount(), is(1L));
+        assertThat(metricRegistry.meter("reverse-dns.cache.hit").getCount(), is(9L));
+    }
+
+    @Test
+    public void shouldGiveUpWaitingAfterTimeoutAndCacheTheLateResult() throws Exception {
+        dnsServer.setDelayInMillis(TIMEOUT_IN_MILLIS + 500);
+
+        assertThat(lookup(WORLDPAY_IP_ADDRESS), is(Optional.empty()));
+        assertThat(metricRegistry.meter("reverse-dns.lookup.timeout").getCount(), is(1L));
+
+        for (int i = 0; i < 50 && metricRegistry.timer("reverse-dns.lookup.response_time").getCount() == 0; i++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(lookup(WORLDPAY_IP_ADDRESS), is(Optional.of(WORLDPAY_HOST)));
+        assertThat(dnsServer.getQueryCount(), is(1));
+    }
+
+    private Optional<String> lookup(String ipAddress) {
+        return cachingReverseDnsLookup.lookup(new DnsPointerResourceRecord(ipAddress));
+    }
+}
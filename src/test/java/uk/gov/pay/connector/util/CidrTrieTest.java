@@ -0,0 +1,96 @@
+package uk.gov.pay.connector.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CidrTrieTest {
+
+    private static final CidrTrie ALLOWED_CIDRS = CidrTrie.of(List.of(
+            "1.2.3.0/24", "9.9.9.9/32", "10.0.0.0/8", "10.1.2.0/24", "16.20.108.12", "2001:db8::/32", "2a00:1450:4009::1/128"));
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1.2.3.0", "1.2.3.255", "9.9.9.9", "10.255.0.1", "10.1.2.3", "16.20.108.12", " 1.2.3.4 ",
+            "2001:db8::", "2001:db8:ffff:ffff:ffff:ffff:ffff:ffff", "2001:DB8:0:0:0:0:0:1", "2a00:1450:4009::1",
+            "2a00:1450:4009:0:0:0:0:1"})
+    void shouldContainAddressesWithinRanges(String ipAddress) {
+        assertTrue(ALLOWED_CIDRS.contains(ipAddress));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1.2.4.0", "9.9.9.8", "11.0.0.0", "16.20.108.13", "2001:db9::", "2a00:1450:4009::2", "::", "::1"})
+    void shouldNotContainAddressesOutsideRanges(String ipAddress) {
+        assertFalse(ALLOWED_CIDRS.contains(ipAddress));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", " ", "1.2.3", "1.2.3.4.5", "1.2.3.256", "1.2.3.04", "1.2.x.1", "1.2.3.4.", "1..3.4",
+            "2001:db8::1::1", "2001:db8:::1", ":2001:db8::1", "2001:db8::1:", "2001:db8:0:0:0:0:0:0:1",
+            "2001:db8:0:0:0:0:0:0::", "2001:db8::12345", "2001:db8::g", "::ffff:1.2.3.4", "2001:db8::1%eth0"})
+    void shouldNotContainInvalidAddresses(String ipAddress) {
+        assertFalse(ALLOWED_CIDRS.contains(ipAddress));
+    }
+
+    @Test
+    void shouldCheckOnlyTheGivenCharacters() {
+        String forwardedIpAddresses = "1.2.3.4, 102.106.2.1";
+
+        assertTrue(ALLOWED_CIDRS.contains(forwardedIpAddresses, 0, forwardedIpAddresses.indexOf(',')));
+        assertFalse(ALLOWED_CIDRS.contains(forwardedIpAddresses, forwardedIpAddresses.indexOf(',') + 1, forwardedIpAddresses.length()));
+    }
+
+    @Test
+    void shouldMatchEverythingForAZeroLengthPrefix() {
+        CidrTrie allIpv4Addresses = CidrTrie.of(List.of("0.0.0.0/0"));
+
+        assertTrue(allIpv4Addresses.contains("255.255.255.255"));
+        assertFalse(allIpv4Addresses.contains("::1"));
+    }
+
+    @Test
+    void shouldHoldARangeInOneNodePerPrefixBitRatherThanOneEntryPerAddress() {
+        List<String> cidrs = List.of("10.20.0.0/16");
+
+        Set<String> expandedIpAddresses = CidrUtils.getIpAddresses(cidrs);
+        CidrTrie cidrTrie = CidrTrie.of(cidrs);
+
+        assertThat(expandedIpAddresses.size(), is(65536));
+        assertThat(cidrTrie.getNodeCount(), is(18));
+    }
+
+    @Test
+    void shouldNotAddNodesForRangesCoveredByWiderRanges() {
+        CidrTrie cidrTrie = CidrTrie.of(List.of("10.1.2.0/24", "10.1.2.3", "10.0.0.0/8"));
+
+        assertThat(cidrTrie.getNodeCount(), is(10));
+    }
+
+    @Test
+    void shouldBeEmptyForNoRanges() {
+        CidrTrie cidrTrie = CidrTrie.of(Collections.emptyList());
+
+        assertFalse(cidrTrie.contains("1.2.3.4"));
+        assertThat(cidrTrie.getNodeCount(), is(2));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1.2.3.0/33", "1.2.3.0/-1", "1.2.3.0/x", "1.2.3/24", "2001:db8::/129", "not-an-ip"})
+    void shouldRejectInvalidCidrs(String cidr) {
+        assertThrows(IllegalArgumentException.class, () -> CidrTrie.of(List.of(cidr)));
+    }
+
+    @Test
+    void shouldThrowNullPointerExceptionAfterAcceptingNullValue() {
+        assertThrows(NullPointerException.class, () -> CidrTrie.of(null));
+    }
+}
@@ -0,0 +1,71 @@
+package uk.gov.pay.connector.util;
+
+import org.eclipse.persistence.config.CacheIsolationType;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.descriptors.invalidation.TimeToLiveCacheInvalidationPolicy;
+import org.eclipse.persistence.sessions.DatabaseLogin;
+import org.eclipse.persistence.sessions.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import uk.gov.pay.connector.cardtype.model.domain.CardTypeEntity;
+import uk.gov.pay.connector.gatewayaccount.model.GatewayAccountEntity;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.pay.connector.util.ConnectorSessionCustomiser.SHARED_CACHE_SIZE_PROPERTY;
+import static uk.gov.pay.connector.util.ConnectorSessionCustomiser.SHARED_CACHE_TTL_MILLIS_PROPERTY;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConnectorSessionCustomiserTest {
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private DatabaseLogin datasourceLogin;
+
+    private final ConnectorSessionCustomiser customiser = new ConnectorSessionCustomiser();
+
+    @Before
+    public void setUp() {
+        when(session.getDatasourceLogin()).thenReturn(datasourceLogin);
+    }
+
+    @Test
+    public void shouldHoldGatewayAccountEntitiesInSharedCacheWhenConfigured() {
+        ClassDescriptor gatewayAccountDescriptor = mock(ClassDescriptor.class);
+        ClassDescriptor cardTypeDescriptor = mock(ClassDescriptor.class);
+        when(session.getProperty(SHARED_CACHE_SIZE_PROPERTY)).thenReturn("500");
+        when(session.getProperty(SHARED_CACHE_TTL_MILLIS_PROPERTY)).thenReturn("60000");
+        when(session.getDescriptor(any(Class.class))).thenReturn(mock(ClassDescriptor.class));
+        when(session.getDescriptor(GatewayAccountEntity.class)).thenReturn(gatewayAccountDescriptor);
+        when(session.getDescriptor(CardTypeEntity.class)).thenReturn(cardTypeDescriptor);
+
+        customiser.customize(session);
+
+        for (ClassDescriptor descriptor : new ClassDescriptor[]{gatewayAccountDescriptor, cardTypeDescriptor}) {
+            verify(descriptor).setCacheIsolation(CacheIsolationType.SHARED);
+            verify(descriptor).useCacheIdentityMap();
+            verify(descriptor).setIdentityMapSize(500);
+            ArgumentCaptor<TimeToLiveCacheInvalidationPolicy> policy = ArgumentCaptor.forClass(TimeToLiveCacheInvalidationPolicy.class);
+            verify(descriptor).setCacheInvalidationPolicy(policy.capture());
+            assertThat(policy.getValue().getTimeToLive(), is(60000L));
+        }
+    }
+
+    @Test
+    public void shouldLeaveEntitiesIsolatedWhenSharedCacheIsNotConfigured() {
+        customiser.customize(session);
+
+        verify(session, never()).getDescriptor(any(Class.class));
+    }
+}
@@ -13,6 +13,8 @@ class IpAddressMatcherTest {
     private static final Set<String> ALLOWED_IP_ADDRESSES = CidrUtils.getIpAddresses(
             Set.of("9.9.9.9/32", "1.2.3.0/24", "3.6.9.12/32"));
 
+    private static final CidrTrie ALLOWED_CIDRS = CidrTrie.of(Set.of("9.9.9.9/32", "1.2.3.0/24", "2001:db8::/32"));
+
     private IpAddressMatcher ipAddressMatcher = new IpAddressMatcher(new InetAddressValidator());
 
     @Test
@@ -60,11 +62,34 @@ class IpAddressMatcherTest {
 
     @Test
     void shouldReturnFalseWhenListOfAllowedIpAddressesIsNull() {
-        assertFalse(ipAddressMatcher.isMatch("1.2.3.4, 102.106.2.1", null));
+        assertFalse(ipAddressMatcher.isMatch("1.2.3.4, 102.106.2.1", (Set<String>) null));
     }
 
     @Test
     void shouldReturnFalseWhenListOfAllowedIpAddressesIsEmpty() {
         assertFalse(ipAddressMatcher.isMatch("1.2.3.4, 102.106.2.1", Collections.emptySet()));
     }
+
+    @Test
+    void shouldReturnTrueWhenFirstOfForwardedIpAddressesIsInAllowedCidrs() {
+        assertTrue(ipAddressMatcher.isMatch("1.2.3.4, 102.106.2.1", ALLOWED_CIDRS));
+        assertTrue(ipAddressMatcher.isMatch("2001:db8::1, 102.106.2.1", ALLOWED_CIDRS));
+    }
+
+    @Test
+    void shouldReturnFalseWhenFirstOfForwardedIpAddressesIsNotInAllowedCidrs() {
+        assertFalse(ipAddressMatcher.isMatch("102.106.2.1, 1.2.3.4", ALLOWED_CIDRS));
+    }
+
+    @Test
+    void shouldReturnFalseWhenForwardedIpAddressIsNullOrInBadFormatForAllowedCidrs() {
+        assertFalse(ipAddressMatcher.isMatch(null, ALLOWED_CIDRS));
+        assertFalse(ipAddressMatcher.isMatch("", ALLOWED_CIDRS));
+        assertFalse(ipAddressMatcher.isMatch("1.2.x.1", ALLOWED_CIDRS));
+    }
+
+    @Test
+    void shouldReturnFalseWhenAllowedCidrsAreNull() {
+        assertFalse(ipAddressMatcher.isMatch("1.2.3.4", (CidrTrie) null));
+    }
 }
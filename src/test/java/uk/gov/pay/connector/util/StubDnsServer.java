@@ -0,0 +1,138 @@
+package uk.gov.pay.connector.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A DNS server on a local UDP port that answers PTR queries from a map of reverse names to host names, answering
+ * NXDOMAIN for anything else, after an optional delay.
+ */
+public class StubDnsServer implements AutoCloseable {
+
+    private static final int HEADER_LENGTH = 12;
+    private static final int TYPE_PTR = 12;
+    private static final int CLASS_IN = 1;
+
+    private final Map<String, String> hostsByReverseName = new ConcurrentHashMap<>();
+    private final AtomicInteger queryCount = new AtomicInteger();
+    private final ExecutorService responders = Executors.newCachedThreadPool();
+    private final DatagramSocket socket;
+    private volatile long delayInMillis;
+
+    public StubDnsServer() throws SocketException {
+        socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        Thread listener = new Thread(this::listen, "stub-dns-server");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    public String getUrl() {
+        return "dns://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + socket.getLocalPort();
+    }
+
+    public void addPointerRecord(String ipAddress, String host) {
+        hostsByReverseName.put(new DnsPointerResourceRecord(ipAddress).getReverseIp(), host);
+    }
+
+    public void setDelayInMillis(long delayInMillis) {
+        this.delayInMillis = delayInMillis;
+    }
+
+    public int getQueryCount() {
+        return queryCount.get();
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+        responders.shutdownNow();
+    }
+
+    private void listen() {
+        while (!socket.isClosed()) {
+            DatagramPacket request = new DatagramPacket(new byte[512], 512);
+            try {
+                socket.receive(request);
+            } catch (IOException e) {
+                return;
+            }
+            queryCount.incrementAndGet();
+            byte[] query = Arrays.copyOf(request.getData(), request.getLength());
+            responders.execute(() -> respond(query, request));
+        }
+    }
+
+    private void respond(byte[] query, DatagramPacket request) {
+        try {
+            Thread.sleep(delayInMillis);
+            byte[] response = answer(query);
+            socket.send(new DatagramPacket(response, response.length, request.getAddress(), request.getPort()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private byte[] answer(byte[] query) {
+        StringBuilder name = new StringBuilder();
+        int position = HEADER_LENGTH;
+        while (query[position] != 0) {
+            int labelLength = query[position];
+            if (name.length() > 0) {
+                name.append('.');
+            }
+            name.append(new String(query, position + 1, labelLength));
+            position += labelLength + 1;
+        }
+        int questionEnd = position + 5;
+        int type = ((query[position + 1] & 0xff) << 8) | (query[position + 2] & 0xff);
+        String host = type == TYPE_PTR ? hostsByReverseName.get(name.toString()) : null;
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        response.write(query[0]);
+        response.write(query[1]);
+        writeShort(response, host == null ? 0x8183 : 0x8180);
+        writeShort(response, 1);
+        writeShort(response, host == null ? 0 : 1);
+        writeShort(response, 0);
+        writeShort(response, 0);
+        response.write(query, HEADER_LENGTH, questionEnd - HEADER_LENGTH);
+
+        if (host != null) {
+            byte[] encodedHost = encodeName(host);
+            writeShort(response, 0xc000 | HEADER_LENGTH);
+            writeShort(response, TYPE_PTR);
+            writeShort(response, CLASS_IN);
+            writeShort(response, 0);
+            writeShort(response, 60);
+            writeShort(response, encodedHost.length);
+            response.write(encodedHost, 0, encodedHost.length);
+        }
+        return response.toByteArray();
+    }
+
+    private static byte[] encodeName(String name) {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        for (String label : name.split("\\.")) {
+            encoded.write(label.length());
+            encoded.write(label.getBytes(), 0, label.length());
+        }
+        encoded.write(0);
+        return encoded.toByteArray();
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
@@ -91,6 +91,20 @@ public class XMLUnmarshallerSecurityTest {
         XMLUnmarshaller.unmarshall(xmlData, XMLUnmarshallingAttackTest.class);
     }
 
+    @Test
+    public void shouldKeepProtectionsForPooledReaders_whenUnmarshallingRepeatedly() throws Exception {
+
+        String xmlData = "<!DOCTYPE foo [" +
+                "<!ENTITY mrdanger SYSTEM \"file:///boot.ini\" >" +
+                "]> " +
+                "<foo>&mrdanger;</foo>";
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(XMLUnmarshaller.unmarshall("<foo>hola</foo>", XMLUnmarshallingAttackTest.class).getValue(), is("hola"));
+            assertThat(XMLUnmarshaller.unmarshall(xmlData, XMLUnmarshallingAttackTest.class).getValue(), is(""));
+        }
+    }
+
     private Matcher<Throwable> unmarshalExceptionWithLinkedSAXParseException(final String expectedMessage) {
         return new TypeSafeMatcher<Throwable>() {
             @Override
@@ -152,6 +152,28 @@ class ApplePayDecrypterTest {
         assertThat(result.getTransactionAmount(), is(88888L));
     }
 
+    @Test
+    void shouldDecrypt_repeatedly_payloadsEncryptedWithOurPrimaryAndSecondaryPublicKeysInTurn() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+        for (long amount = 1; amount <= 4; amount++) {
+            String paymentDataToEncryptAsJson = objectMapper.writeValueAsString(
+                    anApplePayDecryptedPaymentData().withAmount(amount).build());
+            String publicCertificate = amount % 2 == 0 ? ENCODED_SECONDARY_PUBLIC_CERTIFICATE : ENCODED_PRIMARY_PUBLIC_CERTIFICATE;
+
+            KeyPair ephemeralKeyPair = createEphemeralKeyPair();
+            ApplePayAuthRequest authRequest = anApplePayToken()
+                    .withData(encryptPayload(paymentDataToEncryptAsJson, ephemeralKeyPair.getPrivate(), publicCertificate))
+                    .withEphemeralPublicKey(Base64.getEncoder().encodeToString(ephemeralKeyPair.getPublic().getEncoded()))
+                    .build();
+
+            assertThat(applePayDecrypter.performDecryptOperation(authRequest).getTransactionAmount(), is(amount));
+        }
+    }
+
     @Test
     void should_decrypt_data_when_primary_private_key_and_public_certificate_are_valid() {
         assertApplePayAuthRequest(applePayDecrypter.performDecryptOperation(applePayAuthRequest));